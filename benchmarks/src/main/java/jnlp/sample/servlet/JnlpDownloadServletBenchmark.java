@@ -0,0 +1,212 @@
+package jnlp.sample.servlet;
+
+import net.adoptopenjdk.icedteaweb.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of the {@link JnlpDownloadServlet}: many threads requesting versioned jars, non-existent
+ * versions and JNLP files from a Web Archive with many versioned resources. No servlet container is
+ * involved, requests and responses are minimal in-memory fakes. Use {@code -t} to change the number
+ * of concurrent requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class JnlpDownloadServletBenchmark {
+
+    private static final int RESOURCES = 100;
+    private static final int VERSIONS = 10;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private File webapp;
+    private JnlpDownloadServlet servlet;
+
+    @Setup
+    public void setUp() throws Exception {
+        webapp = Files.createTempDirectory("itw-servlet-benchmark").toFile();
+        final File lib = new File(webapp, "lib");
+        Files.createDirectories(lib.toPath());
+        final byte[] content = new byte[4096];
+        for (int r = 0; r < RESOURCES; r++) {
+            for (int v = 0; v < VERSIONS; v++) {
+                Files.write(new File(lib, "component-" + r + "__V1." + v + ".jar").toPath(), content);
+            }
+        }
+        final String jnlp = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<jnlp spec=\"1.0+\" codebase=\"$$codebase\" href=\"$$name\">\n"
+                + "  <information><title>Servlet Benchmark</title><vendor>$$hostname</vendor></information>\n"
+                + "  <resources><jar href=\"lib/component-0.jar\" version=\"1.0+\"/></resources>\n"
+                + "  <application-desc main-class=\"com.example.Main\"/>\n"
+                + "</jnlp>\n";
+        Files.write(new File(webapp, "launch.jnlp").toPath(), jnlp.getBytes(StandardCharsets.UTF_8));
+
+        final ServletContext context = (ServletContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ServletContext.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getRealPath":
+                            return new File(webapp, (String) args[0]).getPath();
+                        case "getResource":
+                            final File file = new File(webapp, (String) args[0]);
+                            return file.exists() ? file.toURI().toURL() : null;
+                        default:
+                            return null;
+                    }
+                });
+        final ServletConfig config = (ServletConfig) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ServletConfig.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getServletContext":
+                            return context;
+                        case "getServletName":
+                            return "JnlpDownloadServlet";
+                        case "getInitParameterNames":
+                            return Collections.emptyEnumeration();
+                        default:
+                            return null;
+                    }
+                });
+        servlet = new JnlpDownloadServlet();
+        servlet.init(config);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        servlet.destroy();
+        FileUtils.recursiveDelete(webapp, webapp);
+    }
+
+    @Benchmark
+    public int versionedJar() throws Exception {
+        final int i = counter.incrementAndGet();
+        return get("/lib/component-" + (i % RESOURCES) + ".jar", "1." + (i % VERSIONS));
+    }
+
+    @Benchmark
+    public int latestVersionedJar() throws Exception {
+        return get("/lib/component-" + (counter.incrementAndGet() % RESOURCES) + ".jar", "1.0+");
+    }
+
+    @Benchmark
+    public int missingVersion() throws Exception {
+        return get("/lib/component-" + (counter.incrementAndGet() % RESOURCES) + ".jar", "2.0");
+    }
+
+    @Benchmark
+    public int jnlpFile() throws Exception {
+        return get("/launch.jnlp", null);
+    }
+
+    private int get(final String path, final String version) throws Exception {
+        final Map<String, String> parameters = new HashMap<>();
+        if (version != null) {
+            parameters.put("version-id", version);
+        }
+        final HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getRequestURI":
+                            return "/app" + path;
+                        case "getContextPath":
+                            return "/app";
+                        case "getScheme":
+                            return "http";
+                        case "getServerName":
+                            return "localhost";
+                        case "getServerPort":
+                            return 8080;
+                        case "getParameter":
+                            return parameters.get(args[0]);
+                        case "getDateHeader":
+                            return -1L;
+                        default:
+                            return null;
+                    }
+                });
+        final int[] result = new int[]{HttpServletResponse.SC_OK, 0};
+        final ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public void write(final int b) {
+                result[1]++;
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+                result[1] += len;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(final WriteListener writeListener) {
+            }
+        };
+        final HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setStatus":
+                        case "sendError":
+                            result[0] = (Integer) args[0];
+                            return null;
+                        case "getOutputStream":
+                            return out;
+                        case "getWriter":
+                            return new PrintWriter(new Writer() {
+                                @Override
+                                public void write(final char[] buffer, final int off, final int len) {
+                                    result[1] += len;
+                                }
+
+                                @Override
+                                public void flush() {
+                                }
+
+                                @Override
+                                public void close() {
+                                }
+                            });
+                        default:
+                            return null;
+                    }
+                });
+        servlet.doGet(request, response);
+        return result[0] + result[1];
+    }
+}
@@ -0,0 +1,44 @@
+package net.adoptopenjdk.icedteaweb.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes the results as JSON so runs of different revisions can be compared,
+ * e.g. with <a href="https://jmh.morethan.io">JMH Visualizer</a>.
+ * <p>
+ * Usage: {@code java -jar benchmarks/target/benchmarks.jar [result-file] [include-regex...]}
+ * <p>
+ * For the full set of JMH options use {@code java -cp benchmarks/target/benchmarks.jar org.openjdk.jmh.Main -h}.
+ */
+public final class BenchmarkRunner {
+
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {
+        // do not instantiate
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        final String resultFile = args.length > 0 ? args[0] : DEFAULT_RESULT_FILE;
+
+        final ChainedOptionsBuilder options = new OptionsBuilder()
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile);
+        if (args.length > 1) {
+            for (int i = 1; i < args.length; i++) {
+                options.include(args[i]);
+            }
+        } else {
+            options.include("net\\.adoptopenjdk\\.icedteaweb\\..*Benchmark");
+            options.include("net\\.sourceforge\\.jnlp\\..*Benchmark");
+            options.include("jnlp\\.sample\\..*Benchmark");
+        }
+
+        new Runner(options.build()).run();
+        System.out.println("Results written to " + resultFile);
+    }
+}
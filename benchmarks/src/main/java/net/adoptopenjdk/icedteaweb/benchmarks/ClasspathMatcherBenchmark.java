@@ -0,0 +1,72 @@
+package net.adoptopenjdk.icedteaweb.benchmarks;
+
+import net.sourceforge.jnlp.util.ClasspathMatcher.ClasspathMatchers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching of URLs against the {@code Caller-Allowable-Codebase} and
+ * {@code Application-Library-Allowable-Codebase} manifest attributes. The {@code Regex} variants
+ * evaluate the regular expressions of each entry one after another for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClasspathMatcherBenchmark {
+
+    @Param({"5", "50", "500"})
+    public int entries;
+
+    private String attribute;
+    private ClasspathMatchers matchers;
+    private URL matching;
+    private URL notMatching;
+
+    @Setup
+    public void setUp() throws Exception {
+        attribute = Fixtures.allowableCodebases(entries);
+        matchers = ClasspathMatchers.compile(attribute);
+        matching = new URL("http://www.intranet2.example.org:8080/app/lib/component.jar");
+        notMatching = new URL("https://unknown.example.invalid/app/lib/component.jar");
+    }
+
+    @Benchmark
+    public ClasspathMatchers compile() {
+        return ClasspathMatchers.compile(attribute);
+    }
+
+    @Benchmark
+    public boolean matchHit() {
+        return matchers.matches(matching);
+    }
+
+    @Benchmark
+    public boolean matchMiss() {
+        return matchers.matches(notMatching);
+    }
+
+    @Benchmark
+    public boolean matchHitRegex() {
+        return matchers.matchesSequentially(matching);
+    }
+
+    @Benchmark
+    public boolean matchMissRegex() {
+        return matchers.matchesSequentially(notMatching);
+    }
+}
@@ -0,0 +1,167 @@
+package net.adoptopenjdk.icedteaweb.benchmarks;
+
+import net.adoptopenjdk.icedteaweb.io.IOUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generators for realistic benchmark input data. All generators are deterministic so results of
+ * different runs stay comparable.
+ */
+public final class Fixtures {
+
+    public static final String CODEBASE = "https://apps.example.com/deploy/";
+
+    private static final long SEED = 4711L;
+
+    private Fixtures() {
+        // do not instantiate
+    }
+
+    /**
+     * @return the content of a bundled, hand written JNLP file
+     */
+    public static byte[] realJnlp() throws IOException {
+        try (InputStream in = Fixtures.class.getResourceAsStream("application.jnlp")) {
+            return IOUtils.readContent(in);
+        }
+    }
+
+    /**
+     * Generates a JNLP file similar to those of large enterprise applications.
+     *
+     * @param jars       number of jar elements
+     * @param properties number of property elements
+     * @return the UTF-8 encoded JNLP
+     */
+    public static byte[] largeJnlp(final int jars, final int properties) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<!-- generated by the IcedTea-Web benchmarks -->\n");
+        sb.append("<jnlp spec=\"1.0+\" codebase=\"").append(CODEBASE).append("\" href=\"application.jnlp\">\n");
+        sb.append("  <information>\n");
+        sb.append("    <title>Generated Application</title>\n");
+        sb.append("    <vendor>IcedTea-Web</vendor>\n");
+        sb.append("    <homepage href=\"https://apps.example.com/\"/>\n");
+        sb.append("    <description>Generated application with ").append(jars).append(" jars</description>\n");
+        sb.append("    <icon href=\"icon.png\"/>\n");
+        sb.append("    <offline-allowed/>\n");
+        sb.append("  </information>\n");
+        sb.append("  <security>\n    <all-permissions/>\n  </security>\n");
+        sb.append("  <resources>\n");
+        sb.append("    <j2se version=\"1.8+\" initial-heap-size=\"256m\" max-heap-size=\"1024m\"/>\n");
+        for (int i = 0; i < jars; i++) {
+            sb.append("    <jar href=\"lib/component-").append(i).append(".jar\" version=\"2.").append(i % 10).append(".").append(i)
+                    .append("\"").append(i == 0 ? " main=\"true\"" : "").append(i % 3 == 0 ? " download=\"lazy\" part=\"part" + (i % 7) + "\"" : "")
+                    .append("/>\n");
+            if (i % 25 == 0) {
+                sb.append("    <!-- component group ").append(i / 25).append(" -->\n");
+            }
+        }
+        for (int i = 0; i < properties; i++) {
+            sb.append("    <property name=\"jnlp.app.setting.").append(i).append("\" value=\"value &amp; ").append(i).append("\"/>\n");
+        }
+        sb.append("  </resources>\n");
+        sb.append("  <application-desc main-class=\"com.example.Main\">\n");
+        sb.append("    <argument>--mode=production</argument>\n");
+        sb.append("  </application-desc>\n");
+        sb.append("</jnlp>\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param count number of URLs
+     * @return distinct jar URLs spread over a few hosts
+     */
+    public static List<URL> jarUrls(final int count) throws MalformedURLException {
+        final List<URL> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(new URL("https://host" + (i % 5) + ".example.com:8443/deploy/./lib/../lib/component-" + i + ".jar"));
+        }
+        return result;
+    }
+
+    /**
+     * @param count number of entries
+     * @return space separated list as used in the Caller-Allowable-Codebase and Application-Library-Allowable-Codebase attributes
+     */
+    public static String allowableCodebases(final int count) {
+        final Random random = new Random(SEED);
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    sb.append("*.dept").append(i).append(".example.com");
+                    break;
+                case 1:
+                    sb.append("https://app").append(i).append(".example.com:").append(8000 + i);
+                    break;
+                case 2:
+                    sb.append("http://*.intranet").append(i).append(".example.org:*");
+                    break;
+                default:
+                    sb.append("host").append(i).append(".example.net");
+            }
+            sb.append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * @param count number of version ids
+     * @return version ids in the formats found in real jnlp files
+     */
+    public static String[] versionIds(final int count) {
+        final Random random = new Random(SEED);
+        final String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = random.nextInt(3) + "." + random.nextInt(20) + "." + random.nextInt(100)
+                    + (random.nextBoolean() ? "" : "-b" + random.nextInt(50));
+        }
+        return result;
+    }
+
+    /**
+     * Generates the class file of a public class without members, so benchmarks can define
+     * application classes without compiling them.
+     *
+     * @param className binary name of the class, e.g. {@code com.example.Main}
+     * @return the class file in the Java 8 format
+     */
+    public static byte[] emptyClass(final String className) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0); // minor version
+            out.writeShort(52); // major version
+            out.writeShort(5); // constant pool count
+            out.writeByte(7); // #1 class #2
+            out.writeShort(2);
+            out.writeByte(1); // #2 utf8
+            out.writeUTF(className.replace('.', '/'));
+            out.writeByte(7); // #3 class #4
+            out.writeShort(4);
+            out.writeByte(1); // #4 utf8
+            out.writeUTF("java/lang/Object");
+            out.writeShort(0x0021); // public super
+            out.writeShort(1); // this class
+            out.writeShort(3); // super class
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+            out.writeShort(0); // methods
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
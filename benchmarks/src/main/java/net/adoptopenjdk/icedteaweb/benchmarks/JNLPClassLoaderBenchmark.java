@@ -0,0 +1,193 @@
+package net.adoptopenjdk.icedteaweb.benchmarks;
+
+import net.adoptopenjdk.icedteaweb.client.parts.dialogs.security.appletextendedsecurity.AppletSecurityLevel;
+import net.adoptopenjdk.icedteaweb.io.FileUtils;
+import net.adoptopenjdk.icedteaweb.resources.UpdatePolicy;
+import net.sourceforge.jnlp.JNLPFile;
+import net.sourceforge.jnlp.ParserSettings;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.config.PathsAndFiles;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+import net.sourceforge.jnlp.runtime.classloader.JNLPClassLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Class and resource lookups through the {@link JNLPClassLoader} of an application consisting of
+ * many unsigned local jars. Jars are generated into a temporary codebase so no network is involved.
+ * <p>
+ * The user home is redirected to a temporary directory as well, so neither the configuration nor
+ * the cache of the user are read or changed. Each fork runs a single benchmark, so this happens
+ * before anything reads the configuration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JNLPClassLoaderBenchmark {
+
+    private static final int RESOURCES_PER_JAR = 20;
+
+    @Param({"10", "50"})
+    public int jars;
+
+    private File workDir;
+    private JNLPFile jnlpFile;
+    private JNLPClassLoader classLoader;
+    private String lastResource;
+    private String lastClass;
+
+    @Setup
+    public void setUp() throws Exception {
+        JNLPRuntime.setHeadless(true);
+
+        workDir = Files.createTempDirectory("itw-benchmark").toFile();
+        final File home = new File(workDir, "home");
+        System.setProperty("user.home", home.getAbsolutePath());
+        final File config = new File(PathsAndFiles.USER_DEPLOYMENT_FILE.getDefaultFullPath());
+        if (!config.toPath().startsWith(home.toPath())) {
+            throw new IllegalStateException("Unset " + ConfigurationConstants.XDG_CONFIG_HOME_VAR + " to keep the benchmark from reading the user configuration");
+        }
+        Files.createDirectories(config.getParentFile().toPath());
+        Files.createFile(config.toPath());
+        PathsAndFiles.CACHE_DIR.setValue(new File(workDir, "cache").getAbsolutePath());
+
+        JNLPRuntime.getConfiguration().setProperty(ConfigurationConstants.KEY_SECURITY_LEVEL, AppletSecurityLevel.ALLOW_UNSIGNED.toChars());
+        JNLPRuntime.getConfiguration().setProperty(ConfigurationConstants.KEY_SECURITY_PROMPT_USER, Boolean.toString(false));
+        JNLPRuntime.getConfiguration().setProperty(ConfigurationConstants.KEY_ENABLE_MANIFEST_ATTRIBUTES_CHECK, "NONE");
+
+        final File codebase = new File(workDir, "codebase");
+        Files.createDirectories(codebase.toPath());
+        // with an explicit host as the sandbox permissions are derived from the codebase host
+        final URL codebaseUrl = new URL("file", "localhost", codebase.getAbsolutePath() + "/");
+        final StringBuilder jnlp = new StringBuilder();
+        jnlp.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        jnlp.append("<jnlp spec=\"1.0+\" codebase=\"").append(codebaseUrl).append("\">\n");
+        jnlp.append("  <information><title>Class Loader Benchmark</title><vendor>IcedTea-Web</vendor></information>\n");
+        jnlp.append("  <resources>\n");
+        for (int i = 0; i < jars; i++) {
+            writeJar(new File(codebase, "component-" + i + ".jar"), i);
+            jnlp.append("    <jar href=\"component-").append(i).append(".jar\"").append(i == 0 ? " main=\"true\"" : "").append("/>\n");
+        }
+        jnlp.append("  </resources>\n");
+        jnlp.append("  <application-desc main-class=\"com.example.Main\"/>\n");
+        jnlp.append("</jnlp>\n");
+
+        jnlpFile = new JNLPFile(new ByteArrayInputStream(jnlp.toString().getBytes(StandardCharsets.UTF_8)),
+                codebaseUrl, new ParserSettings());
+        classLoader = new JNLPClassLoader(jnlpFile, UpdatePolicy.ALWAYS);
+        lastResource = resourceName(jars - 1, RESOURCES_PER_JAR - 1);
+        lastClass = className(jars - 1);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        classLoader.close();
+        FileUtils.recursiveDelete(workDir, workDir.getParentFile());
+    }
+
+    /**
+     * A class loader of the application which has not loaded any class yet, so the application class
+     * is really searched and defined and not just taken from the loaded classes.
+     */
+    @State(Scope.Thread)
+    public static class FreshClassLoader {
+
+        private JNLPClassLoader classLoader;
+
+        @Setup(Level.Invocation)
+        public void setUp(final JNLPClassLoaderBenchmark benchmark) throws Exception {
+            classLoader = new JNLPClassLoader(benchmark.jnlpFile, UpdatePolicy.ALWAYS);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            classLoader.close();
+        }
+    }
+
+    @Benchmark
+    public URL findResourceInFirstJar() {
+        return classLoader.getResource(resourceName(0, 0));
+    }
+
+    @Benchmark
+    public URL findResourceInLastJar() {
+        return classLoader.getResource(lastResource);
+    }
+
+    @Benchmark
+    public URL findMissingResource() {
+        return classLoader.getResource("com/example/missing.properties");
+    }
+
+    @Benchmark
+    public Class<?> loadApplicationClassFromFirstJar(final FreshClassLoader fresh) throws ClassNotFoundException {
+        return fresh.classLoader.loadClass(className(0));
+    }
+
+    @Benchmark
+    public Class<?> loadApplicationClassFromLastJar(final FreshClassLoader fresh) throws ClassNotFoundException {
+        return fresh.classLoader.loadClass(lastClass);
+    }
+
+    @Benchmark
+    public Class<?> loadParentClass() throws ClassNotFoundException {
+        return classLoader.loadClass("java.util.ArrayList");
+    }
+
+    @Benchmark
+    public boolean loadMissingClass() {
+        try {
+            classLoader.loadClass("com.example.Missing");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static String resourceName(final int jar, final int resource) {
+        return "com/example/component" + jar + "/resource-" + resource + ".properties";
+    }
+
+    private static String className(final int jar) {
+        return "com.example.component" + jar + ".Component";
+    }
+
+    private static void writeJar(final File file, final int jar) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new JarEntry(className(jar).replace('.', '/') + ".class"));
+            out.write(Fixtures.emptyClass(className(jar)));
+            out.closeEntry();
+            for (int i = 0; i < RESOURCES_PER_JAR; i++) {
+                out.putNextEntry(new JarEntry(resourceName(jar, i)));
+                out.write(("key=value " + i).getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package net.adoptopenjdk.icedteaweb.benchmarks;
+
+import net.sourceforge.jnlp.JNLPMatcher;
+import net.sourceforge.jnlp.ParserSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verification of a launching JNLP file against the signed {@code APPLICATION.JNLP} or
+ * {@code APPLICATION_TEMPLATE.JNLP} of a large generated application. The signed file lists the
+ * resources in reverse order, which is allowed and the worst case for pairing children.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JNLPMatcherBenchmark {
+
+    @Param({"application", "template"})
+    public String signed;
+
+    @Param({"100", "1000"})
+    public int jars;
+
+    private byte[] launchJnlp;
+    private byte[] signedJnlp;
+    private ParserSettings settings;
+
+    @Setup
+    public void setUp() {
+        launchJnlp = Fixtures.largeJnlp(jars, jars / 2);
+        String content = reverseResources(new String(launchJnlp, StandardCharsets.UTF_8));
+        if ("template".equals(signed)) {
+            content = content.replace("codebase=\"" + Fixtures.CODEBASE + "\"", "codebase=\"*\"")
+                    .replace("<title>Generated Application</title>", "<title>*</title>");
+        }
+        signedJnlp = content.getBytes(StandardCharsets.UTF_8);
+        settings = new ParserSettings(false, true, false);
+    }
+
+    @Benchmark
+    public boolean match() throws Exception {
+        final JNLPMatcher matcher = new JNLPMatcher(new ByteArrayInputStream(signedJnlp), new ByteArrayInputStream(launchJnlp),
+                "template".equals(signed), settings);
+        if (!matcher.isMatch()) {
+            throw new IllegalStateException("signed JNLP does not match");
+        }
+        return true;
+    }
+
+    private static String reverseResources(final String jnlp) {
+        final int start = jnlp.indexOf("<resources>") + "<resources>".length();
+        final int end = jnlp.indexOf("</resources>");
+        final List<String> lines = new ArrayList<>();
+        Collections.addAll(lines, jnlp.substring(start, end).split("\n"));
+        Collections.reverse(lines);
+        return jnlp.substring(0, start) + String.join("\n", lines) + jnlp.substring(end);
+    }
+}
@@ -0,0 +1,53 @@
+package net.adoptopenjdk.icedteaweb.benchmarks;
+
+import net.sourceforge.jnlp.JNLPFile;
+import net.sourceforge.jnlp.ParserSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Complete JNLP parsing from bytes to a {@link JNLPFile} as done for every launch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JnlpParserBenchmark {
+
+    @Param({"real", "large"})
+    public String document;
+
+    @Param({"true", "false"})
+    public boolean malformedXmlAllowed;
+
+    private byte[] content;
+    private URL codebase;
+    private ParserSettings settings;
+
+    @Setup
+    public void setUp() throws Exception {
+        content = "real".equals(document) ? Fixtures.realJnlp() : Fixtures.largeJnlp(500, 200);
+        codebase = new URL(Fixtures.CODEBASE);
+        settings = new ParserSettings(false, true, malformedXmlAllowed);
+    }
+
+    @Benchmark
+    public JNLPFile parse() throws Exception {
+        return new JNLPFile(new ByteArrayInputStream(content), codebase, settings);
+    }
+}
@@ -0,0 +1,56 @@
+package net.adoptopenjdk.icedteaweb.benchmarks;
+
+import net.sourceforge.jnlp.util.UrlUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * URL normalization and comparison which is done for every resource and every cache lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlUtilsBenchmark {
+
+    private static final int URLS = 100;
+
+    private List<URL> urls;
+    private List<URL> normalized;
+
+    @Setup
+    public void setUp() throws Exception {
+        urls = Fixtures.jarUrls(URLS);
+        normalized = Fixtures.jarUrls(URLS);
+        normalized.replaceAll(UrlUtils::normalizeUrlQuietly);
+    }
+
+    @Benchmark
+    public void normalizeUrl(final Blackhole blackhole) throws Exception {
+        for (URL url : urls) {
+            blackhole.consume(UrlUtils.normalizeUrl(url));
+        }
+    }
+
+    @Benchmark
+    public void urlEquals(final Blackhole blackhole) {
+        for (int i = 0; i < URLS; i++) {
+            blackhole.consume(UrlUtils.urlEquals(urls.get(i), normalized.get(i)));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package net.adoptopenjdk.icedteaweb.benchmarks;
+
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionId;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionIdComparator;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Version matching as done for every versioned resource lookup in the cache and the download servlet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionBenchmark {
+
+    @Param({"100", "1000"})
+    public int versions;
+
+    private String[] versionIdStrings;
+    private VersionId[] versionIds;
+    private VersionString versionString;
+
+    @Setup
+    public void setUp() {
+        versionIdStrings = Fixtures.versionIds(versions);
+        versionIds = Arrays.stream(versionIdStrings).map(VersionId::fromString).toArray(VersionId[]::new);
+        versionString = VersionString.fromString("1.2+ 1.5.3* 2.0.0-b12 1.0&1.1*");
+    }
+
+    @Benchmark
+    public void parseVersionString(final Blackhole blackhole) {
+        blackhole.consume(VersionString.fromString("1.2+ 1.5.3* 2.0.0-b12 1.0&1.1*"));
+    }
+
+    @Benchmark
+    public void containsParsedVersionIds(final Blackhole blackhole) {
+        for (VersionId versionId : versionIds) {
+            blackhole.consume(versionString.contains(versionId));
+        }
+    }
+
+    @Benchmark
+    public void containsVersionIdStrings(final Blackhole blackhole) {
+        for (String versionId : versionIdStrings) {
+            blackhole.consume(versionString.contains(versionId));
+        }
+    }
+
+    @Benchmark
+    public VersionId[] sortByPreference() {
+        final VersionId[] copy = versionIds.clone();
+        Arrays.sort(copy, new VersionIdComparator(versionString));
+        return copy;
+    }
+}
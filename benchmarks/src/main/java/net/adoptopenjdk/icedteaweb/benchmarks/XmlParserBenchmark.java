@@ -0,0 +1,66 @@
+package net.adoptopenjdk.icedteaweb.benchmarks;
+
+import net.adoptopenjdk.icedteaweb.xmlparser.Node;
+import net.adoptopenjdk.icedteaweb.xmlparser.ParserType;
+import net.adoptopenjdk.icedteaweb.xmlparser.XMLElement;
+import net.adoptopenjdk.icedteaweb.xmlparser.XmlParserFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The raw XML layer below the JNLP parser: the tokenizer and both the strict and the malformed parser.
+ * The {@code huge} document (about a megabyte) shows whether parsing stays linear in the input size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmlParserBenchmark {
+
+    @Param({"real", "large", "huge"})
+    public String document;
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() throws Exception {
+        if ("real".equals(document)) {
+            content = Fixtures.realJnlp();
+        } else {
+            content = "large".equals(document) ? Fixtures.largeJnlp(500, 200) : Fixtures.largeJnlp(5000, 2000);
+        }
+    }
+
+    @Benchmark
+    public XMLElement tokenize() throws Exception {
+        final XMLElement element = new XMLElement();
+        element.parseFromReader(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8));
+        return element;
+    }
+
+    @Benchmark
+    public Node parseNormal() throws Exception {
+        return XmlParserFactory.getParser(ParserType.NORMAL).getRootNode(new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public Node parseMalformed() throws Exception {
+        return XmlParserFactory.getParser(ParserType.MALFORMED).getRootNode(new ByteArrayInputStream(content));
+    }
+}
@@ -0,0 +1,98 @@
+package net.adoptopenjdk.icedteaweb.resources.cache;
+
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionId;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.sourceforge.jnlp.util.PropertiesFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in the cache index with thousands of entries as found in long used installations.
+ * Lives in the package of the cache as the index is not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeastRecentlyUsedCacheIndexBenchmark {
+
+    private static final int VERSIONS_PER_RESOURCE = 5;
+
+    @Param({"1000", "10000"})
+    public int entries;
+
+    private File indexFile;
+    private LeastRecentlyUsedCacheIndex index;
+    private URL first;
+    private URL last;
+    private URL missing;
+    private VersionId firstVersion;
+    private VersionId lastVersion;
+
+    @Setup
+    public void setUp() throws Exception {
+        indexFile = File.createTempFile("itw-benchmark", ".index");
+        final List<LeastRecentlyUsedCacheEntry> list = new ArrayList<>(entries);
+        final int resources = entries / VERSIONS_PER_RESOURCE;
+        for (int i = 0; i < entries; i++) {
+            final URL href = resourceUrl(i % resources);
+            final VersionId version = VersionId.fromString("1." + (i / resources));
+            list.add(new LeastRecentlyUsedCacheEntry(Integer.toString(i), entries - i, href, version));
+        }
+        index = new LeastRecentlyUsedCacheIndex(new PropertiesFile(indexFile), list);
+        first = resourceUrl(0);
+        last = resourceUrl(resources - 1);
+        firstVersion = VersionId.fromString("1.0");
+        lastVersion = VersionId.fromString("1." + (VERSIONS_PER_RESOURCE - 1));
+        missing = new URL("https://missing.example.com/lib/missing.jar");
+    }
+
+    @TearDown
+    public void tearDown() {
+        indexFile.delete();
+    }
+
+    @Benchmark
+    public Optional<LeastRecentlyUsedCacheEntry> findMostRecent() {
+        return index.find(first, firstVersion);
+    }
+
+    @Benchmark
+    public Optional<LeastRecentlyUsedCacheEntry> findLeastRecent() {
+        return index.find(last, lastVersion);
+    }
+
+    @Benchmark
+    public Optional<LeastRecentlyUsedCacheEntry> findMissing() {
+        return index.find(missing, null);
+    }
+
+    @Benchmark
+    public Set<LeastRecentlyUsedCacheEntry> findAllVersions() {
+        return index.findAll(last, VersionString.fromString("1.2+"));
+    }
+
+    private static URL resourceUrl(final int i) throws Exception {
+        return new URL("https://host" + (i % 7) + ".example.com/deploy/lib/component-" + i + ".jar");
+    }
+}
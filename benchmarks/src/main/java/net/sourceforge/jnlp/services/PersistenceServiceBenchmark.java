@@ -0,0 +1,131 @@
+package net.sourceforge.jnlp.services;
+
+import net.adoptopenjdk.icedteaweb.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.jnlp.FileContents;
+import javax.jnlp.JNLPRandomAccessFile;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a muffin as an application uses it through the persistence service: reading and
+ * writing it primitive by primitive with its {@link JNLPRandomAccessFile}, and calling its
+ * {@link FileContents} through the privileged wrapper, and listing the names of many muffins from
+ * the index of the {@link MuffinStore}. A plain {@link RandomAccessFile} and listing the directory
+ * are the baselines. Lives in the package of the services as they are not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistenceServiceBenchmark {
+
+    private static final int INTS = 16 * 1024;
+    private static final int MUFFINS = 1000;
+
+    private File muffin;
+    private FileContents contents;
+    private File storeRoot;
+    private File storeDirectory;
+    private MuffinStore store;
+
+    @Setup
+    public void setUp() throws IOException {
+        muffin = File.createTempFile("itw-benchmark", ".muffin");
+        try (final RandomAccessFile raf = new RandomAccessFile(muffin, "rw")) {
+            raf.setLength(INTS * 4L);
+        }
+        contents = PrivilegedServices.wrap(new XFileContents(muffin));
+
+        storeRoot = Files.createTempDirectory("itw-benchmark").toFile();
+        storeDirectory = new File(storeRoot, "http/example.com/80/app");
+        store = new MuffinStore(storeRoot, -1);
+        for (int i = 0; i < MUFFINS; i++) {
+            store.create(new File(storeDirectory, "muffin" + i), 1024);
+        }
+        store.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        muffin.delete();
+        FileUtils.recursiveDelete(storeRoot, storeRoot);
+    }
+
+    @Benchmark
+    public long readInts() throws IOException {
+        final JNLPRandomAccessFile raf = contents.getRandomAccessFile("r");
+        try {
+            long sum = 0;
+            for (int i = 0; i < INTS; i++) {
+                sum += raf.readInt();
+            }
+            return sum;
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Benchmark
+    public long readIntsBaseline() throws IOException {
+        try (final RandomAccessFile raf = new RandomAccessFile(muffin, "r")) {
+            long sum = 0;
+            for (int i = 0; i < INTS; i++) {
+                sum += raf.readInt();
+            }
+            return sum;
+        }
+    }
+
+    @Benchmark
+    public void writeInts() throws IOException {
+        final JNLPRandomAccessFile raf = contents.getRandomAccessFile("rw");
+        try {
+            for (int i = 0; i < INTS; i++) {
+                raf.writeInt(i);
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Benchmark
+    public void writeIntsBaseline() throws IOException {
+        try (final RandomAccessFile raf = new RandomAccessFile(muffin, "rw")) {
+            for (int i = 0; i < INTS; i++) {
+                raf.writeInt(i);
+            }
+        }
+    }
+
+    @Benchmark
+    public String[] getNames() {
+        return store.getNames(storeDirectory);
+    }
+
+    @Benchmark
+    public String[] getNamesBaseline() {
+        return storeDirectory.list();
+    }
+
+    @Benchmark
+    public long fileContentsCalls() throws IOException {
+        return contents.getLength() + contents.getMaxLength();
+    }
+}
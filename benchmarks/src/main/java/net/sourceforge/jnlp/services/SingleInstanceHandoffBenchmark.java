@@ -0,0 +1,128 @@
+package net.sourceforge.jnlp.services;
+
+import net.adoptopenjdk.icedteaweb.os.UnixDomainSockets;
+import net.sourceforge.jnlp.JNLPFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.net.ServerSocket;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of handing the arguments of a relaunched single instance application over to the running
+ * instance: validating the lock file, connecting and sending the arguments, until the instance has
+ * read them.
+ * <ul>
+ * <li>{@code legacy-port}: a lock file with only a port, validated by trying to bind the port</li>
+ * <li>{@code port}: a lock file validated by the PID of the instance, which listens at a port</li>
+ * <li>{@code socket}: the same with a Unix domain socket, needs Java 16+</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SingleInstanceHandoffBenchmark {
+
+    private static final String[] ARGUMENTS = {"-open", "document.txt"};
+
+    @Param({"legacy-port", "port", "socket"})
+    public String channel;
+
+    private SingleInstanceLock lock;
+    private ServerSocket serverSocket;
+    private ServerSocketChannel serverChannel;
+    private final Object received = new Object();
+    private int receivedCount;
+
+    @Setup
+    public void setUp() throws IOException {
+        lock = new SingleInstanceLock(new JNLPFile() {
+        });
+        if ("socket".equals(channel)) {
+            final File socket = lock.getSocketFile();
+            serverChannel = UnixDomainSockets.bind(socket);
+            lock.create(0, socket);
+            startServer(() -> Channels.newInputStream(serverChannel.accept()));
+        } else {
+            serverSocket = new ServerSocket(0);
+            if ("port".equals(channel)) {
+                lock.create(serverSocket.getLocalPort(), null);
+            } else {
+                Files.write(lock.lockFile.toPath(), (serverSocket.getLocalPort() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            startServer(() -> serverSocket.accept().getInputStream());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (serverChannel != null) {
+            serverChannel.close();
+            lock.getSocketFile().delete();
+        }
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        lock.delete();
+    }
+
+    @Benchmark
+    public void handOver() throws Exception {
+        final int expected;
+        synchronized (received) {
+            expected = receivedCount + 1;
+        }
+        if (!lock.isValid()) {
+            throw new IllegalStateException("lock file not valid");
+        }
+        XSingleInstanceService.sendProgramArgumentsToExistingApplication(lock, ARGUMENTS);
+        synchronized (received) {
+            while (receivedCount < expected) {
+                received.wait();
+            }
+        }
+    }
+
+    private void startServer(final Connections connections) {
+        final Thread thread = new Thread(() -> {
+            while (true) {
+                try (InputStream in = connections.accept()) {
+                    new ObjectInputStream(in).readObject();
+                    synchronized (received) {
+                        receivedCount++;
+                        received.notifyAll();
+                    }
+                } catch (Exception e) {
+                    return;
+                }
+            }
+        }, "single-instance-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private interface Connections {
+        InputStream accept() throws IOException;
+    }
+}
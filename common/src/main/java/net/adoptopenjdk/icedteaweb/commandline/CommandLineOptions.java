@@ -12,6 +12,9 @@ public enum CommandLineOptions {
     VIEWER("-viewer", "BOViewer"),
     CLEARCACHE("-Xclearcache", "BXclearcache", NumberOfArguments.NONE_OR_ONE),
     LISTCACHEIDS("-Xcacheids", "BXcacheids", NumberOfArguments.NONE_OR_ONE),
+    SYSTEMCACHE("-Xsystemcache", "jnlp-url", "BXsystemcache", NumberOfArguments.ONE_OR_MORE),
+    PRELOAD("-Xpreload", "jnlp-url", "BXpreload", NumberOfArguments.ONE_OR_MORE),
+    DAEMON("-Xdaemon", "BXdaemon"),
     LICENSE("-license", "BOLicense"),
     HELP1("-help", "BOHelp1"),
     //javaws run-options
@@ -29,12 +32,14 @@ public enum CommandLineOptions {
     XML("-xml", "BOXml"),
     REDIRECT("-allowredirect", "BOredirect"),
     NOFORK("-Xnofork", "BXnofork"),
+    NODAEMON("-Xnodaemon", "BXnodaemon"),
     NOHEADERS("-Xignoreheaders", "BXignoreheaders"),
     OFFLINE("-Xoffline", "BXoffline"),
     TRUSTNONE("-Xtrustnone","BOTrustnone"),
     JNLP("-jnlp","BOJnlp", NumberOfArguments.ONE),
     BROWSER("-browser", "BrowserArg", NumberOfArguments.ONE_OR_MORE),
     NOSPLASH("-Xnosplash","BXNoSplash"),
+    TRACE("-Xtrace", "BXtrace"),
     //itweb settings
     LIST("-list", "IBOList"),
     GET("-get", "name", "IBOGet", NumberOfArguments.ONE_OR_MORE),
@@ -71,6 +71,9 @@ public class CommandLineOptionsDefinition {
                 CommandLineOptions.VIEWER,
                 CommandLineOptions.CLEARCACHE,
                 CommandLineOptions.LISTCACHEIDS,
+                CommandLineOptions.SYSTEMCACHE,
+                CommandLineOptions.PRELOAD,
+                CommandLineOptions.DAEMON,
                 CommandLineOptions.LICENSE,
                 CommandLineOptions.HELP1);
     }
@@ -89,12 +92,14 @@ public class CommandLineOptionsDefinition {
                 CommandLineOptions.XML,
                 CommandLineOptions.REDIRECT,
                 CommandLineOptions.NOFORK,
+                CommandLineOptions.NODAEMON,
                 CommandLineOptions.NOHEADERS,
                 CommandLineOptions.OFFLINE,
                 CommandLineOptions.TRUSTNONE,
                 CommandLineOptions.JNLP,
                 CommandLineOptions.BROWSER,
-                CommandLineOptions.NOSPLASH);
+                CommandLineOptions.NOSPLASH,
+                CommandLineOptions.TRACE);
     }
 
     public static List<CommandLineOptions> getJavaWsOptions() {
@@ -0,0 +1,137 @@
+package net.adoptopenjdk.icedteaweb.os;
+
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * A process identified by its PID and its start time, so that a process recorded e.g. in a lock
+ * file is not mistaken for a later process which got the same PID.
+ * <p>
+ * The start time is read through {@code ProcessHandle} of Java 9+, accessed through reflection. On
+ * Java 8 it is not known, a process then counts as running if its PID exists in {@code /proc}, or
+ * without {@code /proc} always, and the caller has to find out otherwise.
+ */
+public final class ProcessIdentity {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProcessIdentity.class);
+
+    public static final long UNKNOWN = -1;
+
+    private static final File PROC = new File("/proc");
+
+    private static final Method CURRENT;
+    private static final Method OF;
+    private static final Method PID;
+    private static final Method IS_ALIVE;
+    private static final Method INFO;
+    private static final Method START_INSTANT;
+
+    static {
+        Method current = null;
+        Method of = null;
+        Method pid = null;
+        Method isAlive = null;
+        Method info = null;
+        Method startInstant = null;
+        try {
+            final Class<?> processHandle = Class.forName("java.lang.ProcessHandle");
+            current = processHandle.getMethod("current");
+            of = processHandle.getMethod("of", long.class);
+            pid = processHandle.getMethod("pid");
+            isAlive = processHandle.getMethod("isAlive");
+            info = processHandle.getMethod("info");
+            startInstant = Class.forName("java.lang.ProcessHandle$Info").getMethod("startInstant");
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            LOG.debug("ProcessHandle not found. Looks like app is running jdk8");
+        }
+        CURRENT = current;
+        OF = of;
+        PID = pid;
+        IS_ALIVE = isAlive;
+        INFO = info;
+        START_INSTANT = startInstant;
+    }
+
+    private final long pid;
+    private final long startMillis;
+
+    /**
+     * @param pid         the PID of the process
+     * @param startMillis the start time of the process in milliseconds since the epoch, or
+     *                    {@link #UNKNOWN}
+     */
+    public ProcessIdentity(final long pid, final long startMillis) {
+        this.pid = pid;
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * @return this process
+     */
+    public static ProcessIdentity current() {
+        if (CURRENT != null) {
+            try {
+                final Object handle = CURRENT.invoke(null);
+                return new ProcessIdentity((Long) PID.invoke(handle), startMillis(handle));
+            } catch (ReflectiveOperationException e) {
+                LOG.debug("Unable to identify this process: {}", e.getMessage());
+            }
+        }
+        // "pid@host" on Java 8
+        final String name = ManagementFactory.getRuntimeMXBean().getName();
+        try {
+            return new ProcessIdentity(Long.parseLong(name.substring(0, name.indexOf('@'))), UNKNOWN);
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            return new ProcessIdentity(UNKNOWN, UNKNOWN);
+        }
+    }
+
+    public long getPid() {
+        return pid;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * @return false if the process has exited, or its PID belongs to another process by now
+     */
+    public boolean isRunning() {
+        if (pid == UNKNOWN) {
+            return true;
+        }
+        if (OF != null) {
+            try {
+                final Optional<?> handle = (Optional<?>) OF.invoke(null, pid);
+                if (!handle.isPresent() || !(Boolean) IS_ALIVE.invoke(handle.get())) {
+                    return false;
+                }
+                final long actualStart = startMillis(handle.get());
+                return startMillis == UNKNOWN || actualStart == UNKNOWN || startMillis == actualStart;
+            } catch (ReflectiveOperationException e) {
+                LOG.debug("Unable to look up process {}: {}", pid, e.getMessage());
+            }
+        }
+        if (PROC.isDirectory()) {
+            return new File(PROC, String.valueOf(pid)).isDirectory();
+        }
+        return true;
+    }
+
+    private static long startMillis(final Object handle) throws ReflectiveOperationException {
+        final Optional<?> start = (Optional<?>) START_INSTANT.invoke(INFO.invoke(handle));
+        return start.map(instant -> ((Instant) instant).toEpochMilli()).orElse(UNKNOWN);
+    }
+
+    @Override
+    public String toString() {
+        return pid + "@" + startMillis;
+    }
+}
@@ -0,0 +1,115 @@
+package net.adoptopenjdk.icedteaweb.os;
+
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Unix domain sockets of Java 16+, accessed through reflection as IcedTea-Web is built for Java 8.
+ * <p>
+ * A socket is a file, so only who may access its directory can connect, and a process finds it
+ * by its path without probing ports.
+ */
+public final class UnixDomainSockets {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UnixDomainSockets.class);
+
+    private static final ProtocolFamily UNIX;
+    private static final Method ADDRESS_OF;
+    private static final Method OPEN_SERVER;
+    private static final Method OPEN_CLIENT;
+
+    static {
+        ProtocolFamily unix = null;
+        Method addressOf = null;
+        Method openServer = null;
+        Method openClient = null;
+        try {
+            addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class);
+            openServer = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+            openClient = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+            unix = StandardProtocolFamily.valueOf("UNIX");
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalArgumentException e) {
+            LOG.debug("Unix domain sockets not found. Looks like app is running jdk15 or lower");
+        }
+        UNIX = unix;
+        ADDRESS_OF = addressOf;
+        OPEN_SERVER = openServer;
+        OPEN_CLIENT = openClient;
+    }
+
+    private UnixDomainSockets() {
+    }
+
+    public static boolean isSupported() {
+        return UNIX != null;
+    }
+
+    /**
+     * Listens at the socket file. An existing file is replaced, the caller has to know it is stale.
+     *
+     * @throws IOException if unsupported, or the path is too long for a socket
+     */
+    public static ServerSocketChannel bind(final File socket) throws IOException {
+        final SocketAddress address = address(socket);
+        Files.deleteIfExists(socket.toPath());
+        final ServerSocketChannel channel = (ServerSocketChannel) invoke(OPEN_SERVER, UNIX);
+        try {
+            channel.bind(address);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    /**
+     * @throws IOException if unsupported, or nobody listens at the socket file
+     */
+    public static SocketChannel connect(final File socket) throws IOException {
+        final SocketAddress address = address(socket);
+        final SocketChannel channel = (SocketChannel) invoke(OPEN_CLIENT, UNIX);
+        try {
+            channel.connect(address);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    private static SocketAddress address(final File socket) throws IOException {
+        return (SocketAddress) invoke(ADDRESS_OF, socket.toPath());
+    }
+
+    private static Object invoke(final Method factory, final Object argument) throws IOException {
+        if (!isSupported()) {
+            throw new IOException("Unix domain sockets are not supported by this JVM");
+        }
+        try {
+            return factory.invoke(null, argument);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IOException(e);
+        }
+    }
+}
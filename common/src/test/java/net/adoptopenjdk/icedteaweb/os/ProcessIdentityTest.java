@@ -0,0 +1,36 @@
+package net.adoptopenjdk.icedteaweb.os;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProcessIdentityTest {
+
+    @Test
+    public void thisProcessIsRunning() {
+        final ProcessIdentity current = ProcessIdentity.current();
+
+        assertNotEquals(ProcessIdentity.UNKNOWN, current.getPid());
+        assertTrue(current.isRunning());
+    }
+
+    @Test
+    public void anotherProcessWithThePidIsNotRunning() {
+        final ProcessIdentity current = ProcessIdentity.current();
+        final ProcessIdentity earlier = new ProcessIdentity(current.getPid(), current.getStartMillis() - 1);
+
+        // the start time is only known on Java 9+
+        assertTrue(current.getStartMillis() == ProcessIdentity.UNKNOWN || !earlier.isRunning());
+    }
+
+    @Test
+    public void unusedPidIsNotRunning() {
+        if (OsUtil.isWindows()) {
+            return;
+        }
+        // above the PID limit of Linux
+        assertFalse(new ProcessIdentity(Integer.MAX_VALUE, ProcessIdentity.UNKNOWN).isRunning());
+    }
+}
@@ -0,0 +1,41 @@
+package net.adoptopenjdk.icedteaweb.os;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+public class UnixDomainSocketsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void bytesAreSentThroughTheSocket() throws Exception {
+        assumeTrue(UnixDomainSockets.isSupported());
+        final File socket = new File(temporaryFolder.getRoot(), "test.sock");
+
+        try (ServerSocketChannel server = UnixDomainSockets.bind(socket);
+             SocketChannel client = UnixDomainSockets.connect(socket);
+             SocketChannel accepted = server.accept()) {
+            client.write(ByteBuffer.wrap(new byte[]{42}));
+            final ByteBuffer read = ByteBuffer.allocate(1);
+            accepted.read(read);
+
+            assertEquals(42, read.get(0));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void connectingWithoutServerFails() throws Exception {
+        UnixDomainSockets.connect(new File(temporaryFolder.getRoot(), "missing.sock"));
+    }
+}
@@ -32,6 +32,7 @@ import net.sourceforge.jnlp.config.PathsAndFiles;
 import javax.swing.JButton;
 import javax.swing.JDialog;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
@@ -76,6 +77,8 @@ public class CachePane extends JPanel {
 
     private JTable cacheTable;
 
+    private JLabel savingsLabel;
+
     private JButton deleteButton, refreshButton, doneButton, cleanAll, infoButton;
 
     /**
@@ -168,6 +171,11 @@ public class CachePane extends JPanel {
         c.gridx = 0;
         c.gridy = 0;
         topPanel.add(scrollPane, c);
+
+        savingsLabel = new JLabel();
+        c.weighty = 0;
+        c.gridy = 1;
+        topPanel.add(savingsLabel, c);
         this.add(topPanel, BorderLayout.CENTER);
         this.add(createButtonPanel(), BorderLayout.SOUTH);
     }
@@ -406,6 +414,7 @@ public class CachePane extends JPanel {
             for (CacheId cacheId : cacheIds) {
                 tableModel.addAll(cacheId.getFiles());
             }
+            savingsLabel.setText(Translator.R("CVCPDeduplicationSavings", NumberFormat.getInstance().format(Cache.getDeduplicationSavings())));
 
         } catch (Exception exception) {
             LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, exception);
@@ -39,6 +39,8 @@ package net.adoptopenjdk.icedteaweb.client.parts.dialogs.security;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
 import net.adoptopenjdk.icedteaweb.resources.Resource;
+import net.adoptopenjdk.icedteaweb.tracing.LaunchTracer;
+import net.adoptopenjdk.icedteaweb.tracing.TraceSpan;
 import net.adoptopenjdk.icedteaweb.ui.swing.SwingUtils;
 import net.adoptopenjdk.icedteaweb.ui.swing.dialogresults.AccessWarningPaneComplexReturn;
 import net.adoptopenjdk.icedteaweb.ui.swing.dialogresults.DialogResult;
@@ -292,6 +294,12 @@ public class SecurityDialogs {
      * indicates success/proceed, and everything else indicates failure
      */
     private static DialogResult getUserResponse(final SecurityDialogMessage message) {
+        try (final TraceSpan ignored = LaunchTracer.begin(LaunchTracer.DIALOG, message.dialogType)) {
+            return postMessageAndWait(message);
+        }
+    }
+
+    private static DialogResult postMessageAndWait(final SecurityDialogMessage message) {
         /*
          * Want to show a security warning, while blocking the client
          * application. This would be easy except there is a bug in showing
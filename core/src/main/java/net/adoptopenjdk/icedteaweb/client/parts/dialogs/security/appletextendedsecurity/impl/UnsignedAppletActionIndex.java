@@ -0,0 +1,192 @@
+package net.adoptopenjdk.icedteaweb.client.parts.dialogs.security.appletextendedsecurity.impl;
+
+import net.adoptopenjdk.icedteaweb.IcedTeaWebConstants;
+import net.adoptopenjdk.icedteaweb.client.parts.dialogs.security.appletextendedsecurity.UnsignedAppletActionEntry;
+import net.adoptopenjdk.icedteaweb.client.parts.dialogs.security.appletextendedsecurity.UrlRegEx;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Immutable lookup structure over the entries of an {@link UnsignedAppletActionStorageImpl}.
+ * The document base and code base expressions are compiled once. Expressions which only match a single
+ * literal URL (the common case, see {@link UrlRegEx#quote(String)}) are found through a hash map, only
+ * the remaining expressions are evaluated on each lookup.
+ */
+class UnsignedAppletActionIndex {
+
+    private final static Logger LOG = LoggerFactory.getLogger(UnsignedAppletActionIndex.class);
+
+    private static final String QUOTE_START = "\\Q";
+    private static final String QUOTE_END = "\\E";
+    private static final String REGEX_META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    private final Stamp stamp;
+    private final List<UnsignedAppletActionEntry> entries;
+    private final Column documentBases = new Column();
+    private final Column codeBases = new Column();
+
+    UnsignedAppletActionIndex(final List<UnsignedAppletActionEntry> items, final Stamp stamp) {
+        this.stamp = stamp;
+        this.entries = items == null ? Collections.emptyList() : new ArrayList<>(items);
+        for (int i = 0; i < entries.size(); i++) {
+            final UnsignedAppletActionEntry entry = entries.get(i);
+            documentBases.add(i, entry.getDocumentBase());
+            codeBases.add(i, entry.getCodeBase());
+        }
+    }
+
+    Stamp getStamp() {
+        return stamp;
+    }
+
+    /**
+     * @return the matching entries in the order of the storage, the archives are compared by the given predicate
+     */
+    List<UnsignedAppletActionEntry> getMatchingItems(final String documentBase, final String codeBase,
+                                                     final ArchivesMatcher archivesMatcher) {
+        final boolean byDocumentBase = documentBase != null && !documentBase.trim().isEmpty();
+        final boolean byCodeBase = codeBase != null && !codeBase.trim().isEmpty();
+
+        final BitSet candidates;
+        if (byDocumentBase) {
+            candidates = documentBases.find(documentBase);
+            if (byCodeBase) {
+                candidates.and(codeBases.find(codeBase));
+            }
+        } else if (byCodeBase) {
+            candidates = codeBases.find(codeBase);
+        } else {
+            candidates = new BitSet(entries.size());
+            candidates.set(0, entries.size());
+        }
+
+        final List<UnsignedAppletActionEntry> result = new ArrayList<>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            final UnsignedAppletActionEntry entry = entries.get(i);
+            if (archivesMatcher.matches(entry)) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the URL matched by the expression if it does not contain any wildcard, otherwise null
+     */
+    static String getLiteral(final String regEx) {
+        if (regEx.startsWith(QUOTE_START) && regEx.endsWith(QUOTE_END)
+                && regEx.indexOf(QUOTE_END, QUOTE_START.length()) == regEx.length() - QUOTE_END.length()) {
+            return regEx.substring(QUOTE_START.length(), regEx.length() - QUOTE_END.length());
+        }
+        for (int i = 0; i < regEx.length(); i++) {
+            if (REGEX_META_CHARACTERS.indexOf(regEx.charAt(i)) >= 0) {
+                return null;
+            }
+        }
+        return regEx;
+    }
+
+    interface ArchivesMatcher {
+        boolean matches(UnsignedAppletActionEntry entry);
+    }
+
+    /**
+     * Index of the document bases or code bases of all entries.
+     */
+    private static class Column {
+        private final Map<String, int[]> literals = new HashMap<>();
+        private final List<Integer> patternEntries = new ArrayList<>();
+        private final List<Pattern> patterns = new ArrayList<>();
+
+        private void add(final int entry, final UrlRegEx urlRegEx) {
+            if (urlRegEx == null || urlRegEx.getRegEx() == null) {
+                return;
+            }
+            final String literal = getLiteral(urlRegEx.getRegEx());
+            if (literal != null) {
+                final int[] previous = literals.get(literal);
+                final int[] entries = previous == null ? new int[1] : Arrays.copyOf(previous, previous.length + 1);
+                entries[entries.length - 1] = entry;
+                literals.put(literal, entries);
+                return;
+            }
+            try {
+                patterns.add(Pattern.compile(urlRegEx.getRegEx()));
+                patternEntries.add(entry);
+            } catch (PatternSyntaxException ex) {
+                LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+            }
+        }
+
+        private BitSet find(final String url) {
+            final BitSet result = new BitSet();
+            final int[] exact = literals.get(url);
+            if (exact != null) {
+                for (final int entry : exact) {
+                    result.set(entry);
+                }
+            }
+            for (int i = 0; i < patterns.size(); i++) {
+                if (patterns.get(i).matcher(url).matches()) {
+                    result.set(patternEntries.get(i));
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Modification time and size of the storage file, used to detect changes from other processes.
+     */
+    static class Stamp {
+        private final FileTime lastModified;
+        private final long size;
+
+        private Stamp(final FileTime lastModified, final long size) {
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        static Stamp of(final File file) {
+            try {
+                final BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+                return new Stamp(attributes.lastModifiedTime(), attributes.size());
+            } catch (IOException e) {
+                return new Stamp(null, -1);
+            }
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Stamp)) {
+                return false;
+            }
+            final Stamp stamp = (Stamp) o;
+            return size == stamp.size && Objects.equals(lastModified, stamp.lastModified);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lastModified, size);
+        }
+    }
+}
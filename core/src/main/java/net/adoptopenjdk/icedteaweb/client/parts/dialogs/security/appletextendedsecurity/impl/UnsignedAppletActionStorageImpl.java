@@ -53,13 +53,13 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.regex.PatternSyntaxException;
 
 public class UnsignedAppletActionStorageImpl extends LockingReaderWriter implements UnsignedAppletActionStorage {
 
     private final static Logger LOG = LoggerFactory.getLogger(UnsignedAppletActionStorageImpl.class);
 
     protected List<UnsignedAppletActionEntry> items;
+    private volatile UnsignedAppletActionIndex index;
     private String readVersion = null;
     public static final String versionPrefix ="#VERSION ";
     public static final String BACKUP_SUFFIX = "-backup";
@@ -73,6 +73,7 @@ public class UnsignedAppletActionStorageImpl extends LockingReaderWriter impleme
 
     @Override
     public void writeContents() throws IOException {
+        index = null;
         super.writeContents();
     }
 
@@ -83,6 +84,7 @@ public class UnsignedAppletActionStorageImpl extends LockingReaderWriter impleme
 
     @Override
     protected void readContents() throws IOException {
+        index = null;
         if (items == null) {
             items = new ArrayList<>();
         } else {
@@ -188,47 +190,43 @@ public class UnsignedAppletActionStorageImpl extends LockingReaderWriter impleme
     }
 
     public List<UnsignedAppletActionEntry> getMatchingItems(String documentBase, String codeBase, List<String> archives) {
-        List<UnsignedAppletActionEntry> result = new ArrayList<>();
+        final UnsignedAppletActionIndex current;
         lock();
         try {
-            readContents();
-            if (items == null) {
-                return result;
-            }
-            for (UnsignedAppletActionEntry unsignedAppletActionEntry : items) {
-                if (isMatching(unsignedAppletActionEntry, documentBase, codeBase, archives)) {
-                    result.add(unsignedAppletActionEntry);
-                }
-            }
+            current = getIndex();
         } catch (IOException e) {
             throw new StorageIoException(e);
         } finally {
             unlock();
         }
-        return result;
+        return current.getMatchingItems(documentBase, codeBase, entry -> isMatchingArchives(entry, archives));
     }
 
-    private boolean isMatching(UnsignedAppletActionEntry unsignedAppletActionEntry, String documentBase, String codeBase, List<String> archives) {
-        try {
-            boolean result = true;
-            if (documentBase != null && !documentBase.trim().isEmpty()) {
-                result = result && documentBase.matches(unsignedAppletActionEntry.getDocumentBase().getRegEx());
-            }
-            if (codeBase != null && !codeBase.trim().isEmpty()) {
-                result = result && codeBase.matches(unsignedAppletActionEntry.getCodeBase().getRegEx());
-            }
-            if (archives != null) {
-                List<String> saved = unsignedAppletActionEntry.getArchives();
-                if (saved == null || saved.isEmpty()) {
-                    return result;
-                }
-                result = result && compareArchives(archives, saved);
+    /**
+     * Returns the index of the current items. The file is only read again if it was changed since the
+     * index was built. Assumes lock is held.
+     */
+    private UnsignedAppletActionIndex getIndex() throws IOException {
+        final UnsignedAppletActionIndex current = index;
+        final UnsignedAppletActionIndex.Stamp stamp = UnsignedAppletActionIndex.Stamp.of(getBackingFile());
+        if (current != null && current.getStamp().equals(stamp)) {
+            return current;
+        }
+        readContents();
+        final UnsignedAppletActionIndex created = new UnsignedAppletActionIndex(items, stamp);
+        index = created;
+        return created;
+    }
+
+    private boolean isMatchingArchives(UnsignedAppletActionEntry unsignedAppletActionEntry, List<String> archives) {
+        if (archives != null) {
+            List<String> saved = unsignedAppletActionEntry.getArchives();
+            if (saved == null || saved.isEmpty()) {
+                return true;
             }
-            return result;
-        } catch (PatternSyntaxException ex) {
-            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
-            return false;
+            return compareArchives(archives, saved);
         }
+        return true;
     }
 
     @Override
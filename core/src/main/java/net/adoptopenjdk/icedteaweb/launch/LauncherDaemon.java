@@ -0,0 +1,283 @@
+package net.adoptopenjdk.icedteaweb.launch;
+
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.os.UnixDomainSockets;
+import net.sourceforge.jnlp.config.PathsAndFiles;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * A per-user daemon which keeps a pool of {@link WarmJvm warm JVMs}, started by {@code javaws -Xdaemon}.
+ * <p>
+ * A javaws started while the daemon runs hands its arguments over to the daemon through the
+ * {@link LauncherDaemonClient}, and the daemon passes them on to a warm JVM, which launches the
+ * application. So the launch does not wait for a JVM to start and load the configuration, the trust
+ * stores and the cache index. Every application still gets a JVM of its own, as the runtime and its
+ * security manager are set up once per JVM. As a warm JVM has loaded the configuration already, the
+ * pool is discarded when a deployment configuration file has changed since it was started.
+ * <p>
+ * The daemon listens at a Unix domain socket in the locks directory where the JVM supports them, at
+ * a port on the loopback interface otherwise. Either way a client has to send the token of the lock
+ * file, which only the user can read. Every client is served on a thread of its own, and one which
+ * does not send its request in time is disconnected, so it cannot hold up the launches of others.
+ */
+public final class LauncherDaemon {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LauncherDaemon.class);
+
+    static final String OK = "OK";
+
+    /** how long the daemon waits for the request of a client */
+    static final int REQUEST_TIMEOUT_MILLIS = 5000;
+
+    private final int poolSize;
+    private final String token;
+    private final Deque<Process> pool = new ArrayDeque<>();
+
+    /** the modification times of the configuration files when the warm JVMs of the pool were started */
+    private List<Long> poolConfiguration;
+
+    private final ExecutorService clients = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "itw-launcher-daemon-client");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private LauncherDaemon(final int poolSize, final String token) {
+        this.poolSize = poolSize;
+        this.token = token;
+    }
+
+    /**
+     * Runs the daemon until it is terminated.
+     *
+     * @param poolSize the number of warm JVMs to keep
+     * @return the exit code
+     */
+    public static int run(final int poolSize) {
+        if (LauncherDaemonLock.read() != null) {
+            LOG.error("A launcher daemon is already running, see {}", LauncherDaemonLock.getFile());
+            return 1;
+        }
+        final LauncherDaemon daemon = new LauncherDaemon(Math.max(1, poolSize), LauncherDaemonLock.newToken());
+        try {
+            if (UnixDomainSockets.isSupported()) {
+                daemon.serve(LauncherDaemonLock.getSocketFile());
+            } else {
+                daemon.serve();
+            }
+            return 0;
+        } catch (IOException e) {
+            LOG.error("Launcher daemon failed", e);
+            return 1;
+        }
+    }
+
+    private void serve(final File socket) throws IOException {
+        try (ServerSocketChannel listeningChannel = UnixDomainSockets.bind(socket)) {
+            final LauncherDaemonLock lock = new LauncherDaemonLock(socket, -1, token);
+            start(lock, socket);
+            while (true) {
+                final SocketChannel communicationChannel = listeningChannel.accept();
+                clients.execute(() -> {
+                    try (SocketChannel channel = communicationChannel) {
+                        final InputStream in = Channels.newInputStream(channel);
+                        final OutputStream out = Channels.newOutputStream(channel);
+                        // the channel of a Unix domain socket has no read timeout, so the request is
+                        // read on another thread, and the channel closed if it does not arrive in time
+                        handle(awaitRequest(clients.submit(() -> readRequest(in, out))), out);
+                    } catch (IOException e) {
+                        LOG.error("Failed to hand over a launch", e);
+                    }
+                });
+            }
+        }
+    }
+
+    private void serve() throws IOException {
+        try (ServerSocket listeningSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            final LauncherDaemonLock lock = new LauncherDaemonLock(null, listeningSocket.getLocalPort(), token);
+            start(lock, null);
+            while (true) {
+                final Socket communicationSocket = listeningSocket.accept();
+                clients.execute(() -> {
+                    try (Socket socket = communicationSocket) {
+                        socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+                        final OutputStream out = socket.getOutputStream();
+                        handle(readRequest(socket.getInputStream(), out), out);
+                    } catch (IOException e) {
+                        LOG.error("Failed to hand over a launch", e);
+                    }
+                });
+            }
+        }
+    }
+
+    private void start(final LauncherDaemonLock lock, final File socket) throws IOException {
+        lock.write();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            synchronized (pool) {
+                pool.forEach(Process::destroy);
+                pool.clear();
+            }
+            lock.delete();
+            if (socket != null) {
+                socket.delete();
+            }
+        }, "itw-launcher-daemon-shutdown"));
+        fillPool();
+        LOG.info("Launcher daemon is running with {} warm JVMs, lock {}", poolSize, LauncherDaemonLock.getFile());
+    }
+
+    /**
+     * @return the arguments of the launch the client requests, or null if it sent a wrong token
+     */
+    private List<String> readRequest(final InputStream in, final OutputStream out) throws IOException {
+        final DataInputStream input = new DataInputStream(in);
+        final String clientToken = input.readUTF();
+        if (!MessageDigest.isEqual(token.getBytes(UTF_8), clientToken.getBytes(UTF_8))) {
+            LOG.error("Rejected a launch with a wrong token");
+            final DataOutputStream output = new DataOutputStream(out);
+            output.writeUTF("wrong token");
+            output.flush();
+            return null;
+        }
+        return readArguments(input);
+    }
+
+    private static List<String> awaitRequest(final Future<List<String>> request) throws IOException {
+        try {
+            return request.get(REQUEST_TIMEOUT_MILLIS, MILLISECONDS);
+        } catch (TimeoutException e) {
+            request.cancel(true);
+            throw new IOException("No request within " + REQUEST_TIMEOUT_MILLIS + " ms");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private void handle(final List<String> args, final OutputStream out) throws IOException {
+        if (args == null) {
+            return;
+        }
+        final DataOutputStream output = new DataOutputStream(out);
+        String reply;
+        try {
+            final Process process = takeFromPool();
+            try (DataOutputStream childInput = new DataOutputStream(process.getOutputStream())) {
+                writeArguments(childInput, args);
+            }
+            LOG.info("Handed over launch {} to a warm JVM", args);
+            reply = OK;
+        } catch (IOException e) {
+            LOG.error("Failed to hand over launch " + args, e);
+            reply = String.valueOf(e.getMessage());
+        }
+        output.writeUTF(reply);
+        output.flush();
+        fillPool();
+    }
+
+    private Process takeFromPool() throws IOException {
+        synchronized (pool) {
+            discardIfConfigurationChanged();
+            Process process;
+            while ((process = pool.poll()) != null) {
+                if (process.isAlive()) {
+                    return process;
+                }
+            }
+        }
+        return startWarmJvm();
+    }
+
+    private void fillPool() {
+        synchronized (pool) {
+            discardIfConfigurationChanged();
+            pool.removeIf(process -> !process.isAlive());
+            while (pool.size() < poolSize) {
+                try {
+                    pool.add(startWarmJvm());
+                } catch (IOException e) {
+                    LOG.error("Unable to start a warm JVM", e);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void discardIfConfigurationChanged() {
+        final List<Long> configuration = Stream.of(PathsAndFiles.USER_DEPLOYMENT_FILE,
+                PathsAndFiles.ETC_DEPLOYMENT_CFG, PathsAndFiles.JAVA_DEPLOYMENT_PROP_FILE)
+                .map(file -> file.getFile().lastModified())
+                .collect(Collectors.toList());
+        if (!configuration.equals(poolConfiguration)) {
+            if (!pool.isEmpty()) {
+                LOG.info("Configuration has changed, discarding {} warm JVMs", pool.size());
+            }
+            pool.forEach(Process::destroy);
+            pool.clear();
+            poolConfiguration = configuration;
+        }
+    }
+
+    private static Process startWarmJvm() throws IOException {
+        return new ProcessBuilder(WarmJvm.command())
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    static void writeArguments(final DataOutputStream out, final List<String> args) throws IOException {
+        out.writeInt(args.size());
+        for (final String arg : args) {
+            out.writeUTF(arg);
+        }
+        out.flush();
+    }
+
+    static List<String> readArguments(final DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid argument count " + count);
+        }
+        final List<String> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            args.add(in.readUTF());
+        }
+        return args;
+    }
+}
@@ -0,0 +1,108 @@
+package net.adoptopenjdk.icedteaweb.launch;
+
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.os.UnixDomainSockets;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Hands a launch over to the running {@link LauncherDaemon}. A daemon which does not reply in time
+ * is given up on, and the launch proceeds in this JVM.
+ */
+public final class LauncherDaemonClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LauncherDaemonClient.class);
+
+    /** how long to wait for the daemon, longer than it waits for the request */
+    private static final int REPLY_TIMEOUT_MILLIS = 2 * LauncherDaemon.REQUEST_TIMEOUT_MILLIS;
+
+    private LauncherDaemonClient() {
+    }
+
+    /**
+     * @param args the javaws arguments of the launch
+     * @return true if a warm JVM of the daemon took over the launch, false if no daemon runs or the
+     * hand over failed or timed out, and the launch has to proceed in this JVM
+     */
+    public static boolean handOver(final List<String> args) {
+        final LauncherDaemonLock lock = LauncherDaemonLock.read();
+        if (lock == null) {
+            return false;
+        }
+        final long start = System.nanoTime();
+        try {
+            final boolean handedOver;
+            if (lock.getSocket() != null && UnixDomainSockets.isSupported()) {
+                try (SocketChannel channel = UnixDomainSockets.connect(lock.getSocket())) {
+                    // the channel of a Unix domain socket has no read timeout, so the hand over runs
+                    // on another thread, which is unblocked by closing the channel if it takes too long
+                    final FutureTask<Boolean> task = new FutureTask<>(() ->
+                            handOver(lock, args, Channels.newInputStream(channel), Channels.newOutputStream(channel)));
+                    final Thread thread = new Thread(task, "itw-launcher-daemon-hand-over");
+                    thread.setDaemon(true);
+                    thread.start();
+                    handedOver = await(task);
+                }
+            } else if (lock.getPort() >= 0) {
+                try (Socket socket = new Socket()) {
+                    socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), lock.getPort()), REPLY_TIMEOUT_MILLIS);
+                    socket.setSoTimeout(REPLY_TIMEOUT_MILLIS);
+                    handedOver = handOver(lock, args, socket.getInputStream(), socket.getOutputStream());
+                }
+            } else {
+                return false;
+            }
+            LOG.debug("Hand over to the launcher daemon took {} us", (System.nanoTime() - start) / 1000);
+            return handedOver;
+        } catch (IOException e) {
+            LOG.debug("Unable to hand over to the launcher daemon: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean await(final FutureTask<Boolean> task) throws IOException {
+        try {
+            return task.get(REPLY_TIMEOUT_MILLIS, MILLISECONDS);
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            throw new IOException("No reply within " + REPLY_TIMEOUT_MILLIS + " ms");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private static boolean handOver(final LauncherDaemonLock lock, final List<String> args,
+                                    final InputStream in, final OutputStream out) throws IOException {
+        final DataOutputStream output = new DataOutputStream(out);
+        output.writeUTF(lock.getToken());
+        LauncherDaemon.writeArguments(output, args);
+        final String reply = new DataInputStream(in).readUTF();
+        if (!LauncherDaemon.OK.equals(reply)) {
+            LOG.warn("Launcher daemon refused the launch: {}", reply);
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,138 @@
+package net.adoptopenjdk.icedteaweb.launch;
+
+import net.adoptopenjdk.icedteaweb.io.FileUtils;
+import net.adoptopenjdk.icedteaweb.os.ProcessIdentity;
+import net.sourceforge.jnlp.config.PathsAndFiles;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.security.SecureRandom;
+
+/**
+ * The lock file of the running launcher daemon: the Unix domain socket or the port it listens at,
+ * the token a client has to send, and the daemon process. The file is only readable by the user,
+ * so who knows the token is the user.
+ */
+final class LauncherDaemonLock {
+
+    private static final String NAME = "launcher-daemon";
+
+    private static final String SOCKET = "socket=";
+    private static final String PORT = "port=";
+    private static final String TOKEN = "token=";
+    private static final String PID = "pid=";
+    private static final String START = "start=";
+
+    private final File socket;
+    private final int port;
+    private final String token;
+
+    LauncherDaemonLock(final File socket, final int port, final String token) {
+        this.socket = socket;
+        this.port = port;
+        this.token = token;
+    }
+
+    static File getFile() {
+        return new File(PathsAndFiles.LOCKS_DIR.getFile(), NAME);
+    }
+
+    static File getSocketFile() {
+        return new File(PathsAndFiles.LOCKS_DIR.getFile(), NAME + ".sock");
+    }
+
+    static String newToken() {
+        final byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        final StringBuilder sb = new StringBuilder();
+        for (final byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the lock of the running daemon, or null if none runs
+     */
+    static LauncherDaemonLock read() {
+        final File file = getFile();
+        if (!file.isFile()) {
+            return null;
+        }
+        File socket = null;
+        int port = -1;
+        String token = null;
+        long pid = ProcessIdentity.UNKNOWN;
+        long start = ProcessIdentity.UNKNOWN;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(SOCKET)) {
+                    socket = new File(line.substring(SOCKET.length()));
+                } else if (line.startsWith(PORT)) {
+                    port = Integer.parseInt(line.substring(PORT.length()));
+                } else if (line.startsWith(TOKEN)) {
+                    token = line.substring(TOKEN.length());
+                } else if (line.startsWith(PID)) {
+                    pid = Long.parseLong(line.substring(PID.length()));
+                } else if (line.startsWith(START)) {
+                    start = Long.parseLong(line.substring(START.length()));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+        if (token == null || (socket == null && port < 0) || !new ProcessIdentity(pid, start).isRunning()) {
+            return null;
+        }
+        return new LauncherDaemonLock(socket, port, token);
+    }
+
+    /**
+     * Writes the lock for this process.
+     */
+    void write() throws IOException {
+        final File file = getFile();
+        final File dir = file.getParentFile();
+        if (!dir.isDirectory()) {
+            FileUtils.createParentDir(dir);
+            FileUtils.createRestrictedDirectory(dir);
+        }
+        final ProcessIdentity current = ProcessIdentity.current();
+        FileUtils.createRestrictedFile(file);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, false))) {
+            if (socket != null) {
+                writer.write(SOCKET + socket.getPath());
+            } else {
+                writer.write(PORT + port);
+            }
+            writer.newLine();
+            writer.write(TOKEN + token);
+            writer.newLine();
+            writer.write(PID + current.getPid());
+            writer.newLine();
+            writer.write(START + current.getStartMillis());
+            writer.newLine();
+        }
+    }
+
+    void delete() {
+        FileUtils.deleteWithErrMesg(getFile(), "launcher daemon lock");
+    }
+
+    File getSocket() {
+        return socket;
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    String getToken() {
+        return token;
+    }
+}
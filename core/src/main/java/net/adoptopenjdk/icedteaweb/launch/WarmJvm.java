@@ -0,0 +1,86 @@
+package net.adoptopenjdk.icedteaweb.launch;
+
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.cache.Cache;
+import net.sourceforge.jnlp.runtime.Boot;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+import net.sourceforge.jnlp.security.KeyStores;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static net.adoptopenjdk.icedteaweb.JavaSystemPropertiesConstants.ITW_BIN_LOCATION;
+
+/**
+ * A JVM started ahead of time by the {@link LauncherDaemon}. It loads the configuration, the trust
+ * stores and the cache index while nobody waits for it, then blocks until the daemon hands it the
+ * arguments of a launch, and continues as if javaws was started with them. The daemon discards its
+ * warm JVMs when the configuration changes, so the one loaded here is current on the launch.
+ */
+public final class WarmJvm {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WarmJvm.class);
+
+    /** set on the command line of a warm JVM */
+    static final String PROPERTY = "icedtea-web.launcher.warm";
+
+    private WarmJvm() {
+    }
+
+    public static boolean isWarm() {
+        return Boolean.getBoolean(PROPERTY);
+    }
+
+    /**
+     * Warms this JVM up and waits for the arguments of the launch on the standard input.
+     *
+     * @return the javaws arguments, or null if the daemon exited before handing over a launch
+     */
+    public static String[] warmUpAndAwaitArguments() {
+        final long start = System.nanoTime();
+        try {
+            JNLPRuntime.getConfiguration();
+            KeyStores.getCAKeyStores();
+            KeyStores.getCertKeyStores();
+            Cache.loadIndex();
+        } catch (Exception e) {
+            // whatever failed here fails again on the launch, and is reported there
+            LOG.debug("Unable to warm up: {}", e.getMessage());
+        }
+        LOG.debug("Warmed up in {} ms", (System.nanoTime() - start) / 1_000_000);
+
+        try {
+            final List<String> args = LauncherDaemon.readArguments(new DataInputStream(System.in));
+            return args.toArray(new String[0]);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the command which starts a warm JVM
+     */
+    static List<String> command() {
+        final List<String> command = new ArrayList<>();
+        // this property is set by the javaws launcher to point to the javaws binary
+        final String pathToItwBinary = System.getProperty(ITW_BIN_LOCATION);
+        if (pathToItwBinary != null) {
+            command.add(pathToItwBinary);
+            command.add("-J-D" + PROPERTY + "=true");
+        } else {
+            // the same JVM as this one, with the same options
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+            command.add("-D" + PROPERTY + "=true");
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(Boot.class.getName());
+        }
+        return command;
+    }
+}
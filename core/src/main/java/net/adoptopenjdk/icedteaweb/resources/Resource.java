@@ -23,7 +23,9 @@ import net.sourceforge.jnlp.util.WeakList;
 
 import java.io.File;
 import java.net.URL;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Future;
 
 /**
@@ -83,6 +85,9 @@ public class Resource {
     /** the status of the resource */
     private volatile Status status = Status.INCOMPLETE;
 
+    /** the listeners told about the amount transferred */
+    private final List<ResourceProgressListener> progressListeners = new CopyOnWriteArrayList<>();
+
     /**
      * Create a resource.
      */
@@ -170,6 +175,23 @@ public class Resource {
      */
     public void setTransferred(long transferred) {
         this.transferred = transferred;
+        for (ResourceProgressListener listener : progressListeners) {
+            listener.progress(transferred, size);
+        }
+    }
+
+    /**
+     * @param listener the listener to tell whenever the amount transferred changes
+     */
+    void addProgressListener(ResourceProgressListener listener) {
+        progressListeners.add(listener);
+    }
+
+    /**
+     * @param listener the listener to remove
+     */
+    void removeProgressListener(ResourceProgressListener listener) {
+        progressListeners.remove(listener);
     }
 
     /**
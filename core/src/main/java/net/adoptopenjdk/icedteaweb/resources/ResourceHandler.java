@@ -10,13 +10,17 @@ import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
 import net.adoptopenjdk.icedteaweb.resources.downloader.ResourceDownloader;
 import net.adoptopenjdk.icedteaweb.resources.initializer.InitializationResult;
 import net.adoptopenjdk.icedteaweb.resources.initializer.ResourceInitializer;
+import net.adoptopenjdk.icedteaweb.tracing.LaunchTracer;
+import net.adoptopenjdk.icedteaweb.tracing.TraceSpan;
 import net.sourceforge.jnlp.cache.CacheUtil;
 import net.sourceforge.jnlp.runtime.JNLPRuntime;
 import net.sourceforge.jnlp.util.IpUtil;
 
 import java.io.File;
 import java.net.URL;
-import java.util.List;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
@@ -24,6 +28,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static net.adoptopenjdk.icedteaweb.resources.Resource.Status.DOWNLOADED;
 import static net.adoptopenjdk.icedteaweb.resources.Resource.Status.ERROR;
@@ -37,6 +42,9 @@ class ResourceHandler {
     private static final Executor localExecutor = new ThreadPoolExecutor(0, Runtime.getRuntime().availableProcessors() * 2,
             10L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
 
+    /** the parsed whitelist and the configured value it was parsed from */
+    private static volatile Whitelist whitelist = new Whitelist(null);
+
     private final Resource resource;
 
     ResourceHandler(Resource resource) {
@@ -104,21 +112,24 @@ class ResourceHandler {
     }
 
     private Resource downloadResource() {
-        final ResourceInitializer initializer = ResourceInitializer.of(resource);
-        final InitializationResult initResult = initializer.init();
-        if (initResult.needsDownload()) {
-            final ResourceDownloader downloader = ResourceDownloader.of(resource, initResult.getDownloadUrls());
-            downloader.download();
+        try (final TraceSpan span = LaunchTracer.begin(LaunchTracer.RESOURCE, resource.getLocation())) {
+            final ResourceInitializer initializer = ResourceInitializer.of(resource);
+            final InitializationResult initResult = initializer.init();
+            span.arg("downloaded", initResult.needsDownload());
+            if (initResult.needsDownload()) {
+                final ResourceDownloader downloader = ResourceDownloader.of(resource, initResult.getDownloadUrls());
+                downloader.download();
+                span.arg("bytes", resource.getTransferred());
+            }
+            return resource;
         }
-        return resource;
     }
 
     private void validateWithWhitelist() {
         final URL url = resource.getLocation();
         Assert.requireNonNull(url, "url");
 
-        final List<String> whitelist = JNLPRuntime.getConfiguration().getPropertyAsList(KEY_SECURITY_SERVER_WHITELIST, ',')
-                .stream().filter(s -> !StringUtils.isBlank(s)).collect(Collectors.toList());
+        final Set<String> whitelist = getWhitelist();
 
         if (whitelist.isEmpty()) {
             return; // empty whitelist == allow all connections
@@ -136,4 +147,26 @@ class ResourceHandler {
             JNLPRuntime.exit(-1);
         }
     }
+
+    private static Set<String> getWhitelist() {
+        final String configured = JNLPRuntime.getConfiguration().getProperty(KEY_SECURITY_SERVER_WHITELIST);
+        Whitelist current = whitelist;
+        if (!Objects.equals(current.configured, configured)) {
+            current = new Whitelist(configured);
+            whitelist = current;
+        }
+        return current.entries;
+    }
+
+    private static class Whitelist {
+        private final String configured;
+        private final Set<String> entries;
+
+        private Whitelist(final String configured) {
+            this.configured = configured;
+            // split like DeploymentConfiguration.getPropertyAsList
+            this.entries = configured == null ? Collections.emptySet() : Stream.of(configured.split("\\s*,\\s*"))
+                    .filter(s -> !StringUtils.isBlank(s)).collect(Collectors.toSet());
+        }
+    }
 }
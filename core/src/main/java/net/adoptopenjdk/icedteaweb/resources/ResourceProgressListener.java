@@ -0,0 +1,17 @@
+package net.adoptopenjdk.icedteaweb.resources;
+
+/**
+ * Is told about the progress of a resource while it is downloaded.
+ * <p>
+ * The listener is called from the downloading threads, a few times per second for each resource,
+ * so it should return quickly.
+ */
+@FunctionalInterface
+public interface ResourceProgressListener {
+
+    /**
+     * @param transferred the number of bytes transferred so far
+     * @param size        the total size of the resource, or -1 if unknown
+     */
+    void progress(long transferred, long size);
+}
@@ -320,6 +320,29 @@ public class ResourceTracker {
         return true;
     }
 
+    /**
+     * Adds a listener which is told about the download progress of a resource, until it is
+     * removed again.
+     *
+     * @param location the resource location
+     * @param listener the listener
+     * @throws IllegalResourceDescriptorException if the resource is not being tracked
+     */
+    public void addProgressListener(URL location, ResourceProgressListener listener) {
+        getResource(location).addProgressListener(Assert.requireNonNull(listener, "listener"));
+    }
+
+    /**
+     * Removes a listener added by {@link #addProgressListener(URL, ResourceProgressListener)}.
+     *
+     * @param location the resource location
+     * @param listener the listener
+     * @throws IllegalResourceDescriptorException if the resource is not being tracked
+     */
+    public void removeProgressListener(URL location, ResourceProgressListener listener) {
+        getResource(location).removeProgressListener(listener);
+    }
+
     /**
      * Returns the number of bytes downloaded for a resource.
      *
@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -28,6 +29,13 @@ public class Cache {
         return LeastRecentlyUsedCache.getInstance().clearCache();
     }
 
+    /**
+     * Reads the cache index, e.g. in a JVM which is started ahead of a launch.
+     */
+    public static void loadIndex() {
+        LeastRecentlyUsedCache.getInstance().loadIndex();
+    }
+
     /**
      * This will remove all old cache items.
      */
@@ -35,6 +43,26 @@ public class Cache {
         LeastRecentlyUsedCache.getInstance().cleanCache();
     }
 
+    /**
+     * Removes old cache items for at most the given time. The next call continues where this
+     * one stopped.
+     *
+     * @param budget the time to spend at most
+     * @param unit   the unit of the budget
+     * @return true if the whole cache was checked
+     */
+    public static boolean collectGarbage(long budget, TimeUnit unit) {
+        return LeastRecentlyUsedCache.getInstance().collectGarbage(budget, unit);
+    }
+
+    /**
+     * Starts removing leftovers which are not referenced by the cache index in the background,
+     * in small steps.
+     */
+    public static void startCollectingGarbage() {
+        LeastRecentlyUsedCache.getInstance().startCollectingGarbage();
+    }
+
     /**
      * Returns the file for the locally cached contents of the
      * resource.  This method returns the file location only and does
@@ -53,6 +81,21 @@ public class Cache {
         return LeastRecentlyUsedCache.getInstance().getOrCreateCacheFile(resource, version);
     }
 
+    /**
+     * Returns the file next to a cached file in which the parsed form of the cached file can be
+     * kept. It is removed together with the cache entry.
+     *
+     * @param cacheFile a file returned by the cache
+     * @return the file for the parsed form, or {@code null} if the given file is not in the cache
+     */
+    public static File getParsedFile(final File cacheFile) {
+        final File directory = cacheFile.getParentFile();
+        if (directory == null || !new File(directory, CacheEntry.INFO_SUFFIX).isFile()) {
+            return null;
+        }
+        return new File(directory, CacheEntry.PARSED_SUFFIX);
+    }
+
     public static File addToCache(DownloadInfo infoFromRemote, InputStream unpackedStream) throws IOException {
         if (!CacheUtil.isCacheable(infoFromRemote.getResourceHref())) {
             throw new IllegalArgumentException(infoFromRemote.getResourceHref() + " is not a cacheable resource");
@@ -60,6 +103,27 @@ public class Cache {
         return LeastRecentlyUsedCache.getInstance().addToCache(infoFromRemote, unpackedStream);
     }
 
+    /**
+     * Moves a file holding the complete content of a download into the cache.
+     *
+     * @param infoFromRemote the download
+     * @param downloaded     the file, it is gone unless its content had to be copied
+     * @return the cache file
+     */
+    public static File addToCache(DownloadInfo infoFromRemote, File downloaded) throws IOException {
+        if (!CacheUtil.isCacheable(infoFromRemote.getResourceHref())) {
+            throw new IllegalArgumentException(infoFromRemote.getResourceHref() + " is not a cacheable resource");
+        }
+        return LeastRecentlyUsedCache.getInstance().addToCache(infoFromRemote, downloaded);
+    }
+
+    /**
+     * @return the number of bytes saved by storing identical content of different resources only once
+     */
+    public static long getDeduplicationSavings() {
+        return LeastRecentlyUsedCache.getInstance().getDeduplicationSavings();
+    }
+
     /**
      * Invalidate the entry and make it eligible for removal.
      *
@@ -0,0 +1,158 @@
+package net.adoptopenjdk.icedteaweb.resources.cache;
+
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.sourceforge.jnlp.config.InfrastructureFileDescriptor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Content addressed store below the cache directory. Each distinct content is kept once, as a
+ * blob named by its SHA-256 hash, and the cache files with this content are hard links to it.
+ * The same jar served from different hosts or codebases, or downloaded again for a new
+ * version, therefore takes disk space only once.
+ * <p>
+ * A blob which is no longer linked from any cache file has a link count of one, and is removed
+ * while collecting garbage. Blobs are only used on file systems which report the link count
+ * (unix); elsewhere each cache file keeps its own copy as before.
+ * <p>
+ * All methods are called while holding the lock of the cache index.
+ */
+class CacheBlobStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheBlobStore.class);
+
+    static final String BLOB_DIR_NAME = "blobs";
+
+    private static final String LINK_COUNT_ATTRIBUTE = "unix:nlink";
+    private static final String LINK_SUFFIX = ".link";
+    private static final Pattern SHA_256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    private final InfrastructureFileDescriptor rootCacheDir;
+    private final boolean enabled;
+
+    CacheBlobStore(final InfrastructureFileDescriptor rootCacheDir) {
+        this.rootCacheDir = rootCacheDir;
+        this.enabled = FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+    }
+
+    /**
+     * @return whether cache files are shared, otherwise all other methods do nothing
+     */
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Shares a newly written cache file: if a blob with the same content exists, the cache file
+     * is replaced by a link to it, otherwise the cache file becomes the blob.
+     *
+     * @param cacheFile the cache file
+     * @param sha256    the hex encoded SHA-256 hash of its content
+     * @return true if an existing blob is used
+     */
+    boolean share(final File cacheFile, final String sha256) {
+        if (!enabled || !isHash(sha256)) {
+            return false;
+        }
+        final File blob = getBlob(sha256);
+        try {
+            if (blob.isFile() && blob.length() == cacheFile.length()) {
+                // link next to the cache file and move it over the copy, so the cache file always exists
+                final Path link = new File(cacheFile.getParentFile(), cacheFile.getName() + LINK_SUFFIX).toPath();
+                Files.deleteIfExists(link);
+                Files.createLink(link, blob.toPath());
+                Files.move(link, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                LOG.debug("Sharing the content of {} with {}", cacheFile, blob);
+                return true;
+            }
+            Files.deleteIfExists(blob.toPath());
+            Files.createDirectories(blob.getParentFile().toPath());
+            Files.createLink(blob.toPath(), cacheFile.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            LOG.debug("Unable to share the content of {}: {}", cacheFile, e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * @return the directories of the blobs, each one is checked by {@link #sweep(File)} in one step
+     */
+    List<File> getBlobDirs() {
+        final File[] dirs = getBlobRoot().listFiles(File::isDirectory);
+        return dirs == null ? Collections.emptyList() : Arrays.asList(dirs);
+    }
+
+    /**
+     * Removes the blobs of a directory which are not linked from a cache file any more.
+     *
+     * @param blobDir a directory returned by {@link #getBlobDirs()}
+     */
+    void sweep(final File blobDir) {
+        final File[] blobs = blobDir.listFiles();
+        if (blobs == null) {
+            return;
+        }
+        for (File blob : blobs) {
+            if (getLinkCount(blob) == 1 && !blob.delete()) {
+                LOG.debug("Failed to delete unused blob {}", blob);
+            }
+        }
+        final String[] remaining = blobDir.list();
+        if (remaining != null && remaining.length == 0 && !blobDir.delete()) {
+            LOG.debug("Failed to delete empty blob directory {}", blobDir);
+        }
+    }
+
+    /**
+     * @return the number of bytes which would be used additionally if each cache file had its own copy
+     */
+    long getSavedBytes() {
+        long saved = 0;
+        for (File blobDir : getBlobDirs()) {
+            final File[] blobs = blobDir.listFiles();
+            if (blobs != null) {
+                for (File blob : blobs) {
+                    // one link is the blob itself, the first cache file would be stored anyway
+                    final int sharedBy = getLinkCount(blob) - 2;
+                    if (sharedBy > 0) {
+                        saved += sharedBy * blob.length();
+                    }
+                }
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * @return the number of links to the file, or -1 if unknown
+     */
+    private int getLinkCount(final File file) {
+        try {
+            return (Integer) Files.getAttribute(file.toPath(), LINK_COUNT_ATTRIBUTE);
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private File getBlobRoot() {
+        return new File(rootCacheDir.getFile(), BLOB_DIR_NAME);
+    }
+
+    private File getBlob(final String sha256) {
+        return new File(new File(getBlobRoot(), sha256.substring(0, 2)), sha256);
+    }
+
+    private static boolean isHash(final String sha256) {
+        return sha256 != null && SHA_256_HEX.matcher(sha256).matches();
+    }
+}
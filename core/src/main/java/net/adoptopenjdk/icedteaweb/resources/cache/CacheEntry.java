@@ -40,6 +40,7 @@ class CacheEntry implements ResourceInfo {
     private static final Logger LOG = LoggerFactory.getLogger(CacheEntry.class);
 
     static final String INFO_SUFFIX = ".info";
+    static final String PARSED_SUFFIX = ".parsed";
 
     private static final String KEY_SIZE = "content-length";
     private static final String KEY_LAST_MODIFIED = "last-modified";
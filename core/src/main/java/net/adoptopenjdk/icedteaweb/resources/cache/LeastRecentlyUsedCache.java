@@ -53,24 +53,34 @@ import net.sourceforge.jnlp.util.PropertiesFile;
 import net.sourceforge.jnlp.util.WindowsShortcutManager;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.URL;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static java.util.Comparator.comparing;
@@ -90,19 +100,88 @@ class LeastRecentlyUsedCache {
         return CacheHolder.INSTANCE;
     }
 
+    /** files in an entry directory which are neither the cache file nor info files are removed once they are this old */
+    private static final long STRAY_FILE_AGE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /** the directory below the cache directory in which downloads are written before they are moved into their entry */
+    static final String TEMP_DIR_NAME = "tmp";
+
+    /** unlocked temporary files are only removed once they are this old, so a writer can move a finished file in peace */
+    private static final long TEMP_FILE_AGE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final int DIRS_PER_LEVEL = 250;
+    private static final int MAX_DIRS = DIRS_PER_LEVEL * DIRS_PER_LEVEL;
+
     private final LeastRecentlyUsedCacheIndexHolder cacheIndex;
     private final InfrastructureFileDescriptor rootCacheDir;
+    private final LeastRecentlyUsedCacheCollector collector;
+    private final CacheBlobStore blobs;
+    private final SystemCache systemCache;
+
+    /** the number of the next entry directory to create, only used while holding the lock of the index */
+    private int nextDirNumber = -1;
 
     /**
      * @param recentlyUsed file to be used as recently_used file
      * @param cacheDir     dir with cache
      */
-    private LeastRecentlyUsedCache(final InfrastructureFileDescriptor recentlyUsed, final InfrastructureFileDescriptor cacheDir) {
+    LeastRecentlyUsedCache(final InfrastructureFileDescriptor recentlyUsed, final InfrastructureFileDescriptor cacheDir) {
+        this(recentlyUsed, cacheDir, null);
+    }
+
+    /**
+     * @param recentlyUsed   file to be used as recently_used file
+     * @param cacheDir       dir with cache
+     * @param systemCacheDir dir with the read-only cache shared by all users, may be {@code null}
+     */
+    LeastRecentlyUsedCache(final InfrastructureFileDescriptor recentlyUsed, final InfrastructureFileDescriptor cacheDir, final File systemCacheDir) {
         this.cacheIndex = new LeastRecentlyUsedCacheIndexHolder(recentlyUsed);
         this.rootCacheDir = cacheDir;
+        this.collector = new LeastRecentlyUsedCacheCollector(this);
+        this.blobs = new CacheBlobStore(cacheDir);
+        this.systemCache = systemCacheDir != null ? new SystemCache(systemCacheDir) : null;
+    }
+
+    /**
+     * Returns the entry of the system cache to use for the resource. It is used unless this cache
+     * has a complete entry, e.g. because the resource changed on the server after the system cache
+     * was filled, or the entry of the system cache is broken and the user downloaded it again.
+     */
+    private Optional<CacheEntry> findInSystemCache(URL resourceHref, VersionId version) {
+        if (!hasSystemCache()) {
+            return Optional.empty();
+        }
+        return systemCache.find(resourceHref, version).filter(shared -> {
+            final Optional<CacheEntry> own = cacheIndex.getSynchronized(idx -> idx.find(resourceHref, version))
+                    .map(this::getInfoFile)
+                    .filter(CacheEntry::isCached);
+            return !own.isPresent();
+        });
+    }
+
+    private boolean hasSystemCache() {
+        return systemCache != null && !isSystemCache();
+    }
+
+    /**
+     * @return true if this is the system cache, which the administrator fills by using it as the own cache
+     */
+    private boolean isSystemCache() {
+        return systemCache != null && systemCache.getRootDir().getAbsoluteFile().equals(rootCacheDir.getFile().getAbsoluteFile());
+    }
+
+    private List<LeastRecentlyUsedCacheEntry> findAllInSystemCache(URL resourceHref, VersionString version) {
+        if (!hasSystemCache()) {
+            return Collections.emptyList();
+        }
+        return systemCache.findAll(resourceHref, version);
     }
 
     File getOrCreateCacheFile(URL resourceHref, VersionId version) {
+        final Optional<CacheEntry> shared = findInSystemCache(resourceHref, version);
+        if (shared.isPresent()) {
+            return shared.get().getCacheFile();
+        }
         final LeastRecentlyUsedCacheEntry entry = cacheIndex.getSynchronized(idx ->
                 getOrCreateCacheEntry(idx, resourceHref, version)
         );
@@ -124,29 +203,49 @@ class LeastRecentlyUsedCache {
     }
 
     private LeastRecentlyUsedCacheEntry createNewInfoFileAndIndexEntry(LeastRecentlyUsedCacheIndex idx, URL resourceHref, VersionId version) {
-        final File dir = makeNewCacheDir();
+        final File dir = makeNewCacheDir(idx);
         final String entryId = entryIdFromCacheDir(dir);
         createInfoFile(dir);
         return idx.createEntry(resourceHref, version, entryId);
     }
 
-    private File makeNewCacheDir() {
+    /**
+     * Creates the directory of a new entry. The directories are numbered, the first number to
+     * try follows the highest one in the index. A directory which already exists, e.g. as
+     * another process created it meanwhile, is skipped.
+     */
+    private File makeNewCacheDir(LeastRecentlyUsedCacheIndex idx) {
+        if (nextDirNumber < 0) {
+            nextDirNumber = idx.getAllEntries().stream()
+                    .mapToInt(entry -> dirNumberFromEntryId(entry.getId()))
+                    .max()
+                    .orElse(-1) + 1;
+        }
         final String cacheDirPath = rootCacheDir.getFullPath();
-        for (int i = 0; i < 250; i++) {
-            for (int j = 0; j < 250; j++) {
-                String path = cacheDirPath + File.separator + i + File.separator + j;
-                File cDir = new File(path);
-                if (!cDir.exists()) {
-                    if (cDir.mkdirs()) {
-                        return cDir;
-                    }
-                    throw new RuntimeException("Can't create directory " + cDir);
-                }
+        for (int tries = 0; tries < MAX_DIRS; tries++) {
+            final int number = nextDirNumber % MAX_DIRS;
+            nextDirNumber = number + 1;
+            final File cDir = new File(cacheDirPath + File.separator + number / DIRS_PER_LEVEL + File.separator + number % DIRS_PER_LEVEL);
+            cDir.getParentFile().mkdirs();
+            if (cDir.mkdir()) {
+                return cDir;
+            }
+            if (!cDir.isDirectory()) {
+                throw new RuntimeException("Can't create directory " + cDir);
             }
         }
         throw new RuntimeException("Out of directories :-)");
     }
 
+    private static int dirNumberFromEntryId(String entryId) {
+        final String[] idParts = entryId.split("-");
+        try {
+            return Integer.parseInt(idParts[0]) * DIRS_PER_LEVEL + Integer.parseInt(idParts[1]);
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
     private void createInfoFile(File dir) {
         try {
             final File infoFile = new File(dir, CacheEntry.INFO_SUFFIX);
@@ -174,14 +273,24 @@ class LeastRecentlyUsedCache {
 
         final CacheEntry infoFile = getInfoFile(entry);
         final File cacheFile = infoFile.getCacheFile();
+        File tempFile = null;
         try {
             LOG.debug("Downloading file: {} into: {}", info.getResourceHref(), cacheFile.getCanonicalPath());
-            try (final OutputStream out = new FileOutputStream(cacheFile)) {
-                IOUtils.copy(inputStream, out);
+            tempFile = createTempFile();
+            final MessageDigest digest = newSha256Digest();
+            // the lock tells the recovery of other processes that the file is still being written
+            try (final FileOutputStream fileOut = new FileOutputStream(tempFile);
+                 final FileLock ignored = fileOut.getChannel().lock()) {
+                IOUtils.copy(inputStream, new DigestOutputStream(fileOut, digest));
+                fileOut.getChannel().force(true);
             }
-            infoFile.storeInfo(info.getDownloadedAt(), info.getLastModified(), cacheFile.length());
+            moveIntoCache(tempFile, entry, infoFile, info, toHex(digest.digest()));
         } catch (IOException e) {
             ex.add(e);
+        } finally {
+            if (tempFile != null && tempFile.exists() && !tempFile.delete()) {
+                LOG.debug("Failed to delete temporary file {}", tempFile);
+            }
         }
 
         if (!ex.isEmpty()) {
@@ -191,7 +300,106 @@ class LeastRecentlyUsedCache {
         return cacheFile;
     }
 
+    /**
+     * Moves a file which holds the complete content of a download into the cache, so the content
+     * is not written again. If the file can not be moved there, its content is copied.
+     *
+     * @param info       the download
+     * @param downloaded the file, it is gone unless copied
+     * @return the cache file
+     */
+    File addToCache(DownloadInfo info, File downloaded) throws IOException {
+        final MessageDigest digest = newSha256Digest();
+        try (final InputStream in = new FileInputStream(downloaded)) {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        final LeastRecentlyUsedCacheEntry entry = cacheIndex.getSynchronized(idx ->
+                getOrCreateCacheEntry(idx, info.getResourceHref(), info.getVersion())
+        );
+        final CacheEntry infoFile = getInfoFile(entry);
+        try {
+            LOG.debug("Moving download of {} into: {}", info.getResourceHref(), infoFile.getCacheFile().getCanonicalPath());
+            moveIntoCache(downloaded, entry, infoFile, info, toHex(digest.digest()));
+        } catch (AtomicMoveNotSupportedException e) {
+            try (final InputStream in = new FileInputStream(downloaded)) {
+                return addToCache(info, in);
+            }
+        }
+        return infoFile.getCacheFile();
+    }
+
+    private void moveIntoCache(File file, LeastRecentlyUsedCacheEntry entry, CacheEntry infoFile, DownloadInfo info, String sha256) throws IOException {
+        final File cacheFile = infoFile.getCacheFile();
+        final long size = file.length();
+        // readers see either the old or the complete new content, never a partial file,
+        // and a cache file shared with other entries as a blob is not written into
+        Files.move(file.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // the entry only counts as cached once the size in its info file matches
+        infoFile.storeInfo(info.getDownloadedAt(), info.getLastModified(), size);
+        cacheIndex.runSynchronized(idx -> {
+            idx.setSize(entry, size);
+            blobs.share(cacheFile, sha256);
+        });
+    }
+
+    private File createTempFile() throws IOException {
+        final File tempDir = getTempDir();
+        Files.createDirectories(tempDir.toPath());
+        return Files.createTempFile(tempDir.toPath(), "download-", ".tmp").toFile();
+    }
+
+    private File getTempDir() {
+        return new File(rootCacheDir.getFile(), TEMP_DIR_NAME);
+    }
+
+    /**
+     * Removes the temporary files of downloads which were interrupted, e.g. because the process
+     * writing them was killed. As all downloads are written in one directory this does not need
+     * to look at the entries.
+     */
+    void removeInterruptedDownloads() {
+        final File[] tempFiles = getTempDir().listFiles();
+        if (tempFiles == null) {
+            return;
+        }
+        final long oldBefore = System.currentTimeMillis() - TEMP_FILE_AGE_MILLIS;
+        for (File tempFile : tempFiles) {
+            if (tempFile.lastModified() < oldBefore && !isBeingWritten(tempFile)) {
+                LOG.debug("Removing interrupted download {}", tempFile);
+                if (!tempFile.delete()) {
+                    LOG.debug("Failed to delete temporary file {}", tempFile);
+                }
+            }
+        }
+    }
+
+    private static boolean isBeingWritten(File tempFile) {
+        try (final FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE);
+             final FileLock lock = channel.tryLock()) {
+            return lock == null;
+        } catch (OverlappingFileLockException | IOException e) {
+            // locked by this process, or already moved
+            return true;
+        }
+    }
+
+    /**
+     * @return the number of bytes saved by storing identical content only once
+     */
+    long getDeduplicationSavings() {
+        return blobs.getSavedBytes();
+    }
+
     Optional<CacheEntry> getResourceInfo(URL resourceHref, VersionId version) {
+        final Optional<CacheEntry> shared = findInSystemCache(resourceHref, version);
+        if (shared.isPresent()) {
+            return shared;
+        }
         return cacheIndex.getSynchronized(idx -> idx.find(resourceHref, version))
                 .map(this::getInfoFile);
     }
@@ -222,6 +430,12 @@ class LeastRecentlyUsedCache {
      * @throws IllegalArgumentException if the resourceHref is not cacheable
      */
     boolean isUpToDate(URL resourceHref, VersionId version, long lastModified) {
+        final Optional<CacheEntry> shared = findInSystemCache(resourceHref, version);
+        if (shared.isPresent()) {
+            final boolean isUpToDate = shared.get().isCurrent(lastModified);
+            LOG.info("isUpToDate: {} - (v: {}) = {} (system cache)", resourceHref, version, isUpToDate);
+            return isUpToDate;
+        }
         final Boolean isUpToDate = cacheIndex.getSynchronized(idx -> idx.findAndMarkAsAccessed(resourceHref, version))
                 .map(e -> getInfoFile(e).isCurrent(lastModified))
                 .orElse(false);
@@ -232,7 +446,7 @@ class LeastRecentlyUsedCache {
     Optional<LeastRecentlyUsedCacheEntry> getBestMatchingEntryInCache(final URL resourceHref, final VersionString version) {
         final Comparator<VersionId> versionIdComparator = version != null ? new VersionIdComparator(version) : VersionId::compareTo;
         final Comparator<LeastRecentlyUsedCacheEntry> versionComparator = comparing(LeastRecentlyUsedCacheEntry::getVersion, versionIdComparator);
-        return cacheIndex.getSynchronized(idx -> {
+        final Optional<LeastRecentlyUsedCacheEntry> own = cacheIndex.getSynchronized(idx -> {
             final Set<LeastRecentlyUsedCacheEntry> allSet = idx.findAll(resourceHref, version);
             final List<LeastRecentlyUsedCacheEntry> all = new ArrayList<>(allSet);
             all.sort(versionComparator);
@@ -245,18 +459,28 @@ class LeastRecentlyUsedCache {
 
             return Optional.empty();
         });
+        final List<LeastRecentlyUsedCacheEntry> candidates = new ArrayList<>(findAllInSystemCache(resourceHref, version));
+        own.ifPresent(candidates::add);
+        candidates.sort(versionComparator);
+        return candidates.stream().findFirst();
     }
 
     List<LeastRecentlyUsedCacheEntry> getAllEntriesInCache(final URL resourceHref) {
         final Comparator<LeastRecentlyUsedCacheEntry> versionComparator = comparing(LeastRecentlyUsedCacheEntry::getVersion);
-        return cacheIndex.getSynchronized(idx -> {
+        final List<LeastRecentlyUsedCacheEntry> own = cacheIndex.getSynchronized(idx -> {
             final Set<LeastRecentlyUsedCacheEntry> allSet = idx.findAll(resourceHref);
 
             return allSet.stream()
                     .filter(entry -> getInfoFile(entry).isCached())
-                    .sorted(versionComparator)
                     .collect(Collectors.toList());
         });
+        // a version in both caches is listed once
+        final Map<VersionId, LeastRecentlyUsedCacheEntry> byVersion = new HashMap<>();
+        findAllInSystemCache(resourceHref, null).forEach(entry -> byVersion.put(entry.getVersion(), entry));
+        own.forEach(entry -> byVersion.putIfAbsent(entry.getVersion(), entry));
+        return byVersion.values().stream()
+                .sorted(versionComparator)
+                .collect(Collectors.toList());
     }
 
     List<CacheId> getCacheIds(String filter, boolean includeJnlpPath, boolean includeDomain) {
@@ -382,6 +606,14 @@ class LeastRecentlyUsedCache {
         }
     }
 
+    /**
+     * Reads the index ahead of the first lookup.
+     */
+    void loadIndex() {
+        cacheIndex.runSynchronized(idx -> {
+        });
+    }
+
     /**
      * This will remove all old cache items.
      */
@@ -389,85 +621,164 @@ class LeastRecentlyUsedCache {
         if (cannotClearCache()) {
             return;
         }
+        collector.collect(Long.MAX_VALUE, TimeUnit.NANOSECONDS, true);
+    }
 
-        final File[] levelOneDirs = rootCacheDir.getFile().listFiles(File::isDirectory);
-        if (isNullOrEmpty(levelOneDirs)) {
-            cacheIndex.runSynchronized(LeastRecentlyUsedCacheIndex::clear);
-        } else {
-            final Set<String> entryIds = collectAllEntryIdsFromFileSystem(levelOneDirs);
-            cacheIndex.runSynchronized(idx -> {
-
-                final long maxSize = getMaxSizeInBytes();
-                long curSize = 0;
-
-                final List<LeastRecentlyUsedCacheEntry> toDelete = new ArrayList<>();
-                for (LeastRecentlyUsedCacheEntry entry : idx.getAllEntries()) {
-                    entryIds.remove(entry.getId());
-
-                    final CacheEntry infoFile = getInfoFile(entry);
-                    final File cacheFile = infoFile.getCacheFile();
-                    final File directory = cacheFile.getParentFile();
-
-                    if (!infoFile.exists()) {
-                        toDelete.add(entry);
-                        deleteAll(directory);
-                        continue;
-                    }
+    /**
+     * Removes old cache items for at most the given time. Entries are only evicted if no other
+     * instance of javaws is running, otherwise only directories unknown to the index are removed.
+     *
+     * @param budget the time to spend at most
+     * @param unit   the unit of the budget
+     * @return true if the whole cache was checked
+     */
+    boolean collectGarbage(long budget, TimeUnit unit) {
+        if (isSystemCache()) {
+            // neither the size limit of a user nor the entries in use by one process apply to it
+            return true;
+        }
+        return collector.collect(budget, unit, !cannotClearCache());
+    }
 
-                    final long size = cacheFile.length();
-                    if (entry.isMarkedForDeletion() || !cacheFile.isFile() || (maxSize >= 0 && curSize + size > maxSize)) {
-                        toDelete.add(entry);
-                        deleteAll(directory);
-                        continue;
-                    }
+    /**
+     * Removes the downloads interrupted by a crash, then starts removing directories unknown to
+     * the index in the background, in small steps. Entries are not evicted as this instance is
+     * using them.
+     */
+    void startCollectingGarbage() {
+        if (isSystemCache()) {
+            return;
+        }
+        removeInterruptedDownloads();
+        collector.startInBackground();
+    }
 
-                    final File[] cacheDirFiles = directory.listFiles();
-                    if (!isNullOrEmpty(cacheDirFiles)) {
-                        for (File file : cacheDirFiles) {
-                            if (!file.equals(cacheFile) && !file.getName().equals(CacheEntry.INFO_SUFFIX)) {
-                                deleteAll(file);
-                            }
-                        }
-                    }
+    /**
+     * Removes the entries marked for deletion and, as long as the cache is larger than its
+     * maximal size, the least recently used entries. Only the index is consulted to find them.
+     *
+     * @param maxSize the maximal size of the cache in bytes, negative for no limit
+     * @param limit   the maximal number of entries to remove
+     * @return true if the limit was reached, so more entries may have to be removed
+     */
+    boolean evictEntries(long maxSize, int limit) {
+        final List<File> directories = new ArrayList<>();
+        cacheIndex.runSynchronized(idx -> {
+            final List<LeastRecentlyUsedCacheEntry> entries = idx.getAllEntries();
+            // the least recently used entries and the ones marked for deletion are at the end
+            for (int i = entries.size() - 1; i >= 0 && directories.size() < limit; i--) {
+                final LeastRecentlyUsedCacheEntry entry = entries.get(i);
+                if (entry.isMarkedForDeletion() || (maxSize >= 0 && idx.getTotalSize() > maxSize)) {
+                    directories.add(cacheDirFromEntryId(entry.getId()));
+                    idx.removeEntry(entry);
+                }
+            }
+        });
+        deleteAll(directories);
+        return directories.size() >= limit;
+    }
 
-                    curSize += size;
+    /**
+     * @return the names of the level one directories in the cache and of those referenced by the index
+     */
+    List<String> getLevelOneDirNames() {
+        final Set<String> names = new TreeSet<>();
+        final File[] levelOneDirs = rootCacheDir.getFile().listFiles(File::isDirectory);
+        if (levelOneDirs != null) {
+            for (File dir : levelOneDirs) {
+                if (!dir.getName().equals(CacheBlobStore.BLOB_DIR_NAME) && !dir.getName().equals(TEMP_DIR_NAME)) {
+                    names.add(dir.getName());
                 }
+            }
+        }
+        cacheIndex.runSynchronized(idx -> {
+            for (LeastRecentlyUsedCacheEntry entry : idx.getAllEntries()) {
+                names.add(entry.getId().split("-")[0]);
+            }
+        });
+        return new ArrayList<>(names);
+    }
 
-                toDelete.forEach(idx::removeEntry);
-            });
+    /**
+     * @return the directories of the blob store, each one is checked by {@link #sweepBlobDir(File)}
+     */
+    List<File> getBlobDirs() {
+        return blobs.getBlobDirs();
+    }
 
-            // delete dirs with no entry in the least recently used index
-            final List<File> dirsWithNoEntryInTheIndex = entryIds.stream()
-                    .map(this::cacheDirFromEntryId)
-                    .collect(Collectors.toList());
-            deleteAll(dirsWithNoEntryInTheIndex);
+    /**
+     * Removes the blobs of the directory which are no longer used by any entry.
+     */
+    void sweepBlobDir(File blobDir) {
+        cacheIndex.runSynchronized(idx -> blobs.sweep(blobDir));
+    }
 
-            // delete empty level one dirs
-            final List<File> emptyDirs = Arrays.stream(levelOneDirs)
-                    .filter(dir -> isNullOrEmpty(dir.list()))
-                    .collect(Collectors.toList());
-            deleteAll(emptyDirs);
+    /**
+     * Checks the entries in a single level one directory against the index. Directories without
+     * an entry in the index and old stray files in entry directories are removed. Sizes of cached
+     * files which are not yet in the index are added to it.
+     *
+     * @param name          the name of the level one directory
+     * @param removeBroken  whether to remove entries from the index whose files are missing
+     */
+    void sweepLevelOneDir(String name, boolean removeBroken) {
+        final File levelOneDir = new File(rootCacheDir.getFile(), name);
+
+        // list the directories before locking the index, entries created meanwhile are not in the list
+        final Map<String, File> dirsWithoutEntry = new HashMap<>();
+        final File[] levelTwoDirs = levelOneDir.listFiles(File::isDirectory);
+        if (levelTwoDirs != null) {
+            for (File levelTwoDir : levelTwoDirs) {
+                dirsWithoutEntry.put(entryIdFromCacheDir(levelTwoDir), levelTwoDir);
+            }
         }
-    }
 
-    private Set<String> collectAllEntryIdsFromFileSystem(File[] levelOneDirs) {
-        final Set<String> entryIds = new HashSet<>();
-        for (File levelOneDir : levelOneDirs) {
-            final File[] levelTwoDirs = levelOneDir.listFiles(File::isDirectory);
-            if (levelTwoDirs != null) {
-                for (File levelTwoDir : levelTwoDirs) {
-                    final String entryId = entryIdFromCacheDir(levelTwoDir);
-                    if (new File(levelTwoDir, CacheEntry.INFO_SUFFIX).isFile()) {
-                        entryIds.add(entryId);
+        final String idPrefix = name + "-";
+        final long strayBefore = System.currentTimeMillis() - STRAY_FILE_AGE_MILLIS;
+        final List<File> toDelete = new ArrayList<>();
+        cacheIndex.runSynchronized(idx -> {
+            for (LeastRecentlyUsedCacheEntry entry : new ArrayList<>(idx.getAllEntries())) {
+                if (!entry.getId().startsWith(idPrefix)) {
+                    continue;
+                }
+                final File directory = dirsWithoutEntry.remove(entry.getId());
+                final CacheEntry infoFile = getInfoFile(entry);
+                final File cacheFile = infoFile.getCacheFile();
+
+                if (removeBroken && (!infoFile.exists() || !cacheFile.isFile())) {
+                    toDelete.add(cacheFile.getParentFile());
+                    idx.removeEntry(entry);
+                    continue;
+                }
+
+                if (entry.getSize() == LeastRecentlyUsedCacheEntry.UNKNOWN_SIZE && infoFile.isCached()) {
+                    idx.setSize(entry, cacheFile.length());
+                }
+
+                if (directory != null) {
+                    final File[] strayFiles = directory.listFiles(file -> !file.equals(cacheFile)
+                            && !file.getName().equals(CacheEntry.INFO_SUFFIX)
+                            && !file.getName().equals(CacheEntry.PARSED_SUFFIX)
+                            && file.lastModified() < strayBefore);
+                    if (strayFiles != null) {
+                        toDelete.addAll(Arrays.asList(strayFiles));
                     }
                 }
             }
-        }
-        return entryIds;
+            toDelete.addAll(dirsWithoutEntry.values());
+        });
+        deleteAll(toDelete);
+
+        // new entry directories are only created while holding the lock
+        cacheIndex.runSynchronized(idx -> {
+            if (levelOneDir.isDirectory() && isNullOrEmpty(levelOneDir.list()) && !levelOneDir.delete()) {
+                LOG.debug("Failed to delete empty directory {}", levelOneDir);
+            }
+        });
     }
 
     @SuppressWarnings("ConstantConditions")
-    private long getMaxSizeInBytes() {
+    long getMaxSizeInBytes() {
         try {
             final String maxSizePropertyValue = JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_CACHE_MAX_SIZE);
             final long maxSizeInMegaBytes = Long.parseLong(maxSizePropertyValue);
@@ -479,14 +790,39 @@ class LeastRecentlyUsedCache {
 
     // Helpers
 
+    private static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every java implementation has to support SHA-256
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        final StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return result.toString();
+    }
+
     private File getCacheFile(LeastRecentlyUsedCacheEntry entry) {
+        return getCacheFile(rootCacheDir.getFullPath(), entry);
+    }
+
+    private CacheEntry getInfoFile(LeastRecentlyUsedCacheEntry entry) {
+        return getInfoFile(rootCacheDir.getFullPath(), entry);
+    }
+
+    private static File getCacheFile(String rootPath, LeastRecentlyUsedCacheEntry entry) {
         final String[] idParts = entry.getId().split("-");
         final String cacheFilName = getCacheFileName(entry.getResourceHref());
-        return new File(String.join("/", rootCacheDir.getFullPath(), idParts[0], idParts[1], cacheFilName));
+        return new File(String.join("/", rootPath, idParts[0], idParts[1], cacheFilName));
     }
 
-    private CacheEntry getInfoFile(LeastRecentlyUsedCacheEntry entry) {
-        final File cacheFile = getCacheFile(entry);
+    static CacheEntry getInfoFile(String rootPath, LeastRecentlyUsedCacheEntry entry) {
+        final File cacheFile = getCacheFile(rootPath, entry);
         final File infoFile = new File(cacheFile.getParentFile(), CacheEntry.INFO_SUFFIX);
         return new CacheEntry(entry, cacheFile, infoFile);
     }
@@ -500,7 +836,7 @@ class LeastRecentlyUsedCache {
         return new File(String.join("/", rootCacheDir.getFullPath(), idParts[0], idParts[1]));
     }
 
-    private String getCacheFileName(URL resourceHref) {
+    private static String getCacheFileName(URL resourceHref) {
         final String path = resourceHref.getPath();
         final int i = path.lastIndexOf('/');
         if (i < 0) {
@@ -567,7 +903,12 @@ class LeastRecentlyUsedCache {
     }
 
     private static class CacheHolder {
-        private static final LeastRecentlyUsedCache INSTANCE = new LeastRecentlyUsedCache(PathsAndFiles.getRecentlyUsedFile(), PathsAndFiles.CACHE_DIR);
+        private static final LeastRecentlyUsedCache INSTANCE = new LeastRecentlyUsedCache(PathsAndFiles.getRecentlyUsedFile(), PathsAndFiles.CACHE_DIR, getSystemCacheDir());
+
+        private static File getSystemCacheDir() {
+            final String path = JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_SYSTEM_CACHE_DIR);
+            return StringUtils.isBlank(path) ? null : new File(path);
+        }
     }
 
 }
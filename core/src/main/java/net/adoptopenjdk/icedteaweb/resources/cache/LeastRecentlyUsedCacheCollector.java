@@ -0,0 +1,124 @@
+package net.adoptopenjdk.icedteaweb.resources.cache;
+
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes old and broken items from the cache in small steps, so the work is spread over time
+ * instead of scanning the whole cache at once.
+ * <p>
+ * Evicting entries only needs the index, as it knows the size and the last access of each entry.
+ * The directories of the cache are checked one level one directory per step, holding the lock of
+ * the index only while comparing that directory with it. A pass over all directories starts at a
+ * random directory, so short runs in different processes together cover the whole cache.
+ * Blobs no longer used by any entry are removed at the end of a pass.
+ */
+class LeastRecentlyUsedCacheCollector {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LeastRecentlyUsedCacheCollector.class);
+
+    private static final int EVICTIONS_PER_STEP = 32;
+
+    private static final long BACKGROUND_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final long BACKGROUND_STEP_MILLIS = 20;
+    private static final long BACKGROUND_PAUSE_MILLIS = 500;
+
+    private final LeastRecentlyUsedCache cache;
+
+    /** the level one directories still to check in the current pass */
+    private final Deque<String> pending = new ArrayDeque<>();
+
+    /** the directories of the blob store still to check in the current pass */
+    private final Deque<File> pendingBlobDirs = new ArrayDeque<>();
+
+    private Thread backgroundThread;
+
+    LeastRecentlyUsedCacheCollector(final LeastRecentlyUsedCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Collects garbage until the budget is used up or a pass over the whole cache is complete.
+     * The next call continues where this one stopped.
+     *
+     * @param budget the time to spend at most, each step is started within this time
+     * @param unit   the unit of the budget
+     * @param evict  whether to evict entries from the index, only allowed if no other process uses them
+     * @return true if the pass over the cache is complete
+     */
+    synchronized boolean collect(final long budget, final TimeUnit unit, final boolean evict) {
+        final long start = System.nanoTime();
+        final long budgetNanos = unit.toNanos(budget);
+
+        if (evict) {
+            final long maxSize = cache.getMaxSizeInBytes();
+            while (cache.evictEntries(maxSize, EVICTIONS_PER_STEP)) {
+                if (System.nanoTime() - start >= budgetNanos) {
+                    return false;
+                }
+            }
+        }
+
+        if (pending.isEmpty() && pendingBlobDirs.isEmpty()) {
+            startPass();
+        }
+        while (!pending.isEmpty()) {
+            if (System.nanoTime() - start >= budgetNanos) {
+                return false;
+            }
+            cache.sweepLevelOneDir(pending.poll(), evict);
+        }
+        // blobs are freed by removing entries, so they are checked last
+        while (!pendingBlobDirs.isEmpty()) {
+            if (System.nanoTime() - start >= budgetNanos) {
+                return false;
+            }
+            cache.sweepBlobDir(pendingBlobDirs.poll());
+        }
+        return true;
+    }
+
+    /**
+     * Starts a daemon thread which, after a while, checks the cache in small steps with pauses in
+     * between, until a pass is complete. Entries are not evicted.
+     */
+    synchronized void startInBackground() {
+        if (backgroundThread != null) {
+            return;
+        }
+        backgroundThread = new Thread(() -> {
+            try {
+                Thread.sleep(BACKGROUND_DELAY_MILLIS);
+                while (!collect(BACKGROUND_STEP_MILLIS, TimeUnit.MILLISECONDS, false)) {
+                    Thread.sleep(BACKGROUND_PAUSE_MILLIS);
+                }
+                LOG.debug("Checked all directories of the cache");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                LOG.debug("Checking the cache in the background failed: {}", e.getMessage());
+            }
+        }, "itw-cache-collector");
+        backgroundThread.setDaemon(true);
+        backgroundThread.setPriority(Thread.MIN_PRIORITY);
+        backgroundThread.start();
+    }
+
+    private void startPass() {
+        cache.removeInterruptedDownloads();
+        final List<String> names = cache.getLevelOneDirNames();
+        if (!names.isEmpty()) {
+            Collections.rotate(names, ThreadLocalRandom.current().nextInt(names.size()));
+        }
+        pending.addAll(names);
+        pendingBlobDirs.addAll(cache.getBlobDirs());
+    }
+}
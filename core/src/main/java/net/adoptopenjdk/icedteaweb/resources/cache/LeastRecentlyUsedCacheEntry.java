@@ -10,25 +10,29 @@ import java.util.Objects;
  * ...
  */
 class LeastRecentlyUsedCacheEntry implements Comparable<LeastRecentlyUsedCacheEntry> {
+    static final long UNKNOWN_SIZE = -1;
+
     private final String id;
     private final long lastAccessed;
     private final boolean markedForDeletion;
+    private final long size;
 
     private final URL resourceHref;
     private final VersionId version;
 
     LeastRecentlyUsedCacheEntry(String id, long lastAccessed, URL resourceHref, VersionId version) {
-        this.id = id;
-        this.lastAccessed = lastAccessed;
-        this.markedForDeletion = false;
-        this.resourceHref = resourceHref;
-        this.version = version;
+        this(id, lastAccessed, false, UNKNOWN_SIZE, resourceHref, version);
     }
 
     LeastRecentlyUsedCacheEntry(String id, URL resourceHref, VersionId version) {
+        this(id, 0, true, UNKNOWN_SIZE, resourceHref, version);
+    }
+
+    LeastRecentlyUsedCacheEntry(String id, long lastAccessed, boolean markedForDeletion, long size, URL resourceHref, VersionId version) {
         this.id = id;
-        this.lastAccessed = 0;
-        this.markedForDeletion = true;
+        this.lastAccessed = markedForDeletion ? 0 : lastAccessed;
+        this.markedForDeletion = markedForDeletion;
+        this.size = size;
         this.resourceHref = resourceHref;
         this.version = version;
     }
@@ -37,6 +41,10 @@ class LeastRecentlyUsedCacheEntry implements Comparable<LeastRecentlyUsedCacheEn
         return id;
     }
 
+    long getLastAccessed() {
+        return lastAccessed;
+    }
+
     URL getResourceHref() {
         return resourceHref;
     }
@@ -53,6 +61,13 @@ class LeastRecentlyUsedCacheEntry implements Comparable<LeastRecentlyUsedCacheEn
         return resourceHref.getHost();
     }
 
+    /**
+     * @return the size of the cached file, or {@link #UNKNOWN_SIZE} if it was not stored yet
+     */
+    long getSize() {
+        return size;
+    }
+
     boolean isMarkedForDeletion() {
         return markedForDeletion;
     }
@@ -33,15 +33,24 @@ class LeastRecentlyUsedCacheIndex {
     private static final String KEY_DELETE = "delete";
     static final String KEY_HREF = "href";
     private static final String KEY_VERSION = "version";
+    static final String KEY_SIZE = "size";
 
     private final PropertiesFile propertiesFile;
     private final List<LeastRecentlyUsedCacheEntry> entries;
 
     private boolean dirty = false;
 
+    /** the sum of the known sizes of all entries, kept up to date with each change */
+    private long totalSize;
+
     LeastRecentlyUsedCacheIndex(PropertiesFile propertiesFile, List<LeastRecentlyUsedCacheEntry> entries) {
+        this(propertiesFile, entries, totalSize(entries));
+    }
+
+    LeastRecentlyUsedCacheIndex(PropertiesFile propertiesFile, List<LeastRecentlyUsedCacheEntry> entries, long totalSize) {
         this.propertiesFile = propertiesFile;
         this.entries = entries;
+        this.totalSize = totalSize;
     }
 
     /**
@@ -109,6 +118,13 @@ class LeastRecentlyUsedCacheIndex {
         return entries;
     }
 
+    /**
+     * @return the sum of the sizes of all entries whose size is known
+     */
+    long getTotalSize() {
+        return totalSize;
+    }
+
     /**
      * Create a new entry.
      *
@@ -134,12 +150,29 @@ class LeastRecentlyUsedCacheIndex {
     void markEntryForDeletion(URL resourceHref, VersionId version) {
         find(resourceHref, version).ifPresent(entry -> {
             entries.remove(entry);
-            entries.add(new LeastRecentlyUsedCacheEntry(entry.getId(), entry.getResourceHref(), entry.getVersion()));
+            entries.add(new LeastRecentlyUsedCacheEntry(entry.getId(), 0, true, entry.getSize(), entry.getResourceHref(), entry.getVersion()));
             propertiesFile.setProperty(entry.getId() + '.' + KEY_DELETE, TRUE.toString());
             dirty = true;
         });
     }
 
+    /**
+     * Stores the size of the cached file of an entry, keeping its position in the index.
+     */
+    void setSize(LeastRecentlyUsedCacheEntry entry, long size) {
+        final int index = entries.indexOf(entry);
+        if (index < 0) {
+            return;
+        }
+        final LeastRecentlyUsedCacheEntry current = entries.get(index);
+        final LeastRecentlyUsedCacheEntry updated = new LeastRecentlyUsedCacheEntry(current.getId(), current.getLastAccessed(),
+                current.isMarkedForDeletion(), size, current.getResourceHref(), current.getVersion());
+        entries.set(index, updated);
+        totalSize += knownSize(updated) - knownSize(current);
+        propertiesFile.setProperty(entry.getId() + '.' + KEY_SIZE, Long.toString(size));
+        dirty = true;
+    }
+
     /**
      * Removes an entry from the index. If not entry matches nothing is changed.
      */
@@ -151,11 +184,15 @@ class LeastRecentlyUsedCacheIndex {
      * Removes an entry from the index.
      */
     void removeEntry(LeastRecentlyUsedCacheEntry entry) {
-        entries.remove(entry);
+        final int index = entries.indexOf(entry);
+        if (index >= 0) {
+            totalSize -= knownSize(entries.remove(index));
+        }
         propertiesFile.remove(entry.getId() + '.' + KEY_HREF);
         propertiesFile.remove(entry.getId() + '.' + KEY_VERSION);
         propertiesFile.remove(entry.getId() + '.' + KEY_DELETE);
         propertiesFile.remove(entry.getId() + '.' + KEY_LAST_ACCESSED);
+        propertiesFile.remove(entry.getId() + '.' + KEY_SIZE);
         dirty = true;
     }
 
@@ -164,6 +201,7 @@ class LeastRecentlyUsedCacheIndex {
      */
     void clear() {
         entries.clear();
+        totalSize = 0;
         propertiesFile.clear();
         dirty = true;
     }
@@ -175,11 +213,23 @@ class LeastRecentlyUsedCacheIndex {
     private void markAccessed(LeastRecentlyUsedCacheEntry entry) {
         final long now = System.currentTimeMillis();
         entries.remove(entry);
-        entries.add(0, new LeastRecentlyUsedCacheEntry(entry.getId(), now, entry.getResourceHref(), entry.getVersion()));
+        entries.add(0, new LeastRecentlyUsedCacheEntry(entry.getId(), now, false, entry.getSize(), entry.getResourceHref(), entry.getVersion()));
         propertiesFile.setProperty(entry.getId() + '.' + KEY_LAST_ACCESSED, Long.toString(now));
         dirty = true;
     }
 
+    private static long knownSize(LeastRecentlyUsedCacheEntry entry) {
+        return Math.max(0, entry.getSize());
+    }
+
+    private static long totalSize(List<LeastRecentlyUsedCacheEntry> entries) {
+        long result = 0;
+        for (LeastRecentlyUsedCacheEntry entry : entries) {
+            result += knownSize(entry);
+        }
+        return result;
+    }
+
     /**
      * check content of recentlyUsedPropertiesFile and remove invalid/corrupt entries
      *
@@ -221,15 +271,17 @@ class LeastRecentlyUsedCacheIndex {
             final String markedForDeletionValue = values.get(KEY_DELETE);
             final String resourceHrefValue = values.get(KEY_HREF);
             final String versionValue = values.get(KEY_VERSION);
+            final String sizeValue = values.get(KEY_SIZE);
 
             try {
                 final VersionId version = versionValue != null ? VersionId.fromString(versionValue) : null;
                 final URL resourceHref = new URL(resourceHrefValue);
+                final long size = sizeValue != null ? Long.parseLong(sizeValue) : LeastRecentlyUsedCacheEntry.UNKNOWN_SIZE;
                 if (Boolean.parseBoolean(markedForDeletionValue)) {
-                    entries.add(new LeastRecentlyUsedCacheEntry(id, resourceHref, version));
+                    entries.add(new LeastRecentlyUsedCacheEntry(id, 0, true, size, resourceHref, version));
                 } else {
                     final long lastAccessed = Long.parseLong(lastAccessedValue);
-                    entries.add(new LeastRecentlyUsedCacheEntry(id, lastAccessed, resourceHref, version));
+                    entries.add(new LeastRecentlyUsedCacheEntry(id, lastAccessed, false, size, resourceHref, version));
                 }
             } catch (Exception e) {
                 LOG.debug("found broken ID: {}", id);
@@ -237,6 +289,7 @@ class LeastRecentlyUsedCacheIndex {
                 props.remove(id + '.' + KEY_DELETE);
                 props.remove(id + '.' + KEY_HREF);
                 props.remove(id + '.' + KEY_VERSION);
+                props.remove(id + '.' + KEY_SIZE);
                 modified = true;
             }
         }
@@ -244,7 +297,7 @@ class LeastRecentlyUsedCacheIndex {
         // make sure the entries are sorted most recent accessed to least recent accessed
         Collections.sort(entries);
 
-        return new ConversionResult(modified, entries);
+        return new ConversionResult(modified, entries, totalSize(entries));
     }
 
     private static String[] splitKey(String key) {
@@ -258,10 +311,12 @@ class LeastRecentlyUsedCacheIndex {
     static class ConversionResult {
         final boolean propertiesNeedToBeStored;
         final List<LeastRecentlyUsedCacheEntry> entries;
+        final long totalSize;
 
-        private ConversionResult(boolean propertiesNeedToBeStored, List<LeastRecentlyUsedCacheEntry> entries) {
+        private ConversionResult(boolean propertiesNeedToBeStored, List<LeastRecentlyUsedCacheEntry> entries, long totalSize) {
             this.propertiesNeedToBeStored = propertiesNeedToBeStored;
             this.entries = entries;
+            this.totalSize = totalSize;
         }
     }
 }
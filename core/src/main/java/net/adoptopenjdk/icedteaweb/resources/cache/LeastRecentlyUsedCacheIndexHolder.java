@@ -28,6 +28,7 @@ class LeastRecentlyUsedCacheIndexHolder {
 
     private PropertiesFile cachedIndexPropertiesFile;
     private List<LeastRecentlyUsedCacheEntry> cachedEntries;
+    private long cachedTotalSize;
 
     LeastRecentlyUsedCacheIndexHolder(InfrastructureFileDescriptor recentlyUsed) {
         this.recentlyUsed = recentlyUsed;
@@ -55,6 +56,7 @@ class LeastRecentlyUsedCacheIndexHolder {
             try {
                 final LeastRecentlyUsedCacheIndex index = load(propertiesFile);
                 final T result = action.apply(index);
+                cachedTotalSize = index.getTotalSize();
                 if (index.isDirty()) {
                     store(propertiesFile);
                 }
@@ -96,8 +98,9 @@ class LeastRecentlyUsedCacheIndexHolder {
             }
 
             cachedEntries = result.entries;
+            cachedTotalSize = result.totalSize;
         }
-        return new LeastRecentlyUsedCacheIndex(propertiesFile, cachedEntries);
+        return new LeastRecentlyUsedCacheIndex(propertiesFile, cachedEntries, cachedTotalSize);
     }
 
     /**
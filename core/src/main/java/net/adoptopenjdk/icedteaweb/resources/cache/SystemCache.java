@@ -0,0 +1,75 @@
+package net.adoptopenjdk.icedteaweb.resources.cache;
+
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionId;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.util.PropertiesFile;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A cache provisioned by an administrator and shared by all users of a machine, e.g. a terminal
+ * server, see {@link ConfigurationConstants#KEY_SYSTEM_CACHE_DIR}. It has the layout of a user
+ * cache and is filled with {@code javaws -Xsystemcache}.
+ * <p>
+ * Users only read it: the index is loaded without locking and loaded again when the
+ * administrator changes it. An entry is only used if its info file confirms that the cache
+ * file is complete.
+ */
+class SystemCache {
+
+    private final File rootDir;
+    private final PropertiesFile indexFile;
+    private LeastRecentlyUsedCacheIndex index;
+
+    SystemCache(final File rootDir) {
+        this.rootDir = rootDir;
+        this.indexFile = new PropertiesFile(new File(rootDir, ConfigurationConstants.CACHE_INDEX_FILE_NAME));
+    }
+
+    File getRootDir() {
+        return rootDir;
+    }
+
+    /**
+     * @return the complete entry for the resource, if any
+     */
+    synchronized Optional<CacheEntry> find(final URL resourceHref, final VersionId version) {
+        return getIndex().find(resourceHref, version)
+                .map(this::getInfoFile)
+                .filter(CacheEntry::isCached);
+    }
+
+    /**
+     * @param resourceHref the resource
+     * @param version      the versions to look for, {@code null} for all versions
+     * @return the complete entries for the resource
+     */
+    synchronized List<LeastRecentlyUsedCacheEntry> findAll(final URL resourceHref, final VersionString version) {
+        final Set<LeastRecentlyUsedCacheEntry> all = version == null ? getIndex().findAll(resourceHref) : getIndex().findAll(resourceHref, version);
+        return all.stream()
+                .filter(entry -> getInfoFile(entry).isCached())
+                .collect(Collectors.toList());
+    }
+
+    private LeastRecentlyUsedCacheIndex getIndex() {
+        if (indexFile.load() || index == null) {
+            // nothing is stored, broken entries are just skipped
+            final List<LeastRecentlyUsedCacheEntry> entries = indexFile.getStoreFile().isFile()
+                    ? LeastRecentlyUsedCacheIndex.convertPropertiesToEntries(indexFile).entries
+                    : Collections.emptyList();
+            index = new LeastRecentlyUsedCacheIndex(indexFile, entries);
+        }
+        return index;
+    }
+
+    private CacheEntry getInfoFile(final LeastRecentlyUsedCacheEntry entry) {
+        return LeastRecentlyUsedCache.getInfoFile(rootDir.getAbsolutePath(), entry);
+    }
+}
@@ -0,0 +1,109 @@
+package net.adoptopenjdk.icedteaweb.resources.downloader;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate at which all downloads of this process together read from the network, e.g.
+ * when filling the cache of many machines at once. There is no limit unless one is set.
+ * <p>
+ * The downloads share the bandwidth: each read is accounted in order, and a download waits until
+ * the bytes read before it are within the limit. Bandwidth not used for a while is not saved up.
+ */
+public final class BandwidthLimit {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /** a read is at most a tenth of a second of the bandwidth, so concurrent downloads take turns */
+    private static final int READS_PER_SECOND = 10;
+
+    private static volatile BandwidthLimit current;
+
+    private final long bytesPerSecond;
+    private final int maxReadSize;
+    private long nextFreeNanos = System.nanoTime();
+
+    BandwidthLimit(final long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.maxReadSize = (int) Math.max(1, Math.min(Integer.MAX_VALUE, bytesPerSecond / READS_PER_SECOND));
+    }
+
+    /**
+     * Limits the downloads started from now on.
+     *
+     * @param bytesPerSecond the bandwidth of all downloads together, 0 for no limit
+     */
+    public static void set(final long bytesPerSecond) {
+        current = bytesPerSecond > 0 ? new BandwidthLimit(bytesPerSecond) : null;
+    }
+
+    /**
+     * @param in the stream of a download
+     * @return a stream limited to the current bandwidth, or the given stream if there is no limit
+     */
+    static InputStream apply(final InputStream in) {
+        final BandwidthLimit limit = current;
+        return limit == null ? in : limit.limit(in);
+    }
+
+    InputStream limit(final InputStream in) {
+        return new LimitedInputStream(in);
+    }
+
+    private void acquire(final long bytes) throws InterruptedIOException {
+        final long waitNanos;
+        synchronized (this) {
+            final long now = System.nanoTime();
+            if (nextFreeNanos - now < 0) {
+                nextFreeNanos = now;
+            }
+            waitNanos = nextFreeNanos - now;
+            nextFreeNanos += bytes * NANOS_PER_SECOND / bytesPerSecond;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for bandwidth");
+            }
+        }
+    }
+
+    private class LimitedInputStream extends FilterInputStream {
+
+        LimitedInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int result = in.read();
+            if (result != -1) {
+                acquire(1);
+            }
+            return result;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int result = in.read(b, off, Math.min(len, maxReadSize));
+            if (result > 0) {
+                acquire(result);
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long result = in.skip(Math.min(n, maxReadSize));
+            if (result > 0) {
+                acquire(result);
+            }
+            return result;
+        }
+    }
+}
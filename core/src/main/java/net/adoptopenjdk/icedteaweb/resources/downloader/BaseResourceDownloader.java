@@ -25,6 +25,7 @@ import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -45,6 +46,12 @@ import static net.adoptopenjdk.icedteaweb.resources.Resource.Status.ERROR;
 abstract class BaseResourceDownloader implements ResourceDownloader {
     private static final Logger LOG = LoggerFactory.getLogger(BaseResourceDownloader.class);
 
+    /**
+     * How often the number of bytes read is published while downloading. The default download
+     * indicator refreshes every 150ms, so updates in between would not be visible anyway.
+     */
+    private static final long PROGRESS_INTERVAL_MILLIS = 100;
+
     protected final Resource resource;
     private final List<URL> downloadUrls;
 
@@ -86,15 +93,18 @@ abstract class BaseResourceDownloader implements ResourceDownloader {
     private Resource tryDownloading(final URL downloadFrom) throws IOException {
         LOG.debug("Downloading {} from {}", resource, downloadFrom);
 
-        try (final CloseableConnection connection = getDownloadConnection(downloadFrom)) {
-            final DownloadDetails downloadDetails = getDownloadDetails(connection);
+        try (final PartialDownload partialDownload = PartialDownload.forUrl(downloadFrom);
+             final CloseableConnection connection = getDownloadConnection(downloadFrom, partialDownload)) {
+            final DownloadDetails downloadDetails = getDownloadDetails(connection, partialDownload);
 
             if (downloadDetails.contentType != null && downloadDetails.contentType.startsWith(ERROR_MIME_TYPE)) {
+                partialDownload.completed();
                 final String serverResponse = StreamUtils.readStreamAsString(downloadDetails.inputStream);
                 throw new RuntimeException("Server error: " + serverResponse);
             }
 
-            final long bytesTransferred = tryDownloading(downloadDetails);
+            final long bytesTransferred = tryDownloading(downloadDetails, partialDownload);
+            partialDownload.completed();
 
             resource.setStatus(DOWNLOADED);
             resource.setTransferred(bytesTransferred);
@@ -105,13 +115,13 @@ abstract class BaseResourceDownloader implements ResourceDownloader {
         }
     }
 
-    private CloseableConnection getDownloadConnection(final URL location) throws IOException {
-        final Map<String, String> requestProperties = new HashMap<>();
+    private CloseableConnection getDownloadConnection(final URL location, final PartialDownload partialDownload) throws IOException {
+        final Map<String, String> requestProperties = new HashMap<>(partialDownload.getRequestHeaders());
         requestProperties.put(ACCEPT_ENCODING_HEADER, PACK_200_OR_GZIP);
         return ConnectionFactory.openConnection(location, HttpMethod.GET, requestProperties);
     }
 
-    private long tryDownloading(final DownloadDetails downloadDetails) throws IOException {
+    private long tryDownloading(final DownloadDetails downloadDetails, final PartialDownload partialDownload) throws IOException {
         final URL resourceHref = resource.getLocation();
         final VersionId version = getVersion(downloadDetails.downloadFrom, downloadDetails.version);
 
@@ -120,19 +130,28 @@ abstract class BaseResourceDownloader implements ResourceDownloader {
             resource.setLocalFile(cacheFile);
             return cacheFile.length();
         } else {
-            final CountingInputStream countingInputStream = new CountingInputStream(downloadDetails.inputStream);
-
             final StreamUnpacker compressionUpacker = StreamUnpacker.getCompressionUnpacker(downloadDetails);
-            final InputStream unpackedStream = compressionUpacker.unpack(countingInputStream);
-
             final StreamUnpacker contentUnpacker = StreamUnpacker.getContentUnpacker(downloadDetails, resourceHref);
-            final InputStream unpackedContent = contentUnpacker.unpack(unpackedStream);
-
             final DownloadInfo downloadInfo = new DownloadInfo(resourceHref, version, downloadDetails.lastModified);
-            final File cacheFile = Cache.addToCache(downloadInfo, unpackedContent);
+
+            // bytes received by an earlier, interrupted attempt are not transferred again
+            final long resumedBytes = partialDownload.getResumedBytes();
+            final CountingInputStream countingInputStream = new CountingInputStream(BandwidthLimit.apply(downloadDetails.inputStream),
+                    read -> resource.setTransferred(Math.max(0, read - resumedBytes)), PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            final File cacheFile;
+            final File recording = compressionUpacker instanceof NotUnpacker && contentUnpacker instanceof NotUnpacker
+                    ? partialDownload.readIntoRecording(countingInputStream) : null;
+            if (recording != null) {
+                // the content is stored as received, so its recording is moved into the cache
+                cacheFile = Cache.addToCache(downloadInfo, recording);
+            } else {
+                final InputStream unpackedStream = compressionUpacker.unpack(countingInputStream);
+                final InputStream unpackedContent = contentUnpacker.unpack(unpackedStream);
+                cacheFile = Cache.addToCache(downloadInfo, unpackedContent);
+            }
 
             resource.setLocalFile(cacheFile);
-            return countingInputStream.numBytesRead();
+            return Math.max(0, countingInputStream.numBytesRead() - resumedBytes);
         }
     }
 
@@ -140,7 +159,7 @@ abstract class BaseResourceDownloader implements ResourceDownloader {
 
     protected abstract boolean isUpToDate(final URL resourceHref, final VersionId version, final long lastModified);
 
-    private DownloadDetails getDownloadDetails(final CloseableConnection connection) throws IOException {
+    private DownloadDetails getDownloadDetails(final CloseableConnection connection, final PartialDownload partialDownload) throws IOException {
         final URL downloadFrom = connection.getURL();
         try {
             // TODO handle redirect and 511 and not successful...
@@ -149,12 +168,14 @@ abstract class BaseResourceDownloader implements ResourceDownloader {
             final String version = connection.getHeaderField(VERSION_ID_HEADER);
             final String contentType = connection.getHeaderField(CONTENT_TYPE_HEADER);
             final String contentEncoding = connection.getHeaderField(CONTENT_ENCODING_HEADER);
-            final InputStream inputStream = connection.getInputStream();
+            final InputStream responseStream = connection.getInputStream();
 
             if (! String.valueOf(connection.getResponseCode()).startsWith("2")) {
                 throw new IllegalStateException("Request returned " + connection.getResponseCode() + " for URL " + connection.getURL());
             }
 
+            final InputStream inputStream = partialDownload.wrap(connection, responseStream);
+
             return new DownloadDetails(downloadFrom, inputStream, contentType, contentEncoding, version, lastModified);
         } catch (IOException ex) {
             if (INVALID_HTTP_RESPONSE.equals(ex.getMessage())) {
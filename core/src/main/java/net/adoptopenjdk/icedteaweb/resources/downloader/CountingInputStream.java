@@ -5,16 +5,40 @@ import net.adoptopenjdk.icedteaweb.Assert;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
 
 /**
  * InputStream decorator which reads the number of bytes read.
+ * <p>
+ * The count can be published to a listener while reading. To keep the overhead of a read low, the
+ * listener is called at most once per interval, with the count at that time.
  */
 class CountingInputStream extends FilterInputStream {
 
+    private static final LongConsumer NO_LISTENER = count -> {};
+
+    private final LongConsumer listener;
+    private final long intervalNanos;
+
     private long count;
+    private long lastPublished;
 
     CountingInputStream(InputStream delegate) {
+        this(delegate, NO_LISTENER, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param delegate the stream to count the bytes of
+     * @param listener called with the number of bytes read so far
+     * @param interval the minimal time between two calls of the listener
+     * @param unit     the unit of the interval
+     */
+    CountingInputStream(InputStream delegate, LongConsumer listener, long interval, TimeUnit unit) {
         super(Assert.requireNonNull(delegate, "delegate"));
+        this.listener = Assert.requireNonNull(listener, "listener");
+        this.intervalNanos = unit.toNanos(interval);
+        this.lastPublished = System.nanoTime();
     }
 
     /**
@@ -29,6 +53,7 @@ class CountingInputStream extends FilterInputStream {
         int result = in.read();
         if (result != -1) {
             count++;
+            publish();
         }
         return result;
     }
@@ -38,6 +63,7 @@ class CountingInputStream extends FilterInputStream {
         int result = in.read(b, off, len);
         if (result != -1) {
             count += result;
+            publish();
         }
         return result;
     }
@@ -46,9 +72,21 @@ class CountingInputStream extends FilterInputStream {
     public long skip(long n) throws IOException {
         long result = in.skip(n);
         count += result;
+        publish();
         return result;
     }
 
+    private void publish() {
+        if (listener == NO_LISTENER) {
+            return;
+        }
+        final long now = System.nanoTime();
+        if (now - lastPublished >= intervalNanos) {
+            lastPublished = now;
+            listener.accept(count);
+        }
+    }
+
     @Override
     public synchronized void mark(int readlimit) {
         // do nothing as we do not allow reset;
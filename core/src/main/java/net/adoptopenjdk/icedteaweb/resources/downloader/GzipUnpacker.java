@@ -16,20 +16,20 @@
 
 package net.adoptopenjdk.icedteaweb.resources.downloader;
 
-import net.adoptopenjdk.icedteaweb.io.IOUtils;
-
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.zip.GZIPInputStream;
 
 /**
- * Unpacker for Gzip streams.
+ * Unpacker for Gzip streams. The content is decompressed while it is read,
+ * so it is never held in memory as a whole.
  */
 public class GzipUnpacker implements StreamUnpacker {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     @Override
     public InputStream unpack(InputStream input) throws IOException {
-        final byte[] content = IOUtils.readContent(new GZIPInputStream(input));
-        return new ByteArrayInputStream(content);
+        return new GZIPInputStream(input, BUFFER_SIZE);
     }
 }
@@ -0,0 +1,364 @@
+package net.adoptopenjdk.icedteaweb.resources.downloader;
+
+import net.adoptopenjdk.icedteaweb.http.CloseableConnection;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.sourceforge.jnlp.cache.CacheUtil;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.ACCEPT_RANGES_HEADER;
+import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.BYTES_RANGE_UNIT;
+import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.CONTENT_RANGE_HEADER;
+import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.ETAG_HEADER;
+import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.IF_RANGE_HEADER;
+import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.LAST_MODIFIED_HEADER;
+import static net.adoptopenjdk.icedteaweb.resources.JnlpDownloadProtocolConstants.RANGE_HEADER;
+import static net.sourceforge.jnlp.config.PathsAndFiles.TMP_DIR;
+
+/**
+ * Keeps the raw bytes of a download on disk while they are received so an interrupted
+ * download can be resumed with a range request instead of starting over.
+ * <p>
+ * The received bytes are only recorded if the server announced range support and sent a
+ * validator ({@code ETag} or {@code Last-Modified}). The validator is sent as {@code If-Range}
+ * on the next attempt, so a changed resource is delivered completely again.
+ * <p>
+ * A download which is stored as received is not written to disk twice: its recording is moved
+ * into the cache once it is complete, see {@link #readIntoRecording(InputStream)}.
+ * <p>
+ * A lock file makes sure only one process at a time records a download for the same URL.
+ */
+class PartialDownload implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PartialDownload.class);
+
+    private static final String PARTIAL_DIR = "partial";
+    private static final String PART_SUFFIX = ".part";
+    private static final String VALIDATOR_SUFFIX = ".validator";
+    private static final String LOCK_SUFFIX = ".lock";
+
+    private static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+    private static final AtomicBoolean staleFilesRemoved = new AtomicBoolean();
+
+    private final File partFile;
+    private final File validatorFile;
+    private final File lockFile;
+    private final RandomAccessFile lockAccess;
+    private final FileLock lock;
+
+    private long resumedBytes = 0;
+    private OutputStream out;
+    private RecordingInputStream recordingStream;
+
+    private PartialDownload(final File directory, final String name) throws IOException {
+        partFile = new File(directory, name + PART_SUFFIX);
+        validatorFile = new File(directory, name + VALIDATOR_SUFFIX);
+        lockFile = new File(directory, name + LOCK_SUFFIX);
+        lockAccess = new RandomAccessFile(lockFile, "rw");
+        lock = tryLock(lockAccess);
+    }
+
+    private static FileLock tryLock(final RandomAccessFile file) throws IOException {
+        try {
+            return file.getChannel().tryLock();
+        } catch (OverlappingFileLockException e) {
+            // already locked by this process
+            return null;
+        }
+    }
+
+    /**
+     * @param downloadFrom the URL the content is downloaded from
+     * @return the partial download of the URL, never {@code null}
+     */
+    static PartialDownload forUrl(final URL downloadFrom) {
+        final File directory = new File(TMP_DIR.getFile(), PARTIAL_DIR);
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Can not create " + directory);
+            }
+            if (staleFilesRemoved.compareAndSet(false, true)) {
+                removeStaleFiles(directory);
+            }
+            return new PartialDownload(directory, CacheUtil.hex("", downloadFrom.toExternalForm()));
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            LOG.debug("Downloads of {} can not be resumed: {}", downloadFrom, e.getMessage());
+            return new PartialDownload();
+        }
+    }
+
+    /**
+     * Disabled instance which never records anything.
+     */
+    private PartialDownload() {
+        partFile = null;
+        validatorFile = null;
+        lockFile = null;
+        lockAccess = null;
+        lock = null;
+    }
+
+    private boolean isEnabled() {
+        return lock != null;
+    }
+
+    /**
+     * @return the headers requesting the remaining bytes, empty if nothing can be resumed
+     */
+    Map<String, String> getRequestHeaders() {
+        if (!isEnabled() || !partFile.isFile() || partFile.length() == 0 || !validatorFile.isFile()) {
+            return Collections.emptyMap();
+        }
+        try {
+            final String validator = new String(Files.readAllBytes(validatorFile.toPath()), StandardCharsets.UTF_8).trim();
+            if (validator.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            final Map<String, String> headers = new HashMap<>();
+            headers.put(RANGE_HEADER, BYTES_RANGE_UNIT + "=" + partFile.length() + "-");
+            headers.put(IF_RANGE_HEADER, validator);
+            return headers;
+        } catch (IOException e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Combines the bytes received earlier with the ones of the response and records newly received bytes.
+     *
+     * @param connection the connection of the response
+     * @param responseStream the body of the response
+     * @return the complete content
+     */
+    InputStream wrap(final CloseableConnection connection, final InputStream responseStream) throws IOException {
+        if (!isEnabled()) {
+            return responseStream;
+        }
+        if (connection.getResponseCode() == HttpURLConnection.HTTP_PARTIAL) {
+            final long existing = partFile.length();
+            final String contentRange = connection.getHeaderField(CONTENT_RANGE_HEADER);
+            if (contentRange == null || !contentRange.trim().startsWith(BYTES_RANGE_UNIT + " " + existing + "-")) {
+                discard();
+                throw new IOException("Unexpected Content-Range '" + contentRange + "' when resuming at byte " + existing);
+            }
+            LOG.debug("Resuming download of {} at byte {}", connection.getURL(), existing);
+            resumedBytes = existing;
+            out = new FileOutputStream(partFile, true);
+            recordingStream = new RecordingInputStream(new FileInputStream(partFile), responseStream, existing, out);
+            return recordingStream;
+        }
+
+        discard();
+        final String validator = getValidator(connection);
+        if (validator != null && BYTES_RANGE_UNIT.equalsIgnoreCase(trim(connection.getHeaderField(ACCEPT_RANGES_HEADER)))) {
+            Files.write(validatorFile.toPath(), validator.getBytes(StandardCharsets.UTF_8));
+            out = new FileOutputStream(partFile);
+            recordingStream = new RecordingInputStream(null, responseStream, 0, out);
+            return recordingStream;
+        }
+        return responseStream;
+    }
+
+    /**
+     * Reads the rest of the content, so the recording holds all of it, and hands the recording over.
+     * Nothing is read if the content is not recorded.
+     *
+     * @param content the stream returned by {@link #wrap}, or one reading it without changing the bytes
+     * @return the file with the complete content, which the caller moves away, or null if the content
+     * is not recorded and has to be read from the stream
+     * @throws IOException if reading or recording the content fails
+     */
+    File readIntoRecording(final InputStream content) throws IOException {
+        if (recordingStream == null || recordingStream.recording == null) {
+            return null;
+        }
+        final byte[] buffer = new byte[8192];
+        while (content.read(buffer) != -1) {
+            // the recording holds what has been read
+        }
+        if (recordingStream.recording == null) {
+            throw new IOException("Failed to record the download in " + partFile);
+        }
+        closeOutput();
+        return partFile;
+    }
+
+    /**
+     * @return number of bytes which were not downloaded again as they have been received earlier
+     */
+    long getResumedBytes() {
+        return resumedBytes;
+    }
+
+    /**
+     * The content was completely consumed, the recorded bytes are no longer needed.
+     */
+    void completed() {
+        discard();
+    }
+
+    /**
+     * Releases the lock. Unless completed, keeps the recorded bytes for the next attempt.
+     */
+    @Override
+    public void close() {
+        closeOutput();
+        try {
+            if (lock != null) {
+                lock.release();
+            }
+            if (lockAccess != null) {
+                lockAccess.close();
+            }
+        } catch (IOException e) {
+            LOG.debug("Failed to release lock {}: {}", lockFile, e.getMessage());
+        }
+    }
+
+    private void discard() {
+        if (!isEnabled()) {
+            return;
+        }
+        closeOutput();
+        recordingStream = null;
+        resumedBytes = 0;
+        partFile.delete();
+        validatorFile.delete();
+    }
+
+    private void closeOutput() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                LOG.debug("Failed to close {}: {}", partFile, e.getMessage());
+            }
+            out = null;
+        }
+    }
+
+    private static String getValidator(final CloseableConnection connection) {
+        final String etag = trim(connection.getHeaderField(ETAG_HEADER));
+        // weak entity tags can not be used in If-Range
+        if (etag != null && etag.startsWith("\"")) {
+            return etag;
+        }
+        return trim(connection.getHeaderField(LAST_MODIFIED_HEADER));
+    }
+
+    private static String trim(final String value) {
+        return value == null ? null : value.trim();
+    }
+
+    private static void removeStaleFiles(final File directory) {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        final long limit = System.currentTimeMillis() - MAX_AGE_MILLIS;
+        for (File file : files) {
+            if (file.lastModified() < limit && file.delete()) {
+                LOG.debug("Removed stale partial download {}", file);
+            }
+        }
+    }
+
+    /**
+     * Reads the recorded prefix first and then the response while appending the bytes of the response
+     * to the recording. A failing recording does not fail the download.
+     */
+    private static class RecordingInputStream extends FilterInputStream {
+
+        private InputStream prefix;
+        private long prefixRemaining;
+        private OutputStream recording;
+
+        RecordingInputStream(final InputStream prefix, final InputStream response, final long prefixLength, final OutputStream recording) {
+            super(response);
+            this.prefix = prefix;
+            this.prefixRemaining = prefixLength;
+            this.recording = recording;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] single = new byte[1];
+            final int read = read(single, 0, 1);
+            return read == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (prefix != null) {
+                final int read = prefix.read(b, off, (int) Math.min(len, prefixRemaining));
+                if (read > 0) {
+                    prefixRemaining -= read;
+                }
+                if (read <= 0 || prefixRemaining == 0) {
+                    prefix.close();
+                    prefix = null;
+                    if (prefixRemaining > 0) {
+                        throw new IOException("Recorded part of the download is shorter than expected");
+                    }
+                }
+                if (read > 0) {
+                    return read;
+                }
+            }
+            final int read = in.read(b, off, len);
+            if (read > 0 && recording != null) {
+                try {
+                    recording.write(b, off, read);
+                } catch (IOException e) {
+                    LOG.debug("Stopped recording download: {}", e.getMessage());
+                    recording = null;
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            final int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (prefix != null) {
+                prefix.close();
+            }
+            super.close();
+        }
+    }
+}
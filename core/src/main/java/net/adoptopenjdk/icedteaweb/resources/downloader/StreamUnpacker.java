@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.Collections;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Pattern;
@@ -44,15 +45,20 @@ interface StreamUnpacker {
 
     String GZIP_ENCODING = "gzip";
 
+    // alias of gzip, RFC 7230 section 4.2.3
+    String X_GZIP_ENCODING = "x-gzip";
+
+    String IDENTITY_ENCODING = "identity";
+
     String PACK_200_GZIP_ENCODING = "pack200-gzip";
 
     String PACK_GZ_EXTENSION = ".pack.gz";
 
     static StreamUnpacker getCompressionUnpacker(final DownloadDetails downloadDetails) {
         final URL downloadFrom = downloadDetails.downloadFrom;
-        final String contentEncoding = downloadDetails.contentEncoding;
+        final String contentEncoding = downloadDetails.contentEncoding == null ? null : downloadDetails.contentEncoding.trim().toLowerCase(Locale.ENGLISH);
         final boolean packgz = PACK_200_GZIP_ENCODING.equals(contentEncoding) || downloadFrom.getPath().endsWith(PACK_GZ_EXTENSION);
-        final boolean gzip = GZIP_ENCODING.equals(contentEncoding);
+        final boolean gzip = GZIP_ENCODING.equals(contentEncoding) || X_GZIP_ENCODING.equals(contentEncoding);
 
         // It's important to check packgz first. If a stream is both
         // pack200 and gz encoded, then con.getContentEncoding() could
@@ -66,6 +72,10 @@ interface StreamUnpacker {
             return new GzipUnpacker();
         }
 
+        if (contentEncoding != null && !contentEncoding.isEmpty() && !IDENTITY_ENCODING.equals(contentEncoding)) {
+            // only the encodings of the Accept-Encoding header may be sent by the server
+            LOG.warn("Unsupported content encoding '{}' for '{}', content is stored as received", contentEncoding, downloadDetails.downloadFrom);
+        }
         LOG.debug("Will use no compression-unpacker for '{}'", downloadDetails.downloadFrom);
         return new NotUnpacker();
     }
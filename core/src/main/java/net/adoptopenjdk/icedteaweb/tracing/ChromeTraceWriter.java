@@ -0,0 +1,105 @@
+package net.adoptopenjdk.icedteaweb.tracing;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes recorded events in the Chrome trace event format which can be opened
+ * with {@code chrome://tracing} or <a href="https://ui.perfetto.dev">Perfetto</a>.
+ */
+class ChromeTraceWriter {
+
+    private final Writer out;
+    private final long originNanos;
+    private final long pid;
+    private boolean first = true;
+
+    ChromeTraceWriter(final Writer out, final long originNanos, final long pid) {
+        this.out = out;
+        this.originNanos = originNanos;
+        this.pid = pid;
+    }
+
+    void write(final Collection<TraceEvent> events) throws IOException {
+        out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        final Map<Long, String> threadNames = new HashMap<>();
+        for (TraceEvent event : events) {
+            threadNames.putIfAbsent(event.getThreadId(), event.getThreadName());
+            writeEvent(event);
+        }
+        for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+            startObject();
+            out.write("\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" + pid + ",\"tid\":" + thread.getKey() + ",\"args\":{\"name\":");
+            writeString(thread.getValue());
+            out.write("}}");
+        }
+        out.write("\n]}\n");
+        out.flush();
+    }
+
+    private void writeEvent(final TraceEvent event) throws IOException {
+        startObject();
+        out.write("\"name\":");
+        writeString(event.getName());
+        out.write(",\"cat\":");
+        writeString(event.getCategory());
+        out.write(",\"ph\":\"" + (event.isInstant() ? "i\",\"s\":\"t" : "X") + "\"");
+        out.write(",\"ts\":" + toMicros(event.getStartNanos() - originNanos));
+        if (!event.isInstant()) {
+            out.write(",\"dur\":" + toMicros(event.getDurationNanos()));
+        }
+        out.write(",\"pid\":" + pid + ",\"tid\":" + event.getThreadId());
+        if (!event.getArgs().isEmpty()) {
+            out.write(",\"args\":{");
+            boolean firstArg = true;
+            for (Map.Entry<String, Object> arg : event.getArgs().entrySet()) {
+                if (!firstArg) {
+                    out.write(',');
+                }
+                firstArg = false;
+                writeString(arg.getKey());
+                out.write(':');
+                final Object value = arg.getValue();
+                if (value instanceof Number || value instanceof Boolean) {
+                    out.write(String.valueOf(value));
+                } else {
+                    writeString(String.valueOf(value));
+                }
+            }
+            out.write('}');
+        }
+        out.write('}');
+    }
+
+    private void startObject() throws IOException {
+        if (!first) {
+            out.write(",\n");
+        }
+        first = false;
+        out.write('{');
+    }
+
+    private static String toMicros(final long nanos) {
+        return String.valueOf(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    private void writeString(final String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+}
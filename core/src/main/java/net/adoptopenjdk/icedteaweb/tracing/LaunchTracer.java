@@ -0,0 +1,152 @@
+package net.adoptopenjdk.icedteaweb.tracing;
+
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Lightweight tracing of the launch phases (JNLP parsing, resource download, signature verification,
+ * security dialogs, class loader activation and application start).
+ * <p>
+ * Tracing is disabled by default. In this case {@link #begin(String, Object)} returns a shared no-op span
+ * and neither allocates nor formats anything. When enabled (by {@code -Xtrace} or the deployment property
+ * {@code deployment.trace.launch}) all spans are collected in memory and written as a Chrome trace JSON
+ * when the launch is finished and again on JVM shutdown.
+ * <p>
+ * Usage:
+ * <pre>
+ * try (TraceSpan span = LaunchTracer.begin(LaunchTracer.DOWNLOAD, url)) {
+ *     ...
+ *     span.arg("bytes", size);
+ * }
+ * </pre>
+ */
+public final class LaunchTracer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LaunchTracer.class);
+
+    public static final String PARSE = "parse";
+    public static final String RESOURCE = "resource";
+    public static final String VERIFY = "verify";
+    public static final String DIALOG = "dialog";
+    public static final String CLASSLOADER = "classloader";
+    public static final String LAUNCH = "launch";
+
+    private static final Queue<TraceEvent> events = new ConcurrentLinkedQueue<>();
+
+    private static volatile boolean enabled = false;
+    private static volatile File target;
+    private static long originNanos;
+    private static boolean shutdownHookInstalled = false;
+
+    private LaunchTracer() {
+        // do not instantiate
+    }
+
+    /**
+     * Enables the tracing. The recorded timeline is written to the given file.
+     *
+     * @param traceFile file the timeline is written to
+     */
+    public static synchronized void enable(final File traceFile) {
+        target = traceFile;
+        if (!enabled) {
+            originNanos = System.nanoTime();
+            enabled = true;
+        }
+        if (!shutdownHookInstalled) {
+            Runtime.getRuntime().addShutdownHook(new Thread(LaunchTracer::dump, "LaunchTracerShutdownHookThread"));
+            shutdownHookInstalled = true;
+        }
+        LOG.info("Launch tracing enabled, timeline will be written to {}", traceFile);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts a span. The span is recorded once it is closed.
+     *
+     * @param category one of the category constants of this class
+     * @param subject  the traced object, only converted to a string if tracing is enabled
+     * @return the started span, never {@code null}
+     */
+    public static TraceSpan begin(final String category, final Object subject) {
+        if (!enabled) {
+            return TraceSpan.NOOP;
+        }
+        return new TraceSpan(category, String.valueOf(subject), System.nanoTime());
+    }
+
+    /**
+     * Records a single point in time.
+     *
+     * @param category one of the category constants of this class
+     * @param subject  the traced object, only converted to a string if tracing is enabled
+     */
+    public static void instant(final String category, final Object subject) {
+        if (enabled) {
+            record(new TraceEvent(category, String.valueOf(subject), System.nanoTime(), TraceEvent.INSTANT, Thread.currentThread(), null));
+        }
+    }
+
+    /**
+     * Writes all events recorded so far to the trace file. Does nothing if tracing is disabled.
+     */
+    public static synchronized void dump() {
+        final File file = target;
+        if (!enabled || file == null) {
+            return;
+        }
+        final List<TraceEvent> snapshot = new ArrayList<>(events);
+        snapshot.sort(Comparator.comparingLong(TraceEvent::getStartNanos));
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            new ChromeTraceWriter(writer, originNanos, getPid()).write(snapshot);
+            LOG.debug("Wrote {} trace events to {}", snapshot.size(), file);
+        } catch (IOException e) {
+            LOG.error("Failed to write launch trace to " + file, e);
+        }
+    }
+
+    static void record(final TraceEvent event) {
+        if (enabled) {
+            events.add(event);
+        }
+    }
+
+    static List<TraceEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    /**
+     * For testing only: disables the tracer and throws away all recorded events.
+     */
+    static synchronized void reset() {
+        enabled = false;
+        target = null;
+        events.clear();
+    }
+
+    private static long getPid() {
+        // "pid@hostname" on all known JVMs
+        final String name = ManagementFactory.getRuntimeMXBean().getName();
+        try {
+            return Long.parseLong(name.substring(0, name.indexOf('@')));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package net.adoptopenjdk.icedteaweb.tracing;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable recorded span or instant event.
+ */
+class TraceEvent {
+
+    static final long INSTANT = -1;
+
+    private final String category;
+    private final String name;
+    private final long startNanos;
+    private final long durationNanos;
+    private final long threadId;
+    private final String threadName;
+    private final Map<String, Object> args;
+
+    TraceEvent(final String category, final String name, final long startNanos, final long durationNanos, final Thread thread, final Map<String, Object> args) {
+        this.category = category;
+        this.name = name;
+        this.startNanos = startNanos;
+        this.durationNanos = durationNanos;
+        this.threadId = thread.getId();
+        this.threadName = thread.getName();
+        this.args = args == null ? Collections.emptyMap() : args;
+    }
+
+    String getCategory() {
+        return category;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    long getDurationNanos() {
+        return durationNanos;
+    }
+
+    boolean isInstant() {
+        return durationNanos == INSTANT;
+    }
+
+    long getThreadId() {
+        return threadId;
+    }
+
+    String getThreadName() {
+        return threadName;
+    }
+
+    Map<String, Object> getArgs() {
+        return args;
+    }
+}
@@ -0,0 +1,59 @@
+package net.adoptopenjdk.icedteaweb.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A timed section of the launch. Spans are created by {@link LaunchTracer#begin(String, Object)} and
+ * recorded when {@link #close() closed}. If tracing is disabled a shared no-op instance is returned.
+ */
+public class TraceSpan implements AutoCloseable {
+
+    static final TraceSpan NOOP = new TraceSpan(null, null, 0L) {
+        @Override
+        public TraceSpan arg(final String key, final Object value) {
+            return this;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private final String category;
+    private final String name;
+    private final long startNanos;
+    private final Thread thread = Thread.currentThread();
+    private Map<String, Object> args;
+    private boolean closed;
+
+    TraceSpan(final String category, final String name, final long startNanos) {
+        this.category = category;
+        this.name = name;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Attaches an argument which is shown in the details of the span.
+     *
+     * @param key   name of the argument
+     * @param value value of the argument, numbers are kept as numbers
+     * @return this span
+     */
+    public TraceSpan arg(final String key, final Object value) {
+        if (args == null) {
+            args = new LinkedHashMap<>();
+        }
+        args.put(key, value);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LaunchTracer.record(new TraceEvent(category, name, startNanos, System.nanoTime() - startNanos, thread, args));
+    }
+}
@@ -247,11 +247,28 @@ public class JNLPFile {
              final ParserSettings settings,
              final String uniqueKey
     ) throws IOException, ParseException {
+        this(XmlParserFactory.getParser(settings.getParserType()).getRootNode(input), location, settings, uniqueKey);
+    }
+
+    /**
+     * Create a JNLPFile from the already parsed XML of the JNLP file.
+     *
+     * @param root          the root node of the JNLP file
+     * @param location      the location of the JNLP file
+     * @param settings      the parser settings to use while parsing the file
+     * @param uniqueKey     a string that uniquely identifies connected instances
+     * @throws ParseException if the JNLP file was invalid
+     */
+    JNLPFile(final Node root,
+             final URL location,
+             final ParserSettings settings,
+             final String uniqueKey
+    ) throws ParseException {
         this.parserSettings = settings;
         this.fileLocation = location;
         this.uniqueKey = uniqueKey;
 
-        parse(input, location, null);
+        parse(root, location, null);
 
         final String httpAgent = getResources().getPropertiesMap().get(HTTP_AGENT);
         if (! StringUtils.isBlank(httpAgent)) {
@@ -722,12 +739,21 @@ public class JNLPFile {
      * @param location the file location or {@code null}
      */
     private void parse(InputStream input, URL location, URL forceCodebase) throws ParseException {
+        final XMLParser xmlParser = XmlParserFactory.getParser(parserSettings.getParserType());
+        parse(xmlParser.getRootNode(input), location, forceCodebase);
+    }
+
+    /**
+     * Initialize the JNLPFile fields from the parsed XML.
+     *
+     * @param root the root node of the JNLP file
+     * @param location the file location or {@code null}
+     */
+    private void parse(Node root, URL location, URL forceCodebase) throws ParseException {
         try {
             //if (location != null)
             //  location = new URL(location, "."); // remove filename
 
-            final XMLParser xmlParser = XmlParserFactory.getParser(parserSettings.getParserType());
-            final Node root = xmlParser.getRootNode(input);
             final Parser parser = new Parser(this, location, root, parserSettings, forceCodebase); // true == allow extensions
 
             // JNLP tag information
@@ -46,10 +46,16 @@ import net.adoptopenjdk.icedteaweb.xmlparser.XmlParserFactory;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * To compare launching JNLP file with signed APPLICATION.JNLP or
@@ -62,6 +68,8 @@ public final class JNLPMatcher {
 
     private final static Logger LOG = LoggerFactory.getLogger(JNLPMatcher.class);
 
+    private static final String WILDCARD = "*";
+
     private final Node appTemplateNode;
     private final Node launchJNLPNode;
     private final boolean isTemplate;
@@ -107,9 +115,10 @@ public final class JNLPMatcher {
      * @return true if both JNLP files are 'matched', otherwise false
      */
     public boolean isMatch() {
-
-        return matchNodes(appTemplateNode, launchJNLPNode);
-
+        if (appTemplateNode == null || launchJNLPNode == null) {
+            return false;
+        }
+        return matchNodes(new CanonicalNode(appTemplateNode, isTemplate), new CanonicalNode(launchJNLPNode, false));
     }
 
     /**
@@ -119,56 +128,84 @@ public final class JNLPMatcher {
      * @param launchJNLP  launching JNLP file's Node
      * @return true if both Nodes are 'matched', otherwise false
      */
-    private boolean matchNodes(Node appTemplate, Node launchJNLP) {
-
-        if (appTemplate != null && launchJNLP != null) {
-
-            Node templateNode = appTemplate;
-            Node launchNode = launchJNLP;
-            // Store children of Node
-            List<Node> appTemplateChild = new LinkedList<>(Arrays.asList(templateNode.getChildNodes()));
-            List<Node> launchJNLPChild = new LinkedList<>(Arrays.asList(launchNode.getChildNodes()));
-
-            // Compare only if both Nodes have the same name, else return false
-            if (templateNode.getNodeName().equals(launchNode.getNodeName())) {
-
-                if (appTemplateChild.size() == launchJNLPChild.size()) { // Compare
-                    // children
-
-                    int childLength = appTemplateChild.size();
-
-                    for (int i = 0; i < childLength; ) {
-                        for (int j = 0; j < childLength; j++) {
-                            boolean isSame = matchNodes(appTemplateChild.get(i), launchJNLPChild.get(j));
-                            if (!isSame && j == childLength - 1) {
-                                return false;
-                            } else if (isSame) { // If both child matches, remove them from the list of children
-                                appTemplateChild.remove(i);
-                                launchJNLPChild.remove(j);
-                                --childLength;
-                                break;
-                            }
-                        }
-                    }
-
-                    if (!templateNode.getNodeValue().equals(launchNode.getNodeValue())) {
-
-                        // If it's a template and the template's value is NOT '*'
-                        if (isTemplate && !templateNode.getNodeValue().equals("*")) {
-                            return false;
-                        }
-                        // Else if it's not a template, then return false
-                        else if (!isTemplate) {
-                            return false;
-                        }
-                    }
-                    // Compare attributes of both Nodes
-                    return matchAttributes(templateNode, launchNode);
+    private boolean matchNodes(CanonicalNode appTemplate, CanonicalNode launchJNLP) {
+        // Same name, attribute names and children structure is required in any case
+        if (appTemplate.shape != launchJNLP.shape) {
+            return false;
+        }
+        // Without wildcards in the subtree the content has to be equal as well
+        if (!appTemplate.hasWildcard && appTemplate.hash != launchJNLP.hash) {
+            return false;
+        }
+        final Node templateNode = appTemplate.node;
+        final Node launchNode = launchJNLP.node;
+        if (!templateNode.getNodeName().equals(launchNode.getNodeName())
+                || appTemplate.children.length != launchJNLP.children.length) {
+            return false;
+        }
+        if (!Objects.equals(templateNode.getNodeValue(), launchNode.getNodeValue())) {
+            // If it's a template and the template's value is '*' anything is allowed
+            if (!isTemplate || !WILDCARD.equals(templateNode.getNodeValue())) {
+                return false;
+            }
+        }
+        return matchAttributes(templateNode, launchNode) && matchChildren(appTemplate, launchJNLP);
+    }
+
+    /**
+     * Pairs the children of two Nodes regardless of order. Each template child is matched with the first
+     * unused launching child which matches it. Candidates are only looked up in the bucket with the same
+     * canonical hash, or with the same shape if the template child contains wildcards.
+     */
+    private boolean matchChildren(CanonicalNode appTemplate, CanonicalNode launchJNLP) {
+        final CanonicalNode[] launchChildren = launchJNLP.children;
+        if (launchChildren.length == 0) {
+            return true;
+        }
+        final boolean[] used = new boolean[launchChildren.length];
+        final Map<Integer, List<Integer>> byShape = new HashMap<>();
+        final Map<Integer, Deque<Integer>> byHash = new HashMap<>();
+        for (int i = 0; i < launchChildren.length; i++) {
+            byShape.computeIfAbsent(launchChildren[i].shape, k -> new ArrayList<>()).add(i);
+            byHash.computeIfAbsent(launchChildren[i].hash, k -> new ArrayDeque<>()).add(i);
+        }
+
+        for (final CanonicalNode templateChild : appTemplate.children) {
+            final int found = templateChild.hasWildcard
+                    ? findByShape(templateChild, byShape.get(templateChild.shape), launchChildren, used)
+                    : findByHash(templateChild, byHash.get(templateChild.hash), launchChildren, used);
+            if (found < 0) {
+                return false;
+            }
+            used[found] = true;
+        }
+        return true;
+    }
+
+    private int findByHash(CanonicalNode templateChild, Deque<Integer> candidates, CanonicalNode[] launchChildren, boolean[] used) {
+        if (candidates != null) {
+            for (final Iterator<Integer> it = candidates.iterator(); it.hasNext(); ) {
+                final int candidate = it.next();
+                if (used[candidate]) {
+                    it.remove();
+                } else if (matchNodes(templateChild, launchChildren[candidate])) {
+                    it.remove();
+                    return candidate;
                 }
+            }
+        }
+        return -1;
+    }
 
+    private int findByShape(CanonicalNode templateChild, List<Integer> candidates, CanonicalNode[] launchChildren, boolean[] used) {
+        if (candidates != null) {
+            for (final int candidate : candidates) {
+                if (!used[candidate] && matchNodes(templateChild, launchChildren[candidate])) {
+                    return candidate;
+                }
             }
         }
-        return false;
+        return -1;
     }
 
     /**
@@ -179,42 +216,73 @@ public final class JNLPMatcher {
      * @return {@code true} if both {@link Node Nodes} have 'matched' attributes, otherwise {@code false}
      */
     private boolean matchAttributes(Node templateNode, Node launchNode) {
+        final List<String> appTemplateAttributes = templateNode.getAttributeNames();
+        final List<String> launchJNLPAttributes = launchNode.getAttributeNames();
+        if (appTemplateAttributes.size() != launchJNLPAttributes.size()) {
+            return false;
+        }
+        for (final String attribute : appTemplateAttributes) {
+            final String templateValue = templateNode.getAttribute(attribute);
+            final String launchValue = launchNode.getAttribute(attribute);
+            if (launchValue == null) {
+                // If attributes names do not match, return false
+                return false;
+            }
+            if (!launchValue.equals(templateValue) && !(isTemplate && WILDCARD.equals(templateValue))) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        if (templateNode != null && launchNode != null) {
-
-            List<String> appTemplateAttributes = templateNode.getAttributeNames();
-            List<String> launchJNLPAttributes = launchNode.getAttributeNames();
-
-            Collections.sort(appTemplateAttributes);
-            Collections.sort(launchJNLPAttributes);
-
-            if (appTemplateAttributes.size() == launchJNLPAttributes.size()) {
-
-                int size = appTemplateAttributes.size(); // Number of attributes
-
-                for (int i = 0; i < size; i++) {
-
-                    if (launchJNLPAttributes.get(i).equals(appTemplateAttributes.get(i))) { // If both Node's attribute name are the
-                        // same then compare the values
+    /**
+     * A {@link Node} with hashes of its subtree which do not depend on the order of children and attributes.
+     * The shape covers the names of elements and attributes only, the hash covers the values as well.
+     */
+    private static class CanonicalNode {
+        private final Node node;
+        private final CanonicalNode[] children;
+        private final int shape;
+        private final int hash;
+        private final boolean hasWildcard;
+
+        private CanonicalNode(Node node, boolean isTemplate) {
+            this.node = node;
+            final Node[] childNodes = node.getChildNodes();
+            this.children = new CanonicalNode[childNodes.length];
+            final int[] childShapes = new int[childNodes.length];
+            final int[] childHashes = new int[childNodes.length];
+            boolean wildcard = isTemplate && WILDCARD.equals(node.getNodeValue());
+            for (int i = 0; i < childNodes.length; i++) {
+                children[i] = new CanonicalNode(childNodes[i], isTemplate);
+                childShapes[i] = children[i].shape;
+                childHashes[i] = children[i].hash;
+                wildcard |= children[i].hasWildcard;
+            }
 
-                        String attribute = launchJNLPAttributes.get(i);
-                        boolean isSame = templateNode.getAttribute(attribute).equals( // Check if the Attribute values match
-                                launchNode.getAttribute(attribute));
+            final List<String> attributes = new ArrayList<>(node.getAttributeNames());
+            Collections.sort(attributes);
+            int shape = node.getNodeName().hashCode();
+            int hash = 31 * shape + Objects.hashCode(node.getNodeValue());
+            for (final String attribute : attributes) {
+                final String value = node.getAttribute(attribute);
+                shape = 31 * shape + attribute.hashCode();
+                hash = 31 * (31 * hash + attribute.hashCode()) + Objects.hashCode(value);
+                wildcard |= isTemplate && WILDCARD.equals(value);
+            }
+            this.shape = combine(shape, childShapes);
+            this.hash = combine(hash, childHashes);
+            this.hasWildcard = wildcard;
+        }
 
-                        if (!isTemplate && !isSame) {
-                            return false;
-                        } else if (isTemplate && !isSame && !templateNode.getAttribute(attribute).equals("*")) {
-                            return false;
-                        }
-                    } else {
-                        // If attributes names do not match, return false
-                        return false;
-                    }
-                }
-                return true;
+        private static int combine(int hash, int[] childHashes) {
+            Arrays.sort(childHashes);
+            int result = 31 * hash + childHashes.length;
+            for (final int childHash : childHashes) {
+                result = 31 * result + childHash;
             }
+            return result;
         }
-        return false;
     }
 
     /***
@@ -25,6 +25,8 @@ import net.adoptopenjdk.icedteaweb.launch.JvmLauncher;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
 import net.adoptopenjdk.icedteaweb.resources.UpdatePolicy;
+import net.adoptopenjdk.icedteaweb.tracing.LaunchTracer;
+import net.adoptopenjdk.icedteaweb.tracing.TraceSpan;
 import net.adoptopenjdk.icedteaweb.ui.swing.SwingUtils;
 import net.sourceforge.jnlp.config.DeploymentConfiguration;
 import net.sourceforge.jnlp.runtime.AppletInstance;
@@ -368,8 +370,11 @@ public class Launcher {
 
             handler.launchInitialized(file);
 
-            final ApplicationInstance app = createApplication(file);
-            app.initialize();
+            final ApplicationInstance app;
+            try (final TraceSpan ignored = LaunchTracer.begin(LaunchTracer.LAUNCH, "initialize application")) {
+                app = createApplication(file);
+                app.initialize();
+            }
 
             final String mainName = app.getMainClassName();
 
@@ -381,7 +386,10 @@ public class Launcher {
 
             LOG.info("Starting application [{}] ...", mainName);
 
-            final Class<?> mainClass = app.getClassLoader().loadClass(mainName);
+            final Class<?> mainClass;
+            try (final TraceSpan ignored = LaunchTracer.begin(LaunchTracer.LAUNCH, "load main class")) {
+                mainClass = app.getClassLoader().loadClass(mainName);
+            }
 
             final Method main = mainClass.getMethod("main", String[].class);
             final String[] args = file.getApplication().getArguments();
@@ -397,6 +405,9 @@ public class Launcher {
             main.setAccessible(true);
 
             LOG.info("Invoking main() with args: {}", Arrays.toString(args));
+            // main() may run as long as the application, so the launch timeline ends here
+            LaunchTracer.instant(LaunchTracer.LAUNCH, "invoke main");
+            LaunchTracer.dump();
             main.invoke(null, new Object[] { args });
 
             return app;
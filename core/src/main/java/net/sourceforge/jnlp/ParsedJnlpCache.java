@@ -0,0 +1,125 @@
+package net.sourceforge.jnlp;
+
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.cache.Cache;
+import net.adoptopenjdk.icedteaweb.xmlparser.Node;
+import net.adoptopenjdk.icedteaweb.xmlparser.NodeCodec;
+import net.adoptopenjdk.icedteaweb.xmlparser.ParseException;
+import net.adoptopenjdk.icedteaweb.xmlparser.XmlParserFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Keeps the parsed XML tree of a cached JNLP file next to the cache entry. The stored tree is
+ * keyed by the SHA-256 hash of the file content and the parser type, so as long as the JNLP file
+ * does not change, parsing it again (for each launch and for each application using it as an
+ * extension) is a single read of the binary tree.
+ * <p>
+ * Files outside of the cache are parsed as usual.
+ */
+final class ParsedJnlpCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParsedJnlpCache.class);
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private ParsedJnlpCache() {
+    }
+
+    /**
+     * @param jnlpFile the local JNLP file
+     * @param settings the settings to parse the file with
+     * @return the root of the parsed JNLP file
+     * @throws IOException if the file can not be read
+     * @throws ParseException if the JNLP file is invalid
+     */
+    static Node getRootNode(final File jnlpFile, final ParserSettings settings) throws IOException, ParseException {
+        final byte[] content = Files.readAllBytes(jnlpFile.toPath());
+        final File parsedFile = Cache.getParsedFile(jnlpFile);
+        if (parsedFile == null) {
+            return parse(content, settings);
+        }
+
+        final byte[] hash = hash(content);
+        final String parserType = settings.getParserType().name();
+        final Node cached = read(parsedFile, hash, parserType);
+        if (cached != null) {
+            LOG.debug("Using parsed form of {}", jnlpFile);
+            ParseException.setUsed(settings.getParserType());
+            return cached;
+        }
+
+        final Node root = parse(content, settings);
+        write(parsedFile, hash, parserType, root);
+        return root;
+    }
+
+    private static Node parse(final byte[] content, final ParserSettings settings) throws ParseException {
+        return XmlParserFactory.getParser(settings.getParserType()).getRootNode(new ByteArrayInputStream(content));
+    }
+
+    private static Node read(final File parsedFile, final byte[] hash, final String parserType) {
+        if (!parsedFile.isFile()) {
+            return null;
+        }
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(parsedFile)))) {
+            final int hashLength = in.readInt();
+            if (hashLength != hash.length) {
+                return null;
+            }
+            final byte[] storedHash = new byte[hashLength];
+            in.readFully(storedHash);
+            if (!Arrays.equals(hash, storedHash) || !parserType.equals(in.readUTF())) {
+                return null;
+            }
+            return NodeCodec.read(in);
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("Ignoring unreadable parsed JNLP file {}: {}", parsedFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void write(final File parsedFile, final byte[] hash, final String parserType, final Node root) {
+        File tempFile = null;
+        try {
+            // other processes may write the same entry, so each one uses its own temporary file
+            tempFile = File.createTempFile(parsedFile.getName(), TEMP_SUFFIX, parsedFile.getParentFile());
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(hash.length);
+                out.write(hash);
+                out.writeUTF(parserType);
+                NodeCodec.write(root, out);
+            }
+            Files.move(tempFile.toPath(), parsedFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.debug("Unable to store parsed JNLP file {}: {}", parsedFile, e.getMessage());
+            if (tempFile != null && !tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    private static byte[] hash(final byte[] content) {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM).digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            // every java implementation has to support SHA-256
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.ExtensionDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.ResourceTracker;
+import net.adoptopenjdk.icedteaweb.resources.UpdatePolicy;
+import net.adoptopenjdk.icedteaweb.resources.downloader.BandwidthLimit;
+import net.sourceforge.jnlp.JNLPFile;
+import net.sourceforge.jnlp.JNLPFileFactory;
+import net.sourceforge.jnlp.ParserSettings;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.config.DeploymentConfiguration;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+import net.sourceforge.jnlp.security.JNLPAppVerifier;
+import net.sourceforge.jnlp.tools.JarCertVerifier;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills the cache with applications without starting them, e.g. on all machines of a fleet before
+ * a release: {@code javaws -Xpreload <jnlp-url>...}. An argument naming a file is read as a list of
+ * JNLP URLs, one per line.
+ * <p>
+ * The extension JNLP files are fetched concurrently, and all jars, eager, lazy and native, are
+ * downloaded while the rest of the graph is resolved. The download rate of all downloads
+ * together is limited by {@link ConfigurationConstants#KEY_PRELOAD_MAX_BANDWIDTH}, and the start
+ * is delayed by a random time of up to {@link ConfigurationConstants#KEY_PRELOAD_MAX_START_DELAY},
+ * so not all machines download at once. The signatures of the jars are checked, which stores the
+ * signers of each jar next to it in the cache for the launch.
+ * <p>
+ * The result is printed as JSON lines: one line per JNLP file, one per jar, and a summary.
+ */
+public final class CachePreloader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachePreloader.class);
+
+    private static final int MAX_THREADS = 8;
+    private static final long KILOBYTE = 1024;
+
+    private final JNLPFileFactory factory = new JNLPFileFactory();
+    private final ParserSettings settings = new ParserSettings();
+    private final ResourceTracker tracker = new ResourceTracker(true);
+    private final List<Fetch> fetches = new ArrayList<>();
+    private final Map<URL, JARDesc> jars = new LinkedHashMap<>();
+    private final Map<URL, String> jarErrors = new LinkedHashMap<>();
+
+    private CachePreloader() {
+    }
+
+    /**
+     * @param args JNLP URLs, or files listing them
+     * @param out  the stream to print the report to
+     * @return the exit code, 0 if all applications are in the cache
+     */
+    public static int preload(final List<String> args, final PrintStream out) {
+        final DeploymentConfiguration config = JNLPRuntime.getConfiguration();
+        final long bytesPerSecond = getLong(config, ConfigurationConstants.KEY_PRELOAD_MAX_BANDWIDTH) * KILOBYTE;
+        final long maxDelayMillis = TimeUnit.SECONDS.toMillis(getLong(config, ConfigurationConstants.KEY_PRELOAD_MAX_START_DELAY));
+
+        if (maxDelayMillis > 0) {
+            final long delay = ThreadLocalRandom.current().nextLong(maxDelayMillis + 1);
+            LOG.info("Waiting {} ms before preloading", delay);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return 1;
+            }
+        }
+        BandwidthLimit.set(bytesPerSecond);
+        try {
+            final long start = System.nanoTime();
+            final CachePreloader preloader = new CachePreloader();
+            preloader.resolve(SystemCachePopulator.readLocations(args));
+            return preloader.downloadAndReport(out, start);
+        } finally {
+            BandwidthLimit.set(0);
+        }
+    }
+
+    private static long getLong(final DeploymentConfiguration config, final String key) {
+        try {
+            return Math.max(0, Long.parseLong(config.getProperty(key)));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Fetches the JNLP files and their extensions, the jars of each file are added to the tracker
+     * as soon as it is parsed, which starts downloading them.
+     */
+    private void resolve(final List<String> locations) {
+        final AtomicInteger threadCounter = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(MAX_THREADS, runnable -> {
+            final Thread thread = new Thread(runnable, "itw-preload-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final ExecutorCompletionService<Fetch> completion = new ExecutorCompletionService<>(executor);
+            final Set<String> visited = new HashSet<>();
+            int pending = 0;
+            for (final String location : locations) {
+                final Fetch fetch = new Fetch(location, null);
+                if (visited.add(fetch.key())) {
+                    completion.submit(fetch::run);
+                    pending++;
+                }
+            }
+            while (pending > 0) {
+                final Fetch fetch = completion.take().get();
+                pending--;
+                fetches.add(fetch);
+                if (fetch.file == null) {
+                    continue;
+                }
+                addJars(fetch.file);
+                for (final ExtensionDesc extension : fetch.file.getResources().getExtensions()) {
+                    final Fetch extensionFetch = new Fetch(extension.getLocation().toString(), extension.getVersion());
+                    if (visited.add(extensionFetch.key())) {
+                        completion.submit(extensionFetch::run);
+                        pending++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // a fetch reports its own errors
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void addJars(final JNLPFile file) {
+        for (final JARDesc jar : file.getResources().getJARs()) {
+            if (jars.putIfAbsent(jar.getLocation(), jar) != null) {
+                continue;
+            }
+            try {
+                tracker.addResource(jar.getLocation(), jar.getVersion(), UpdatePolicy.ALWAYS);
+            } catch (RuntimeException e) {
+                jarErrors.put(jar.getLocation(), e.getMessage());
+            }
+        }
+    }
+
+    private int downloadAndReport(final PrintStream out, final long start) {
+        int failures = 0;
+        final Map<URL, Boolean> signed = new LinkedHashMap<>();
+        final List<String> jarLines = new ArrayList<>();
+        long bytes = 0;
+        for (final JARDesc jar : jars.values()) {
+            final URL location = jar.getLocation();
+            final JsonLine line = new JsonLine("jar")
+                    .add("url", location.toString())
+                    .add("version", jar.getVersion() == null ? null : jar.getVersion().toString())
+                    .add("part", jar.getPart())
+                    .add("lazy", jar.isLazy())
+                    .add("native", jar.isNative());
+            final File cached = jarErrors.containsKey(location) ? null : tracker.getCacheFile(location);
+            if (cached == null) {
+                failures++;
+                line.add("status", "failed").add("error", jarErrors.getOrDefault(location, "download failed"));
+            } else {
+                bytes += cached.length();
+                line.add("status", "ok").add("size", cached.length());
+                try {
+                    final boolean jarSigned = JarCertVerifier.isJarSigned(jar, new JNLPAppVerifier(), tracker);
+                    signed.put(location, jarSigned);
+                    line.add("signed", jarSigned);
+                } catch (Exception e) {
+                    failures++;
+                    signed.put(location, false);
+                    line.add("signed", false).add("error", String.valueOf(e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+                }
+            }
+            jarLines.add(line.toString());
+        }
+
+        for (final Fetch fetch : fetches) {
+            final JsonLine line = new JsonLine("jnlp")
+                    .add("url", fetch.location)
+                    .add("version", fetch.version == null ? null : fetch.version.toString());
+            if (fetch.file == null) {
+                failures++;
+                line.add("status", "failed").add("error", fetch.error);
+            } else {
+                final JARDesc[] fileJars = fetch.file.getResources().getJARs();
+                boolean allSigned = true;
+                for (final JARDesc jar : fileJars) {
+                    allSigned &= signed.getOrDefault(jar.getLocation(), false);
+                }
+                line.add("status", "ok").add("jars", fileJars.length).add("signed", allSigned);
+            }
+            out.println(line);
+        }
+        jarLines.forEach(out::println);
+        out.println(new JsonLine("summary")
+                .add("applications", fetches.size())
+                .add("jars", jars.size())
+                .add("failed", failures)
+                .add("bytes", bytes)
+                .add("millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        out.flush();
+        return failures == 0 ? 0 : 1;
+    }
+
+    private class Fetch {
+        private final String location;
+        private final VersionString version;
+        private JNLPFile file;
+        private String error;
+
+        private Fetch(final String location, final VersionString version) {
+            this.location = location;
+            this.version = version;
+        }
+
+        private String key() {
+            return location + " " + version;
+        }
+
+        private Fetch run() {
+            try {
+                file = factory.create(new URL(location), null, version, settings, UpdatePolicy.ALWAYS);
+                LOG.debug("Preloaded {}", location);
+            } catch (Exception e) {
+                LOG.error("Unable to preload {}: {}", location, e.getMessage());
+                error = String.valueOf(e.getMessage());
+            }
+            return this;
+        }
+    }
+
+    /**
+     * One line of the report, a flat JSON object.
+     */
+    private static final class JsonLine {
+        private final StringBuilder sb = new StringBuilder("{");
+
+        private JsonLine(final String type) {
+            add("type", type);
+        }
+
+        private JsonLine add(final String name, final String value) {
+            appendName(name);
+            if (value == null) {
+                sb.append("null");
+            } else {
+                appendString(value);
+            }
+            return this;
+        }
+
+        private JsonLine add(final String name, final long value) {
+            appendName(name);
+            sb.append(value);
+            return this;
+        }
+
+        private JsonLine add(final String name, final boolean value) {
+            appendName(name);
+            sb.append(value);
+            return this;
+        }
+
+        private void appendName(final String name) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            appendString(name);
+            sb.append(':');
+        }
+
+        private void appendString(final String value) {
+            sb.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    sb.append('\\').append(c);
+                } else if (c < 0x20) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+            sb.append('"');
+        }
+
+        @Override
+        public String toString() {
+            return sb + "}";
+        }
+    }
+}
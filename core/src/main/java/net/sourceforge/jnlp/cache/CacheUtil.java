@@ -26,6 +26,7 @@ import net.adoptopenjdk.icedteaweb.jnlp.element.extension.InstallerDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.ResourceProgressListener;
 import net.adoptopenjdk.icedteaweb.resources.ResourceTracker;
 import net.adoptopenjdk.icedteaweb.resources.cache.Cache;
 import net.adoptopenjdk.icedteaweb.resources.cache.CacheFile;
@@ -260,38 +261,77 @@ public class CacheUtil {
 
             listener = getDownloadServiceListener(jnlpClassLoader, title, undownloaded, indicator);
 
-            do {
-                long read = 0;
-                long total = 0;
+            // the downloads tell about their progress, so there is no need to poll
+            final ProgressForwarder forwarder = new ProgressForwarder(tracker, undownloaded, listener);
+            forwarder.subscribe();
+            try {
+                tracker.waitForResources(resources);
+            } finally {
+                forwarder.unsubscribe();
+            }
+            forwarder.completed();
+        } catch (InterruptedException ex) {
+            LOG.error("Downloading of resources was interrupted", ex);
+        } finally {
+            if (indicator != null && listener != null)
+                indicator.disposeListener(listener);
+        }
+    }
 
-                for (URL url : undownloaded) {
-                    // add in any -1's; they're insignificant
-                    total += tracker.getTotalSize(url);
-                    read += tracker.getAmountRead(url);
-                }
+    /**
+     * Forwards the progress of the downloading resources to a download service listener, including
+     * the progress of all resources together.
+     */
+    private static class ProgressForwarder {
+        private final ResourceTracker tracker;
+        private final URL[] urls;
+        private final DownloadServiceListener listener;
+        private final List<ResourceProgressListener> subscriptions = new ArrayList<>();
+
+        private ProgressForwarder(final ResourceTracker tracker, final URL[] urls, final DownloadServiceListener listener) {
+            this.tracker = tracker;
+            this.urls = urls;
+            this.listener = listener;
+        }
 
-                int percent = (int) ((100 * read) / Math.max(1, total));
+        private void subscribe() {
+            for (final URL url : urls) {
+                final ResourceProgressListener subscription = (transferred, size) -> progress(url, transferred, size);
+                subscriptions.add(subscription);
+                tracker.addProgressListener(url, subscription);
+            }
+            // show all resources right away, not only once they start downloading
+            for (final URL url : urls) {
+                progress(url, tracker.getAmountRead(url), tracker.getTotalSize(url));
+            }
+        }
 
-                for (URL url : undownloaded) {
-                    listener.progress(url, "version",
-                            tracker.getAmountRead(url),
-                            tracker.getTotalSize(url),
-                            percent);
-                }
-            } while (!tracker.waitForResources(resources, indicator.getUpdateRate(), MILLISECONDS));
+        private void unsubscribe() {
+            for (int i = 0; i < subscriptions.size(); i++) {
+                tracker.removeProgressListener(urls[i], subscriptions.get(i));
+            }
+        }
 
+        private synchronized void completed() {
             // make sure they read 100% until indicator closes
-            for (URL url : undownloaded) {
+            for (final URL url : urls) {
                 listener.progress(url, "version",
                         tracker.getTotalSize(url),
                         tracker.getTotalSize(url),
                         100);
             }
-        } catch (InterruptedException ex) {
-            LOG.error("Downloading of resources was interrupted", ex);
-        } finally {
-            if (indicator != null && listener != null)
-                indicator.disposeListener(listener);
+        }
+
+        private synchronized void progress(final URL url, final long transferred, final long size) {
+            long read = 0;
+            long total = 0;
+            for (final URL each : urls) {
+                // add in any -1's; they're insignificant
+                total += tracker.getTotalSize(each);
+                read += tracker.getAmountRead(each);
+            }
+            final int percent = (int) ((100 * read) / Math.max(1, total));
+            listener.progress(url, "version", transferred, size, percent);
         }
     }
 
@@ -0,0 +1,190 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.StringUtils;
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.ExtensionDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.ResourceTracker;
+import net.adoptopenjdk.icedteaweb.resources.UpdatePolicy;
+import net.adoptopenjdk.icedteaweb.resources.cache.Cache;
+import net.sourceforge.jnlp.JNLPFile;
+import net.sourceforge.jnlp.JNLPFileFactory;
+import net.sourceforge.jnlp.ParserSettings;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.config.DeploymentConfiguration;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarFile;
+
+/**
+ * Fills the system cache ({@link ConfigurationConstants#KEY_SYSTEM_CACHE_DIR}) with the JNLP
+ * files and jars of applications, so the users of a machine do not download them each. Run by an
+ * administrator with {@code javaws -Xsystemcache <jnlp-url>...}. An argument naming a file is
+ * read as a list of JNLP URLs, one per line.
+ * <p>
+ * The resources are downloaded by using the system cache as the own cache of this process. The
+ * cache never collects garbage or evicts entries while it is the system cache, so the size limit
+ * of the administrator does not apply to it.
+ * Jars containing nested jars are removed again, as nested jars are extracted next to the jar
+ * when it is loaded, which users can not do in the system cache.
+ */
+public final class SystemCachePopulator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SystemCachePopulator.class);
+
+    private static final Set<PosixFilePermission> READABLE_DIR = PosixFilePermissions.fromString("rwxr-xr-x");
+    private static final Set<PosixFilePermission> READABLE_FILE = PosixFilePermissions.fromString("rw-r--r--");
+
+    private final JNLPFileFactory factory = new JNLPFileFactory();
+    private final ParserSettings settings = new ParserSettings();
+    private final Set<String> visited = new HashSet<>();
+    private final ResourceTracker tracker = new ResourceTracker(true);
+    private final Map<URL, JARDesc> jars = new LinkedHashMap<>();
+
+    private SystemCachePopulator() {
+    }
+
+    /**
+     * @param args JNLP URLs, or files listing them
+     * @return the exit code, 0 if all applications are in the system cache
+     */
+    public static int populate(final List<String> args) {
+        final DeploymentConfiguration config = JNLPRuntime.getConfiguration();
+        final String systemCacheDir = config.getProperty(ConfigurationConstants.KEY_SYSTEM_CACHE_DIR);
+        if (StringUtils.isBlank(systemCacheDir)) {
+            LOG.error("No system cache configured, set {} in the system deployment.config", ConfigurationConstants.KEY_SYSTEM_CACHE_DIR);
+            return 1;
+        }
+        config.setProperty(ConfigurationConstants.KEY_USER_CACHE_DIR, systemCacheDir);
+        LOG.info("Filling the system cache {}", systemCacheDir);
+
+        final SystemCachePopulator populator = new SystemCachePopulator();
+        int failures = 0;
+        for (final String location : readLocations(args)) {
+            try {
+                populator.addApplication(new URL(location), null);
+            } catch (Exception e) {
+                LOG.error("Unable to add {} to the system cache: {}", location, e.getMessage());
+                failures++;
+            }
+        }
+        failures += populator.downloadJars();
+
+        try {
+            makeReadable(new File(systemCacheDir));
+        } catch (IOException e) {
+            LOG.error("Unable to make the system cache readable for all users: {}", e.getMessage());
+            failures++;
+        }
+        return failures == 0 ? 0 : 1;
+    }
+
+    /**
+     * @param args JNLP URLs, or files listing them
+     * @return the JNLP URLs
+     */
+    static List<String> readLocations(final List<String> args) {
+        final List<String> result = new ArrayList<>();
+        for (final String arg : args) {
+            final File list = new File(arg);
+            if (!list.isFile()) {
+                result.add(arg);
+                continue;
+            }
+            try {
+                for (final String line : Files.readAllLines(list.toPath(), StandardCharsets.UTF_8)) {
+                    if (!StringUtils.isBlank(line) && !line.trim().startsWith("#")) {
+                        result.add(line.trim());
+                    }
+                }
+            } catch (IOException e) {
+                LOG.error("Unable to read the list of JNLP files {}: {}", list, e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private void addApplication(final URL location, final VersionString version) throws Exception {
+        if (!visited.add(location + " " + version)) {
+            return;
+        }
+        final JNLPFile file = factory.create(location, null, version, settings, UpdatePolicy.ALWAYS);
+        LOG.info("Added {}", location);
+        for (final JARDesc jar : file.getResources().getJARs()) {
+            if (jars.putIfAbsent(jar.getLocation(), jar) == null) {
+                tracker.addResource(jar.getLocation(), jar.getVersion(), UpdatePolicy.ALWAYS);
+            }
+        }
+        for (final ExtensionDesc extension : file.getResources().getExtensions()) {
+            addApplication(extension.getLocation(), extension.getVersion());
+        }
+    }
+
+    private int downloadJars() {
+        int failures = 0;
+        for (final JARDesc jar : jars.values()) {
+            final File cached = tracker.getCacheFile(jar.getLocation());
+            if (cached == null) {
+                LOG.error("Unable to download {}", jar.getLocation());
+                failures++;
+            } else if (containsNestedJars(cached)) {
+                LOG.info("Skipped {}, it contains nested jars", jar.getLocation());
+                Cache.deleteFromCache(jar.getLocation(), jar.getVersion());
+            } else {
+                LOG.info("Added {}", jar.getLocation());
+            }
+        }
+        return failures;
+    }
+
+    private static boolean containsNestedJars(final File jar) {
+        try (final JarFile jarFile = new JarFile(jar, false)) {
+            return jarFile.stream().anyMatch(entry -> entry.getName().endsWith(".jar"));
+        } catch (IOException e) {
+            // not a jar, e.g. an image
+            return false;
+        }
+    }
+
+    /**
+     * The files of a cache are created readable by their owner only, the system cache is read by
+     * all users.
+     */
+    private static void makeReadable(final File rootDir) throws IOException {
+        if (!rootDir.isDirectory() || !Files.getFileStore(rootDir.toPath()).supportsFileAttributeView("posix")) {
+            return;
+        }
+        Files.walkFileTree(rootDir.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                Files.setPosixFilePermissions(dir, READABLE_DIR);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.setPosixFilePermissions(file, READABLE_FILE);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -52,6 +52,12 @@ public interface ConfigurationConstants {
 
     String KEY_USER_PERSISTENCE_CACHE_DIR = "deployment.user.pcachedir";
 
+    /**
+     * Space in KB the muffins of the persistence service of one codebase host may reserve together.
+     * -1 means no limit.
+     */
+    String KEY_PERSISTENCE_QUOTA = "deployment.persistence.quota";
+
     String KEY_SYSTEM_CACHE_DIR = "deployment.system.cachedir";
 
     String KEY_CACHE_MAX_SIZE = "deployment.cache.max.size";
@@ -60,6 +66,22 @@ public interface ConfigurationConstants {
 
     String KEY_CACHE_COMPRESSION_ENABLED = "deployment.cache.jarcompression";
 
+    /**
+     * Download rate in KB per second to which {@code javaws -Xpreload} is limited. 0 means no limit.
+     */
+    String KEY_PRELOAD_MAX_BANDWIDTH = "deployment.cache.preload.bandwidth";
+
+    /**
+     * Maximum time in seconds {@code javaws -Xpreload} waits before it starts downloading, the actual
+     * time is random so not all machines start at once. 0 means no delay.
+     */
+    String KEY_PRELOAD_MAX_START_DELAY = "deployment.cache.preload.delay";
+
+    /**
+     * Number of JVMs the launcher daemon ({@code javaws -Xdaemon}) keeps ready for launches.
+     */
+    String KEY_LAUNCHER_DAEMON_POOL_SIZE = "deployment.launcher.daemon.pool";
+
     String KEY_USER_LOG_DIR = "deployment.user.logdir";
 
     String KEY_USER_TMP_DIR = "deployment.user.tmp";
@@ -189,10 +211,39 @@ public interface ConfigurationConstants {
 
     String KEY_ENABLE_LEGACY_LOGBASEDFILELOG = "deployment.log.file.legacylog";
 
+    /**
+     * Format of the file log. One of LOG_FILE_FORMAT_* values.
+     */
+    String KEY_LOG_FILE_FORMAT = "deployment.log.file.format";
+
+    String LOG_FILE_FORMAT_TEXT = "TEXT";
+
+    String LOG_FILE_FORMAT_JSON_LINES = "JSONL";
+
+    /**
+     * Size in KB after which a structured file log is rotated. 0 means no size based rotation.
+     */
+    String KEY_LOG_FILE_MAX_SIZE = "deployment.log.file.maxsize";
+
+    /**
+     * Age in minutes after which a structured file log is rotated. 0 means no time based rotation.
+     */
+    String KEY_LOG_FILE_ROTATION_INTERVAL = "deployment.log.file.rotation.interval";
+
+    /**
+     * Number of compressed structured log segments kept per log kind. -1 means keep all.
+     */
+    String KEY_LOG_FILE_RETENTION = "deployment.log.file.retention";
+
     String KEY_ENABLE_LOGGING_TOSTREAMS = "deployment.log.stdstreams";
 
     String KEY_ENABLE_LOGGING_TOSYSTEMLOG = "deployment.log.system";
 
+    /**
+     * Boolean. If true, the launch phases are traced and written as Chrome trace JSON to the log directory.
+     */
+    String KEY_ENABLE_LAUNCH_TRACING = "deployment.trace.launch";
+
     /*
      * manifest check
      */
@@ -337,6 +337,30 @@ public class Defaults {
                     String.valueOf(false),
                     ValidatorFactory.createBooleanValidator()
             ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_PRELOAD_MAX_BANDWIDTH,
+                    String.valueOf(0),
+                    ValidatorFactory.createRangedIntegerValidator(0, Integer.MAX_VALUE)
+            ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_PRELOAD_MAX_START_DELAY,
+                    String.valueOf(0),
+                    ValidatorFactory.createRangedIntegerValidator(0, Integer.MAX_VALUE)
+            ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_PERSISTENCE_QUOTA,
+                    "-1",
+                    ValidatorFactory.createRangedIntegerValidator(-1, Integer.MAX_VALUE)
+            ),
+
+            /*
+             * launcher daemon
+             */
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_LAUNCHER_DAEMON_POOL_SIZE,
+                    String.valueOf(1),
+                    ValidatorFactory.createRangedIntegerValidator(1, 16)
+            ),
 
             /*
              * java console
@@ -377,6 +401,29 @@ public class Defaults {
                     String.valueOf(false),
                     ValidatorFactory.createBooleanValidator()
             ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_LOG_FILE_FORMAT,
+                    ConfigurationConstants.LOG_FILE_FORMAT_TEXT,
+                    ValidatorFactory.createStringValidator(new String[]{
+                            ConfigurationConstants.LOG_FILE_FORMAT_TEXT,
+                            ConfigurationConstants.LOG_FILE_FORMAT_JSON_LINES
+                    })
+            ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_LOG_FILE_MAX_SIZE,
+                    String.valueOf(10 * 1024),
+                    ValidatorFactory.createRangedIntegerValidator(0, Integer.MAX_VALUE)
+            ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_LOG_FILE_ROTATION_INTERVAL,
+                    String.valueOf(24 * 60),
+                    ValidatorFactory.createRangedIntegerValidator(0, Integer.MAX_VALUE)
+            ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_LOG_FILE_RETENTION,
+                    String.valueOf(50),
+                    ValidatorFactory.createRangedIntegerValidator(-1, Integer.MAX_VALUE)
+            ),
             Setting.createDefault(
                     ConfigurationConstants.KEY_ENABLE_LOGGING_TOSTREAMS,
                     String.valueOf(true),
@@ -387,6 +434,11 @@ public class Defaults {
                     String.valueOf(true),
                     ValidatorFactory.createBooleanValidator()
             ),
+            Setting.createDefault(
+                    ConfigurationConstants.KEY_ENABLE_LAUNCH_TRACING,
+                    String.valueOf(false),
+                    ValidatorFactory.createBooleanValidator()
+            ),
 
             /*
              * JNLP association
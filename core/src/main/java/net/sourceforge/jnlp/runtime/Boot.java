@@ -24,15 +24,23 @@ import net.adoptopenjdk.icedteaweb.commandline.CommandLineOptionsDefinition;
 import net.adoptopenjdk.icedteaweb.commandline.CommandLineOptionsParser;
 import net.adoptopenjdk.icedteaweb.i18n.Translator;
 import net.adoptopenjdk.icedteaweb.jnlp.element.resource.PropertyDesc;
+import net.adoptopenjdk.icedteaweb.launch.LauncherDaemon;
+import net.adoptopenjdk.icedteaweb.launch.LauncherDaemonClient;
+import net.adoptopenjdk.icedteaweb.launch.WarmJvm;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
 import net.adoptopenjdk.icedteaweb.resources.UpdatePolicy;
 import net.adoptopenjdk.icedteaweb.resources.cache.Cache;
+import net.adoptopenjdk.icedteaweb.tracing.LaunchTracer;
 import net.adoptopenjdk.icedteaweb.ui.swing.SwingUtils;
 import net.sourceforge.jnlp.LaunchException;
 import net.sourceforge.jnlp.Launcher;
 import net.sourceforge.jnlp.ParserSettings;
+import net.sourceforge.jnlp.cache.CachePreloader;
 import net.sourceforge.jnlp.cache.CacheUtil;
+import net.sourceforge.jnlp.cache.SystemCachePopulator;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.config.PathsAndFiles;
 import net.sourceforge.jnlp.services.ServiceUtil;
 import net.sourceforge.jnlp.util.docprovider.IcedTeaWebTextsProvider;
 import net.sourceforge.jnlp.util.docprovider.JavaWsTextsProvider;
@@ -48,6 +56,7 @@ import java.io.File;
 import java.net.URL;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -108,6 +117,12 @@ public final class Boot implements PrivilegedAction<Integer> {
      * @param args launching arguments
      */
     public static void main(String[] args) {
+        if (WarmJvm.isWarm()) {
+            args = WarmJvm.warmUpAndAwaitArguments();
+            if (args == null) {
+                return;
+            }
+        }
         EnvironmentPrinter.logEnvironment(args);
         final int status = mainWithReturnCode(args);
         if (status != 0) {
@@ -147,7 +162,7 @@ public final class Boot implements PrivilegedAction<Integer> {
             SunToolkit.createNewAppContext();
         }
 
-        if (optionParser.hasOption(CommandLineOptions.HEADLESS)) {
+        if (optionParser.hasOption(CommandLineOptions.HEADLESS) || optionParser.hasOption(CommandLineOptions.PRELOAD)) {
             JNLPRuntime.setHeadless(true);
         }
 
@@ -229,6 +244,11 @@ public final class Boot implements PrivilegedAction<Integer> {
             JNLPRuntime.setShowWebSplash(false);
         }
 
+        if (optionParser.hasOption(CommandLineOptions.TRACE)
+                || Boolean.parseBoolean(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_ENABLE_LAUNCH_TRACING))) {
+            enableLaunchTracing();
+        }
+
         //if it is browser go by ots own, otherwise proceed with normal ITW logic
         if (optionParser.hasOption(CommandLineOptions.BROWSER)) {
             String url = optionParser.getParam(CommandLineOptions.BROWSER);
@@ -236,6 +256,16 @@ public final class Boot implements PrivilegedAction<Integer> {
             return 0;
         }
 
+        if (optionParser.hasOption(CommandLineOptions.DAEMON)) {
+            return LauncherDaemon.run(getDaemonPoolSize());
+        }
+        if (isHandOverToDaemonPossible(optionParser)) {
+            final String location = getJnlpFileLocationFromCommandLineArguments(optionParser);
+            if (LauncherDaemonClient.handOver(getHandOverArguments(args, location))) {
+                return 0;
+            }
+        }
+
         JNLPRuntime.setInitialArguments(Arrays.asList(args));
         JNLPRuntime.setJnlpPath(getJnlpFileLocationFromCommandLineArguments(optionParser));
 
@@ -255,6 +285,14 @@ public final class Boot implements PrivilegedAction<Integer> {
             return 0;
         }
 
+        if (optionParser.hasOption(CommandLineOptions.PRELOAD)) {
+            return CachePreloader.preload(optionParser.getParams(CommandLineOptions.PRELOAD), System.out);
+        }
+
+        if (optionParser.hasOption(CommandLineOptions.SYSTEMCACHE)) {
+            return SystemCachePopulator.populate(optionParser.getParams(CommandLineOptions.SYSTEMCACHE));
+        }
+
         if (optionParser.hasOption(CommandLineOptions.CLEARCACHE)) {
             List<String> optionArgs = optionParser.getMainArgs();
             if (optionArgs.size() > 0) {
@@ -270,6 +308,52 @@ public final class Boot implements PrivilegedAction<Integer> {
         return AccessController.doPrivileged(new Boot());
     }
 
+    private static int getDaemonPoolSize() {
+        try {
+            return Integer.parseInt(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_LAUNCHER_DAEMON_POOL_SIZE));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * A launch goes to the launcher daemon unless it was started by the daemon, or is not an
+     * application launch, or has to run in this JVM.
+     */
+    private static boolean isHandOverToDaemonPossible(final CommandLineOptionsParser optionParser) {
+        return !WarmJvm.isWarm()
+                && !optionParser.hasOption(CommandLineOptions.NODAEMON)
+                && !optionParser.hasOption(CommandLineOptions.NOFORK)
+                && !optionParser.hasOption(CommandLineOptions.LISTCACHEIDS)
+                && !optionParser.hasOption(CommandLineOptions.PRELOAD)
+                && !optionParser.hasOption(CommandLineOptions.SYSTEMCACHE)
+                && !optionParser.hasOption(CommandLineOptions.CLEARCACHE)
+                && getJnlpFileLocationFromCommandLineArguments(optionParser) != null;
+    }
+
+    /**
+     * The warm JVM does not run in the working directory of this process, so a JNLP file is
+     * passed on with its absolute path.
+     */
+    private static List<String> getHandOverArguments(final String[] args, final String location) {
+        final List<String> result = new ArrayList<>(Arrays.asList(args));
+        final File file = new File(location);
+        final int index = result.indexOf(location);
+        if (index >= 0 && !file.isAbsolute() && file.isFile()) {
+            result.set(index, file.getAbsolutePath());
+        }
+        return result;
+    }
+
+    private static void enableLaunchTracing() {
+        final File logDir = new File(PathsAndFiles.LOG_DIR.getFullPath());
+        if (logDir.isDirectory() || logDir.mkdirs()) {
+            LaunchTracer.enable(new File(logDir, "itw-trace-" + System.currentTimeMillis() + ".json"));
+        } else {
+            LOG.warn("Launch tracing not enabled as log directory {} can not be created", logDir);
+        }
+    }
+
     private static void printHelpMessage() {
         final TextsProvider helpMessagesProvider = new JavaWsTextsProvider(UTF_8, new PlainTextFormatter(), true, true);
 
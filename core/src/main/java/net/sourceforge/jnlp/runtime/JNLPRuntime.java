@@ -78,6 +78,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.ServiceLoader;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static net.sourceforge.jnlp.runtime.ForkingStrategy.IF_JNLP_REQUIRES;
@@ -106,6 +107,9 @@ public class JNLPRuntime {
 
     private final static Logger LOG = LoggerFactory.getLogger(JNLPRuntime.class);
 
+    /** time spent at most on removing old cache items when the JVM exits */
+    private static final long CACHE_COLLECTION_AT_EXIT_MILLIS = 250;
+
     /**
      * java-abrt-connector can print out specific application String method, it is good to save visited urls for reproduce purposes.
      * For javaws we can read the destination jnlp from commandline
@@ -835,11 +839,13 @@ public class JNLPRuntime {
             LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, e);
         }
 
+        Cache.startCollectingGarbage();
         Runtime.getRuntime().addShutdownHook(new Thread("JNLPRuntimeShutdownHookThread") {
             @Override
             public void run() {
                 markNetxStopped();
-                Cache.cleanCache();
+                // spread the work over several runs instead of delaying the exit
+                Cache.collectGarbage(CACHE_COLLECTION_AT_EXIT_MILLIS, TimeUnit.MILLISECONDS);
             }
         });
     }
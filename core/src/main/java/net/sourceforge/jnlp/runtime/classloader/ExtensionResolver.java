@@ -0,0 +1,204 @@
+package net.sourceforge.jnlp.runtime.classloader;
+
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.ExtensionDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.UpdatePolicy;
+import net.adoptopenjdk.icedteaweb.tracing.LaunchTracer;
+import net.adoptopenjdk.icedteaweb.tracing.TraceSpan;
+import net.sourceforge.jnlp.JNLPFile;
+import net.sourceforge.jnlp.JNLPFileFactory;
+import net.sourceforge.jnlp.ParserSettings;
+
+import java.net.URL;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads and parses the extension JNLP files of an application concurrently, including the
+ * extensions of extensions. Each location and version is fetched once.
+ * <p>
+ * The class loaders are still created one after another by {@link JNLPClassLoader}, in the same
+ * order as before, as they are created while holding the lock of the unique key. When a loader
+ * needs the JNLP file of an extension it {@link #take(String, URL, VersionString) takes} the
+ * prefetched one. If there is none (or fetching it failed) the file is fetched as before, so
+ * errors are reported the same way.
+ * <p>
+ * With launch tracing enabled the chain of dependent extensions which took longest to resolve is
+ * recorded as the critical path.
+ */
+class ExtensionResolver implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExtensionResolver.class);
+
+    private static final int MAX_THREADS = 8;
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+            10L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+        final Thread thread = new Thread(runnable, "itw-extension-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * The resolvers of the applications currently creating their class loaders, by unique key.
+     * Extensions and their parent share the unique key.
+     */
+    private static final Map<String, ExtensionResolver> active = new ConcurrentHashMap<>();
+
+    private static final ExtensionResolver NONE = new ExtensionResolver(null, null, null, null, null);
+
+    private final String uniqueKey;
+    private final ParserSettings settings;
+    private final UpdatePolicy policy;
+    private final TraceSpan span;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Fetch> fetches = new ConcurrentHashMap<>();
+    private final JNLPFileFactory factory;
+
+    private ExtensionResolver(final String uniqueKey, final ParserSettings settings, final UpdatePolicy policy,
+                              final TraceSpan span, final JNLPFileFactory factory) {
+        this.uniqueKey = uniqueKey;
+        this.settings = settings;
+        this.policy = policy;
+        this.span = span;
+        this.factory = factory;
+    }
+
+    /**
+     * Starts fetching the extensions of the given file, unless the extensions of a parent of the
+     * file are already being fetched.
+     *
+     * @param file       the file whose extensions are fetched
+     * @param extensions the extensions of the file
+     * @param policy     the update policy of the class loader
+     * @return the resolver to close once the class loaders of the extensions exist
+     */
+    static ExtensionResolver start(final JNLPFile file, final ExtensionDesc[] extensions, final UpdatePolicy policy) {
+        return start(file, extensions, policy, new JNLPFileFactory());
+    }
+
+    static ExtensionResolver start(final JNLPFile file, final ExtensionDesc[] extensions, final UpdatePolicy policy,
+                                   final JNLPFileFactory factory) {
+        final String uniqueKey = file.getUniqueKey();
+        if (uniqueKey == null || extensions == null || extensions.length == 0 || active.containsKey(uniqueKey)) {
+            return NONE;
+        }
+
+        final TraceSpan span = LaunchTracer.begin(LaunchTracer.CLASSLOADER, "resolve extensions");
+        final ExtensionResolver resolver = new ExtensionResolver(uniqueKey, file.getParserSettings(), policy, span, factory);
+        if (active.putIfAbsent(uniqueKey, resolver) != null) {
+            return NONE;
+        }
+        resolver.fetchAll(null, extensions);
+        return resolver;
+    }
+
+    /**
+     * @param uniqueKey the unique key of the application
+     * @param location  the location of the extension
+     * @param version   the version of the extension
+     * @return the prefetched extension file, waiting for it if needed, or {@code null} if it was not
+     * prefetched, already taken or could not be fetched
+     */
+    static JNLPFile take(final String uniqueKey, final URL location, final VersionString version) {
+        final ExtensionResolver resolver = uniqueKey == null ? null : active.get(uniqueKey);
+        if (resolver == null) {
+            return null;
+        }
+        final Fetch fetch = resolver.fetches.get(key(location, version));
+        if (fetch == null || !fetch.taken.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            return fetch.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            LOG.debug("Prefetching extension {} failed: {}", location, e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this == NONE) {
+            return;
+        }
+        active.remove(uniqueKey, this);
+
+        Fetch last = null;
+        for (final Fetch fetch : fetches.values()) {
+            if (fetch.endNanos != 0 && (last == null || fetch.endNanos > last.endNanos)) {
+                last = fetch;
+            }
+        }
+        if (last != null) {
+            final LinkedList<String> path = new LinkedList<>();
+            for (Fetch fetch = last; fetch != null; fetch = fetch.parent) {
+                path.addFirst(fetch.location.toString());
+            }
+            final long millis = TimeUnit.NANOSECONDS.toMillis(last.endNanos - startNanos);
+            LOG.debug("Resolved {} extensions, critical path ({} ms): {}", fetches.size(), millis, path);
+            span.arg("extensions", fetches.size())
+                    .arg("criticalPath", String.join(" -> ", path))
+                    .arg("criticalPathMillis", millis);
+        }
+        span.close();
+    }
+
+    private void fetchAll(final Fetch parent, final ExtensionDesc[] extensions) {
+        for (final ExtensionDesc extension : extensions) {
+            final Fetch fetch = new Fetch(parent, extension.getLocation());
+            if (fetches.putIfAbsent(key(extension.getLocation(), extension.getVersion()), fetch) == null) {
+                executor.execute(() -> fetch(fetch, extension.getVersion()));
+            }
+        }
+    }
+
+    private void fetch(final Fetch fetch, final VersionString version) {
+        try {
+            final JNLPFile file = factory.create(fetch.location, uniqueKey, version, settings, policy);
+            fetch.endNanos = System.nanoTime();
+            fetch.result.complete(file);
+            fetchAll(fetch, file.getResources().getExtensions());
+        } catch (Throwable t) {
+            // an error must complete the fetch too, or the class loader taking it would wait forever
+            fetch.endNanos = System.nanoTime();
+            fetch.result.completeExceptionally(t);
+        }
+    }
+
+    private static String key(final URL location, final VersionString version) {
+        return location + " " + version;
+    }
+
+    private static class Fetch {
+        private final Fetch parent;
+        private final URL location;
+        private final CompletableFuture<JNLPFile> result = new CompletableFuture<>();
+        private final AtomicBoolean taken = new AtomicBoolean();
+        private volatile long endNanos;
+
+        private Fetch(final Fetch parent, final URL location) {
+            this.parent = parent;
+            this.location = location;
+        }
+    }
+}
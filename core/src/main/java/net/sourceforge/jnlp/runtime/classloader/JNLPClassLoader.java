@@ -34,6 +34,8 @@ import net.adoptopenjdk.icedteaweb.resources.IllegalResourceDescriptorException;
 import net.adoptopenjdk.icedteaweb.resources.ResourceTracker;
 import net.adoptopenjdk.icedteaweb.resources.UpdatePolicy;
 import net.adoptopenjdk.icedteaweb.resources.cache.Cache;
+import net.adoptopenjdk.icedteaweb.tracing.LaunchTracer;
+import net.adoptopenjdk.icedteaweb.tracing.TraceSpan;
 import net.adoptopenjdk.icedteaweb.xmlparser.ParseException;
 import net.sourceforge.jnlp.JNLPFile;
 import net.sourceforge.jnlp.JNLPFileFactory;
@@ -535,7 +537,8 @@ public class JNLPClassLoader extends URLClassLoader {
             loader = uniqueKeyToLoader.get(uniqueKey);
 
             if (loader == null || !location.equals(loader.getJNLPFile().getFileLocation())) {
-                final JNLPFile jnlpFile = new JNLPFileFactory().create(location, uniqueKey, version, settings, policy);
+                final JNLPFile prefetched = ExtensionResolver.take(uniqueKey, location, version);
+                final JNLPFile jnlpFile = prefetched != null ? prefetched : new JNLPFileFactory().create(location, uniqueKey, version, settings, policy);
 
                 loader = getInstance(jnlpFile, policy, mainName, enableCodeBase);
             }
@@ -555,12 +558,15 @@ public class JNLPClassLoader extends URLClassLoader {
         final ExtensionDesc[] extDescs = resources.getExtensions();
         if (extDescs != null) {
             final String uniqueKey = this.getJNLPFile().getUniqueKey();
-            for (ExtensionDesc ext : extDescs) {
-                try {
-                    final JNLPClassLoader loader = getInstance(ext.getLocation(), uniqueKey, ext.getVersion(), file.getParserSettings(), updatePolicy, mainClass, enableCodeBase);
-                    loaderList.add(loader);
-                } catch (Exception ex) {
-                    exceptions.add(new Exception("Exception while initializing extension '" + ext.getLocation() + "'", ex));
+            // fetch all extension files concurrently, the loaders are created one after another below
+            try (final ExtensionResolver ignored = ExtensionResolver.start(file, extDescs, updatePolicy)) {
+                for (ExtensionDesc ext : extDescs) {
+                    try {
+                        final JNLPClassLoader loader = getInstance(ext.getLocation(), uniqueKey, ext.getVersion(), file.getParserSettings(), updatePolicy, mainClass, enableCodeBase);
+                        loaderList.add(loader);
+                    } catch (Exception ex) {
+                        exceptions.add(new Exception("Exception while initializing extension '" + ext.getLocation() + "'", ex));
+                    }
                 }
             }
         }
@@ -1167,13 +1173,18 @@ public class JNLPClassLoader extends URLClassLoader {
      * @param jars the list of jars to load
      */
     void activateJars(final List<JARDesc> jars) {
-        PrivilegedAction<Void> activate = () -> doActivateJars(jars);
-        AccessController.doPrivileged(activate, acc);
+        try (final TraceSpan span = LaunchTracer.begin(LaunchTracer.CLASSLOADER, "activate jars")) {
+            span.arg("jars", jars.size());
+            PrivilegedAction<Void> activate = () -> doActivateJars(jars);
+            AccessController.doPrivileged(activate, acc);
+        }
     }
 
     private Void doActivateJars(List<JARDesc> jars) {
         // transfer the Jars
-        waitForJars(jars);
+        try (final TraceSpan ignored = LaunchTracer.begin(LaunchTracer.CLASSLOADER, "wait for jars")) {
+            waitForJars(jars);
+        }
 
         for (JARDesc jar : jars) {
             available.remove(jar);
@@ -43,7 +43,6 @@ import sun.security.util.DerValue;
 import sun.security.util.HostnameChecker;
 import sun.security.x509.X500Name;
 
-import java.security.KeyStore;
 import java.security.cert.CertPath;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
@@ -200,8 +199,8 @@ public class HttpsCertVerifier implements CertVerifier {
     @Override
     public boolean getRootInCaCerts() {
         try {
-            final List<KeyStore> caCertsKeyStores = KeyStores.getCAKeyStores();
-            return CertificateUtils.inKeyStores((X509Certificate) getRoot(null), caCertsKeyStores);
+            final X509Certificate root = (X509Certificate) getRoot(null);
+            return root != null && TrustedCertificates.contains(TrustedCertificates.Group.CA_CERTS, root);
         } catch (Exception e) {
             LOG.error("Exception while getting root in ca certs", e);
         }
@@ -408,6 +408,8 @@ public class SecurityUtil {
                     });
         } catch (UnrecoverableKeyException ex) {
             throw unexpectedException(ex);
+        } finally {
+            TrustedCertificates.invalidate();
         }
     }
 
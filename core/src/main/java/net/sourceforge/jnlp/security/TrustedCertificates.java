@@ -0,0 +1,231 @@
+package net.sourceforge.jnlp.security;
+
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.sourceforge.jnlp.security.KeyStores.KeyStoreWithPath;
+import net.sourceforge.jnlp.security.KeyStores.Level;
+import net.sourceforge.jnlp.security.KeyStores.Type;
+
+import java.io.File;
+import java.security.AllPermission;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory view of the trusted {@link KeyStores}. Each group of key stores is read from disk once and
+ * the certificates are indexed by SHA-256 fingerprint, so checking whether a certificate is trusted
+ * does not parse the key store files or walk all aliases again.
+ * <p>
+ * The files are checked for modification (time stamp and size) at most once per
+ * {@link #REVALIDATE_MILLIS}. Changes made through {@link SecurityUtil#storeKeyStore} are visible
+ * immediately.
+ * <p>
+ * The returned key stores are shared and must not be modified. Use {@link KeyStores#getKeyStore} to
+ * edit a key store.
+ */
+public final class TrustedCertificates {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrustedCertificates.class);
+
+    static final long REVALIDATE_MILLIS = 1000;
+
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+
+    /**
+     * The groups of key stores, each in the order of {@link KeyStores#getCertKeyStores()} and friends.
+     */
+    public enum Group {
+        CERTS(Type.JSSE_CERTS, Type.CERTS),
+        CA_CERTS(Type.JSSE_CA_CERTS, Type.CA_CERTS),
+        CLIENT_CERTS(Type.CLIENT_CERTS);
+
+        private final Type[] types;
+
+        Group(final Type... types) {
+            this.types = types;
+        }
+    }
+
+    private static final Map<Group, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private static final AtomicLong generation = new AtomicLong();
+
+    private TrustedCertificates() {
+    }
+
+    /**
+     * @param group the group of key stores
+     * @return the loaded key stores of the group, never modify them
+     */
+    public static List<KeyStore> getKeyStores(final Group group) {
+        return getSnapshot(group).index.getKeyStores();
+    }
+
+    /**
+     * @param group the group of key stores
+     * @param certificate the certificate to look for
+     * @return true if one of the key stores of the group contains the certificate
+     */
+    public static boolean contains(final Group group, final X509Certificate certificate) {
+        return getSnapshot(group).index.contains(certificate);
+    }
+
+    /**
+     * Drops all loaded key stores, they are read again on next access.
+     */
+    public static void invalidate() {
+        generation.incrementAndGet();
+        snapshots.clear();
+    }
+
+    private static Snapshot getSnapshot(final Group group) {
+        final SecurityManager sm = System.getSecurityManager();
+        if (sm != null) {
+            sm.checkPermission(new AllPermission());
+        }
+
+        final Snapshot snapshot = snapshots.get(group);
+        if (snapshot != null && snapshot.isValid()) {
+            return snapshot;
+        }
+        synchronized (group) {
+            final Snapshot current = snapshots.get(group);
+            if (current != null && current != snapshot && current.isValid()) {
+                return current;
+            }
+            final long loadedGeneration = generation.get();
+            final Snapshot loaded = load(group);
+            if (generation.get() == loadedGeneration) {
+                snapshots.put(group, loaded);
+            }
+            return loaded;
+        }
+    }
+
+    private static Snapshot load(final Group group) {
+        final List<KeyStore> keyStores = new ArrayList<>();
+        final List<FileStamp> stamps = new ArrayList<>();
+        for (final Level level : new Level[]{Level.SYSTEM, Level.USER}) {
+            for (final Type type : group.types) {
+                final KeyStoreWithPath keyStore = KeyStores.getKeyStore(level, type);
+                if (keyStore.getKs() != null) {
+                    keyStores.add(keyStore.getKs());
+                }
+                stamps.add(new FileStamp(new File(keyStore.getPath())));
+            }
+        }
+        LOG.debug("Loaded {} key stores of {}", keyStores.size(), group);
+        return new Snapshot(new CertificateIndex(keyStores), stamps);
+    }
+
+    private static class Snapshot {
+        private final CertificateIndex index;
+        private final List<FileStamp> stamps;
+        private final AtomicLong validUntil;
+
+        private Snapshot(final CertificateIndex index, final List<FileStamp> stamps) {
+            this.index = index;
+            this.stamps = stamps;
+            this.validUntil = new AtomicLong(System.currentTimeMillis() + REVALIDATE_MILLIS);
+        }
+
+        private boolean isValid() {
+            final long now = System.currentTimeMillis();
+            final long until = validUntil.get();
+            if (now < until || !validUntil.compareAndSet(until, now + REVALIDATE_MILLIS)) {
+                return true;
+            }
+            for (final FileStamp stamp : stamps) {
+                if (!stamp.isCurrent()) {
+                    validUntil.set(0);
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class FileStamp {
+        private final File file;
+        private final long lastModified;
+        private final long length;
+
+        private FileStamp(final File file) {
+            this.file = file;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        private boolean isCurrent() {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+    }
+
+    /**
+     * Immutable index of the certificates in a list of key stores.
+     */
+    static class CertificateIndex {
+        private final List<KeyStore> keyStores;
+        private final Map<String, X509Certificate> byFingerprint = new HashMap<>();
+
+        CertificateIndex(final List<KeyStore> keyStores) {
+            this.keyStores = Collections.unmodifiableList(new ArrayList<>(keyStores));
+            for (final KeyStore keyStore : keyStores) {
+                try {
+                    final Enumeration<String> aliases = keyStore.aliases();
+                    while (aliases.hasMoreElements()) {
+                        final Certificate certificate = keyStore.getCertificate(aliases.nextElement());
+                        if (certificate instanceof X509Certificate) {
+                            add((X509Certificate) certificate);
+                        }
+                    }
+                } catch (KeyStoreException e) {
+                    LOG.error("exception while indexing keystore " + KeyStores.getPathToKeystore(keyStore), e);
+                }
+            }
+        }
+
+        private void add(final X509Certificate certificate) {
+            final String fingerprint = fingerprint(certificate);
+            if (fingerprint != null) {
+                byFingerprint.putIfAbsent(fingerprint, certificate);
+            }
+        }
+
+        List<KeyStore> getKeyStores() {
+            return keyStores;
+        }
+
+        boolean contains(final X509Certificate certificate) {
+            final String fingerprint = fingerprint(certificate);
+            final X509Certificate found = fingerprint == null ? null : byFingerprint.get(fingerprint);
+            if (found != null && found.equals(certificate)) {
+                LOG.debug("{} found in trusted certificates", certificate.getSubjectX500Principal().getName());
+                return true;
+            }
+            return false;
+        }
+
+        private static String fingerprint(final X509Certificate certificate) {
+            try {
+                final MessageDigest digest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+                return Base64.getEncoder().encodeToString(digest.digest(certificate.getEncoded()));
+            } catch (GeneralSecurityException e) {
+                LOG.error("Unable to compute fingerprint of " + certificate.getSubjectX500Principal().getName(), e);
+                return null;
+            }
+        }
+    }
+}
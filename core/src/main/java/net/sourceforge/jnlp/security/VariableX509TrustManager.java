@@ -103,19 +103,19 @@ public final class VariableX509TrustManager {
      */
     public VariableX509TrustManager() {
         try {
-            loadManagers(KeyStores.getCertKeyStores(), certTrustManagers);
+            loadManagers(TrustedCertificates.getKeyStores(TrustedCertificates.Group.CERTS), certTrustManagers);
         } catch (Exception e) {
             LOG.error("Exception while loading CertKeyStores", e);
         }
 
         try {
-            loadManagers(KeyStores.getCAKeyStores(), caTrustManagers);
+            loadManagers(TrustedCertificates.getKeyStores(TrustedCertificates.Group.CA_CERTS), caTrustManagers);
         } catch (Exception e) {
             LOG.error("Exception while loading CaKeyStores", e);
         }
 
         try {
-            loadManagers(KeyStores.getClientKeyStores(), clientTrustManagers);
+            loadManagers(TrustedCertificates.getKeyStores(TrustedCertificates.Group.CLIENT_CERTS), clientTrustManagers);
         } catch (Exception e) {
             LOG.error("Exception while loading ClientKeyStores", e);
         }
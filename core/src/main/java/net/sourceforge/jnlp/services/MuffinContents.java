@@ -0,0 +1,110 @@
+package net.sourceforge.jnlp.services;
+
+import javax.jnlp.FileContents;
+import javax.jnlp.JNLPRandomAccessFile;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The contents of a muffin of the {@link MuffinStore}, which cannot be written beyond the maximum
+ * size granted to it.
+ * <p>
+ * The stream of a muffin is not read through a memory mapping of its file, however large: the
+ * muffin can be truncated while it is read, by {@link #getOutputStream(boolean)} or by another JVM,
+ * and touching a truncated mapping crashes the JVM or throws an {@link InternalError} at some
+ * later, unrelated point.
+ */
+final class MuffinContents implements FileContents {
+
+    private final MuffinStore store;
+    private final MuffinStore.Muffin muffin;
+    private final File file;
+
+    MuffinContents(final MuffinStore store, final MuffinStore.Muffin muffin) {
+        this.store = store;
+        this.muffin = muffin;
+        this.file = muffin.getFile();
+    }
+
+    @Override
+    public String getName() throws IOException {
+        return file.getName();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new FileInputStream(file);
+    }
+
+    @Override
+    public OutputStream getOutputStream(final boolean overwrite) throws IOException {
+        final long start = overwrite ? 0 : file.length();
+        return new LimitedOutputStream(new FileOutputStream(file, !overwrite), start, getMaxLength());
+    }
+
+    @Override
+    public long getLength() throws IOException {
+        return file.length();
+    }
+
+    @Override
+    public boolean canRead() throws IOException {
+        return file.canRead();
+    }
+
+    @Override
+    public boolean canWrite() throws IOException {
+        return file.canWrite();
+    }
+
+    @Override
+    public JNLPRandomAccessFile getRandomAccessFile(final String mode) throws IOException {
+        return new XJNLPRandomAccessFile(file, mode, getMaxLength());
+    }
+
+    @Override
+    public long getMaxLength() throws IOException {
+        return store.getMaxSize(muffin);
+    }
+
+    @Override
+    public long setMaxLength(final long maxlength) throws IOException {
+        return store.setMaxSize(muffin, maxlength);
+    }
+
+    private static final class LimitedOutputStream extends FilterOutputStream {
+        private final long maxLength;
+        private long length;
+
+        private LimitedOutputStream(final OutputStream out, final long length, final long maxLength) {
+            super(out);
+            this.length = length;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            checkMaxLength(1);
+            out.write(b);
+            length++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            checkMaxLength(len);
+            out.write(b, off, len);
+            length += len;
+        }
+
+        private void checkMaxLength(final int len) throws IOException {
+            if (length + len > maxLength) {
+                throw new IOException("The maximum length of " + maxLength + " bytes would be exceeded");
+            }
+        }
+    }
+}
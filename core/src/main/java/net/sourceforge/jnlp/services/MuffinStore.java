@@ -0,0 +1,430 @@
+package net.sourceforge.jnlp.services;
+
+import net.adoptopenjdk.icedteaweb.io.FileUtils;
+import net.adoptopenjdk.icedteaweb.lockingfile.LockableFile;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.config.PathsAndFiles;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+
+import javax.jnlp.FileContents;
+import javax.jnlp.PersistenceService;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * The muffins of the persistence service, the files under {@link PathsAndFiles#PCACHE_DIR}.
+ * <p>
+ * The maximum size and the tag of every muffin are kept in an index, which is read from the
+ * metadata file and a single walk of the directory. Listing muffins and reading their tags only
+ * checks the modification time of the metadata file after that, and reads the index anew if another
+ * JVM has written it. Changes of the index are merged into the metadata file under a file lock in
+ * batches, shortly after they are made and when the JVM exits, so JVMs running at the same time do
+ * not undo the changes of each other.
+ * <p>
+ * The maximum sizes granted to the muffins of one codebase host are accounted against the quota of
+ * {@link ConfigurationConstants#KEY_PERSISTENCE_QUOTA}, and a muffin cannot be written beyond its
+ * maximum size. A muffin created by another running JVM can be read at once, and is listed as soon
+ * as that JVM has written its metadata.
+ */
+final class MuffinStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MuffinStore.class);
+
+    static final String METADATA_FILE = ".muffins";
+    private static final String LOCK_FILE = METADATA_FILE + ".lock";
+
+    private static final long FLUSH_DELAY_MILLIS = 1000;
+    private static final long KILOBYTE = 1024;
+
+    private static MuffinStore instance;
+
+    private final File root;
+
+    /** the space in bytes the muffins of a host may reserve, negative for no limit */
+    private final long quota;
+
+    /** the muffins by directory and name */
+    private final Map<File, Map<String, Muffin>> index = new HashMap<>();
+
+    /** the space reserved by the muffins of each host */
+    private final Map<String, Long> reserved = new HashMap<>();
+
+    /** the changes not yet written to the metadata file, by relative path, null for a deleted muffin */
+    private final Map<String, String> unflushed = new HashMap<>();
+
+    /** the modification time of the metadata file the index is up to date with */
+    private FileTime indexedMetadataTime;
+
+    private boolean loaded;
+    private boolean flushScheduled;
+
+    MuffinStore(final File root, final long quota) {
+        this.root = root;
+        this.quota = quota;
+    }
+
+    static synchronized MuffinStore getInstance() {
+        if (instance == null) {
+            final File root = new File(PathsAndFiles.PCACHE_DIR.getFullPath());
+            instance = new MuffinStore(root, readQuota());
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::flush, "MuffinStoreShutdownHookThread"));
+        }
+        return instance;
+    }
+
+    private static long readQuota() {
+        try {
+            final long kilobytes = Long.parseLong(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_PERSISTENCE_QUOTA));
+            return kilobytes < 0 ? -1 : kilobytes * KILOBYTE;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the maximum size granted to the new muffin, less than requested if the quota of its
+     * host does not allow more
+     * @throws IOException if the muffin exists already
+     */
+    synchronized long create(final File file, final long maxSize) throws IOException {
+        load();
+        FileUtils.createParentDir(file, "Persistence store for " + file.getName());
+        if (find(file) != null || file.exists()) {
+            throw new IOException("File already exists.");
+        }
+        FileUtils.createRestrictedFile(file);
+
+        final Muffin muffin = new Muffin(file, hostOf(file), 0, PersistenceService.CACHED);
+        muffin.maxSize = grant(muffin, maxSize);
+        add(muffin);
+        changed(muffin);
+        return muffin.maxSize;
+    }
+
+    synchronized FileContents get(final File file) throws IOException {
+        return new MuffinContents(this, lookup(file));
+    }
+
+    synchronized void delete(final File file) {
+        load();
+        final Muffin muffin = find(file);
+        if (muffin != null) {
+            remove(muffin);
+        }
+        FileUtils.deleteWithErrMesg(file, " tocache");
+        unflushed.put(relativePath(file), null);
+        scheduleFlush();
+    }
+
+    /**
+     * @return the names of the muffins in the directory
+     */
+    synchronized String[] getNames(final File directory) {
+        load();
+        final Map<String, Muffin> muffins = index.get(directory);
+        return muffins == null ? new String[0] : muffins.keySet().toArray(new String[0]);
+    }
+
+    synchronized int getTag(final File file) throws IOException {
+        return lookup(file).tag;
+    }
+
+    synchronized void setTag(final File file, final int tag) throws IOException {
+        if (tag != PersistenceService.CACHED && tag != PersistenceService.TEMPORARY && tag != PersistenceService.DIRTY) {
+            throw new IllegalArgumentException("Unknown tag " + tag);
+        }
+        final Muffin muffin = lookup(file);
+        if (muffin.tag != tag) {
+            muffin.tag = tag;
+            changed(muffin);
+        }
+    }
+
+    synchronized long getMaxSize(final Muffin muffin) {
+        return muffin.maxSize;
+    }
+
+    /**
+     * @return the maximum size granted, less than requested if the quota of the host of the muffin
+     * does not allow more
+     */
+    synchronized long setMaxSize(final Muffin muffin, final long maxSize) {
+        final long granted = grant(muffin, maxSize);
+        if (granted != muffin.maxSize) {
+            final boolean indexed = isIndexed(muffin);
+            if (indexed) {
+                reserve(muffin.host, granted - muffin.maxSize);
+            }
+            muffin.maxSize = granted;
+            if (indexed) {
+                changed(muffin);
+            }
+        }
+        return granted;
+    }
+
+    /**
+     * Merges the changes of the metadata of the muffins into the metadata file, if there are any.
+     */
+    synchronized void flush() {
+        if (unflushed.isEmpty()) {
+            return;
+        }
+        final File metadataFile = new File(root, METADATA_FILE);
+        final File tempFile = new File(root, METADATA_FILE + ".tmp");
+        try {
+            FileUtils.createParentDir(tempFile);
+            final LockableFile lock = LockableFile.getInstance(new File(root, LOCK_FILE));
+            lock.lock();
+            try {
+                final FileTime previousTime = metadataTime();
+                final Properties metadata = readMetadata();
+                unflushed.forEach((path, value) -> {
+                    if (value == null) {
+                        metadata.remove(path);
+                    } else {
+                        metadata.setProperty(path, value);
+                    }
+                });
+
+                Files.deleteIfExists(tempFile.toPath());
+                FileUtils.createRestrictedFile(tempFile);
+                try (final OutputStream out = new FileOutputStream(tempFile)) {
+                    metadata.store(out, "muffins: maximum size and tag");
+                }
+                // file times may be coarser than the writes, yet other JVMs have to notice every write
+                if (previousTime != null && Files.getLastModifiedTime(tempFile.toPath()).compareTo(previousTime) <= 0) {
+                    Files.setLastModifiedTime(tempFile.toPath(), FileTime.fromMillis(previousTime.toMillis() + 1));
+                }
+                Files.move(tempFile.toPath(), metadataFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                if (Objects.equals(previousTime, indexedMetadataTime)) {
+                    // no other JVM has written the file since the index was read
+                    indexedMetadataTime = metadataTime();
+                }
+            } finally {
+                lock.unlock();
+            }
+            unflushed.clear();
+        } catch (IOException e) {
+            LOG.error("Unable to write the metadata of the persistence store: {}", e.getMessage());
+        }
+    }
+
+    private Muffin lookup(final File file) throws FileNotFoundException {
+        load();
+        Muffin muffin = find(file);
+        if (muffin == null && file.isFile()) {
+            // created by another JVM after the index was read
+            muffin = adopt(file, readMetadata().getProperty(relativePath(file)), null);
+        }
+        if (muffin == null) {
+            throw new FileNotFoundException("Persistence store for " + file.getName() + " is not found.");
+        }
+        return muffin;
+    }
+
+    private Muffin find(final File file) {
+        final Map<String, Muffin> muffins = index.get(file.getParentFile());
+        return muffins == null ? null : muffins.get(file.getName());
+    }
+
+    /**
+     * @return false for a new muffin, or one deleted meanwhile
+     */
+    private boolean isIndexed(final Muffin muffin) {
+        return find(muffin.file) == muffin;
+    }
+
+    /**
+     * Reads the metadata and finds all muffins, the first time and whenever another JVM has written
+     * the metadata file since. The changes not yet written by this JVM are kept, and so are the
+     * muffins of the index which still exist, as {@link MuffinContents} refer to them.
+     */
+    private void load() {
+        final FileTime metadataTime = metadataTime();
+        if (loaded && Objects.equals(metadataTime, indexedMetadataTime)) {
+            return;
+        }
+        loaded = true;
+        indexedMetadataTime = metadataTime;
+        final Properties metadata = readMetadata();
+        unflushed.forEach((path, value) -> {
+            if (value != null) {
+                metadata.setProperty(path, value);
+            }
+        });
+
+        final Map<File, Map<String, Muffin>> previous = new HashMap<>(index);
+        index.clear();
+        reserved.clear();
+        if (!root.isDirectory()) {
+            return;
+        }
+        try (final Stream<Path> files = Files.walk(root.toPath())) {
+            files.map(Path::toFile)
+                    .filter(File::isFile)
+                    .filter(file -> !file.getParentFile().equals(root) || !file.getName().startsWith(METADATA_FILE))
+                    .forEach(file -> {
+                        final Map<String, Muffin> muffins = previous.get(file.getParentFile());
+                        adopt(file, metadata.getProperty(relativePath(file)), muffins == null ? null : muffins.get(file.getName()));
+                    });
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Unable to list the persistence store: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the modification time of the metadata file, or null if there is none
+     */
+    private FileTime metadataTime() {
+        try {
+            return Files.getLastModifiedTime(new File(root, METADATA_FILE).toPath());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Properties readMetadata() {
+        final File metadataFile = new File(root, METADATA_FILE);
+        final Properties metadata = new Properties();
+        if (metadataFile.isFile()) {
+            try (final InputStream in = new FileInputStream(metadataFile)) {
+                metadata.load(in);
+            } catch (IOException e) {
+                LOG.error("Unable to read the metadata of the persistence store: {}", e.getMessage());
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Adds a muffin found on disk to the index.
+     *
+     * @param metadata its maximum size and tag, or null if not known, then it keeps the ones known,
+     *                 or may grow without limit if there is no quota, or only to its current size
+     * @param known    the muffin of the index read before, or null
+     */
+    private Muffin adopt(final File file, final String metadata, final Muffin known) {
+        long maxSize = known != null ? known.maxSize : quota < 0 ? Long.MAX_VALUE : file.length();
+        int tag = known != null ? known.tag : PersistenceService.CACHED;
+        if (metadata != null) {
+            final String[] parts = metadata.split(" ");
+            try {
+                maxSize = Long.parseLong(parts[0]);
+                tag = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                LOG.debug("Ignoring the metadata of {}: {}", file, metadata);
+            }
+        }
+        final Muffin muffin = known != null ? known : new Muffin(file, hostOf(file), maxSize, tag);
+        muffin.maxSize = maxSize;
+        muffin.tag = tag;
+        add(muffin);
+        return muffin;
+    }
+
+    private void add(final Muffin muffin) {
+        index.computeIfAbsent(muffin.file.getParentFile(), dir -> new HashMap<>()).put(muffin.file.getName(), muffin);
+        reserve(muffin.host, muffin.maxSize);
+    }
+
+    private void remove(final Muffin muffin) {
+        final Map<String, Muffin> muffins = index.get(muffin.file.getParentFile());
+        muffins.remove(muffin.file.getName());
+        if (muffins.isEmpty()) {
+            index.remove(muffin.file.getParentFile());
+        }
+        reserve(muffin.host, -muffin.maxSize);
+    }
+
+    private void reserve(final String host, final long bytes) {
+        if (quota >= 0) {
+            reserved.merge(host, bytes, Long::sum);
+        }
+    }
+
+    /**
+     * @return how much of the requested size the quota of the host of the muffin allows
+     */
+    private long grant(final Muffin muffin, final long requested) {
+        final long wanted = Math.max(0, requested);
+        if (quota < 0) {
+            return wanted;
+        }
+        final long reservedByOthers = reserved.getOrDefault(muffin.host, 0L) - (isIndexed(muffin) ? muffin.maxSize : 0);
+        return Math.max(0, Math.min(wanted, quota - reservedByOthers));
+    }
+
+    private void changed(final Muffin muffin) {
+        unflushed.put(relativePath(muffin.file), muffin.maxSize + " " + muffin.tag);
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        final Thread thread = new Thread(() -> {
+            try {
+                Thread.sleep(FLUSH_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                flushScheduled = false;
+                flush();
+            }
+        }, "itw-muffin-metadata");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private String relativePath(final File file) {
+        return root.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * @return the protocol, host and port part of the path of the muffin, see
+     * {@link net.sourceforge.jnlp.cache.CacheUtil#urlToPath}
+     */
+    private String hostOf(final File file) {
+        final Path path = root.toPath().relativize(file.toPath());
+        return path.getNameCount() > 3 ? path.subpath(0, 3).toString() : String.valueOf(path.getParent());
+    }
+
+    static final class Muffin {
+        private final File file;
+        private final String host;
+        private long maxSize;
+        private int tag;
+
+        private Muffin(final File file, final String host, final long maxSize, final int tag) {
+            this.file = file;
+            this.host = host;
+            this.maxSize = maxSize;
+            this.tag = tag;
+        }
+
+        File getFile() {
+            return file;
+        }
+    }
+}
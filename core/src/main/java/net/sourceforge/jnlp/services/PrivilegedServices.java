@@ -0,0 +1,504 @@
+package net.sourceforge.jnlp.services;
+
+import net.sourceforge.jnlp.JNLPFile;
+
+import javax.jnlp.BasicService;
+import javax.jnlp.ClipboardService;
+import javax.jnlp.DownloadService;
+import javax.jnlp.DownloadService2;
+import javax.jnlp.DownloadServiceListener;
+import javax.jnlp.ExtendedService;
+import javax.jnlp.ExtensionInstallerService;
+import javax.jnlp.FileContents;
+import javax.jnlp.FileOpenService;
+import javax.jnlp.FileSaveService;
+import javax.jnlp.JNLPRandomAccessFile;
+import javax.jnlp.PersistenceService;
+import javax.jnlp.PrintService;
+import javax.jnlp.SingleInstanceListener;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.awt.print.PageFormat;
+import java.awt.print.Pageable;
+import java.awt.print.Printable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+
+/**
+ * Wrappers which call the services in the security context of the system classes (ie,
+ * AllPermissions), so the services must be more than extremely careful in the operations they
+ * perform.
+ * <p>
+ * Each method of a wrapper delegates directly to the service within one privileged block.
+ * Objects returned by a service which only need privileges to be created are not wrapped: the
+ * streams and the {@link JNLPRandomAccessFile} of a {@link FileContents} check the permissions
+ * of the file when opened (which happens privileged) and are used directly afterwards.
+ */
+final class PrivilegedServices {
+
+    private PrivilegedServices() {
+    }
+
+    private interface IOAction<T> {
+        T run() throws IOException;
+    }
+
+    private interface VoidIOAction {
+        void run() throws IOException;
+    }
+
+    private static <T> T privileged(final PrivilegedAction<T> action) {
+        return AccessController.doPrivileged(action);
+    }
+
+    private static void privilegedRun(final Runnable action) {
+        AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private static <T> T privilegedIO(final IOAction<T> action) throws IOException {
+        try {
+            return AccessController.doPrivileged((PrivilegedExceptionAction<T>) action::run);
+        } catch (PrivilegedActionException e) {
+            throw (IOException) e.getException();
+        }
+    }
+
+    private static void privilegedRunIO(final VoidIOAction action) throws IOException {
+        privilegedIO(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    static BasicService wrap(final BasicService service) {
+        return new BasicService() {
+            @Override
+            public URL getCodeBase() {
+                return privileged(service::getCodeBase);
+            }
+
+            @Override
+            public boolean isOffline() {
+                return privileged(service::isOffline);
+            }
+
+            @Override
+            public boolean showDocument(final URL url) {
+                return privileged(() -> service.showDocument(url));
+            }
+
+            @Override
+            public boolean isWebBrowserSupported() {
+                return privileged(service::isWebBrowserSupported);
+            }
+        };
+    }
+
+    static ClipboardService wrap(final ClipboardService service) {
+        return new ClipboardService() {
+            @Override
+            public Transferable getContents() {
+                return privileged(service::getContents);
+            }
+
+            @Override
+            public void setContents(final Transferable contents) {
+                privilegedRun(() -> service.setContents(contents));
+            }
+        };
+    }
+
+    static Transferable wrap(final Transferable transferable) {
+        if (transferable == null) {
+            return null;
+        }
+        return new Transferable() {
+            @Override
+            public DataFlavor[] getTransferDataFlavors() {
+                return privileged(transferable::getTransferDataFlavors);
+            }
+
+            @Override
+            public boolean isDataFlavorSupported(final DataFlavor flavor) {
+                return privileged(() -> transferable.isDataFlavorSupported(flavor));
+            }
+
+            @Override
+            public Object getTransferData(final DataFlavor flavor) throws UnsupportedFlavorException, IOException {
+                try {
+                    return AccessController.doPrivileged((PrivilegedExceptionAction<Object>) () -> transferable.getTransferData(flavor));
+                } catch (PrivilegedActionException e) {
+                    if (e.getException() instanceof UnsupportedFlavorException) {
+                        throw (UnsupportedFlavorException) e.getException();
+                    }
+                    throw (IOException) e.getException();
+                }
+            }
+        };
+    }
+
+    static DownloadService wrap(final DownloadService service) {
+        return new DownloadService() {
+            @Override
+            public boolean isResourceCached(final URL ref, final String version) {
+                return privileged(() -> service.isResourceCached(ref, version));
+            }
+
+            @Override
+            public boolean isPartCached(final String part) {
+                return privileged(() -> service.isPartCached(part));
+            }
+
+            @Override
+            public boolean isPartCached(final String[] parts) {
+                return privileged(() -> service.isPartCached(parts));
+            }
+
+            @Override
+            public boolean isExtensionPartCached(final URL ref, final String version, final String part) {
+                return privileged(() -> service.isExtensionPartCached(ref, version, part));
+            }
+
+            @Override
+            public boolean isExtensionPartCached(final URL ref, final String version, final String[] parts) {
+                return privileged(() -> service.isExtensionPartCached(ref, version, parts));
+            }
+
+            @Override
+            public void loadResource(final URL ref, final String version, final DownloadServiceListener progress) throws IOException {
+                privilegedRunIO(() -> service.loadResource(ref, version, progress));
+            }
+
+            @Override
+            public void loadPart(final String part, final DownloadServiceListener progress) throws IOException {
+                privilegedRunIO(() -> service.loadPart(part, progress));
+            }
+
+            @Override
+            public void loadPart(final String[] parts, final DownloadServiceListener progress) throws IOException {
+                privilegedRunIO(() -> service.loadPart(parts, progress));
+            }
+
+            @Override
+            public void loadExtensionPart(final URL ref, final String version, final String part, final DownloadServiceListener progress) throws IOException {
+                privilegedRunIO(() -> service.loadExtensionPart(ref, version, part, progress));
+            }
+
+            @Override
+            public void loadExtensionPart(final URL ref, final String version, final String[] parts, final DownloadServiceListener progress) throws IOException {
+                privilegedRunIO(() -> service.loadExtensionPart(ref, version, parts, progress));
+            }
+
+            @Override
+            public void removeResource(final URL ref, final String version) throws IOException {
+                privilegedRunIO(() -> service.removeResource(ref, version));
+            }
+
+            @Override
+            public void removePart(final String part) throws IOException {
+                privilegedRunIO(() -> service.removePart(part));
+            }
+
+            @Override
+            public void removePart(final String[] parts) throws IOException {
+                privilegedRunIO(() -> service.removePart(parts));
+            }
+
+            @Override
+            public void removeExtensionPart(final URL ref, final String version, final String part) throws IOException {
+                privilegedRunIO(() -> service.removeExtensionPart(ref, version, part));
+            }
+
+            @Override
+            public void removeExtensionPart(final URL ref, final String version, final String[] parts) throws IOException {
+                privilegedRunIO(() -> service.removeExtensionPart(ref, version, parts));
+            }
+
+            @Override
+            public DownloadServiceListener getDefaultProgressWindow() {
+                return privileged(service::getDefaultProgressWindow);
+            }
+        };
+    }
+
+    static DownloadService2 wrap(final DownloadService2 service) {
+        return new DownloadService2() {
+            @Override
+            public ResourceSpec[] getCachedResources(final ResourceSpec resourceSpec) {
+                return privileged(() -> service.getCachedResources(resourceSpec));
+            }
+
+            @Override
+            public ResourceSpec[] getUpdateAvailableResources(final ResourceSpec resourceSpec) {
+                return privileged(() -> service.getUpdateAvailableResources(resourceSpec));
+            }
+        };
+    }
+
+    static ExtendedService wrap(final ExtendedService service) {
+        return new ExtendedService() {
+            @Override
+            public FileContents openFile(final File file) throws IOException {
+                return privilegedIO(() -> service.openFile(file));
+            }
+
+            @Override
+            public FileContents[] openFiles(final File[] files) throws IOException {
+                return privilegedIO(() -> service.openFiles(files));
+            }
+        };
+    }
+
+    static ExtensionInstallerService wrap(final ExtensionInstallerService service) {
+        return new ExtensionInstallerService() {
+            @Override
+            public String getInstallPath() {
+                return privileged(service::getInstallPath);
+            }
+
+            @Override
+            public String getExtensionVersion() {
+                return privileged(service::getExtensionVersion);
+            }
+
+            @Override
+            public URL getExtensionLocation() {
+                return privileged(service::getExtensionLocation);
+            }
+
+            @Override
+            public void hideProgressBar() {
+                privilegedRun(service::hideProgressBar);
+            }
+
+            @Override
+            public void hideStatusWindow() {
+                privilegedRun(service::hideStatusWindow);
+            }
+
+            @Override
+            public void setHeading(final String heading) {
+                privilegedRun(() -> service.setHeading(heading));
+            }
+
+            @Override
+            public void setStatus(final String status) {
+                privilegedRun(() -> service.setStatus(status));
+            }
+
+            @Override
+            public void updateProgress(final int value) {
+                privilegedRun(() -> service.updateProgress(value));
+            }
+
+            @Override
+            public void installSucceeded(final boolean needsReboot) {
+                privilegedRun(() -> service.installSucceeded(needsReboot));
+            }
+
+            @Override
+            public void installFailed() {
+                privilegedRun(service::installFailed);
+            }
+
+            @Override
+            public void setJREInfo(final String platformVersion, final String jrePath) {
+                privilegedRun(() -> service.setJREInfo(platformVersion, jrePath));
+            }
+
+            @Override
+            public void setNativeLibraryInfo(final String path) {
+                privilegedRun(() -> service.setNativeLibraryInfo(path));
+            }
+
+            @Override
+            public String getInstalledJRE(final URL url, final String version) {
+                return privileged(() -> service.getInstalledJRE(url, version));
+            }
+        };
+    }
+
+    static FileContents wrap(final FileContents contents) {
+        if (contents == null) {
+            return null;
+        }
+        return new FileContents() {
+            @Override
+            public String getName() throws IOException {
+                return privilegedIO(contents::getName);
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return privilegedIO(contents::getInputStream);
+            }
+
+            @Override
+            public OutputStream getOutputStream(final boolean overwrite) throws IOException {
+                return privilegedIO(() -> contents.getOutputStream(overwrite));
+            }
+
+            @Override
+            public long getLength() throws IOException {
+                return privilegedIO(contents::getLength);
+            }
+
+            @Override
+            public boolean canRead() throws IOException {
+                return privilegedIO(contents::canRead);
+            }
+
+            @Override
+            public boolean canWrite() throws IOException {
+                return privilegedIO(contents::canWrite);
+            }
+
+            @Override
+            public JNLPRandomAccessFile getRandomAccessFile(final String mode) throws IOException {
+                return privilegedIO(() -> contents.getRandomAccessFile(mode));
+            }
+
+            @Override
+            public long getMaxLength() throws IOException {
+                return privilegedIO(contents::getMaxLength);
+            }
+
+            @Override
+            public long setMaxLength(final long maxlength) throws IOException {
+                return privilegedIO(() -> contents.setMaxLength(maxlength));
+            }
+        };
+    }
+
+    static FileContents[] wrap(final FileContents[] contents) {
+        if (contents == null) {
+            return null;
+        }
+        final FileContents[] result = new FileContents[contents.length];
+        for (int i = 0; i < contents.length; i++) {
+            result[i] = wrap(contents[i]);
+        }
+        return result;
+    }
+
+    static FileOpenService wrap(final FileOpenService service) {
+        return new FileOpenService() {
+            @Override
+            public FileContents openFileDialog(final String pathHint, final String[] extensions) throws IOException {
+                return privilegedIO(() -> service.openFileDialog(pathHint, extensions));
+            }
+
+            @Override
+            public FileContents[] openMultiFileDialog(final String pathHint, final String[] extensions) throws IOException {
+                return privilegedIO(() -> service.openMultiFileDialog(pathHint, extensions));
+            }
+        };
+    }
+
+    static FileSaveService wrap(final FileSaveService service) {
+        return new FileSaveService() {
+            @Override
+            public FileContents saveFileDialog(final String pathHint, final String[] extensions, final InputStream stream, final String name) throws IOException {
+                return privilegedIO(() -> service.saveFileDialog(pathHint, extensions, stream, name));
+            }
+
+            @Override
+            public FileContents saveAsFileDialog(final String pathHint, final String[] extensions, final FileContents contents) throws IOException {
+                return privilegedIO(() -> service.saveAsFileDialog(pathHint, extensions, contents));
+            }
+        };
+    }
+
+    static PersistenceService wrap(final PersistenceService service) {
+        return new PersistenceService() {
+            @Override
+            public long create(final URL url, final long maxsize) throws IOException {
+                return privilegedIO(() -> service.create(url, maxsize));
+            }
+
+            @Override
+            public FileContents get(final URL url) throws IOException {
+                return privilegedIO(() -> service.get(url));
+            }
+
+            @Override
+            public void delete(final URL url) throws IOException {
+                privilegedRunIO(() -> service.delete(url));
+            }
+
+            @Override
+            public String[] getNames(final URL url) throws IOException {
+                return privilegedIO(() -> service.getNames(url));
+            }
+
+            @Override
+            public int getTag(final URL url) throws IOException {
+                return privilegedIO(() -> service.getTag(url));
+            }
+
+            @Override
+            public void setTag(final URL url, final int tag) throws IOException {
+                privilegedRunIO(() -> service.setTag(url, tag));
+            }
+        };
+    }
+
+    static PrintService wrap(final PrintService service) {
+        return new PrintService() {
+            @Override
+            public PageFormat getDefaultPage() {
+                return privileged(service::getDefaultPage);
+            }
+
+            @Override
+            public PageFormat showPageFormatDialog(final PageFormat page) {
+                return privileged(() -> service.showPageFormatDialog(page));
+            }
+
+            @Override
+            public boolean print(final Pageable document) {
+                return privileged(() -> service.print(document));
+            }
+
+            @Override
+            public boolean print(final Printable painter) {
+                return privileged(() -> service.print(painter));
+            }
+        };
+    }
+
+    static ExtendedSingleInstanceService wrap(final ExtendedSingleInstanceService service) {
+        return new ExtendedSingleInstanceService() {
+            @Override
+            public void checkSingleInstanceRunning(final JNLPFile jnlpFile) {
+                privilegedRun(() -> service.checkSingleInstanceRunning(jnlpFile));
+            }
+
+            @Override
+            public void initializeSingleInstance() {
+                privilegedRun(service::initializeSingleInstance);
+            }
+
+            @Override
+            public void addSingleInstanceListener(final SingleInstanceListener listener) {
+                privilegedRun(() -> service.addSingleInstanceListener(listener));
+            }
+
+            @Override
+            public void removeSingleInstanceListener(final SingleInstanceListener listener) {
+                privilegedRun(() -> service.removeSingleInstanceListener(listener));
+            }
+        };
+    }
+}
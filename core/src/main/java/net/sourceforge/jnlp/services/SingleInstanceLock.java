@@ -16,9 +16,12 @@
 
 package net.sourceforge.jnlp.services;
 
+import net.adoptopenjdk.icedteaweb.io.FileUtils;
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.os.ProcessIdentity;
 import net.sourceforge.jnlp.JNLPFile;
 import net.sourceforge.jnlp.config.PathsAndFiles;
-import net.adoptopenjdk.icedteaweb.io.FileUtils;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -28,18 +31,30 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.net.BindException;
 import java.net.ServerSocket;
-
-import static net.adoptopenjdk.icedteaweb.i18n.Translator.R;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
  * This class represents a Lock for single instance jnlp applications
  *
  * The lock is per-session, per user.
+ * <p>
+ * The first line of the lock file is the TCP port the instance listens at, 0 if it listens at a
+ * Unix domain socket instead, then the socket file, and the PID and start time of the instance.
+ * The lock is valid while that process runs, which is checked without touching any port. A lock
+ * file without a process, as written by earlier versions, is valid while its port is bound.
  *
  * @author <a href="mailto:omajid@redhat.com">Omair Majid</a>
  */
 class SingleInstanceLock {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SingleInstanceLock.class);
+
+    private static final String SOCKET = "socket=";
+    private static final String PID = "pid=";
+    private static final String START = "start=";
+
     JNLPFile jnlpFile;
     File lockFile = null;
 
@@ -47,6 +62,10 @@ class SingleInstanceLock {
 
     int port = INVALID_PORT;
 
+    private File socket;
+
+    private ProcessIdentity owner;
+
     /**
      * Create an object to manage the instance lock for the specified JNLP file.
      *
@@ -59,47 +78,98 @@ class SingleInstanceLock {
     }
 
     /**
-     * Create/overwrite the instance lock for the jnlp file.
+     * Create/overwrite the instance lock for the jnlp file, for this process.
      *
-     * @param localPort the network port for the lock
+     * @param localPort the network port for the lock, 0 if listening at the socket
+     * @param socketFile the Unix domain socket for the lock, or null if listening at the port
      * @throws IOException on any io problems
      */
-    public void createWithPort(int localPort) throws IOException {
+    public void create(int localPort, File socketFile) throws IOException {
+        final ProcessIdentity current = ProcessIdentity.current();
 
         FileUtils.createRestrictedFile(lockFile);
-        BufferedWriter lockFileWriter = new BufferedWriter(new FileWriter(lockFile, false));
-        lockFileWriter.write(String.valueOf(localPort));
-        lockFileWriter.newLine();
-        lockFileWriter.flush();
-        lockFileWriter.close();
-
+        try (BufferedWriter lockFileWriter = new BufferedWriter(new FileWriter(lockFile, false))) {
+            lockFileWriter.write(String.valueOf(localPort));
+            lockFileWriter.newLine();
+            if (socketFile != null) {
+                lockFileWriter.write(SOCKET + socketFile.getPath());
+                lockFileWriter.newLine();
+            }
+            lockFileWriter.write(PID + current.getPid());
+            lockFileWriter.newLine();
+            lockFileWriter.write(START + current.getStartMillis());
+            lockFileWriter.newLine();
+        }
     }
 
     /**
-     * Returns true if the lock if valid. That is, the lock exists, and port it
-     * points to is listening for incoming messages.
+     * Returns true if the lock if valid. That is, the lock exists, and the process which created
+     * it still runs, or, for a lock without process, the port it points to is listening for
+     * incoming messages.
      */
     public boolean isValid() {
-        return (exists() && getPort() != INVALID_PORT && !isPortFree(getPort()));
+        if (!exists() || !parse()) {
+            return false;
+        }
+        if (owner != null) {
+            final boolean running = owner.isRunning();
+            if (!running) {
+                LOG.debug("Lock file {} is stale, process {} is gone", lockFile, owner);
+            }
+            return running;
+        }
+        return port != INVALID_PORT && !isPortFree(port);
     }
 
     /**
      * Returns the port in this lock file.
      */
     public int getPort() {
-        if (!exists()) {
+        if (!exists() || !parse()) {
             return INVALID_PORT;
         }
+        return port;
+
+    }
+
+    /**
+     * Returns the Unix domain socket in this lock file, or null if the instance listens at a port.
+     */
+    public File getSocket() {
+        if (!exists() || !parse()) {
+            return null;
+        }
+        return socket;
+    }
 
+    /**
+     * Returns the Unix domain socket an instance of the jnlp file listens at. The path is short, as
+     * the length of socket paths is limited.
+     */
+    public File getSocketFile() {
         try {
-            parseFile();
-        } catch (NumberFormatException e) {
-            port = INVALID_PORT;
-        } catch (IOException e) {
-            port = INVALID_PORT;
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(lockFile.getName().getBytes(StandardCharsets.UTF_8));
+            final StringBuilder name = new StringBuilder("si-");
+            for (int i = 0; i < 8; i++) {
+                name.append(String.format("%02x", digest[i]));
+            }
+            return new File(lockFile.getParentFile(), name.append(".sock").toString());
+        } catch (NoSuchAlgorithmException e) {
+            // every java implementation supports SHA-256
+            throw new RuntimeException(e);
         }
-        return port;
+    }
+
+    /**
+     * Removes a stale lock file.
+     */
+    public void delete() {
+        FileUtils.deleteWithErrMesg(lockFile, "stale single instance lock");
+    }
 
+    @Override
+    public String toString() {
+        return lockFile.getPath();
     }
 
     /**
@@ -171,14 +241,34 @@ class SingleInstanceLock {
     /**
      * Parse the lock file.
      *
-     * @throws NumberFormatException
-     * @throws IOException
+     * @return false if it cannot be read
      */
-    private void parseFile() throws NumberFormatException, IOException {
-        BufferedReader lockFileReader = new BufferedReader(new FileReader(lockFile));
-        int port = Integer.valueOf(lockFileReader.readLine());
-        lockFileReader.close();
-        this.port = port;
+    private boolean parse() {
+        port = INVALID_PORT;
+        socket = null;
+        owner = null;
+        long pid = ProcessIdentity.UNKNOWN;
+        long start = ProcessIdentity.UNKNOWN;
+        try (BufferedReader lockFileReader = new BufferedReader(new FileReader(lockFile))) {
+            port = Integer.parseInt(lockFileReader.readLine());
+            String line;
+            while ((line = lockFileReader.readLine()) != null) {
+                if (line.startsWith(SOCKET)) {
+                    socket = new File(line.substring(SOCKET.length()));
+                } else if (line.startsWith(PID)) {
+                    pid = Long.parseLong(line.substring(PID.length()));
+                } else if (line.startsWith(START)) {
+                    start = Long.parseLong(line.substring(START.length()));
+                }
+            }
+        } catch (NumberFormatException | IOException e) {
+            port = INVALID_PORT;
+            return false;
+        }
+        if (pid != ProcessIdentity.UNKNOWN) {
+            owner = new ProcessIdentity(pid, start);
+        }
+        return true;
     }
 
     /**
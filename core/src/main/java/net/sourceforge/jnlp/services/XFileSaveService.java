@@ -71,9 +71,7 @@ class XFileSaveService implements FileSaveService {
 
             if (chosen == JFileChooser.APPROVE_OPTION) {
                 writeToFile(stream, chooser.getSelectedFile());
-                return (FileContents) ServiceUtil.createPrivilegedProxy(
-                           FileContents.class,
-                           new XFileContents(chooser.getSelectedFile()));
+                return PrivilegedServices.wrap(new XFileContents(chooser.getSelectedFile()));
             } else {
                 return null;
             }
@@ -97,9 +95,7 @@ class XFileSaveService implements FileSaveService {
                 writeToFile(contents.getInputStream(),
                             chooser.getSelectedFile());
 
-                return (FileContents) ServiceUtil.createPrivilegedProxy(
-                           FileContents.class,
-                           new XFileContents(chooser.getSelectedFile()));
+                return PrivilegedServices.wrap(new XFileContents(chooser.getSelectedFile()));
             } else {
                 return null;
             }
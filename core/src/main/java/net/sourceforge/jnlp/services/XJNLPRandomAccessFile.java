@@ -37,17 +37,53 @@ exception statement from your version.
 package net.sourceforge.jnlp.services;
 
 import javax.jnlp.JNLPRandomAccessFile;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 
+/**
+ * Random access to a file of an application, e.g. a muffin of the persistence service.
+ * <p>
+ * Reads are served from a buffer, so reading primitives one by one (e.g. {@code readInt()} in a
+ * loop) does not read the file byte by byte as {@link RandomAccessFile} does. Writes go to the
+ * file at once, a primitive in a single write, and update the buffer, so the file and what is
+ * read from it are always the same.
+ * <p>
+ * The file may be limited to a maximum length, as a muffin is to the size granted to it. A write
+ * that would make the file longer fails.
+ */
 public class XJNLPRandomAccessFile implements JNLPRandomAccessFile {
 
-    private RandomAccessFile raf;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final RandomAccessFile raf;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    /** the position in the file of the first byte of the buffer */
+    private long bufferStart;
+
+    /** the number of bytes in the buffer */
+    private int bufferLength;
+
+    /** the position of the next read or write */
+    private long pointer;
+
+    private final byte[] scratch = new byte[8];
+
+    private final long maxLength;
 
     public XJNLPRandomAccessFile(File file, String mode) throws IOException {
-        raf = new RandomAccessFile(file, mode);
+        this(file, mode, Long.MAX_VALUE);
+    }
 
+    XJNLPRandomAccessFile(final File file, final String mode, final long maxLength) throws IOException {
+        this.raf = new RandomAccessFile(file, mode);
+        this.maxLength = maxLength;
     }
 
     public void close() throws IOException {
@@ -55,7 +91,7 @@ public class XJNLPRandomAccessFile implements JNLPRandomAccessFile {
     }
 
     public long getFilePointer() throws IOException {
-        return raf.getFilePointer();
+        return pointer;
     }
 
     public long length() throws IOException {
@@ -63,140 +99,268 @@ public class XJNLPRandomAccessFile implements JNLPRandomAccessFile {
     }
 
     public int read() throws IOException {
-        return raf.read();
+        if (!isBuffered(pointer) && !fill()) {
+            return -1;
+        }
+        return buffer[(int) (pointer++ - bufferStart)] & 0xff;
     }
 
     public int read(byte[] b, int off, int len) throws IOException {
-        return raf.read(b, off, len);
+        if (len == 0) {
+            return 0;
+        }
+        if (!isBuffered(pointer)) {
+            if (len >= BUFFER_SIZE) {
+                // larger than the buffer, no need to copy
+                raf.seek(pointer);
+                final int read = raf.read(b, off, len);
+                if (read > 0) {
+                    pointer += read;
+                }
+                return read;
+            }
+            if (!fill()) {
+                return -1;
+            }
+        }
+        final int offset = (int) (pointer - bufferStart);
+        final int count = Math.min(len, bufferLength - offset);
+        System.arraycopy(buffer, offset, b, off, count);
+        pointer += count;
+        return count;
     }
 
     public int read(byte[] b) throws IOException {
-        return raf.read(b);
+        return read(b, 0, b.length);
     }
 
     public boolean readBoolean() throws IOException {
-        return raf.readBoolean();
+        return readUnsignedByte() != 0;
     }
 
     public byte readByte() throws IOException {
-        return raf.readByte();
+        return (byte) readUnsignedByte();
     }
 
     public char readChar() throws IOException {
-        return raf.readChar();
+        return (char) readUnsignedShort();
     }
 
     public double readDouble() throws IOException {
-        return raf.readDouble();
+        return Double.longBitsToDouble(readLong());
     }
 
     public float readFloat() throws IOException {
-        return raf.readFloat();
+        return Float.intBitsToFloat(readInt());
     }
 
     public void readFully(byte[] b) throws IOException {
-        raf.readFully(b);
+        readFully(b, 0, b.length);
     }
 
     public void readFully(byte[] b, int off, int len) throws IOException {
-        raf.readFully(b, off, len);
+        int n = 0;
+        while (n < len) {
+            final int read = read(b, off + n, len - n);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            n += read;
+        }
     }
 
     public int readInt() throws IOException {
-        return raf.readInt();
+        readFully(scratch, 0, 4);
+        return ((scratch[0] & 0xff) << 24) | ((scratch[1] & 0xff) << 16) | ((scratch[2] & 0xff) << 8) | (scratch[3] & 0xff);
     }
 
     public String readLine() throws IOException {
-        return raf.readLine();
+        final StringBuilder input = new StringBuilder();
+        int c = -1;
+        boolean eol = false;
+        while (!eol) {
+            switch (c = read()) {
+                case -1:
+                case '\n':
+                    eol = true;
+                    break;
+                case '\r':
+                    eol = true;
+                    final long cur = pointer;
+                    if (read() != '\n') {
+                        pointer = cur;
+                    }
+                    break;
+                default:
+                    input.append((char) c);
+                    break;
+            }
+        }
+        if (c == -1 && input.length() == 0) {
+            return null;
+        }
+        return input.toString();
     }
 
     public long readLong() throws IOException {
-        return raf.readLong();
+        return ((long) readInt() << 32) | (readInt() & 0xffffffffL);
     }
 
     public short readShort() throws IOException {
-        return raf.readShort();
+        return (short) readUnsignedShort();
     }
 
     public String readUTF() throws IOException {
-        return raf.readUTF();
+        return DataInputStream.readUTF(this);
     }
 
     public int readUnsignedByte() throws IOException {
-        return raf.readUnsignedByte();
+        final int b = read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
     }
 
     public int readUnsignedShort() throws IOException {
-        return raf.readUnsignedShort();
+        readFully(scratch, 0, 2);
+        return ((scratch[0] & 0xff) << 8) | (scratch[1] & 0xff);
     }
 
     public void seek(long pos) throws IOException {
-        raf.seek(pos);
+        if (pos < 0) {
+            throw new IOException("Negative seek offset");
+        }
+        pointer = pos;
     }
 
     public void setLength(long newLength) throws IOException {
+        checkMaxLength(newLength);
         raf.setLength(newLength);
+        bufferLength = 0;
+        if (pointer > newLength) {
+            pointer = newLength;
+        }
     }
 
     public int skipBytes(int n) throws IOException {
-        return raf.skipBytes(n);
+        if (n <= 0) {
+            return 0;
+        }
+        final long newPointer = Math.min(pointer + n, length());
+        final int skipped = (int) Math.max(0, newPointer - pointer);
+        pointer += skipped;
+        return skipped;
     }
 
     public void write(int b) throws IOException {
-        raf.write(b);
-
+        scratch[0] = (byte) b;
+        write(scratch, 0, 1);
     }
 
     public void write(byte[] b) throws IOException {
-        raf.write(b);
+        write(b, 0, b.length);
     }
 
     public void write(byte[] b, int off, int len) throws IOException {
+        checkMaxLength(pointer + len);
+        raf.seek(pointer);
         raf.write(b, off, len);
+
+        // keep the buffered bytes the same as the file
+        final long from = Math.max(pointer, bufferStart);
+        final long to = Math.min(pointer + len, bufferStart + bufferLength);
+        if (from < to) {
+            System.arraycopy(b, (int) (off + from - pointer), buffer, (int) (from - bufferStart), (int) (to - from));
+        }
+        pointer += len;
     }
 
     public void writeBoolean(boolean v) throws IOException {
-        raf.writeBoolean(v);
+        write(v ? 1 : 0);
     }
 
     public void writeByte(int v) throws IOException {
-        raf.writeByte(v);
+        write(v);
     }
 
     public void writeBytes(String s) throws IOException {
-        raf.writeBytes(s);
+        final byte[] bytes = new byte[s.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) s.charAt(i);
+        }
+        write(bytes);
     }
 
     public void writeChar(int v) throws IOException {
-        raf.writeChar(v);
+        writeShort(v);
     }
 
     public void writeChars(String s) throws IOException {
-        raf.writeChars(s);
+        final byte[] bytes = new byte[s.length() * 2];
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            bytes[2 * i] = (byte) (c >>> 8);
+            bytes[2 * i + 1] = (byte) c;
+        }
+        write(bytes);
     }
 
     public void writeDouble(double v) throws IOException {
-        raf.writeDouble(v);
+        writeLong(Double.doubleToLongBits(v));
     }
 
     public void writeFloat(float v) throws IOException {
-        raf.writeFloat(v);
+        writeInt(Float.floatToIntBits(v));
     }
 
     public void writeInt(int v) throws IOException {
-        raf.writeInt(v);
+        scratch[0] = (byte) (v >>> 24);
+        scratch[1] = (byte) (v >>> 16);
+        scratch[2] = (byte) (v >>> 8);
+        scratch[3] = (byte) v;
+        write(scratch, 0, 4);
     }
 
     public void writeLong(long v) throws IOException {
-        raf.writeLong(v);
+        for (int i = 0; i < 8; i++) {
+            scratch[i] = (byte) (v >>> (56 - 8 * i));
+        }
+        write(scratch, 0, 8);
     }
 
     public void writeShort(int v) throws IOException {
-        raf.writeShort(v);
+        scratch[0] = (byte) (v >>> 8);
+        scratch[1] = (byte) v;
+        write(scratch, 0, 2);
     }
 
     public void writeUTF(String str) throws IOException {
-        raf.writeUTF(str);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(str.length() + 2);
+        new DataOutputStream(bytes).writeUTF(str);
+        write(bytes.toByteArray());
+    }
+
+    private void checkMaxLength(final long length) throws IOException {
+        if (length > maxLength) {
+            throw new IOException("The maximum length of " + maxLength + " bytes would be exceeded");
+        }
+    }
+
+    private boolean isBuffered(final long position) {
+        return position >= bufferStart && position < bufferStart + bufferLength;
     }
 
+    /**
+     * Reads the file from the current position into the buffer.
+     *
+     * @return false at the end of the file
+     */
+    private boolean fill() throws IOException {
+        raf.seek(pointer);
+        final int read = raf.read(buffer, 0, BUFFER_SIZE);
+        bufferStart = pointer;
+        bufferLength = Math.max(read, 0);
+        return read > 0;
+    }
 }
@@ -22,17 +22,13 @@ import net.sourceforge.jnlp.cache.CacheUtil;
 import net.sourceforge.jnlp.config.PathsAndFiles;
 import net.sourceforge.jnlp.runtime.ApplicationInstance;
 import net.sourceforge.jnlp.runtime.JNLPRuntime;
-import net.adoptopenjdk.icedteaweb.io.FileUtils;
 
 import javax.jnlp.FileContents;
 import javax.jnlp.PersistenceService;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * The BasicService JNLP service.
@@ -103,16 +99,7 @@ class XPersistenceService implements PersistenceService {
     public long create(URL location, long maxsize) throws IOException {
         checkLocation(location);
 
-        File file = toCacheFile(location);
-        FileUtils.createParentDir(file, "Persistence store for "
-                + location.toString());
-
-        if (file.exists())
-            throw new IOException("File already exists.");
-
-        FileUtils.createRestrictedFile(file);
-
-        return maxsize;
+        return MuffinStore.getInstance().create(toCacheFile(location), maxsize);
     }
 
     /**
@@ -121,7 +108,7 @@ class XPersistenceService implements PersistenceService {
     public void delete(URL location) throws IOException {
         checkLocation(location);
 
-        FileUtils.deleteWithErrMesg(toCacheFile(location), " tocache");
+        MuffinStore.getInstance().delete(toCacheFile(location));
     }
 
     /**
@@ -130,15 +117,7 @@ class XPersistenceService implements PersistenceService {
     public FileContents get(URL location) throws IOException {
         checkLocation(location);
 
-        File file = toCacheFile(location);
-        if (!file.exists()) {
-            throw new FileNotFoundException("Persistence store for "
-                    + location.toString() + " is not found.");
-        }
-        FileUtils.createParentDir(file, "Persistence store for "
-                + location.toString());
-
-        return (FileContents) ServiceUtil.createPrivilegedProxy(FileContents.class, new XFileContents(file));
+        return PrivilegedServices.wrap(MuffinStore.getInstance().get(toCacheFile(location)));
     }
 
     /**
@@ -147,23 +126,7 @@ class XPersistenceService implements PersistenceService {
     public String[] getNames(URL location) throws IOException {
         checkLocation(location);
 
-        File file = toCacheFile(location);
-        if (!file.isDirectory())
-            return new String[0];
-
-        List<String> result = new ArrayList<>();
-
-        // check whether this is right: only add files and not directories.
-        File[] entries = file.listFiles();
-        if (entries == null) {
-            return new String[0];
-        }
-
-        for (File entry : entries)
-            if (entry.isFile())
-                result.add(entry.getName());
-
-        return result.toArray(new String[0]);
+        return MuffinStore.getInstance().getNames(toCacheFile(location));
     }
 
     /**
@@ -172,12 +135,7 @@ class XPersistenceService implements PersistenceService {
     public int getTag(URL location) throws IOException {
         checkLocation(location);
 
-        // todo: actually implement tags
-
-        if (toCacheFile(location).exists())
-            return PersistenceService.CACHED;
-
-        return PersistenceService.CACHED;
+        return MuffinStore.getInstance().getTag(toCacheFile(location));
     }
 
     /**
@@ -186,7 +144,7 @@ class XPersistenceService implements PersistenceService {
     public void setTag(URL location, int tag) throws IOException {
         checkLocation(location);
 
-        // todo: actually implement tags
+        MuffinStore.getInstance().setTag(toCacheFile(location), tag);
     }
 
 }
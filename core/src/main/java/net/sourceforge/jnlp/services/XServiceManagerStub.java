@@ -16,16 +16,6 @@
 
 package net.sourceforge.jnlp.services;
 
-import javax.jnlp.BasicService;
-import javax.jnlp.ClipboardService;
-import javax.jnlp.DownloadService;
-import javax.jnlp.DownloadService2;
-import javax.jnlp.ExtendedService;
-import javax.jnlp.ExtensionInstallerService;
-import javax.jnlp.FileOpenService;
-import javax.jnlp.FileSaveService;
-import javax.jnlp.PersistenceService;
-import javax.jnlp.PrintService;
 import javax.jnlp.ServiceManagerStub;
 import javax.jnlp.UnavailableServiceException;
 
@@ -60,17 +50,17 @@ public class XServiceManagerStub implements ServiceManagerStub {
     };
 
     private static Object services[] = {
-            ServiceUtil.createPrivilegedProxy(BasicService.class, new XBasicService()),
-            ServiceUtil.createPrivilegedProxy(DownloadService.class, new XDownloadService()),
-            ServiceUtil.createPrivilegedProxy(DownloadService2.class, new XDownloadService2()),
-            ServiceUtil.createPrivilegedProxy(ExtendedService.class, new XExtendedService()),
-            ServiceUtil.createPrivilegedProxy(ExtensionInstallerService.class, new XExtensionInstallerService()),
-            ServiceUtil.createPrivilegedProxy(PersistenceService.class, new XPersistenceService()),
-            ServiceUtil.createPrivilegedProxy(FileOpenService.class, new XFileOpenService()),
-            ServiceUtil.createPrivilegedProxy(FileSaveService.class, new XFileSaveService()),
-            ServiceUtil.createPrivilegedProxy(ClipboardService.class, new XClipboardService()),
-            ServiceUtil.createPrivilegedProxy(PrintService.class, new XPrintService()),
-            ServiceUtil.createPrivilegedProxy(ExtendedSingleInstanceService.class, new XSingleInstanceService())
+            PrivilegedServices.wrap(new XBasicService()),
+            PrivilegedServices.wrap(new XDownloadService()),
+            PrivilegedServices.wrap(new XDownloadService2()),
+            PrivilegedServices.wrap(new XExtendedService()),
+            PrivilegedServices.wrap(new XExtensionInstallerService()),
+            PrivilegedServices.wrap(new XPersistenceService()),
+            PrivilegedServices.wrap(new XFileOpenService()),
+            PrivilegedServices.wrap(new XFileSaveService()),
+            PrivilegedServices.wrap(new XClipboardService()),
+            PrivilegedServices.wrap(new XPrintService()),
+            PrivilegedServices.wrap(new XSingleInstanceService())
     };
 
     public XServiceManagerStub() {
@@ -19,16 +19,22 @@ package net.sourceforge.jnlp.services;
 import net.adoptopenjdk.icedteaweb.IcedTeaWebConstants;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.os.UnixDomainSockets;
 import net.sourceforge.jnlp.JNLPFile;
 import net.sourceforge.jnlp.runtime.JNLPRuntime;
 
 import javax.jnlp.SingleInstanceListener;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.net.UnknownHostException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
@@ -48,7 +54,8 @@ public class XSingleInstanceService implements ExtendedSingleInstanceService {
 
     /**
      * Implements a server that listens for arguments from new instances of this
-     * application
+     * application, at a Unix domain socket if the JVM supports them, or else at
+     * a TCP port
      *
      */
     class SingleInstanceServer implements Runnable {
@@ -60,20 +67,38 @@ public class XSingleInstanceService implements ExtendedSingleInstanceService {
         }
 
         public void run() {
+            if (UnixDomainSockets.isSupported()) {
+                final File socket = lockFile.getSocketFile();
+                try (ServerSocketChannel listeningChannel = UnixDomainSockets.bind(socket)) {
+                    socket.deleteOnExit();
+                    lockFile.create(0, socket);
+
+                    LOG.debug("Starting SingleInstanceServer at {}", socket);
+
+                    while (listeningChannel.isOpen()) {
+                        try (SocketChannel communicationChannel = listeningChannel.accept()) {
+                            receiveArguments(Channels.newInputStream(communicationChannel));
+                        } catch (Exception exception) {
+                            // not much to do here...
+                            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, exception);
+                        }
+                    }
+                    return;
+                } catch (IOException e) {
+                    LOG.debug("Unable to listen at {}, using a port: {}", socket, e.getMessage());
+                }
+            }
+
             ServerSocket listeningSocket = null;
             try {
                 listeningSocket = new ServerSocket(0);
-                lockFile.createWithPort(listeningSocket.getLocalPort());
+                lockFile.create(listeningSocket.getLocalPort(), null);
 
                 LOG.debug("Starting SingleInstanceServer on port {}", listeningSocket);
 
                 while (true) {
-                    try {
-                        Socket communicationSocket = listeningSocket.accept();
-                        ObjectInputStream ois = new ObjectInputStream(communicationSocket
-                                .getInputStream());
-                        String[] arguments = (String[]) ois.readObject();
-                        notifySingleInstanceListeners(arguments);
+                    try (Socket communicationSocket = listeningSocket.accept()) {
+                        receiveArguments(communicationSocket.getInputStream());
                     } catch (Exception exception) {
                         // not much to do here...
                         LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, exception);
@@ -93,6 +118,12 @@ public class XSingleInstanceService implements ExtendedSingleInstanceService {
                 }
             }
         }
+
+        private void receiveArguments(InputStream in) throws IOException, ClassNotFoundException {
+            ObjectInputStream ois = new ObjectInputStream(in);
+            String[] arguments = (String[]) ois.readObject();
+            notifySingleInstanceListeners(arguments);
+        }
     }
 
     /**
@@ -135,8 +166,7 @@ public class XSingleInstanceService implements ExtendedSingleInstanceService {
     public void checkSingleInstanceRunning(JNLPFile jnlpFile) {
         SingleInstanceLock lockFile = new SingleInstanceLock(jnlpFile);
         if (lockFile.isValid()) {
-            int port = lockFile.getPort();
-            LOG.debug("Lock file is valid (port={}). Exiting.", port);
+            LOG.debug("Lock file {} is valid. Exiting.", lockFile);
 
             String[] args = null;
             if (jnlpFile.isApplet()) {
@@ -157,12 +187,19 @@ public class XSingleInstanceService implements ExtendedSingleInstanceService {
                 args = jnlpFile.getApplication().getArguments();
             }
 
+            final long start = System.nanoTime();
             try {
-                sendProgramArgumentsToExistingApplication(port, args);
-                throw new InstanceExistsException(String.valueOf(port));
+                sendProgramArgumentsToExistingApplication(lockFile, args);
             } catch (IOException e) {
-                throw new RuntimeException(e);
+                // the process of the lock runs, but is not the instance, e.g. got its PID later
+                LOG.info("The instance of lock file {} does not answer, starting a new one: {}", lockFile, e.getMessage());
+                if (lockFile.getSocket() == null || UnixDomainSockets.isSupported()) {
+                    lockFile.delete();
+                }
+                return;
             }
+            LOG.debug("Handed over the arguments in {} us", (System.nanoTime() - start) / 1000);
+            throw new InstanceExistsException(lockFile.toString());
         }
     }
 
@@ -187,26 +224,30 @@ public class XSingleInstanceService implements ExtendedSingleInstanceService {
     /**
      * Send the arguments for this application to the main instance
      *
-     * @param port the port at which the SingleInstanceServer is listening at
+     * @param lockFile the lock of the main instance, with the socket or port it is listening at
      * @param arguments the new arguments
      * @throws IOException on any io exception
      */
-    private void sendProgramArgumentsToExistingApplication(int port, String[] arguments)
+    static void sendProgramArgumentsToExistingApplication(SingleInstanceLock lockFile, String[] arguments)
             throws IOException {
-        try {
-            Socket serverCommunicationSocket = new Socket((String) null, port);
-            ObjectOutputStream argumentStream = new ObjectOutputStream(serverCommunicationSocket
-                    .getOutputStream());
-            argumentStream.writeObject(arguments);
-            argumentStream.close();
-            serverCommunicationSocket.close();
-
-        } catch (UnknownHostException unknownHost) {
-            LOG.error("Unable to find localhost");
-            throw new RuntimeException(unknownHost);
+        final File socket = lockFile.getSocket();
+        if (socket != null) {
+            try (SocketChannel serverCommunicationChannel = UnixDomainSockets.connect(socket)) {
+                writeArguments(Channels.newOutputStream(serverCommunicationChannel), arguments);
+            }
+        } else {
+            try (Socket serverCommunicationSocket = new Socket((String) null, lockFile.getPort())) {
+                writeArguments(serverCommunicationSocket.getOutputStream(), arguments);
+            }
         }
     }
 
+    private static void writeArguments(OutputStream out, String[] arguments) throws IOException {
+        ObjectOutputStream argumentStream = new ObjectOutputStream(out);
+        argumentStream.writeObject(arguments);
+        argumentStream.flush();
+    }
+
     /**
      * Notify any SingleInstanceListener with new arguments
      *
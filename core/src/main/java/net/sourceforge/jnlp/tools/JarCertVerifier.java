@@ -29,23 +29,21 @@ import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
 import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
 import net.adoptopenjdk.icedteaweb.resources.ResourceTracker;
+import net.adoptopenjdk.icedteaweb.tracing.LaunchTracer;
+import net.adoptopenjdk.icedteaweb.tracing.TraceSpan;
 import net.sourceforge.jnlp.JNLPFile;
 import net.sourceforge.jnlp.LaunchException;
 import net.sourceforge.jnlp.runtime.classloader.SecurityDelegate;
 import net.sourceforge.jnlp.security.AppVerifier;
 import net.sourceforge.jnlp.security.CertVerifier;
-import net.sourceforge.jnlp.security.CertificateUtils;
-import net.sourceforge.jnlp.security.KeyStores;
-import net.sourceforge.jnlp.util.JarFile;
+import net.sourceforge.jnlp.security.TrustedCertificates;
+import net.sourceforge.jnlp.security.TrustedCertificates.Group;
 import sun.security.util.DerInputStream;
 import sun.security.util.DerValue;
 import sun.security.x509.NetscapeCertTypeExtension;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.security.CodeSigner;
-import java.security.KeyStore;
 import java.security.cert.CertPath;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
@@ -54,7 +52,6 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -245,7 +242,11 @@ public class JarCertVerifier implements CertVerifier {
                 continue;
             }
 
-            final VerifyResult result = verifyJar(jarPath);
+            final VerifyResult result;
+            try (final TraceSpan span = LaunchTracer.begin(LaunchTracer.VERIFY, jar.getLocation())) {
+                result = verifyJar(jarPath);
+                span.arg("result", result);
+            }
             if (result == VerifyResult.UNSIGNED) {
                 unverifiedJars.add(jarPath);
             } else if (result == VerifyResult.SIGNED_NOT_OK) {
@@ -255,8 +256,10 @@ public class JarCertVerifier implements CertVerifier {
             }
         }
 
-        for (CertPath certPath : certs.keySet()) {
-            checkTrustedCerts(certPath);
+        try (final TraceSpan ignored = LaunchTracer.begin(LaunchTracer.VERIFY, "check trusted certificates")) {
+            for (CertPath certPath : certs.keySet()) {
+                checkTrustedCerts(certPath);
+            }
         }
     }
 
@@ -267,24 +270,8 @@ public class JarCertVerifier implements CertVerifier {
      * @return The return of {@link JarCertVerifier#verifyJarEntryCerts} using the entries found in the jar located at jarName.
      */
     private VerifyResult verifyJar(final String jarPath) {
-        try (final JarFile jarFile = new JarFile(jarPath, true)) {
-            final List<JarEntry> entries = new ArrayList<>();
-            final byte[] buffer = new byte[8192];
-
-            final Enumeration<JarEntry> entriesEnum = jarFile.entries();
-            while (entriesEnum.hasMoreElements()) {
-                final JarEntry entry = entriesEnum.nextElement();
-                entries.add(entry);
-
-                try (InputStream is = jarFile.getInputStream(entry)) {
-                    //noinspection StatementWithEmptyBody
-                    while (is.read(buffer, 0, buffer.length) != -1) {
-                        // we just read. this will throw a SecurityException
-                        // if a signature/digest check fails.
-                    }
-                }
-            }
-            return verifyJarEntryCerts(jarPath, jarFile.getManifest() != null, entries);
+        try {
+            return verifySigners(jarPath, JarSigners.of(jarPath));
         } catch (Exception e) {
             LOG.error("Error in verify jar " + jarPath, e);
             throw new RuntimeException("Error in verify jar " + jarPath, e);
@@ -301,32 +288,22 @@ public class JarCertVerifier implements CertVerifier {
      * @throws RuntimeException Will be thrown if there are issues with entries.
      */
     VerifyResult verifyJarEntryCerts(final String jarPath, final boolean jarHasManifest, final List<JarEntry> entries) {
-        // Contains number of entries the cert with this CertPath has signed.
-        final Map<CertPath, Integer> jarSignCount = new HashMap<>();
-        int numSignableEntriesInJar = 0;
+        return verifySigners(jarPath, JarSigners.count(jarHasManifest, entries));
+    }
+
+    /**
+     * Stores the signers of a jar, and checks them.
+     *
+     * @param jarPath The absolute path to the jar file.
+     * @param signers The signers of the entries of the jar.
+     * @return see {@link #verifyJarEntryCerts}
+     */
+    private VerifyResult verifySigners(final String jarPath, final JarSigners signers) {
+        final Map<CertPath, Integer> jarSignCount = signers.getSignedEntries();
+        final int numSignableEntriesInJar = signers.getSignableEntries();
 
         // Record current time just before checking the jar begins.
         final ZonedDateTime now = ZonedDateTime.now();
-        if (jarHasManifest) {
-            for (JarEntry je : entries) {
-                final boolean shouldHaveSignature = !je.isDirectory() && !isMetaInfFile(je.getName());
-                if (shouldHaveSignature) {
-                    numSignableEntriesInJar++;
-                    final CodeSigner[] signers = je.getCodeSigners();
-                    if (signers != null) {
-                        for (final CodeSigner signer : signers) {
-                            final CertPath certPath = signer.getSignerCertPath();
-                            jarSignCount.putIfAbsent(certPath, 0);
-                            jarSignCount.computeIfPresent(certPath, (cp, count) -> count + 1);
-                        }
-                    }
-                }
-            }
-        } else {
-            // set to 1 so that unsigned jars with no manifests can't sneak in
-            numSignableEntriesInJar = 1;
-        }
-
         jarSignableEntries.put(jarPath, numSignableEntriesInJar);
 
         // Find all signers that have signed every signable entry in this jar.
@@ -398,16 +375,14 @@ public class JarCertVerifier implements CertVerifier {
         final CertInformation info = certs.get(certPath);
         try {
             final X509Certificate publisher = (X509Certificate) getPublisher(certPath);
-            final List<KeyStore> certKeyStores = KeyStores.getCertKeyStores();
-            if (CertificateUtils.inKeyStores(publisher, certKeyStores)) {
+            if (TrustedCertificates.contains(Group.CERTS, publisher)) {
                 info.setAlreadyTrustPublisher();
             }
-            final List<KeyStore> caKeyStores = KeyStores.getCAKeyStores();
             // Check entire cert path for a trusted CA
             for (final Certificate c : certPath.getCertificates()) {
                 if (c instanceof X509Certificate) {
                     final X509Certificate x509 = (X509Certificate) c;
-                    if (CertificateUtils.inKeyStores(x509, caKeyStores)) {
+                    if (TrustedCertificates.contains(Group.CA_CERTS, x509)) {
                         info.setRootInCacerts();
                         return;
                     }
@@ -0,0 +1,219 @@
+package net.sourceforge.jnlp.tools;
+
+import net.adoptopenjdk.icedteaweb.logging.Logger;
+import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
+import net.adoptopenjdk.icedteaweb.resources.cache.Cache;
+import net.sourceforge.jnlp.util.JarFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSigner;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertPath;
+import java.security.cert.CertificateFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+
+/**
+ * The signers of a jar: the number of entries of the jar which have to be signed, and the number
+ * of them each signer signed. Finding them means reading and checking every entry of the jar, so
+ * for a cached jar they are kept next to the cache entry, keyed by the SHA-256 hash of the jar,
+ * and only read again when the jar changes. Whether the signers are trusted is checked each time.
+ */
+final class JarSigners {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JarSigners.class);
+
+    private static final String FORMAT = "jar-signers-1";
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String CERT_PATH_ENCODING = "PkiPath";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final int signableEntries;
+    private final Map<CertPath, Integer> signedEntries;
+
+    private JarSigners(final int signableEntries, final Map<CertPath, Integer> signedEntries) {
+        this.signableEntries = signableEntries;
+        this.signedEntries = Collections.unmodifiableMap(signedEntries);
+    }
+
+    /**
+     * @return the number of entries which have to be signed
+     */
+    int getSignableEntries() {
+        return signableEntries;
+    }
+
+    /**
+     * @return the number of signable entries signed by each signer
+     */
+    Map<CertPath, Integer> getSignedEntries() {
+        return signedEntries;
+    }
+
+    /**
+     * @param jarPath the absolute path of the jar
+     * @return the signers of the jar
+     * @throws Exception if the jar can not be read or an entry does not match its signature
+     */
+    static JarSigners of(final String jarPath) throws Exception {
+        final File jar = new File(jarPath);
+        final File storedFile = Cache.getParsedFile(jar);
+        if (storedFile == null) {
+            return read(jarPath);
+        }
+
+        final byte[] hash = hash(jar);
+        final JarSigners stored = load(storedFile, hash);
+        if (stored != null) {
+            LOG.debug("Using stored signers of {}", jarPath);
+            return stored;
+        }
+        final JarSigners signers = read(jarPath);
+        store(storedFile, hash, signers);
+        return signers;
+    }
+
+    /**
+     * Counts the signers of the entries of a jar.
+     *
+     * @param jarHasManifest whether the jar has a manifest
+     * @param entries        all entries of the jar, read completely
+     * @return the signers
+     */
+    static JarSigners count(final boolean jarHasManifest, final List<JarEntry> entries) {
+        if (!jarHasManifest) {
+            // set to 1 so that unsigned jars with no manifests can't sneak in
+            return new JarSigners(1, new HashMap<>());
+        }
+        final Map<CertPath, Integer> signedEntries = new HashMap<>();
+        int signableEntries = 0;
+        for (JarEntry je : entries) {
+            final boolean shouldHaveSignature = !je.isDirectory() && !JarCertVerifier.isMetaInfFile(je.getName());
+            if (shouldHaveSignature) {
+                signableEntries++;
+                final CodeSigner[] signers = je.getCodeSigners();
+                if (signers != null) {
+                    for (final CodeSigner signer : signers) {
+                        signedEntries.merge(signer.getSignerCertPath(), 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        return new JarSigners(signableEntries, signedEntries);
+    }
+
+    private static JarSigners read(final String jarPath) throws IOException {
+        try (final JarFile jarFile = new JarFile(jarPath, true)) {
+            final List<JarEntry> entries = new ArrayList<>();
+            final byte[] buffer = new byte[8192];
+
+            final Enumeration<JarEntry> entriesEnum = jarFile.entries();
+            while (entriesEnum.hasMoreElements()) {
+                final JarEntry entry = entriesEnum.nextElement();
+                entries.add(entry);
+
+                try (InputStream is = jarFile.getInputStream(entry)) {
+                    //noinspection StatementWithEmptyBody
+                    while (is.read(buffer, 0, buffer.length) != -1) {
+                        // we just read. this will throw a SecurityException
+                        // if a signature/digest check fails.
+                    }
+                }
+            }
+            return count(jarFile.getManifest() != null, entries);
+        }
+    }
+
+    private static JarSigners load(final File storedFile, final byte[] hash) {
+        if (!storedFile.isFile()) {
+            return null;
+        }
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(storedFile)))) {
+            final int hashLength = in.readInt();
+            if (hashLength != hash.length) {
+                return null;
+            }
+            final byte[] storedHash = new byte[hashLength];
+            in.readFully(storedHash);
+            if (!Arrays.equals(hash, storedHash) || !FORMAT.equals(in.readUTF())) {
+                return null;
+            }
+            final CertificateFactory factory = CertificateFactory.getInstance("X.509");
+            final int signableEntries = in.readInt();
+            final int signers = in.readInt();
+            final Map<CertPath, Integer> signedEntries = new HashMap<>();
+            for (int i = 0; i < signers; i++) {
+                final byte[] encoded = new byte[in.readInt()];
+                in.readFully(encoded);
+                signedEntries.put(factory.generateCertPath(new ByteArrayInputStream(encoded), CERT_PATH_ENCODING), in.readInt());
+            }
+            return new JarSigners(signableEntries, signedEntries);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            LOG.debug("Ignoring unreadable signers file {}: {}", storedFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void store(final File storedFile, final byte[] hash, final JarSigners signers) {
+        File tempFile = null;
+        try {
+            // other processes may write the same entry, so each one uses its own temporary file
+            tempFile = File.createTempFile(storedFile.getName(), TEMP_SUFFIX, storedFile.getParentFile());
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(hash.length);
+                out.write(hash);
+                out.writeUTF(FORMAT);
+                out.writeInt(signers.signableEntries);
+                out.writeInt(signers.signedEntries.size());
+                for (Map.Entry<CertPath, Integer> entry : signers.signedEntries.entrySet()) {
+                    final byte[] encoded = entry.getKey().getEncoded(CERT_PATH_ENCODING);
+                    out.writeInt(encoded.length);
+                    out.write(encoded);
+                    out.writeInt(entry.getValue());
+                }
+            }
+            Files.move(tempFile.toPath(), storedFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | GeneralSecurityException e) {
+            LOG.debug("Unable to store signers file {}: {}", storedFile, e.getMessage());
+            if (tempFile != null && !tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    private static byte[] hash(final File file) throws IOException {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            try (final InputStream in = new FileInputStream(file)) {
+                final byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            // every java implementation has to support SHA-256
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -17,14 +17,22 @@ package net.sourceforge.jnlp.util;
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 public class ClasspathMatcher {
 
     public static class ClasspathMatchers {
 
+        // Compiled matchers by attribute value, the same manifest attributes are checked for every jar
+        private static final int MAX_CACHED = 256;
+        private static final Map<String, ClasspathMatchers> cache = new ConcurrentHashMap<>();
+        private static final Map<String, ClasspathMatchers> cacheWithPath = new ConcurrentHashMap<>();
+
         private final ArrayList<ClasspathMatcher> matchers;
         private final boolean includePath;
+        private final ClasspathMatcherIndex index;
 
         ArrayList<ClasspathMatcher> getMatchers() {
             return matchers;
@@ -44,6 +52,20 @@ public class ClasspathMatcher {
             if (s == null) {
                 return new ClasspathMatchers(new ArrayList<ClasspathMatcher>(0), includePath);
             }
+            final Map<String, ClasspathMatchers> compiledMatchers = includePath ? cacheWithPath : cache;
+            final ClasspathMatchers cached = compiledMatchers.get(s);
+            if (cached != null) {
+                return cached;
+            }
+            final ClasspathMatchers compiled = compileUncached(s, includePath);
+            if (compiledMatchers.size() >= MAX_CACHED) {
+                compiledMatchers.clear();
+            }
+            compiledMatchers.put(s, compiled);
+            return compiled;
+        }
+
+        private static ClasspathMatchers compileUncached(String s, boolean includePath) {
             String[] splitted = s.trim().split("\\s+");
             ArrayList<ClasspathMatcher> matchers = new ArrayList<>(splitted.length);
             for (String string : splitted) {
@@ -56,9 +78,21 @@ public class ClasspathMatcher {
         public ClasspathMatchers(ArrayList<ClasspathMatcher> matchers, boolean includePath) {
             this.matchers = matchers;
             this.includePath = includePath;
+            this.index = new ClasspathMatcherIndex(matchers);
         }
 
         public boolean matches(URL s) {
+            return index.matches(s, includePath);
+        }
+
+        /**
+         * Evaluates the regular expressions of all matchers one after another. Gives the same result as
+         * {@link #matches(URL)}, which is faster.
+         *
+         * @param s url to check
+         * @return true if any of the matchers matches
+         */
+        public boolean matchesSequentially(URL s) {
             for (ClasspathMatcher classpathMatcher : matchers) {
                 if (classpathMatcher.match(s, includePath)) {
                     return true;
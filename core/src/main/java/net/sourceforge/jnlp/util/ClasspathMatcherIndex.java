@@ -0,0 +1,166 @@
+package net.sourceforge.jnlp.util;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static net.sourceforge.jnlp.util.ClasspathMatcher.PATH_DELIMITER;
+
+/**
+ * Compiled form of a list of {@link ClasspathMatcher}s which answers the same question as evaluating the
+ * regular expressions of each matcher one after another.
+ * <p>
+ * Literal hosts are found through a hash map and {@code *.example.com} style hosts through a map of
+ * domain suffixes, which is probed once per dot of the host. Only the remaining wildcard hosts are
+ * tested one by one. Protocol, port and path are plain string comparisons.
+ */
+class ClasspathMatcherIndex {
+
+    private static final char DOMAIN_DELIMITER = '.';
+    private static final String WILDCARD_DOMAIN_PREFIX = "*.";
+
+    private final Entry[] entries;
+    private final Map<String, int[]> exactHosts = new HashMap<>();
+    private final Map<String, int[]> hostSuffixes = new HashMap<>();
+    private final List<Integer> otherHostEntries = new ArrayList<>();
+    private final List<Wildcard> otherHosts = new ArrayList<>();
+
+    ClasspathMatcherIndex(final List<ClasspathMatcher> matchers) {
+        entries = new Entry[matchers.size()];
+        for (int i = 0; i < entries.length; i++) {
+            final ClasspathMatcher.Parts parts = matchers.get(i).getParts();
+            entries[i] = new Entry(parts);
+            final String domain = parts.domain;
+            if (domain.startsWith(WILDCARD_DOMAIN_PREFIX)) {
+                // *.example.com also matches example.com
+                addHost(i, Wildcard.compile(domain.substring(WILDCARD_DOMAIN_PREFIX.length())));
+            }
+            addHost(i, Wildcard.compile(domain));
+        }
+    }
+
+    private void addHost(final int entry, final Wildcard host) {
+        if (host.kind == Kind.EXACT) {
+            add(exactHosts, host.literal, entry);
+        } else if (host.kind == Kind.SUFFIX && host.literal.indexOf(DOMAIN_DELIMITER) == 0) {
+            add(hostSuffixes, host.literal, entry);
+        } else {
+            otherHostEntries.add(entry);
+            otherHosts.add(host);
+        }
+    }
+
+    private static void add(final Map<String, int[]> map, final String key, final int entry) {
+        final int[] previous = map.get(key);
+        final int[] entries = previous == null ? new int[1] : Arrays.copyOf(previous, previous.length + 1);
+        entries[entries.length - 1] = entry;
+        map.put(key, entries);
+    }
+
+    boolean matches(final URL url, final boolean includePath) {
+        final String host = url.getHost();
+        final String protocol = url.getProtocol();
+        final String port = Integer.toString(url.getPort()); //negative if not set
+        final String path = url.getPath();
+
+        if (matchesAny(exactHosts.get(host), protocol, port, path, includePath)) {
+            return true;
+        }
+        for (int dot = host.indexOf(DOMAIN_DELIMITER); dot >= 0; dot = host.indexOf(DOMAIN_DELIMITER, dot + 1)) {
+            if (matchesAny(hostSuffixes.get(host.substring(dot)), protocol, port, path, includePath)) {
+                return true;
+            }
+        }
+        for (int i = 0; i < otherHosts.size(); i++) {
+            if (otherHosts.get(i).matches(host) && entries[otherHostEntries.get(i)].matches(protocol, port, path, includePath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesAny(final int[] candidates, final String protocol, final String port, final String path, final boolean includePath) {
+        if (candidates != null) {
+            for (final int candidate : candidates) {
+                if (entries[candidate].matches(protocol, port, path, includePath)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static class Entry {
+        private final Wildcard protocol;
+        private final Wildcard port;
+        private final Wildcard path;
+
+        private Entry(final ClasspathMatcher.Parts parts) {
+            protocol = Wildcard.compile(parts.protocol);
+            port = Wildcard.compile(parts.port);
+            path = Wildcard.compile(parts.path);
+        }
+
+        private boolean matches(final String protocol, final String port, final String path, final boolean includePath) {
+            if (!this.port.matches(port) || !this.protocol.matches(protocol)) {
+                return false;
+            }
+            return !includePath || matchPath(UrlUtils.sanitizeLastSlash(path)) || matchPath(path);
+        }
+
+        private boolean matchPath(final String path) {
+            return this.path.matches(path.startsWith(PATH_DELIMITER) ? path.substring(1) : path);
+        }
+    }
+
+    private enum Kind {
+        ANY, EXACT, PREFIX, SUFFIX, CONTAINS
+    }
+
+    /**
+     * A pattern as understood by {@link ClasspathMatcher#sourceToRegExString(String)}, with a {@code *}
+     * at the start and/or the end only.
+     */
+    static class Wildcard {
+        private final Kind kind;
+        private final String literal;
+
+        private Wildcard(final Kind kind, final String literal) {
+            this.kind = kind;
+            this.literal = literal;
+        }
+
+        static Wildcard compile(final String source) {
+            if (source.equals("*")) {
+                return new Wildcard(Kind.ANY, "");
+            }
+            if (source.startsWith("*") && source.endsWith("*")) {
+                return new Wildcard(Kind.CONTAINS, source.substring(1, source.length() - 1));
+            } else if (source.endsWith("*")) {
+                return new Wildcard(Kind.PREFIX, source.substring(0, source.length() - 1));
+            } else if (source.startsWith("*")) {
+                return new Wildcard(Kind.SUFFIX, source.substring(1));
+            } else {
+                return new Wildcard(Kind.EXACT, source);
+            }
+        }
+
+        boolean matches(final String input) {
+            switch (kind) {
+                case ANY:
+                    return true;
+                case EXACT:
+                    return input.equals(literal);
+                case PREFIX:
+                    return input.startsWith(literal);
+                case SUFFIX:
+                    return input.endsWith(literal);
+                default:
+                    return input.contains(literal);
+            }
+        }
+    }
+}
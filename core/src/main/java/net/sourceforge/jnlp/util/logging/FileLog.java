@@ -41,12 +41,15 @@ import net.adoptopenjdk.icedteaweb.logging.Logger;
 import net.adoptopenjdk.icedteaweb.logging.LoggerFactory;
 import net.adoptopenjdk.icedteaweb.os.OsUtil;
 import net.sourceforge.jnlp.util.docprovider.TextsProvider;
+import net.sourceforge.jnlp.util.logging.filelogs.JsonLinesFileLog;
 import net.sourceforge.jnlp.util.logging.filelogs.LogBasedFileLog;
 import net.sourceforge.jnlp.util.logging.filelogs.WriterBasedFileLog;
 import net.sourceforge.jnlp.util.logging.headers.Header;
 
+import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is utility and factory around file logs.
@@ -100,7 +103,16 @@ public final class FileLog  {
     private static SingleStreamLogger createFileLog(String id) {
         SingleStreamLogger s;
         try {
-            if (LogConfig.getLogConfig().isLegacyLogBasedFileLog()) {
+            final LogConfig config = LogConfig.getLogConfig();
+            if (config.isJsonLinesFileLog()) {
+                final String logId = "itw-" + id;
+                final String baseName = logId + "-" + getStamp();
+                LOG.debug("Attempting to log into: {}{}{}", config.getIcedteaLogDir(), baseName, JsonLinesFileLog.SUFFIX);
+                s = new JsonLinesFileLog(new File(config.getIcedteaLogDir()), logId, baseName,
+                        config.getLogFileMaxSizeKb() * 1024,
+                        TimeUnit.MINUTES.toMillis(config.getLogFileRotationMinutes()),
+                        config.getLogFileRetention());
+            } else if (config.isLegacyLogBasedFileLog()) {
                 s = new LogBasedFileLog(defaultloggerName, getFileName(id), false);
             } else {
                 s = new WriterBasedFileLog(getFileName(id), false);
@@ -59,6 +59,10 @@ public class LogConfig {
     private boolean logToStreams;
     private boolean logToSysLog;
     private final boolean legacyLogaAsedFileLog;
+    private final boolean jsonLinesFileLog;
+    private final long logFileMaxSizeKb;
+    private final long logFileRotationMinutes;
+    private final int logFileRetention;
 
     private LogConfig() {
         DeploymentConfiguration config = JNLPRuntime.getConfiguration();
@@ -72,6 +76,11 @@ public class LogConfig {
         logToSysLog = Boolean.parseBoolean(config.getProperty(ConfigurationConstants.KEY_ENABLE_LOGGING_TOSYSTEMLOG));
         legacyLogaAsedFileLog = Boolean.parseBoolean(config.getProperty(ConfigurationConstants.KEY_ENABLE_LEGACY_LOGBASEDFILELOG));
         logClientAppToFile = Boolean.parseBoolean(config.getProperty(ConfigurationConstants.KEY_ENABLE_APPLICATION_LOGGING_TOFILE));
+        //structured file log
+        jsonLinesFileLog = ConfigurationConstants.LOG_FILE_FORMAT_JSON_LINES.equals(config.getProperty(ConfigurationConstants.KEY_LOG_FILE_FORMAT));
+        logFileMaxSizeKb = parseNumber(config.getProperty(ConfigurationConstants.KEY_LOG_FILE_MAX_SIZE), 10 * 1024);
+        logFileRotationMinutes = parseNumber(config.getProperty(ConfigurationConstants.KEY_LOG_FILE_ROTATION_INTERVAL), 24 * 60);
+        logFileRetention = (int) parseNumber(config.getProperty(ConfigurationConstants.KEY_LOG_FILE_RETENTION), 50);
 
         // Get log directory, create it if it doesn't exist. If unable to create and doesn't exist, don't log.
         icedteaLogDir = PathsAndFiles.LOG_DIR.getFullPath();
@@ -87,6 +96,14 @@ public class LogConfig {
         }
     }
 
+    private static long parseNumber(final String value, final long defaultValue) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NullPointerException | NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
     private static class LogConfigHolder {
 
         //https://en.wikipedia.org/wiki/Double-checked_locking#Usage_in_Java
@@ -153,6 +170,22 @@ public class LogConfig {
         return legacyLogaAsedFileLog;
     }
 
+    boolean isJsonLinesFileLog() {
+        return jsonLinesFileLog;
+    }
+
+    long getLogFileMaxSizeKb() {
+        return logFileMaxSizeKb;
+    }
+
+    long getLogFileRotationMinutes() {
+        return logFileRotationMinutes;
+    }
+
+    int getLogFileRetention() {
+        return logFileRetention;
+    }
+
     boolean isLogToFileForClientApp() {
         return logClientAppToFile;
     }
@@ -126,7 +126,7 @@ public class OutputController extends BasicOutputController {
     private void consumeClientAppMessage(MessageWithHeader message) {
         final LogConfig logConfig = LogConfig.getLogConfig();
         if (logConfig.isLogToFile() && logConfig.isLogToFileForClientApp()) {
-            getAppFileLog().log(convertToPrintableString(message, logConfig));
+            getAppFileLog().log(message, convertToPrintableString(message, logConfig));
         }
     }
 
@@ -151,7 +151,7 @@ public class OutputController extends BasicOutputController {
         }
 
         if (logConfig.isLogToFile()) {
-            getFileLog().log(messageString);
+            getFileLog().log(message, messageString);
         }
 
         //only crucial stuff is going to system log
@@ -36,10 +36,23 @@
 
 package net.sourceforge.jnlp.util.logging;
 
+import net.sourceforge.jnlp.util.logging.headers.MessageWithHeader;
+
 public interface SingleStreamLogger extends AutoCloseable {
 
     void log(String s);
 
+    /**
+     * Logs a message. Loggers writing structured records take the fields from the message and its
+     * header, the others write the formatted text.
+     *
+     * @param message   the message with the header of the event
+     * @param formatted the message formatted as text, with the header as configured
+     */
+    default void log(MessageWithHeader message, String formatted) {
+        log(formatted);
+    }
+
     @Override
     void close() throws Exception;
 
@@ -0,0 +1,278 @@
+package net.sourceforge.jnlp.util.logging.filelogs;
+
+import net.adoptopenjdk.icedteaweb.io.FileUtils;
+import net.sourceforge.jnlp.util.logging.FileLog;
+import net.sourceforge.jnlp.util.logging.OutputControllerLevel;
+import net.sourceforge.jnlp.util.logging.SingleStreamLogger;
+import net.sourceforge.jnlp.util.logging.headers.Header;
+import net.sourceforge.jnlp.util.logging.headers.JavaMessage;
+import net.sourceforge.jnlp.util.logging.headers.MessageWithHeader;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class writes log information to file as JSON lines (one JSON object per line).
+ * <p>
+ * Every record holds the time, level, thread, origin and caller of the event as separate keys, taken
+ * from the header of the message, next to the message itself and its stack trace, if any.
+ * <p>
+ * The active segment is rotated once it exceeds a maximum size or age. Rotated segments
+ * are gzipped by a background daemon thread and only the newest {@code retainedSegments}
+ * compressed segments of the same log id are kept in the log directory.
+ */
+public final class JsonLinesFileLog implements SingleStreamLogger {
+
+    public static final String SUFFIX = ".jsonl";
+    public static final String COMPRESSED_SUFFIX = SUFFIX + ".gz";
+    private static final String PART = "-part";
+    private static final String SEPARATOR = "-";
+    private static final int NEW_LINE_BYTES = System.lineSeparator().getBytes(StandardCharsets.UTF_8).length;
+
+    private final File directory;
+    private final String prefix;
+    private final String baseName;
+    private final long maxSegmentBytes;
+    private final long maxSegmentAgeMillis;
+    private final int retainedSegments;
+
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(r -> {
+        final Thread t = new Thread(r, "itw-log-compressor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private File activeFile;
+    private BufferedWriter bw;
+    private long segmentBytes;
+    private long segmentStart;
+    private int segmentCounter;
+
+    /**
+     * @param directory           directory the segments are written to
+     * @param logId               id shared by all logs of the same kind (e.g. {@code itw-javantx}), used for retention
+     * @param baseName            unique name of this log, must start with {@code logId} followed by {@code -}
+     * @param maxSegmentBytes     size after which the active segment is rotated, {@code <= 0} for unlimited
+     * @param maxSegmentAgeMillis age after which the active segment is rotated, {@code <= 0} for unlimited
+     * @param retainedSegments    number of compressed segments of {@code logId} to keep, {@code < 0} for unlimited
+     */
+    public JsonLinesFileLog(final File directory, final String logId, final String baseName,
+                            final long maxSegmentBytes, final long maxSegmentAgeMillis, final int retainedSegments) {
+        if (!baseName.startsWith(logId + SEPARATOR)) {
+            throw new IllegalArgumentException("Base name " + baseName + " must start with log id " + logId + SEPARATOR);
+        }
+        this.directory = directory;
+        // files of logs whose id merely starts with this id are not ours
+        this.prefix = logId + SEPARATOR;
+        this.baseName = baseName;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxSegmentAgeMillis = maxSegmentAgeMillis;
+        this.retainedSegments = retainedSegments;
+        try {
+            openSegment();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        // leftovers of previous runs which were rotated but never compressed
+        compressor.submit(this::compressLeftovers);
+        log(new JavaMessage(FileLog.getHeadlineHeader(), "json-lines impl."), null);
+    }
+
+    /**
+     * Log the String to file as a single JSON object, as a message of the calling thread.
+     *
+     * @param s message to be logged.
+     */
+    @Override
+    public void log(final String s) {
+        log(new JavaMessage(new Header(OutputControllerLevel.MESSAGE_ALL), s), s);
+    }
+
+    /**
+     * Log the message to file as a single JSON object, with the fields of its header.
+     *
+     * @param message   message to be logged.
+     * @param formatted ignored, the fields are written separately
+     */
+    @Override
+    public synchronized void log(final MessageWithHeader message, final String formatted) {
+        try {
+            final long now = System.currentTimeMillis();
+            if (needsRotation(now)) {
+                rotate();
+            }
+            final String line = toJson(message);
+            bw.write(line);
+            bw.newLine();
+            bw.flush();
+            segmentBytes += line.getBytes(StandardCharsets.UTF_8).length + NEW_LINE_BYTES;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            try {
+                bw.flush();
+            } finally {
+                bw.close();
+            }
+        }
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    File getActiveFile() {
+        return activeFile;
+    }
+
+    synchronized long getSegmentBytes() {
+        return segmentBytes;
+    }
+
+    private boolean needsRotation(final long now) {
+        if (maxSegmentBytes > 0 && segmentBytes >= maxSegmentBytes) {
+            return true;
+        }
+        return maxSegmentAgeMillis > 0 && now - segmentStart >= maxSegmentAgeMillis;
+    }
+
+    private void rotate() throws IOException {
+        bw.close();
+        final File rotated = new File(directory, baseName + PART + segmentCounter + SUFFIX);
+        segmentCounter++;
+        if (!activeFile.renameTo(rotated)) {
+            throw new IOException("Unable to rotate " + activeFile + " to " + rotated);
+        }
+        compressor.submit(() -> compressAndPrune(rotated));
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        activeFile = new File(directory, baseName + SUFFIX);
+        if (!activeFile.exists()) {
+            FileUtils.createRestrictedFile(activeFile);
+        }
+        segmentBytes = activeFile.length();
+        segmentStart = System.currentTimeMillis();
+        bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(activeFile, true), StandardCharsets.UTF_8));
+    }
+
+    private void compressLeftovers() {
+        // do not touch segments another running instance has just rotated
+        final long threshold = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1);
+        final File[] leftovers = directory.listFiles((dir, name) -> name.startsWith(prefix) && name.contains(PART) && name.endsWith(SUFFIX)
+                && new File(dir, name).lastModified() < threshold);
+        if (leftovers != null) {
+            for (File leftover : leftovers) {
+                compressAndPrune(leftover);
+            }
+        }
+    }
+
+    private void compressAndPrune(final File segment) {
+        final File target = new File(segment.getPath() + ".gz");
+        try (InputStream in = new FileInputStream(segment);
+             OutputStream out = new GZIPOutputStream(new FileOutputStream(target))) {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            // keep the uncompressed segment, next run will try again
+            target.delete();
+            return;
+        }
+        segment.delete();
+        prune();
+    }
+
+    private void prune() {
+        if (retainedSegments < 0) {
+            return;
+        }
+        final File[] archived = directory.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(COMPRESSED_SUFFIX));
+        if (archived == null || archived.length <= retainedSegments) {
+            return;
+        }
+        Arrays.sort(archived, Comparator.comparingLong(File::lastModified).thenComparing(File::getName));
+        for (int i = 0; i < archived.length - retainedSegments; i++) {
+            archived[i].delete();
+        }
+    }
+
+    static String toJson(final MessageWithHeader message) {
+        final Header header = message.getHeader();
+        final String text = String.valueOf(message.getMessage());
+        final StringBuilder sb = new StringBuilder(text.length() + 128);
+        sb.append("{\"timestamp\":").append(header.timestamp.getTime());
+        appendField(sb, "level", header.level == null ? null : header.level.name());
+        appendField(sb, "thread", header.thread2);
+        appendField(sb, "origin", header.getOrigin());
+        appendField(sb, "caller", header.caller);
+        appendField(sb, "message", text.endsWith("\n") ? text.substring(0, text.length() - 1) : text);
+        if (message.hasStackTrace()) {
+            appendField(sb, "stackTrace", message.getStackTrace());
+        }
+        return sb.append('}').toString();
+    }
+
+    private static void appendField(final StringBuilder sb, final String key, final String value) {
+        if (value == null) {
+            return;
+        }
+        sb.append(",\"").append(key).append("\":");
+        appendJsonString(sb, value);
+    }
+
+    private static void appendJsonString(final StringBuilder sb, final String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -38,7 +38,9 @@ package net.adoptopenjdk.icedteaweb.client.parts.dialogs.security.appletextended
 import net.adoptopenjdk.icedteaweb.testing.ServerAccess;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import net.adoptopenjdk.icedteaweb.client.parts.dialogs.security.appletextendedsecurity.UnsignedAppletActionEntry;
 import net.adoptopenjdk.icedteaweb.client.parts.dialogs.security.remember.ExecuteAppletAction;
 import net.adoptopenjdk.icedteaweb.client.parts.dialogs.security.remember.RememberableDialog;
@@ -253,6 +255,60 @@ checkValues(r1,
      }
      
 
+    @Test
+    public void literalAndWildcardEntriesKeepOrder() throws IOException {
+        File f = File.createTempFile("itwMatching", "testFileOrder");
+        try {
+            FileUtils.saveFileUtf8(versionLine
+                    + "c1:A{YES}; 1 \\Qhttp://a/\\E.* \\Qhttp://b/\\E jar1\n"
+                    + "c1:N{NO}; 2 \\Qhttp://a/x.html\\E \\Qhttp://b/\\E jar1\n"
+                    + "c1:n{NO}; 3 \\Qhttp://a/y.html\\E \\Qhttp://b/\\E jar1\n"
+                    + "c1:y{YES}; 4 .* .*\n", f);
+            UnsignedAppletActionStorageImpl i1 = new UnsignedAppletActionStorageImpl(f);
+            Assert.assertEquals(Arrays.asList("1", "2", "4"), timeStamps(i1.getMatchingItems("http://a/x.html", "http://b/", null)));
+            Assert.assertEquals(Arrays.asList("4"), timeStamps(i1.getMatchingItems("http://a/x.html", "http://c/", null)));
+            Assert.assertEquals(Arrays.asList("1", "2", "3", "4"), timeStamps(i1.getMatchingItems(null, "http://b/", null)));
+            Assert.assertEquals(Arrays.asList("4"), timeStamps(i1.getMatchingItems("http://c/", null, null)));
+        } finally {
+            f.delete();
+        }
+    }
+
+    @Test
+    public void changedFileIsReadAgain() throws IOException {
+        File f = File.createTempFile("itwMatching", "testFileChange");
+        try {
+            FileUtils.saveFileUtf8(versionLine + "c1:A{YES}; 1 \\Qhttp://a/\\E \\Qhttp://b/\\E\n", f);
+            UnsignedAppletActionStorageImpl i1 = new UnsignedAppletActionStorageImpl(f);
+            Assert.assertNotNull(i1.getMatchingItemByDocumentBase("http://a/", c1.class));
+            Assert.assertNull(i1.getMatchingItemByDocumentBase("http://c/", c1.class));
+
+            FileUtils.saveFileUtf8(versionLine + "c1:A{YES}; 1 \\Qhttp://c/\\E \\Qhttp://b/\\E\n", f);
+            f.setLastModified(f.lastModified() + 10_000);
+            Assert.assertNull(i1.getMatchingItemByDocumentBase("http://a/", c1.class));
+            Assert.assertNotNull(i1.getMatchingItemByDocumentBase("http://c/", c1.class));
+        } finally {
+            f.delete();
+        }
+    }
+
+    @Test
+    public void literalsAreDetected() {
+        Assert.assertEquals("http://a/", UnsignedAppletActionIndex.getLiteral("\\Qhttp://a/\\E"));
+        Assert.assertEquals("bla", UnsignedAppletActionIndex.getLiteral("bla"));
+        Assert.assertNull(UnsignedAppletActionIndex.getLiteral("\\Qhttp://a/\\E.*"));
+        Assert.assertNull(UnsignedAppletActionIndex.getLiteral("\\Qa\\E\\\\E\\Qb\\E"));
+        Assert.assertNull(UnsignedAppletActionIndex.getLiteral(".*"));
+    }
+
+    private static List<String> timeStamps(List<UnsignedAppletActionEntry> entries) {
+        List<String> result = new ArrayList<>();
+        for (UnsignedAppletActionEntry entry : entries) {
+            result.add(String.valueOf(entry.getTimeStamp().getTime()));
+        }
+        return result;
+    }
+
     private void checkValues(UnsignedAppletActionEntry item, Result... results) {
         for (Result result : results) {
             if (result.nul) {
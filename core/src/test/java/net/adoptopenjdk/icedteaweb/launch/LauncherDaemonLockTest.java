@@ -0,0 +1,58 @@
+package net.adoptopenjdk.icedteaweb.launch;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class LauncherDaemonLockTest {
+
+    @After
+    public void tearDown() {
+        LauncherDaemonLock.getFile().delete();
+    }
+
+    @Test
+    public void lockOfThisProcessIsRead() throws Exception {
+        final String token = LauncherDaemonLock.newToken();
+        new LauncherDaemonLock(LauncherDaemonLock.getSocketFile(), -1, token).write();
+
+        final LauncherDaemonLock lock = LauncherDaemonLock.read();
+
+        assertNotNull(lock);
+        assertEquals(LauncherDaemonLock.getSocketFile(), lock.getSocket());
+        assertEquals(token, lock.getToken());
+        assertEquals(32, token.length());
+    }
+
+    @Test
+    public void lockOfAnExitedProcessIsIgnored() throws Exception {
+        // creates the locks directory
+        new LauncherDaemonLock(null, 1234, "token").write();
+        final String content = "port=1234\ntoken=token\npid=" + Integer.MAX_VALUE + "\nstart=-1\n";
+        Files.write(LauncherDaemonLock.getFile().toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+        assertNull(LauncherDaemonLock.read());
+    }
+
+    @Test
+    public void argumentsAreHandedOver() throws Exception {
+        final List<String> args = Arrays.asList("-nosecurity", "/tmp/ä p.jnlp", "");
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        LauncherDaemon.writeArguments(new DataOutputStream(out), args);
+
+        assertEquals(args, LauncherDaemon.readArguments(new DataInputStream(new ByteArrayInputStream(out.toByteArray()))));
+    }
+}
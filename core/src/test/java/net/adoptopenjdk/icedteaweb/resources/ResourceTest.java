@@ -43,6 +43,9 @@ import org.junit.Test;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -92,4 +95,23 @@ public class ResourceTest {
         final URL dummyUrl = new URL("http://example.com/applet.jar");
         return Resource.createResource(dummyUrl, VersionString.fromString("1.0"), DownloadOptions.NONE, UpdatePolicy.ALWAYS);
     }
+
+    @Test
+    public void testProgressListenersAreToldAboutTransferredBytes() throws Exception {
+        final Resource res = Resource.createResource(new URL("http://example.com/progress.jar"), null, null, UpdatePolicy.ALWAYS);
+        res.setSize(100);
+        final List<Long> progress = new ArrayList<>();
+        final ResourceProgressListener listener = (transferred, size) -> {
+            assertEquals(100, size);
+            progress.add(transferred);
+        };
+
+        res.addProgressListener(listener);
+        res.setTransferred(40);
+        res.setTransferred(100);
+        res.removeProgressListener(listener);
+        res.setTransferred(0);
+
+        assertEquals(Arrays.asList(40L, 100L), progress);
+    }
 }
@@ -0,0 +1,276 @@
+package net.adoptopenjdk.icedteaweb.resources.cache;
+
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionId;
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.config.InfrastructureFileDescriptor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class LeastRecentlyUsedCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File cacheDir;
+    private LeastRecentlyUsedCache cache;
+
+    @Before
+    public void setup() throws Exception {
+        cacheDir = temporaryFolder.newFolder();
+        final File recentlyUsedFile = new File(cacheDir, ConfigurationConstants.CACHE_INDEX_FILE_NAME);
+        cache = new LeastRecentlyUsedCache(new DummyInfrastructureFileDescriptor(recentlyUsedFile), new DummyInfrastructureFileDescriptor(cacheDir));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedUntilTheCacheFits() throws Exception {
+        final File first = add("first.jar", 100);
+        final File second = add("second.jar", 100);
+        final File third = add("third.jar", 100);
+        // second is used again, so first is the least recently used one
+        assertTrue(cache.isUpToDate(new URL("http://example.com/second.jar"), null, 1));
+
+        assertFalse(cache.evictEntries(200, 10));
+
+        assertFalse(first.exists());
+        assertTrue(second.exists());
+        assertTrue(third.exists());
+        assertFalse(cache.getResourceInfo(new URL("http://example.com/first.jar"), null).isPresent());
+    }
+
+    @Test
+    public void evictionStopsAtTheLimit() throws Exception {
+        add("first.jar", 100);
+        add("second.jar", 100);
+        add("third.jar", 100);
+
+        assertTrue(cache.evictEntries(0, 2));
+        assertFalse(cache.evictEntries(0, 2));
+        assertTrue(cache.getCacheIds(".*", false, true).isEmpty());
+    }
+
+    @Test
+    public void replacedEntriesAreEvicted() throws Exception {
+        final File old = add("app.jar", 10);
+        cache.replaceExistingCacheFile(new URL("http://example.com/app.jar"), null);
+
+        cache.evictEntries(-1, 10);
+
+        assertFalse(old.getParentFile().exists());
+    }
+
+    @Test
+    public void directoriesUnknownToTheIndexAreRemoved() throws Exception {
+        final File cached = add("app.jar", 10);
+        final File orphan = new File(cacheDir, "0/99");
+        assertTrue(orphan.mkdirs());
+        assertTrue(new File(orphan, "leftover.jar").createNewFile());
+        final File emptyLevelOneDir = new File(cacheDir, "42");
+        assertTrue(emptyLevelOneDir.mkdirs());
+
+        assertTrue(cache.collectGarbage(1, TimeUnit.MINUTES));
+
+        assertTrue(cached.isFile());
+        assertFalse(orphan.exists());
+        assertFalse(emptyLevelOneDir.exists());
+    }
+
+    @Test
+    public void identicalContentIsStoredOnce() throws Exception {
+        assumeTrue(new CacheBlobStore(new DummyInfrastructureFileDescriptor(cacheDir)).isEnabled());
+        final File first = add("first.jar", 100);
+        final File second = add("second.jar", 100);
+        final File third = add("third.jar", 100);
+        add("other.jar", 50);
+
+        assertEquals(Files.getAttribute(first.toPath(), "unix:ino"), Files.getAttribute(second.toPath(), "unix:ino"));
+        assertEquals(Files.getAttribute(first.toPath(), "unix:ino"), Files.getAttribute(third.toPath(), "unix:ino"));
+        assertEquals(200, cache.getDeduplicationSavings());
+    }
+
+    @Test
+    public void unusedBlobsAreRemoved() throws Exception {
+        assumeTrue(new CacheBlobStore(new DummyInfrastructureFileDescriptor(cacheDir)).isEnabled());
+        add("first.jar", 100);
+        add("second.jar", 100);
+        final File blobs = new File(cacheDir, CacheBlobStore.BLOB_DIR_NAME);
+        assertTrue(blobs.list().length > 0);
+
+        cache.evictEntries(0, 10);
+        assertTrue(cache.collectGarbage(1, TimeUnit.MINUTES));
+
+        assertEquals(0, blobs.list().length);
+    }
+
+    @Test
+    public void interruptedDownloadsLeaveNoPartialFile() throws Exception {
+        final DownloadInfo info = new DownloadInfo(new URL("http://example.com/app.jar"), null, 1);
+        final InputStream failing = new SequenceInputStream(new ByteArrayInputStream(new byte[10]), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        });
+
+        try {
+            cache.addToCache(info, failing);
+            fail("the download should have failed");
+        } catch (IOException expected) {
+            // expected
+        }
+
+        assertFalse(cache.getResourceInfo(info.getResourceHref(), null).get().getCacheFile().exists());
+        assertFalse(cache.isUpToDate(info.getResourceHref(), null, 1));
+        assertEquals(0, new File(cacheDir, LeastRecentlyUsedCache.TEMP_DIR_NAME).list().length);
+    }
+
+    @Test
+    public void downloadedFileIsMovedIntoTheCache() throws Exception {
+        final DownloadInfo info = new DownloadInfo(new URL("http://example.com/app.jar"), null, 1);
+        final File downloaded = temporaryFolder.newFile("app.jar.part");
+        Files.write(downloaded.toPath(), new byte[]{1, 2, 3});
+
+        final File cacheFile = cache.addToCache(info, downloaded);
+
+        assertFalse(downloaded.exists());
+        assertEquals(3, Files.readAllBytes(cacheFile.toPath()).length);
+        assertTrue(cache.isUpToDate(info.getResourceHref(), null, 1));
+    }
+
+    @Test
+    public void oldTemporaryFilesAreRemoved() throws Exception {
+        final File tempDir = new File(cacheDir, LeastRecentlyUsedCache.TEMP_DIR_NAME);
+        assertTrue(tempDir.mkdirs());
+        final File old = new File(tempDir, "download-1.tmp");
+        assertTrue(old.createNewFile());
+        assertTrue(old.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+        final File recent = new File(tempDir, "download-2.tmp");
+        assertTrue(recent.createNewFile());
+
+        cache.removeInterruptedDownloads();
+
+        assertFalse(old.exists());
+        assertTrue(recent.exists());
+    }
+
+    @Test
+    public void directoriesAreNumberedAfterTheHighestEntry() throws Exception {
+        assertEquals(new File(cacheDir, "0/0"), add("first.jar", 1).getParentFile());
+        assertTrue(new File(cacheDir, "0/1").mkdirs());
+        assertEquals(new File(cacheDir, "0/2"), add("second.jar", 1).getParentFile());
+
+        final File recentlyUsedFile = new File(cacheDir, ConfigurationConstants.CACHE_INDEX_FILE_NAME);
+        cache = new LeastRecentlyUsedCache(new DummyInfrastructureFileDescriptor(recentlyUsedFile), new DummyInfrastructureFileDescriptor(cacheDir));
+        assertEquals(new File(cacheDir, "0/3"), add("third.jar", 1).getParentFile());
+    }
+
+    @Test
+    public void resourcesOfTheSystemCacheAreUsed() throws Exception {
+        final File systemCacheDir = temporaryFolder.newFolder();
+        final LeastRecentlyUsedCache systemCache = createCache(systemCacheDir, null);
+        final URL app = new URL("http://example.com/app.jar");
+        final File shared = systemCache.addToCache(new DownloadInfo(app, null, 1), new ByteArrayInputStream(new byte[10]));
+
+        cache = createCache(cacheDir, systemCacheDir);
+
+        assertTrue(cache.isCached(app, null));
+        assertTrue(cache.isUpToDate(app, null, 1));
+        assertFalse(cache.isUpToDate(app, null, 2));
+        assertEquals(shared, cache.getOrCreateCacheFile(app, null));
+        assertTrue(cache.getCacheIds(".*", false, true).isEmpty());
+    }
+
+    @Test
+    public void newerOwnResourcesAreUsedInsteadOfTheSystemCache() throws Exception {
+        final File systemCacheDir = temporaryFolder.newFolder();
+        final URL app = new URL("http://example.com/app.jar");
+        createCache(systemCacheDir, null).addToCache(new DownloadInfo(app, null, 1), new ByteArrayInputStream(new byte[10]));
+        cache = createCache(cacheDir, systemCacheDir);
+
+        final File own = cache.addToCache(new DownloadInfo(app, null, 2), new ByteArrayInputStream(new byte[20]));
+
+        assertEquals(own, cache.getOrCreateCacheFile(app, null));
+        assertTrue(cache.isUpToDate(app, null, 2));
+    }
+
+    @Test
+    public void ownResourcesOfTheSameAgeAreUsedInsteadOfTheSystemCache() throws Exception {
+        final File systemCacheDir = temporaryFolder.newFolder();
+        final URL app = new URL("http://example.com/app.jar");
+        createCache(systemCacheDir, null).addToCache(new DownloadInfo(app, null, 1), new ByteArrayInputStream(new byte[10]));
+        cache = createCache(cacheDir, systemCacheDir);
+
+        final File own = cache.addToCache(new DownloadInfo(app, null, 1), new ByteArrayInputStream(new byte[20]));
+
+        assertEquals(own, cache.getOrCreateCacheFile(app, null));
+    }
+
+    @Test
+    public void theSystemCacheIsNotCollectedWhileItIsFilled() throws Exception {
+        cache = createCache(cacheDir, cacheDir);
+        final File old = add("app.jar", 10);
+        cache.replaceExistingCacheFile(new URL("http://example.com/app.jar"), null);
+
+        assertTrue(cache.collectGarbage(Long.MAX_VALUE, TimeUnit.NANOSECONDS));
+
+        assertTrue(old.exists());
+    }
+
+    @Test
+    public void versionsOfBothCachesAreFound() throws Exception {
+        final File systemCacheDir = temporaryFolder.newFolder();
+        final URL app = new URL("http://example.com/app.jar");
+        createCache(systemCacheDir, null).addToCache(new DownloadInfo(app, VersionId.fromString("1.0"), 1), new ByteArrayInputStream(new byte[10]));
+        cache = createCache(cacheDir, systemCacheDir);
+        cache.addToCache(new DownloadInfo(app, VersionId.fromString("2.0"), 1), new ByteArrayInputStream(new byte[10]));
+
+        assertEquals(2, cache.getAllEntriesInCache(app).size());
+        assertEquals(VersionId.fromString("1.0"), cache.getBestMatchingEntryInCache(app, VersionString.fromString("1.0")).get().getVersion());
+    }
+
+    private static LeastRecentlyUsedCache createCache(final File dir, final File systemCacheDir) {
+        final File recentlyUsedFile = new File(dir, ConfigurationConstants.CACHE_INDEX_FILE_NAME);
+        return new LeastRecentlyUsedCache(new DummyInfrastructureFileDescriptor(recentlyUsedFile), new DummyInfrastructureFileDescriptor(dir), systemCacheDir);
+    }
+
+    private File add(final String name, final int size) throws Exception {
+        final DownloadInfo info = new DownloadInfo(new URL("http://example.com/" + name), null, 1);
+        return cache.addToCache(info, new ByteArrayInputStream(new byte[size]));
+    }
+
+    private static class DummyInfrastructureFileDescriptor extends InfrastructureFileDescriptor {
+        private final File backend;
+
+        private DummyInfrastructureFileDescriptor(File backend) {
+            super();
+            this.backend = backend;
+        }
+
+        @Override
+        public File getFile() {
+            return backend;
+        }
+
+        @Override
+        public String getFullPath() {
+            return backend.getAbsolutePath();
+        }
+    }
+}
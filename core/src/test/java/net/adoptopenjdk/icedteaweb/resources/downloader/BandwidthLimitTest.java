@@ -0,0 +1,60 @@
+package net.adoptopenjdk.icedteaweb.resources.downloader;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BandwidthLimitTest {
+
+    @Test
+    public void streamsAreNotWrappedWithoutLimit() {
+        BandwidthLimit.set(0);
+        final InputStream in = new ByteArrayInputStream(new byte[10]);
+
+        assertSame(in, BandwidthLimit.apply(in));
+    }
+
+    @Test
+    public void readingIsSlowedDownToTheLimit() throws Exception {
+        final BandwidthLimit limit = new BandwidthLimit(100 * 1024);
+        final InputStream in = limit.limit(new ByteArrayInputStream(new byte[30 * 1024]));
+
+        final long start = System.nanoTime();
+        final int read = readAll(in);
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(30 * 1024, read);
+        // the last read does not wait for its own bytes
+        assertTrue("took only " + millis + "ms", millis >= 200);
+    }
+
+    @Test
+    public void streamsShareTheLimit() throws Exception {
+        final BandwidthLimit limit = new BandwidthLimit(100 * 1024);
+        final InputStream first = limit.limit(new ByteArrayInputStream(new byte[10 * 1024]));
+        final InputStream second = limit.limit(new ByteArrayInputStream(new byte[10 * 1024]));
+
+        final long start = System.nanoTime();
+        readAll(first);
+        readAll(second);
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("took only " + millis + "ms", millis >= 100);
+    }
+
+    private static int readAll(final InputStream in) throws Exception {
+        final byte[] buffer = new byte[8192];
+        int total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,56 @@
+package net.adoptopenjdk.icedteaweb.resources.downloader;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CountingInputStreamTest {
+
+    @Test
+    public void countsAllBytesRead() throws Exception {
+        final CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(new byte[100]));
+
+        in.read();
+        in.read(new byte[10], 0, 10);
+        in.skip(9);
+        assertEquals(20, in.numBytesRead());
+
+        while (in.read(new byte[7]) != -1) {
+            // read all
+        }
+        assertEquals(100, in.numBytesRead());
+    }
+
+    @Test
+    public void publishesEveryReadWithoutInterval() throws Exception {
+        final List<Long> published = new ArrayList<>();
+        final InputStream in = new CountingInputStream(new ByteArrayInputStream(new byte[30]), published::add, 0, TimeUnit.MILLISECONDS);
+
+        final byte[] buffer = new byte[10];
+        while (in.read(buffer) != -1) {
+            // read all
+        }
+
+        assertEquals(3, published.size());
+        assertEquals(Long.valueOf(30), published.get(2));
+    }
+
+    @Test
+    public void coalescesPublishingPerInterval() throws Exception {
+        final List<Long> published = new ArrayList<>();
+        final InputStream in = new CountingInputStream(new ByteArrayInputStream(new byte[1000]), published::add, 1, TimeUnit.HOURS);
+
+        while (in.read() != -1) {
+            // read all
+        }
+
+        assertTrue(published.isEmpty());
+    }
+}
@@ -0,0 +1,169 @@
+package net.adoptopenjdk.icedteaweb.resources.downloader;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.adoptopenjdk.icedteaweb.http.CloseableConnection;
+import net.adoptopenjdk.icedteaweb.http.ConnectionFactory;
+import net.adoptopenjdk.icedteaweb.http.HttpMethod;
+import net.adoptopenjdk.icedteaweb.io.IOUtils;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class PartialDownloadTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private HttpServer server;
+    private URL url;
+    private String etag = "\"v1\"";
+    private String lastRange;
+    private String originalTmpDir;
+
+    @Before
+    public void startServer() throws IOException {
+        originalTmpDir = JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_USER_TMP_DIR);
+        JNLPRuntime.getConfiguration().setProperty(ConfigurationConstants.KEY_USER_TMP_DIR, temporaryFolder.getRoot().getAbsolutePath());
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/app.jar", this::handle);
+        server.start();
+        url = new URL("http://localhost:" + server.getAddress().getPort() + "/app.jar");
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+        JNLPRuntime.getConfiguration().setProperty(ConfigurationConstants.KEY_USER_TMP_DIR, originalTmpDir);
+    }
+
+    @Test
+    public void completedDownloadLeavesNothingBehind() throws Exception {
+        try (PartialDownload partialDownload = PartialDownload.forUrl(url);
+             CloseableConnection connection = open(partialDownload);
+             InputStream in = partialDownload.wrap(connection, connection.getInputStream())) {
+            Assert.assertArrayEquals(CONTENT, IOUtils.readContent(in));
+            partialDownload.completed();
+        }
+
+        final File[] files = new File(temporaryFolder.getRoot(), "partial").listFiles((dir, name) -> !name.endsWith(".lock"));
+        Assert.assertNotNull(files);
+        Assert.assertEquals(0, files.length);
+    }
+
+    @Test
+    public void firstInterruptedDownloadIsResumed() throws Exception {
+        try (PartialDownload partialDownload = PartialDownload.forUrl(url);
+             CloseableConnection connection = open(partialDownload);
+             InputStream in = partialDownload.wrap(connection, connection.getInputStream())) {
+            Assert.assertNull(lastRange);
+            Assert.assertEquals(10, in.read(new byte[10]));
+            // connection breaks down
+        }
+
+        try (PartialDownload partialDownload = PartialDownload.forUrl(url);
+             CloseableConnection connection = open(partialDownload);
+             InputStream in = partialDownload.wrap(connection, connection.getInputStream())) {
+            Assert.assertEquals("bytes=10-", lastRange);
+            Assert.assertArrayEquals(CONTENT, IOUtils.readContent(in));
+            Assert.assertEquals(10, partialDownload.getResumedBytes());
+            partialDownload.completed();
+        }
+
+        try (PartialDownload partialDownload = PartialDownload.forUrl(url)) {
+            Assert.assertTrue(partialDownload.getRequestHeaders().isEmpty());
+        }
+    }
+
+    @Test
+    public void changedResourceIsDownloadedCompletely() throws Exception {
+        try (PartialDownload partialDownload = PartialDownload.forUrl(url);
+             CloseableConnection connection = open(partialDownload);
+             InputStream in = partialDownload.wrap(connection, connection.getInputStream())) {
+            Assert.assertEquals(10, in.read(new byte[10]));
+        }
+
+        etag = "\"v2\"";
+        try (PartialDownload partialDownload = PartialDownload.forUrl(url);
+             CloseableConnection connection = open(partialDownload);
+             InputStream in = partialDownload.wrap(connection, connection.getInputStream())) {
+            Assert.assertEquals("bytes=10-", lastRange);
+            Assert.assertArrayEquals(CONTENT, IOUtils.readContent(in));
+            Assert.assertEquals(0, partialDownload.getResumedBytes());
+        }
+    }
+
+    @Test
+    public void concurrentDownloadDoesNotRecord() throws Exception {
+        try (PartialDownload first = PartialDownload.forUrl(url);
+             PartialDownload second = PartialDownload.forUrl(url);
+             CloseableConnection connection = open(second);
+             InputStream in = second.wrap(connection, connection.getInputStream())) {
+            Assert.assertEquals(10, in.read(new byte[10]));
+        }
+        try (PartialDownload partialDownload = PartialDownload.forUrl(url)) {
+            Assert.assertTrue(partialDownload.getRequestHeaders().isEmpty());
+        }
+    }
+
+    @Test
+    public void resumedDownloadIsHandedOverAsRecording() throws Exception {
+        try (PartialDownload partialDownload = PartialDownload.forUrl(url);
+             CloseableConnection connection = open(partialDownload);
+             InputStream in = partialDownload.wrap(connection, connection.getInputStream())) {
+            Assert.assertEquals(10, in.read(new byte[10]));
+        }
+
+        try (PartialDownload partialDownload = PartialDownload.forUrl(url);
+             CloseableConnection connection = open(partialDownload);
+             InputStream in = partialDownload.wrap(connection, connection.getInputStream())) {
+            Assert.assertEquals("bytes=10-", lastRange);
+            final File recording = partialDownload.readIntoRecording(in);
+            Assert.assertNotNull(recording);
+            Assert.assertArrayEquals(CONTENT, Files.readAllBytes(recording.toPath()));
+            Assert.assertEquals(-1, in.read());
+        }
+    }
+
+    private CloseableConnection open(final PartialDownload partialDownload) throws IOException {
+        lastRange = null;
+        return ConnectionFactory.openConnection(url, HttpMethod.GET, partialDownload.getRequestHeaders());
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        lastRange = exchange.getRequestHeaders().getFirst("Range");
+        final String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        int start = 0;
+        if (lastRange != null && etag.equals(ifRange)) {
+            start = Integer.parseInt(lastRange.substring("bytes=".length(), lastRange.length() - 1));
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + (CONTENT.length - 1) + "/" + CONTENT.length);
+            exchange.sendResponseHeaders(206, CONTENT.length - start);
+        } else {
+            exchange.sendResponseHeaders(200, CONTENT.length);
+        }
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(CONTENT, start, CONTENT.length - start);
+        } catch (IOException e) {
+            // client closed the connection
+        }
+    }
+}
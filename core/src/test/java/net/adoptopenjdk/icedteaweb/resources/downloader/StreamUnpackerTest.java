@@ -0,0 +1,55 @@
+package net.adoptopenjdk.icedteaweb.resources.downloader;
+
+import net.adoptopenjdk.icedteaweb.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+public class StreamUnpackerTest {
+
+    private static final byte[] CONTENT = "content of a jar file, content of a jar file".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void gzipAndItsAliasAreDecoded() throws Exception {
+        Assert.assertArrayEquals(CONTENT, unpack("gzip", gzip(CONTENT)));
+        Assert.assertArrayEquals(CONTENT, unpack("x-gzip", gzip(CONTENT)));
+        Assert.assertArrayEquals(CONTENT, unpack(" GZIP ", gzip(CONTENT)));
+    }
+
+    @Test
+    public void identityIsNotDecoded() throws Exception {
+        Assert.assertArrayEquals(CONTENT, unpack(null, CONTENT));
+        Assert.assertArrayEquals(CONTENT, unpack("identity", CONTENT));
+    }
+
+    @Test
+    public void gzipIsDecodedWhileReading() throws Exception {
+        final byte[] large = new byte[1024 * 1024];
+        final InputStream decoded = StreamUnpacker.getCompressionUnpacker(details("gzip", gzip(large))).unpack(new ByteArrayInputStream(gzip(large)));
+        Assert.assertFalse(decoded instanceof ByteArrayInputStream);
+        Assert.assertArrayEquals(large, IOUtils.readContent(decoded));
+    }
+
+    private static byte[] unpack(final String encoding, final byte[] body) throws Exception {
+        final DownloadDetails details = details(encoding, body);
+        return IOUtils.readContent(StreamUnpacker.getCompressionUnpacker(details).unpack(details.inputStream));
+    }
+
+    private static DownloadDetails details(final String encoding, final byte[] body) throws Exception {
+        return new DownloadDetails(new URL("http://localhost/app.jar"), new ByteArrayInputStream(body), "application/java-archive", encoding, null, 0);
+    }
+
+    private static byte[] gzip(final byte[] content) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+}
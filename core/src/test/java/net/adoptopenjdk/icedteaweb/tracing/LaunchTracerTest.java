@@ -0,0 +1,78 @@
+package net.adoptopenjdk.icedteaweb.tracing;
+
+import net.adoptopenjdk.icedteaweb.StreamUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.List;
+
+public class LaunchTracerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @After
+    public void resetTracer() {
+        LaunchTracer.reset();
+    }
+
+    @Test
+    public void disabledTracerReturnsNoopSpan() {
+        final TraceSpan span = LaunchTracer.begin(LaunchTracer.RESOURCE, "http://localhost/app.jar");
+        Assert.assertSame(TraceSpan.NOOP, span);
+        span.arg("bytes", 1).close();
+        LaunchTracer.instant(LaunchTracer.LAUNCH, "invoke main");
+        Assert.assertTrue(LaunchTracer.getEvents().isEmpty());
+    }
+
+    @Test
+    public void spansAreRecordedOnClose() throws Exception {
+        LaunchTracer.enable(temporaryFolder.newFile());
+        try (TraceSpan span = LaunchTracer.begin(LaunchTracer.RESOURCE, "http://localhost/app.jar")) {
+            span.arg("bytes", 42L);
+            Assert.assertTrue(LaunchTracer.getEvents().isEmpty());
+        }
+
+        final List<TraceEvent> events = LaunchTracer.getEvents();
+        Assert.assertEquals(1, events.size());
+        final TraceEvent event = events.get(0);
+        Assert.assertEquals(LaunchTracer.RESOURCE, event.getCategory());
+        Assert.assertEquals("http://localhost/app.jar", event.getName());
+        Assert.assertEquals(42L, event.getArgs().get("bytes"));
+        Assert.assertFalse(event.isInstant());
+        Assert.assertTrue(event.getDurationNanos() >= 0);
+    }
+
+    @Test
+    public void closingTwiceRecordsOnce() throws Exception {
+        LaunchTracer.enable(temporaryFolder.newFile());
+        final TraceSpan span = LaunchTracer.begin(LaunchTracer.PARSE, "app.jnlp");
+        span.close();
+        span.close();
+        Assert.assertEquals(1, LaunchTracer.getEvents().size());
+    }
+
+    @Test
+    public void dumpWritesChromeTrace() throws Exception {
+        final File traceFile = temporaryFolder.newFile();
+        LaunchTracer.enable(traceFile);
+        try (TraceSpan span = LaunchTracer.begin(LaunchTracer.VERIFY, "a \"quoted\" jar")) {
+            span.arg("result", "SIGNED_OK");
+        }
+        LaunchTracer.instant(LaunchTracer.LAUNCH, "invoke main");
+        LaunchTracer.dump();
+
+        final String trace = StreamUtils.readStreamAsString(new FileInputStream(traceFile), true);
+        Assert.assertTrue(trace.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["));
+        Assert.assertTrue(trace.contains("\"name\":\"a \\\"quoted\\\" jar\",\"cat\":\"verify\",\"ph\":\"X\""));
+        Assert.assertTrue(trace.contains("\"args\":{\"result\":\"SIGNED_OK\"}"));
+        Assert.assertTrue(trace.contains("\"name\":\"invoke main\",\"cat\":\"launch\",\"ph\":\"i\""));
+        Assert.assertTrue(trace.contains("\"ph\":\"M\""));
+        Assert.assertTrue(trace.trim().endsWith("]}"));
+    }
+}
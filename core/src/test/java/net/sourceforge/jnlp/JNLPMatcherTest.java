@@ -366,4 +366,44 @@ public class JNLPMatcherTest {
         JNLPMatcher matcher = new JNLPMatcher(reader1, reader2, false, new ParserSettings(true, true, MALFORMED_ALLOWED));
         Assert.assertTrue(matcher.isMatch());
     }
+
+    @Test (timeout=5000 /*ms*/)
+    public void testIsMatchOnManyReorderedChildren() throws JNLPMatcherException {
+        final int JARS = 2000;
+        final StringBuilder launch = new StringBuilder("<jnlp codebase=\"http://example.com/\"><resources>");
+        final StringBuilder reversed = new StringBuilder("<jnlp codebase=\"http://example.com/\"><resources>");
+        final StringBuilder changed = new StringBuilder("<jnlp codebase=\"http://example.com/\"><resources>");
+        final StringBuilder template = new StringBuilder("<jnlp codebase=\"*\"><resources>");
+        for (int i = 0; i < JARS; i++) {
+            launch.append("<jar href=\"lib/a").append(i).append(".jar\" version=\"1.").append(i).append("\"/>");
+            final int j = JARS - 1 - i;
+            reversed.append("<jar version=\"1.").append(j).append("\" href=\"lib/a").append(j).append(".jar\"/>");
+            changed.append("<jar href=\"lib/a").append(j).append(".jar\" version=\"").append(j == 7 ? "2.7" : "1." + j).append("\"/>");
+            template.append("<jar href=\"lib/a").append(j).append(".jar\" version=\"").append(j % 10 == 0 ? "*" : "1." + j).append("\"/>");
+        }
+        for (StringBuilder sb : new StringBuilder[]{launch, reversed, changed, template}) {
+            sb.append("</resources></jnlp>");
+        }
+
+        Assert.assertTrue(match(reversed, launch, false));
+        Assert.assertFalse(match(changed, launch, false));
+        Assert.assertTrue(match(template, launch, true));
+        Assert.assertFalse(match(template, launch, false));
+        Assert.assertFalse(match(changed, launch, true));
+    }
+
+    @Test
+    public void testTemplateWildcardDoesNotConsumeExactMatch() throws JNLPMatcherException {
+        // exact and wildcard children with the same shape
+        final String launch = "<jnlp><resources><jar href=\"a.jar\"/><jar href=\"b.jar\"/></resources></jnlp>";
+        final String template = "<jnlp><resources><jar href=\"b.jar\"/><jar href=\"*\"/></resources></jnlp>";
+        Assert.assertTrue(match(new StringBuilder(template), new StringBuilder(launch), true));
+        Assert.assertFalse(match(new StringBuilder(template), new StringBuilder(launch), false));
+    }
+
+    private boolean match(StringBuilder signed, StringBuilder launch, boolean isTemplate) throws JNLPMatcherException {
+        return new JNLPMatcher(new ByteArrayInputStream(signed.toString().getBytes(UTF_8)),
+                new ByteArrayInputStream(launch.toString().getBytes(UTF_8)), isTemplate,
+                new ParserSettings(true, true, MALFORMED_ALLOWED)).isMatch();
+    }
 }
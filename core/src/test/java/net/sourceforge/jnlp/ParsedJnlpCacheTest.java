@@ -0,0 +1,101 @@
+package net.sourceforge.jnlp;
+
+import net.adoptopenjdk.icedteaweb.xmlparser.Node;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+public class ParsedJnlpCacheTest {
+
+    private static final ParserSettings NORMAL = new ParserSettings(false, true, false);
+    private static final ParserSettings MALFORMED = new ParserSettings(false, true, true);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File entryDir;
+    private File jnlp;
+
+    @Before
+    public void createCacheEntry() throws Exception {
+        entryDir = temporaryFolder.newFolder("0", "1");
+        Assert.assertTrue(new File(entryDir, ".info").createNewFile());
+        jnlp = new File(entryDir, "basic.jnlp");
+        try (InputStream in = ParsedJnlpCacheTest.class.getResourceAsStream("basic.jnlp")) {
+            Files.copy(in, jnlp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Test
+    public void parsedTreeIsStoredAndReused() throws Exception {
+        final Node parsed = ParsedJnlpCache.getRootNode(jnlp, NORMAL);
+        final File parsedFile = new File(entryDir, ".parsed");
+        Assert.assertTrue(parsedFile.isFile());
+        final long stored = parsedFile.lastModified();
+
+        final Node cached = ParsedJnlpCache.getRootNode(jnlp, NORMAL);
+        Assert.assertEquals(dump(parsed), dump(cached));
+        Assert.assertEquals(stored, parsedFile.lastModified());
+    }
+
+    @Test
+    public void cachedTreeGivesSameJnlpFile() throws Exception {
+        ParsedJnlpCache.getRootNode(jnlp, MALFORMED);
+        final JNLPFile cached = new JNLPFile(ParsedJnlpCache.getRootNode(jnlp, MALFORMED), null, MALFORMED, null);
+        final JNLPFile parsed = new JNLPFile(Files.newInputStream(jnlp.toPath()), null, MALFORMED, null);
+
+        Assert.assertEquals(parsed.getTitle(), cached.getTitle());
+        Assert.assertEquals(parsed.getCodeBase(), cached.getCodeBase());
+        Assert.assertEquals(parsed.getResources().getJARs().length, cached.getResources().getJARs().length);
+        Assert.assertEquals(parsed.getResources().getPropertiesMap(), cached.getResources().getPropertiesMap());
+    }
+
+    @Test
+    public void changedContentOrParserIsParsedAgain() throws Exception {
+        ParsedJnlpCache.getRootNode(jnlp, NORMAL);
+
+        final String changed = new String(Files.readAllBytes(jnlp.toPath()), StandardCharsets.UTF_8)
+                .replace("<title>", "<title>Changed ");
+        Files.write(jnlp.toPath(), changed.getBytes(StandardCharsets.UTF_8));
+        final Node reparsed = ParsedJnlpCache.getRootNode(jnlp, NORMAL);
+        Assert.assertTrue(dump(reparsed).contains("Changed "));
+
+        // TagSoup adds the namespace of its HTML schema
+        Assert.assertFalse(dump(reparsed).contains("XMLNS"));
+        Assert.assertTrue(dump(ParsedJnlpCache.getRootNode(jnlp, MALFORMED)).contains("XMLNS"));
+    }
+
+    @Test
+    public void corruptParsedFileIsIgnored() throws Exception {
+        final Node parsed = ParsedJnlpCache.getRootNode(jnlp, NORMAL);
+        Files.write(new File(entryDir, ".parsed").toPath(), new byte[]{0, 0, 0, 32, 1, 2, 3});
+
+        Assert.assertEquals(dump(parsed), dump(ParsedJnlpCache.getRootNode(jnlp, NORMAL)));
+    }
+
+    @Test
+    public void filesOutsideOfTheCacheAreOnlyParsed() throws Exception {
+        Assert.assertTrue(new File(entryDir, ".info").delete());
+
+        ParsedJnlpCache.getRootNode(jnlp, NORMAL);
+        Assert.assertFalse(new File(entryDir, ".parsed").exists());
+    }
+
+    private static String dump(final Node node) {
+        final StringBuilder result = new StringBuilder(node.getNodeName().getOriginal());
+        node.getAttributeNames().stream().sorted().forEach(name -> result.append(' ').append(name).append('=').append(node.getAttribute(name)));
+        result.append('>').append(node.getNodeValue()).append('\n');
+        for (final Node child : node.getChildNodes()) {
+            result.append(dump(child));
+        }
+        return result.toString();
+    }
+}
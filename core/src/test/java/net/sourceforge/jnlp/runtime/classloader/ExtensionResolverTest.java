@@ -0,0 +1,91 @@
+package net.sourceforge.jnlp.runtime.classloader;
+
+import net.adoptopenjdk.icedteaweb.jnlp.version.VersionString;
+import net.adoptopenjdk.icedteaweb.resources.UpdatePolicy;
+import net.sourceforge.jnlp.JNLPFile;
+import net.sourceforge.jnlp.JNLPFileFactory;
+import net.sourceforge.jnlp.ParserSettings;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class ExtensionResolverTest {
+
+    private static final String UNIQUE_KEY = "extension-resolver-test";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void sharedExtensionsAreFetchedOnce() throws Exception {
+        final URL root = write("root.jnlp", "<application-desc main-class='Main'/>", "a.jnlp", "b.jnlp");
+        final URL a = write("a.jnlp", "<component-desc/>", "c.jnlp");
+        final URL b = write("b.jnlp", "<component-desc/>", "c.jnlp");
+        final URL c = write("c.jnlp", "<component-desc/>");
+
+        final JNLPFile rootFile = new JNLPFileFactory().create(root, UNIQUE_KEY, null, new ParserSettings(), UpdatePolicy.ALWAYS);
+        try (final ExtensionResolver ignored = ExtensionResolver.start(rootFile, rootFile.getResources().getExtensions(), UpdatePolicy.ALWAYS)) {
+            // a nested class loader does not start its own resolver
+            try (final ExtensionResolver nested = ExtensionResolver.start(rootFile, rootFile.getResources().getExtensions(), UpdatePolicy.ALWAYS)) {
+                Assert.assertEquals(a, ExtensionResolver.take(UNIQUE_KEY, a, null).getFileLocation());
+                Assert.assertEquals(b, ExtensionResolver.take(UNIQUE_KEY, b, null).getFileLocation());
+            }
+            Assert.assertEquals(c, ExtensionResolver.take(UNIQUE_KEY, c, null).getFileLocation());
+
+            // each prefetched file is handed out once, then the class loader fetches it itself
+            Assert.assertNull(ExtensionResolver.take(UNIQUE_KEY, c, null));
+            Assert.assertNull(ExtensionResolver.take(UNIQUE_KEY, root, null));
+            Assert.assertNull(ExtensionResolver.take("other", a, null));
+        }
+        Assert.assertNull(ExtensionResolver.take(UNIQUE_KEY, a, null));
+    }
+
+    @Test
+    public void failedFetchIsLeftToTheClassLoader() throws Exception {
+        final URL root = write("root.jnlp", "<application-desc main-class='Main'/>", "missing.jnlp");
+
+        final JNLPFile rootFile = new JNLPFileFactory().create(root, UNIQUE_KEY, null, new ParserSettings(), UpdatePolicy.ALWAYS);
+        try (final ExtensionResolver ignored = ExtensionResolver.start(rootFile, rootFile.getResources().getExtensions(), UpdatePolicy.ALWAYS)) {
+            Assert.assertNull(ExtensionResolver.take(UNIQUE_KEY, new URL(root, "missing.jnlp"), null));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void errorInFetchIsLeftToTheClassLoader() throws Exception {
+        final URL root = write("root.jnlp", "<application-desc main-class='Main'/>", "broken.jnlp");
+        final URL broken = write("broken.jnlp", "<component-desc/>");
+        final JNLPFileFactory factory = new JNLPFileFactory() {
+            @Override
+            public JNLPFile create(final URL location, final String uniqueKey, final VersionString version,
+                                   final ParserSettings settings, final UpdatePolicy policy) {
+                throw new LinkageError("broken class");
+            }
+        };
+
+        final JNLPFile rootFile = new JNLPFileFactory().create(root, UNIQUE_KEY, null, new ParserSettings(), UpdatePolicy.ALWAYS);
+        try (final ExtensionResolver ignored = ExtensionResolver.start(rootFile, rootFile.getResources().getExtensions(), UpdatePolicy.ALWAYS, factory)) {
+            Assert.assertNull(ExtensionResolver.take(UNIQUE_KEY, broken, null));
+        }
+    }
+
+    private URL write(final String name, final String desc, final String... extensions) throws Exception {
+        final StringBuilder jnlp = new StringBuilder()
+                .append("<?xml version='1.0' encoding='UTF-8'?>\n")
+                .append("<jnlp spec='1.0'>\n")
+                .append("  <information><title>").append(name).append("</title><vendor>test</vendor></information>\n")
+                .append("  <resources>\n");
+        for (final String extension : extensions) {
+            jnlp.append("    <extension href='").append(extension).append("'/>\n");
+        }
+        jnlp.append("  </resources>\n  ").append(desc).append("\n</jnlp>\n");
+        final File file = new File(temporaryFolder.getRoot(), name);
+        Files.write(file.toPath(), jnlp.toString().getBytes(StandardCharsets.UTF_8));
+        return file.toURI().toURL();
+    }
+}
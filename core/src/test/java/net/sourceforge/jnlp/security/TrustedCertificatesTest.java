@@ -0,0 +1,70 @@
+package net.sourceforge.jnlp.security;
+
+import net.sourceforge.jnlp.security.TrustedCertificates.CertificateIndex;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+public class TrustedCertificatesTest {
+
+    private static final List<X509Certificate> roots = new ArrayList<>();
+
+    @BeforeClass
+    public static void loadJdkCaCerts() throws Exception {
+        final File cacerts = new File(System.getProperty("java.home"), "lib/security/cacerts");
+        final KeyStore ks = KeyStore.getInstance(KeyStore.getDefaultType());
+        try (InputStream in = new FileInputStream(cacerts)) {
+            ks.load(in, null);
+        }
+        final Enumeration<String> aliases = ks.aliases();
+        while (aliases.hasMoreElements() && roots.size() < 3) {
+            final Certificate certificate = ks.getCertificate(aliases.nextElement());
+            if (certificate instanceof X509Certificate) {
+                final X509Certificate x509 = (X509Certificate) certificate;
+                if (x509.getSubjectX500Principal().equals(x509.getIssuerX500Principal())) {
+                    roots.add(x509);
+                }
+            }
+        }
+        Assert.assertEquals(3, roots.size());
+    }
+
+    @Test
+    public void containsOnlyIndexedCertificates() throws Exception {
+        final CertificateIndex index = new CertificateIndex(Arrays.asList(keyStore(roots.get(0)), keyStore(roots.get(1))));
+
+        Assert.assertTrue(index.contains(roots.get(0)));
+        Assert.assertTrue(index.contains(roots.get(1)));
+        Assert.assertFalse(index.contains(roots.get(2)));
+        Assert.assertEquals(2, index.getKeyStores().size());
+    }
+
+    @Test
+    public void emptyIndex() {
+        final CertificateIndex index = new CertificateIndex(Collections.emptyList());
+
+        Assert.assertFalse(index.contains(roots.get(0)));
+        Assert.assertTrue(index.getKeyStores().isEmpty());
+    }
+
+    private static KeyStore keyStore(final X509Certificate... certificates) throws Exception {
+        final KeyStore ks = KeyStore.getInstance("JKS");
+        ks.load(null, null);
+        for (int i = 0; i < certificates.length; i++) {
+            ks.setCertificateEntry("cert" + i, certificates[i]);
+        }
+        return ks;
+    }
+}
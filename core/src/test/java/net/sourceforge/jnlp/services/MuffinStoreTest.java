@@ -0,0 +1,203 @@
+package net.sourceforge.jnlp.services;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.jnlp.FileContents;
+import javax.jnlp.JNLPRandomAccessFile;
+import javax.jnlp.PersistenceService;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MuffinStoreTest {
+
+    private static final int LARGE_MUFFIN_LENGTH = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File root;
+    private File app;
+
+    @Before
+    public void setUp() throws IOException {
+        root = temporaryFolder.newFolder();
+        app = new File(root, "http/example.com/80/app");
+    }
+
+    @Test
+    public void namesAndTagsAreKeptAcrossRestarts() throws Exception {
+        final MuffinStore store = new MuffinStore(root, -1);
+        store.create(new File(app, "a"), 100);
+        store.create(new File(app, "b"), 200);
+        store.setTag(new File(app, "b"), PersistenceService.DIRTY);
+        store.flush();
+
+        final MuffinStore restarted = new MuffinStore(root, -1);
+
+        final String[] names = restarted.getNames(app);
+        Arrays.sort(names);
+        assertArrayEquals(new String[]{"a", "b"}, names);
+        assertEquals(PersistenceService.CACHED, restarted.getTag(new File(app, "a")));
+        assertEquals(PersistenceService.DIRTY, restarted.getTag(new File(app, "b")));
+        assertEquals(200, restarted.get(new File(app, "b")).getMaxLength());
+    }
+
+    @Test
+    public void changesOfJvmsRunningAtTheSameTimeAreMerged() throws Exception {
+        final MuffinStore one = new MuffinStore(root, -1);
+        final MuffinStore other = new MuffinStore(root, -1);
+        one.create(new File(app, "a"), 100);
+        one.flush();
+        assertArrayEquals(new String[]{"a"}, other.getNames(app));
+
+        other.create(new File(app, "b"), 200);
+        other.setTag(new File(app, "a"), PersistenceService.DIRTY);
+        other.flush();
+        one.create(new File(app, "c"), 300);
+        one.flush();
+
+        final String[] names = one.getNames(app);
+        Arrays.sort(names);
+        assertArrayEquals(new String[]{"a", "b", "c"}, names);
+        assertEquals(PersistenceService.DIRTY, one.getTag(new File(app, "a")));
+
+        final MuffinStore restarted = new MuffinStore(root, -1);
+        assertEquals(PersistenceService.DIRTY, restarted.getTag(new File(app, "a")));
+        assertEquals(200, restarted.get(new File(app, "b")).getMaxLength());
+        assertEquals(300, restarted.get(new File(app, "c")).getMaxLength());
+    }
+
+    @Test
+    public void muffinsOfEarlierVersionsAreFound() throws Exception {
+        assertTrue(app.mkdirs());
+        Files.write(new File(app, "old").toPath(), new byte[10]);
+
+        final MuffinStore store = new MuffinStore(root, -1);
+
+        assertArrayEquals(new String[]{"old"}, store.getNames(app));
+        assertEquals(Long.MAX_VALUE, store.get(new File(app, "old")).getMaxLength());
+    }
+
+    @Test
+    public void deletedMuffinsAreNotListed() throws Exception {
+        final MuffinStore store = new MuffinStore(root, -1);
+        store.create(new File(app, "a"), 100);
+
+        store.delete(new File(app, "a"));
+
+        assertEquals(0, store.getNames(app).length);
+        try {
+            store.getTag(new File(app, "a"));
+            fail("expected FileNotFoundException");
+        } catch (FileNotFoundException expected) {
+            // expected
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void muffinsCannotBeCreatedTwice() throws Exception {
+        final MuffinStore store = new MuffinStore(root, -1);
+        store.create(new File(app, "a"), 100);
+
+        store.create(new File(app, "a"), 100);
+    }
+
+    @Test
+    public void theQuotaOfAHostIsShared() throws Exception {
+        final MuffinStore store = new MuffinStore(root, 1000);
+
+        assertEquals(600, store.create(new File(app, "a"), 600));
+        assertEquals(400, store.create(new File(app, "b"), 600));
+        assertEquals(1000, store.create(new File(root, "http/other.org/80/c"), 1000));
+
+        final FileContents a = store.get(new File(app, "a"));
+        assertEquals(600, a.setMaxLength(2000));
+        assertEquals(100, a.setMaxLength(100));
+        store.delete(new File(app, "b"));
+        assertEquals(1000, a.setMaxLength(2000));
+    }
+
+    @Test
+    public void muffinsCannotGrowBeyondTheirMaximumLength() throws Exception {
+        final MuffinStore store = new MuffinStore(root, -1);
+        store.create(new File(app, "a"), 4);
+        final FileContents contents = store.get(new File(app, "a"));
+
+        try (final OutputStream out = contents.getOutputStream(true)) {
+            out.write(new byte[4]);
+            try {
+                out.write(1);
+                fail("expected IOException");
+            } catch (IOException expected) {
+                // expected
+            }
+        }
+        final JNLPRandomAccessFile raf = contents.getRandomAccessFile("rw");
+        try {
+            raf.writeInt(1);
+            raf.writeByte(1);
+            fail("expected IOException");
+        } catch (IOException expected) {
+            assertEquals(4, raf.length());
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Test
+    public void largeMuffinsAreRead() throws Exception {
+        final MuffinStore store = new MuffinStore(root, -1);
+        store.create(new File(app, "a"), Long.MAX_VALUE);
+        final FileContents contents = store.get(new File(app, "a"));
+        final byte[] content = new byte[LARGE_MUFFIN_LENGTH];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        try (final OutputStream out = contents.getOutputStream(true)) {
+            out.write(content);
+        }
+
+        final byte[] read = new byte[content.length];
+        try (final InputStream in = contents.getInputStream()) {
+            assertEquals(0, in.read());
+            assertEquals(content.length - 2, in.read(read, 1, content.length - 2));
+            assertEquals(content[content.length - 1] & 0xff, in.read());
+            assertEquals(-1, in.read());
+        }
+        read[content.length - 1] = content[content.length - 1];
+        assertArrayEquals(content, read);
+    }
+
+    @Test
+    public void muffinTruncatedWhileReadEndsTheStream() throws Exception {
+        final MuffinStore store = new MuffinStore(root, -1);
+        store.create(new File(app, "a"), Long.MAX_VALUE);
+        final FileContents contents = store.get(new File(app, "a"));
+        try (final OutputStream out = contents.getOutputStream(true)) {
+            out.write(new byte[LARGE_MUFFIN_LENGTH]);
+        }
+
+        try (final InputStream in = contents.getInputStream()) {
+            assertEquals(0, in.read());
+            try (final OutputStream out = contents.getOutputStream(true)) {
+                out.write(new byte[10]);
+            }
+            final byte[] read = new byte[LARGE_MUFFIN_LENGTH];
+            assertEquals(9, in.read(read));
+            assertEquals(-1, in.read());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package net.sourceforge.jnlp.services;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.jnlp.FileContents;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.OutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PrivilegedServicesTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void callsAreDelegated() throws Exception {
+        final File file = temporaryFolder.newFile("muffin");
+        final FileContents contents = PrivilegedServices.wrap(new XFileContents(file));
+
+        try (final OutputStream out = contents.getOutputStream(true)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+
+        assertEquals("muffin", contents.getName());
+        assertEquals(3, contents.getLength());
+        assertEquals(1, contents.getRandomAccessFile("r").read());
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void exceptionsAreNotWrapped() throws Exception {
+        final File missing = new File(temporaryFolder.getRoot(), "missing");
+        final FileContents contents = PrivilegedServices.wrap(new XFileContents(missing));
+
+        contents.getInputStream();
+    }
+
+    @Test
+    public void nullIsNotWrapped() {
+        assertNull(PrivilegedServices.wrap((FileContents) null));
+    }
+}
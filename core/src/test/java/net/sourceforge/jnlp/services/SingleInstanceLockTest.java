@@ -0,0 +1,64 @@
+package net.sourceforge.jnlp.services;
+
+import net.adoptopenjdk.icedteaweb.testing.mock.DummyJNLPFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SingleInstanceLockTest {
+
+    private SingleInstanceLock lock;
+
+    @Before
+    public void setUp() {
+        lock = new SingleInstanceLock(new DummyJNLPFile());
+    }
+
+    @After
+    public void tearDown() {
+        lock.lockFile.delete();
+    }
+
+    @Test
+    public void lockOfThisProcessIsValid() throws Exception {
+        final File socket = lock.getSocketFile();
+
+        lock.create(0, socket);
+
+        assertTrue(lock.isValid());
+        assertEquals(socket, lock.getSocket());
+        assertEquals(0, lock.getPort());
+    }
+
+    @Test
+    public void lockOfAnExitedProcessIsStale() throws Exception {
+        write("0", "socket=" + lock.getSocketFile(), "pid=" + Integer.MAX_VALUE, "start=-1");
+
+        assertFalse(lock.isValid());
+    }
+
+    @Test
+    public void lockOfEarlierVersionsIsValidWhileThePortIsBound() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            write(String.valueOf(socket.getLocalPort()));
+
+            assertTrue(lock.isValid());
+            assertNull(lock.getSocket());
+        }
+        assertFalse(lock.isValid());
+    }
+
+    private void write(final String... lines) throws Exception {
+        Files.write(lock.lockFile.toPath(), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
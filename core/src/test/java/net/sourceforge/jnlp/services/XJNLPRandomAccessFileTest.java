@@ -0,0 +1,140 @@
+package net.sourceforge.jnlp.services;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class XJNLPRandomAccessFileTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writesTheSameBytesAsRandomAccessFile() throws Exception {
+        final File expected = temporaryFolder.newFile();
+        final File actual = temporaryFolder.newFile();
+
+        try (final RandomAccessFile raf = new RandomAccessFile(expected, "rw")) {
+            raf.writeInt(42);
+            raf.writeLong(-7L);
+            raf.writeUTF("muffin ä");
+            raf.writeDouble(1.5);
+            raf.writeChars("ab");
+            raf.writeBytes("cd\n");
+            raf.writeShort(-2);
+            raf.writeBoolean(true);
+        }
+        final XJNLPRandomAccessFile file = new XJNLPRandomAccessFile(actual, "rw");
+        file.writeInt(42);
+        file.writeLong(-7L);
+        file.writeUTF("muffin ä");
+        file.writeDouble(1.5);
+        file.writeChars("ab");
+        file.writeBytes("cd\n");
+        file.writeShort(-2);
+        file.writeBoolean(true);
+        file.close();
+
+        assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+    }
+
+    @Test
+    public void readsWhatWasWritten() throws Exception {
+        final XJNLPRandomAccessFile file = new XJNLPRandomAccessFile(temporaryFolder.newFile(), "rw");
+        for (int i = 0; i < 10000; i++) {
+            file.writeInt(i);
+        }
+        file.writeUTF("end");
+        file.writeBytes("line\r\nlast");
+
+        file.seek(0);
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, file.readInt());
+        }
+        assertEquals("end", file.readUTF());
+        assertEquals("line", file.readLine());
+        assertEquals("last", file.readLine());
+        assertNull(file.readLine());
+        assertEquals(file.length(), file.getFilePointer());
+        file.close();
+    }
+
+    @Test
+    public void writesUpdateBufferedBytes() throws Exception {
+        final XJNLPRandomAccessFile file = new XJNLPRandomAccessFile(temporaryFolder.newFile(), "rw");
+        file.writeInt(1);
+        file.writeInt(2);
+        file.seek(0);
+        assertEquals(1, file.readInt());
+
+        file.writeInt(3);
+        file.seek(4);
+
+        assertEquals(3, file.readInt());
+        file.close();
+    }
+
+    @Test
+    public void readingPastTheEndFails() throws Exception {
+        final File muffin = temporaryFolder.newFile();
+        Files.write(muffin.toPath(), new byte[]{1, 2});
+        final XJNLPRandomAccessFile file = new XJNLPRandomAccessFile(muffin, "r");
+
+        assertEquals(2, file.skipBytes(5));
+        assertEquals(-1, file.read());
+        file.seek(1);
+        try {
+            file.readShort();
+            fail("expected EOFException");
+        } catch (EOFException expected) {
+            // expected
+        }
+        file.close();
+    }
+
+    @Test
+    public void truncatingMovesThePointer() throws Exception {
+        final XJNLPRandomAccessFile file = new XJNLPRandomAccessFile(temporaryFolder.newFile(), "rw");
+        file.writeLong(1);
+        file.seek(0);
+        file.readInt();
+
+        file.setLength(2);
+
+        assertEquals(2, file.getFilePointer());
+        assertEquals(-1, file.read());
+        file.seek(0);
+        assertEquals(0, file.readShort());
+        file.close();
+    }
+
+    @Test
+    public void largeReadsBypassTheBuffer() throws Exception {
+        final File muffin = temporaryFolder.newFile();
+        final byte[] content = new byte[100000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        Files.write(muffin.toPath(), content);
+        final XJNLPRandomAccessFile file = new XJNLPRandomAccessFile(muffin, "r");
+
+        final byte[] read = new byte[content.length];
+        file.readByte();
+        file.readFully(read, 1, read.length - 1);
+        read[0] = content[0];
+
+        assertArrayEquals(content, read);
+        assertEquals(content.length, file.getFilePointer());
+        file.close();
+    }
+}
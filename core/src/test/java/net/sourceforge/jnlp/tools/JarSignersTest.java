@@ -0,0 +1,71 @@
+package net.sourceforge.jnlp.tools;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JarSignersTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void signersOfCachedJarsAreStored() throws Exception {
+        final File entryDir = temporaryFolder.newFolder();
+        assertTrue(new File(entryDir, ".info").createNewFile());
+        final File jar = new File(entryDir, "app.jar");
+        writeJar(jar, "a.class", "b.class");
+
+        final JarSigners signers = JarSigners.of(jar.getAbsolutePath());
+
+        assertEquals(2, signers.getSignableEntries());
+        assertTrue(signers.getSignedEntries().isEmpty());
+        assertTrue(new File(entryDir, ".parsed").isFile());
+        assertEquals(2, JarSigners.of(jar.getAbsolutePath()).getSignableEntries());
+    }
+
+    @Test
+    public void changedJarsAreReadAgain() throws Exception {
+        final File entryDir = temporaryFolder.newFolder();
+        assertTrue(new File(entryDir, ".info").createNewFile());
+        final File jar = new File(entryDir, "app.jar");
+        writeJar(jar, "a.class");
+        JarSigners.of(jar.getAbsolutePath());
+
+        writeJar(jar, "a.class", "b.class", "c.class");
+
+        assertEquals(3, JarSigners.of(jar.getAbsolutePath()).getSignableEntries());
+    }
+
+    @Test
+    public void signersOfJarsOutsideOfTheCacheAreNotStored() throws Exception {
+        final File dir = temporaryFolder.newFolder();
+        final File jar = new File(dir, "app.jar");
+        writeJar(jar, "a.class");
+
+        assertEquals(1, JarSigners.of(jar.getAbsolutePath()).getSignableEntries());
+        assertFalse(new File(dir, ".parsed").exists());
+    }
+
+    private static void writeJar(final File jar, final String... entries) throws Exception {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        try (final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar), manifest)) {
+            for (final String entry : entries) {
+                out.putNextEntry(new JarEntry(entry));
+                out.write(entry.getBytes());
+                out.closeEntry();
+            }
+        }
+    }
+}
@@ -43,6 +43,7 @@ import org.junit.Test;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class ClasspathMatcherTest {
 
@@ -695,4 +696,32 @@ public class ClasspathMatcherTest {
         Assert.assertTrue(cps22.matches(new URL("http://aaa.com/some/path/")));
 
     }
+
+    @Test
+    public void indexMatchesLikeRegularExpressions() throws MalformedURLException {
+        String[] sources = {"*.example.com", "example.org", "https://app.example.net:8443", "http://*.intranet.example.org:*",
+            "*example.com", "ex*", "*xam*", "*.ex*", "ftp://*", "*:80", "*:8*", "*://host/path/*", "*.cz/a/*", "localhost", "*"};
+        String[] urls = {"http://example.com", "http://a.example.com/x", "http://a.b.example.com:8080/x", "http://myexample.com",
+            "http://example.org", "http://www.example.org", "https://app.example.net:8443/app", "https://app.example.net/app",
+            "http://x.intranet.example.org:81/", "https://x.intranet.example.org/", "ftp://files.example.cz/a/b",
+            "http://host/path/file.jar", "http://host/other/file.jar", "http://exit.cz", "http://sub.ex.cz:80/a/", "http://localhost:8080/",
+            "file:///tmp/a.jar"};
+        // every source alone and all but the last one (which matches everything) together
+        String[] combinations = Arrays.copyOf(sources, sources.length + 1);
+        combinations[sources.length] = String.join(" ", Arrays.copyOf(sources, sources.length - 1));
+        for (boolean includePath : new boolean[]{false, true}) {
+            for (String source : combinations) {
+                ClasspathMatchers matchers = ClasspathMatchers.compile(source, includePath);
+                for (String url : urls) {
+                    Assert.assertEquals(matchers + " " + url, matchers.matchesSequentially(new URL(url)), matchers.matches(new URL(url)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void compiledMatchersAreCached() {
+        Assert.assertSame(ClasspathMatchers.compile("*.example.com aa", true), ClasspathMatchers.compile("*.example.com aa", true));
+        Assert.assertNotSame(ClasspathMatchers.compile("*.example.com aa", true), ClasspathMatchers.compile("*.example.com aa", false));
+    }
 }
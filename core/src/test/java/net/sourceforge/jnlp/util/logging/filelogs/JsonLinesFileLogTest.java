@@ -0,0 +1,138 @@
+package net.sourceforge.jnlp.util.logging.filelogs;
+
+import net.adoptopenjdk.icedteaweb.StreamUtils;
+import net.sourceforge.jnlp.util.logging.OutputControllerLevel;
+import net.sourceforge.jnlp.util.logging.headers.Header;
+import net.sourceforge.jnlp.util.logging.headers.JavaMessage;
+import net.sourceforge.jnlp.util.logging.headers.MessageWithHeader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+public class JsonLinesFileLogTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void messagesAreWrittenAsJsonLines() throws Exception {
+        final File dir = temporaryFolder.newFolder();
+        final JsonLinesFileLog log = new JsonLinesFileLog(dir, "itw-test", "itw-test-1", 0, 0, -1);
+        log.log("first \"quoted\" line");
+        log.log("multi\nline\n");
+        log.close();
+
+        final String content = StreamUtils.readStreamAsString(new FileInputStream(log.getActiveFile()), true);
+        final String[] lines = content.split("\n");
+        Assert.assertEquals(3, lines.length);
+        for (String line : lines) {
+            Assert.assertTrue(line.startsWith("{\"timestamp\":"));
+            Assert.assertTrue(line.endsWith("}"));
+        }
+        Assert.assertTrue(lines[1].endsWith(",\"message\":\"first \\\"quoted\\\" line\"}"));
+        Assert.assertTrue(lines[2].endsWith(",\"message\":\"multi\\nline\"}"));
+    }
+
+    @Test
+    public void controlCharactersAreEscaped() {
+        final Header header = new Header(OutputControllerLevel.MESSAGE_ALL, "a\\b");
+        final String json = JsonLinesFileLog.toJson(new JavaMessage(header, "a\tb\u0001"));
+        Assert.assertTrue(json, json.contains(",\"caller\":\"a\\\\b\","));
+        Assert.assertTrue(json, json.endsWith(",\"message\":\"a\\tb\\u0001\"}"));
+    }
+
+    @Test
+    public void fieldsAreTakenFromTheHeaderOfTheEvent() throws Exception {
+        final AtomicReference<MessageWithHeader> logged = new AtomicReference<>();
+        final Thread caller = new Thread(() -> logged.set(new JavaMessage(new Header(OutputControllerLevel.ERROR_ALL, "com.example.Caller"),
+                "failed", new IllegalStateException("broken"))), "itw-test-caller");
+        caller.start();
+        caller.join();
+        final MessageWithHeader message = logged.get();
+        Thread.sleep(5);
+
+        final File dir = temporaryFolder.newFolder();
+        final JsonLinesFileLog log = new JsonLinesFileLog(dir, "itw-test", "itw-test-1", 0, 0, -1);
+        log.log(message, message.getHeader().toString() + " failed");
+        log.close();
+
+        final String[] lines = StreamUtils.readStreamAsString(new FileInputStream(log.getActiveFile()), true).split("\n");
+        Assert.assertEquals(2, lines.length);
+        final String line = lines[1];
+        Assert.assertTrue(line, line.startsWith("{\"timestamp\":" + message.getHeader().timestamp.getTime() + ","));
+        Assert.assertTrue(line, line.contains(",\"level\":\"ERROR_ALL\","));
+        Assert.assertTrue(line, line.contains(",\"thread\":\"itw-test-caller\","));
+        Assert.assertTrue(line, line.contains(",\"origin\":\"" + message.getHeader().getOrigin() + "\","));
+        Assert.assertTrue(line, line.contains(",\"caller\":\"com.example.Caller\","));
+        Assert.assertTrue(line, line.contains(",\"message\":\"failed\","));
+        Assert.assertTrue(line, line.contains(",\"stackTrace\":\"java.lang.IllegalStateException: broken"));
+    }
+
+    @Test
+    public void rotatedSegmentsAreCompressed() throws Exception {
+        final File dir = temporaryFolder.newFolder();
+        final JsonLinesFileLog log = new JsonLinesFileLog(dir, "itw-test", "itw-test-1", 100, 0, -1);
+        for (int i = 0; i < 10; i++) {
+            log.log("line number " + i + " which is long enough to trigger rotation");
+        }
+        log.close();
+
+        final File[] compressed = dir.listFiles((d, name) -> name.endsWith(JsonLinesFileLog.COMPRESSED_SUFFIX));
+        Assert.assertNotNull(compressed);
+        Assert.assertTrue(compressed.length > 1);
+        final File first = new File(dir, "itw-test-1-part0" + JsonLinesFileLog.COMPRESSED_SUFFIX);
+        final String content = StreamUtils.readStreamAsString(new GZIPInputStream(new FileInputStream(first)), true);
+        Assert.assertTrue(content.contains("json-lines impl."));
+        Assert.assertFalse(new File(dir, "itw-test-1-part0" + JsonLinesFileLog.SUFFIX).exists());
+    }
+
+    @Test
+    public void retentionLimitsNumberOfCompressedSegments() throws Exception {
+        final File dir = temporaryFolder.newFolder();
+        final JsonLinesFileLog log = new JsonLinesFileLog(dir, "itw-test", "itw-test-1", 10, 0, 2);
+        for (int i = 0; i < 10; i++) {
+            log.log("line number " + i);
+        }
+        log.close();
+
+        final File[] compressed = dir.listFiles((d, name) -> name.endsWith(JsonLinesFileLog.COMPRESSED_SUFFIX));
+        Assert.assertNotNull(compressed);
+        Assert.assertEquals(2, compressed.length);
+        Assert.assertTrue(log.getActiveFile().exists());
+    }
+
+    @Test
+    public void segmentSizeIsCountedInBytes() throws Exception {
+        final File dir = temporaryFolder.newFolder();
+        final JsonLinesFileLog log = new JsonLinesFileLog(dir, "itw-test", "itw-test-1", 0, 0, -1);
+        log.log("\u00e4\u00f6\u00fc \u20ac \ud83d\ude00");
+
+        Assert.assertEquals(log.getActiveFile().length(), log.getSegmentBytes());
+        log.close();
+    }
+
+    @Test
+    public void retentionKeepsSegmentsOfLogsWithALongerId() throws Exception {
+        final File dir = temporaryFolder.newFolder();
+        final File other = new File(dir, "itw-testing-1-part0" + JsonLinesFileLog.COMPRESSED_SUFFIX);
+        Assert.assertTrue(other.createNewFile());
+        final JsonLinesFileLog log = new JsonLinesFileLog(dir, "itw-test", "itw-test-1", 10, 0, 0);
+        for (int i = 0; i < 3; i++) {
+            log.log("line number " + i);
+        }
+        log.close();
+
+        Assert.assertTrue(other.exists());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void baseNameMustStartWithLogId() {
+        new JsonLinesFileLog(temporaryFolder.getRoot(), "itw-test", "other", 0, 0, -1);
+    }
+}
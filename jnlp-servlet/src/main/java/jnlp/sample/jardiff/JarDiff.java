@@ -71,9 +71,10 @@ import java.util.jar.JarOutputStream;
 public class JarDiff implements JarDiffConstants {
     private static final int DEFAULT_READ_SIZE = 2048;
 
-    private static byte[] newBytes = new byte[DEFAULT_READ_SIZE];
+    // Buffers are confined to the thread so patches can be created concurrently
+    private static final ThreadLocal<byte[]> newBuffer = ThreadLocal.withInitial(() -> new byte[DEFAULT_READ_SIZE]);
 
-    private static byte[] oldBytes = new byte[DEFAULT_READ_SIZE];
+    private static final ThreadLocal<byte[]> oldBuffer = ThreadLocal.withInitial(() -> new byte[DEFAULT_READ_SIZE]);
 
     private static ResourceBundle _resources = null;
 
@@ -349,6 +350,7 @@ public class JarDiff implements JarDiffConstants {
             throws IOException {
         jos.putNextEntry(entry);
 
+        final byte[] newBytes = newBuffer.get();
         try {
             // Read the entry
             int size = data.read(newBytes);
@@ -406,6 +408,8 @@ public class JarDiff implements JarDiffConstants {
          */
         private static boolean differs(InputStream oldIS, InputStream newIS)
                 throws IOException {
+            final byte[] newBytes = newBuffer.get();
+            final byte[] oldBytes = oldBuffer.get();
             int newSize = 0;
             int oldSize;
             int total = 0;
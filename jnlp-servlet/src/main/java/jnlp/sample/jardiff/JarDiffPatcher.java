@@ -70,9 +70,7 @@ public class JarDiffPatcher
 {
     private static final int DEFAULT_READ_SIZE = 2048;
 
-    private static byte[] newBytes = new byte[DEFAULT_READ_SIZE];
-
-    private static byte[] oldBytes = new byte[DEFAULT_READ_SIZE];
+    private static final ThreadLocal<byte[]> newBuffer = ThreadLocal.withInitial(() -> new byte[DEFAULT_READ_SIZE]);
 
     private static ResourceBundle _resources = JarDiff.getResources();
 
@@ -362,6 +360,7 @@ public class JarDiffPatcher
         jos.putNextEntry( new ZipEntry( entry.getName() ) );
 
         // Read the entry
+        final byte[] newBytes = newBuffer.get();
         int size = data.read( newBytes );
 
         while ( size != -1 )
@@ -0,0 +1,114 @@
+package jnlp.sample.servlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Watches the directories scanned by a {@link ResourceCatalog} and drops
+ * their catalog entries as soon as their content changes.
+ */
+class DirectoryWatcher
+        implements Runnable
+{
+    private final ResourceCatalog _catalog;
+
+    private final WatchService _watchService;
+
+    private final ConcurrentMap<WatchKey, String> _directories = new ConcurrentHashMap<>();
+
+    private DirectoryWatcher( ResourceCatalog catalog, WatchService watchService )
+    {
+        _catalog = catalog;
+        _watchService = watchService;
+    }
+
+    /**
+     * @return the started watcher or null if the file system does not support watching
+     */
+    static DirectoryWatcher start( ResourceCatalog catalog )
+    {
+        try
+        {
+            DirectoryWatcher watcher = new DirectoryWatcher( catalog, FileSystems.getDefault().newWatchService() );
+            Thread thread = new Thread( watcher, "resource-catalog-watcher" );
+            thread.setDaemon( true );
+            thread.start();
+            return watcher;
+        }
+        catch ( IOException | UnsupportedOperationException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * @param dir       directory path in the Web Archive
+     * @param directory the directory on disk
+     * @return true if the directory is watched
+     */
+    boolean register( String dir, File directory )
+    {
+        try
+        {
+            WatchKey key = directory.toPath().register( _watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                                        StandardWatchEventKinds.ENTRY_DELETE,
+                                                        StandardWatchEventKinds.ENTRY_MODIFY );
+            _directories.put( key, dir );
+            return true;
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            return false;
+        }
+    }
+
+    void close()
+    {
+        try
+        {
+            _watchService.close();
+        }
+        catch ( IOException ioe )
+        {
+            // ignore
+        }
+    }
+
+    public void run()
+    {
+        try
+        {
+            while ( true )
+            {
+                WatchKey key = _watchService.take();
+                boolean overflow = false;
+                for ( WatchEvent<?> event : key.pollEvents() )
+                {
+                    overflow |= event.kind() == StandardWatchEventKinds.OVERFLOW;
+                }
+                String dir = key.reset() ? _directories.get( key ) : _directories.remove( key );
+                if ( overflow )
+                {
+                    // Events may have been lost, so start over
+                    _catalog.invalidate( null );
+                }
+                else if ( dir != null )
+                {
+                    _catalog.invalidate( dir );
+                }
+            }
+        }
+        catch ( InterruptedException | ClosedWatchServiceException e )
+        {
+            // stopped
+        }
+    }
+}
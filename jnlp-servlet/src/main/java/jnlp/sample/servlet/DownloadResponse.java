@@ -36,18 +36,27 @@
 
 package jnlp.sample.servlet;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.Date;
 import java.util.MissingResourceException;
+import java.util.zip.CRC32;
 
 /**
  * A class used to encapsulate a file response, and
@@ -59,6 +68,39 @@ abstract public class DownloadResponse
 
     private static final String HEADER_JNLP_VERSION = "x-java-jnlp-version-id";
 
+    // HTTP Range Requests RFC 7233 and Conditional Requests RFC 7232
+    private static final String HEADER_ETAG = "ETag";
+
+    private static final String HEADER_ACCEPT_RANGES = "Accept-Ranges";
+
+    private static final String HEADER_CONTENT_RANGE = "Content-Range";
+
+    private static final String HEADER_RANGE = "Range";
+
+    private static final String HEADER_IF_RANGE = "If-Range";
+
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+
+    private static final String HEADER_VARY = "Vary";
+
+    private static final String BYTES_UNIT = "bytes";
+
+    // Request attributes of containers supporting sendfile (e.g. Tomcat with the NIO or APR connector)
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Marker returned by {@link #parseRange(String, long)} for ranges which can not be satisfied
+     */
+    static final long[] UNSATISFIABLE_RANGE = new long[0];
+
     private static final String JNLP_ERROR_MIMETYPE = "application/x-java-jnlp-error";
 
     public static final int STS_00_OK = 0;
@@ -85,6 +127,11 @@ abstract public class DownloadResponse
 
     public static final String PACK200_GZIP_ENCODING = "pack200-gzip";
 
+    // Content codings of pre-compressed variants for clients supporting them (RFC 7932, RFC 8878)
+    public static final String BROTLI_ENCODING = "br";
+
+    public static final String ZSTD_ENCODING = "zstd";
+
     public DownloadResponse()
     { /* do nothing */ }
 
@@ -102,6 +149,20 @@ abstract public class DownloadResponse
     abstract void sendRespond( HttpServletResponse response )
             throws IOException;
 
+    /**
+     * Post information to an HttpResponse taking the conditional and range
+     * headers of the request into account
+     *
+     * @param request the request answered by this response
+     * @param response the response to write to
+     * @throws IOException if writing the response fails
+     */
+    void sendRespond( HttpServletRequest request, HttpServletResponse response )
+            throws IOException
+    {
+        sendRespond( response );
+    }
+
     /**
      * Factory methods for error responses
      *
@@ -139,11 +200,31 @@ abstract public class DownloadResponse
 
     static DownloadResponse getFileDownloadResponse( byte[] content, String mimeType, long timestamp, String versionId )
     {
-        return new ByteArrayFileDownloadResponse( content, mimeType, versionId, timestamp );
+        return new ByteArrayFileDownloadResponse( content, null, mimeType, versionId, timestamp );
+    }
+
+    /**
+     * Response for generated content with a precomputed gzip variant. The gzip
+     * variant is sent to clients accepting the gzip content encoding.
+     */
+    static DownloadResponse getFileDownloadResponse( byte[] content, byte[] gzipContent, String mimeType,
+                                                     long timestamp, String versionId )
+    {
+        return new ByteArrayFileDownloadResponse( content, gzipContent, mimeType, versionId, timestamp );
     }
 
     static DownloadResponse getFileDownloadResponse( URL resource, String mimeType, long timestamp, String versionId )
     {
+        if ( "file".equals( resource.getProtocol() ) )
+        {
+            // Exploded web archive, serve directly from disk
+            try
+            {
+                return new DiskFileDownloadResponse( new File( resource.toURI() ), mimeType, versionId, timestamp );
+            }
+            catch ( URISyntaxException | IllegalArgumentException e )
+            { /* fall back to the generic URL based response */ }
+        }
         return new ResourceFileDownloadResponse( resource, mimeType, versionId, timestamp );
     }
 
@@ -306,21 +387,43 @@ abstract public class DownloadResponse
             return _lastModified;
         }
 
-        abstract int getContentLength()
+        abstract long getContentLength()
                 throws IOException;
 
         abstract InputStream getContent()
                 throws IOException;
 
+        /**
+         * Strong entity tag of the content. The default is derived from the
+         * length, the modification time, the version and the file name which
+         * also reflects the content encoding of the file.
+         */
+        String getEntityTag()
+                throws IOException
+        {
+            CRC32 crc = new CRC32();
+            crc.update( ( _fileName + "|" + _versionId ).getBytes( StandardCharsets.UTF_8 ) );
+            return "\"" + Long.toHexString( getContentLength() ) + "-" + Long.toHexString( getLastModified() ) + "-" +
+                    Long.toHexString( crc.getValue() ) + "\"";
+        }
+
         /**
          * Post information to an HttpResponse
          */
         public void sendRespond( HttpServletResponse response )
                 throws IOException
         {
+            sendRespond( null, response );
+        }
+
+        void sendRespond( HttpServletRequest request, HttpServletResponse response )
+                throws IOException
+        {
+            long length = getContentLength();
+            String etag = getEntityTag();
+
             // Set header information
             response.setContentType( getMimeType() );
-            response.setContentLength( getContentLength() );
             if ( getVersionId() != null )
             {
                 response.setHeader( HEADER_JNLP_VERSION, getVersionId() );
@@ -331,7 +434,8 @@ abstract public class DownloadResponse
             }
             if ( _fileName != null )
             {
-
+                // The file may have been selected from pre-compressed variants
+                response.setHeader( HEADER_VARY, HEADER_ACCEPT_ENCODING );
                 if ( _fileName.endsWith( ".pack.gz" ) )
                 {
                     response.setHeader( CONTENT_ENCODING, PACK200_GZIP_ENCODING );
@@ -340,22 +444,90 @@ abstract public class DownloadResponse
                 {
                     response.setHeader( CONTENT_ENCODING, GZIP_ENCODING );
                 }
+                else if ( _fileName.endsWith( ".br" ) )
+                {
+                    response.setHeader( CONTENT_ENCODING, BROTLI_ENCODING );
+                }
+                else if ( _fileName.endsWith( ".zst" ) )
+                {
+                    response.setHeader( CONTENT_ENCODING, ZSTD_ENCODING );
+                }
                 else
                 {
                     response.setHeader( CONTENT_ENCODING, null );
                 }
             }
+            response.setHeader( HEADER_ETAG, etag );
+
+            if ( request != null && matchesEntityTag( request.getHeader( HEADER_IF_NONE_MATCH ), etag ) )
+            {
+                response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+                return;
+            }
+
+            long start = 0;
+            long count = length;
+            if ( length >= 0 )
+            {
+                response.setHeader( HEADER_ACCEPT_RANGES, BYTES_UNIT );
+                String range = request != null ? request.getHeader( HEADER_RANGE ) : null;
+                if ( range != null && isIfRangeSatisfied( request, etag ) )
+                {
+                    long[] byteRange = parseRange( range, length );
+                    if ( byteRange == UNSATISFIABLE_RANGE )
+                    {
+                        response.setHeader( HEADER_CONTENT_RANGE, BYTES_UNIT + " */" + length );
+                        response.sendError( HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE );
+                        return;
+                    }
+                    if ( byteRange != null )
+                    {
+                        start = byteRange[0];
+                        count = byteRange[1] - byteRange[0] + 1;
+                        response.setStatus( HttpServletResponse.SC_PARTIAL_CONTENT );
+                        response.setHeader( HEADER_CONTENT_RANGE,
+                                            BYTES_UNIT + " " + byteRange[0] + "-" + byteRange[1] + "/" + length );
+                    }
+                }
+                response.setContentLengthLong( count );
+            }
 
             // Send contents
+            sendContent( request, response, start, count );
+        }
+
+        /**
+         * Writes the content to the response.
+         *
+         * @param request the request, may be {@code null}
+         * @param response the response to write to
+         * @param start offset of the first byte to send
+         * @param count number of bytes to send, or -1 for everything
+         */
+        void sendContent( HttpServletRequest request, HttpServletResponse response, long start, long count )
+                throws IOException
+        {
             InputStream in = getContent();
             OutputStream out = response.getOutputStream();
             try
             {
+                long skipped = 0;
+                while ( skipped < start )
+                {
+                    long n = in.skip( start - skipped );
+                    if ( n <= 0 )
+                    {
+                        throw new EOFException( "Content shorter than range start " + start );
+                    }
+                    skipped += n;
+                }
                 byte[] bytes = new byte[32 * 1024];
+                long remaining = count < 0 ? Long.MAX_VALUE : count;
                 int read;
-                while ( ( read = in.read( bytes ) ) != -1 )
+                while ( remaining > 0 && ( read = in.read( bytes, 0, (int) Math.min( bytes.length, remaining ) ) ) != -1 )
                 {
                     out.write( bytes, 0, read );
+                    remaining -= read;
                 }
             }
             finally
@@ -367,6 +539,34 @@ abstract public class DownloadResponse
             }
         }
 
+        /**
+         * A range request is only served partially if the entity did not change since
+         * the client received the beginning. Otherwise the complete entity is sent.
+         */
+        private boolean isIfRangeSatisfied( HttpServletRequest request, String etag )
+        {
+            String ifRange = request.getHeader( HEADER_IF_RANGE );
+            if ( ifRange == null )
+            {
+                return true;
+            }
+            ifRange = ifRange.trim();
+            if ( ifRange.startsWith( "\"" ) || ifRange.startsWith( "W/" ) )
+            {
+                // If-Range requires the strong comparison, weak tags never match
+                return ifRange.equals( etag );
+            }
+            try
+            {
+                long date = request.getDateHeader( HEADER_IF_RANGE );
+                return getLastModified() != 0 && date / 1000 == getLastModified() / 1000;
+            }
+            catch ( IllegalArgumentException e )
+            {
+                return false;
+            }
+        }
+
         protected String getArgString()
         {
             long length = 0;
@@ -384,24 +584,58 @@ abstract public class DownloadResponse
     static private class ByteArrayFileDownloadResponse
             extends FileDownloadResponse
     {
-        private byte[] _content;
+        private final byte[] _content;
 
-        ByteArrayFileDownloadResponse( byte[] content, String mimeType, String versionId, long lastModified )
+        private final String _entityTag;
+
+        private final ByteArrayFileDownloadResponse _gzipVariant;
+
+        ByteArrayFileDownloadResponse( byte[] content, byte[] gzipContent, String mimeType, String versionId,
+                                       long lastModified )
         {
             super( mimeType, versionId, lastModified );
             _content = content;
+            // Generated content (e.g. macro expanded JNLP files) differs per request,
+            // so the entity tag is derived from the content itself.
+            CRC32 crc = new CRC32();
+            crc.update( content );
+            _entityTag = "\"" + Long.toHexString( content.length ) + "-" + Long.toHexString( crc.getValue() ) + "\"";
+            _gzipVariant = gzipContent != null
+                    ? new ByteArrayFileDownloadResponse( gzipContent, null, mimeType, versionId, lastModified )
+                    : null;
         }
 
-        int getContentLength()
+        long getContentLength()
         {
             return _content.length;
         }
 
+        String getEntityTag()
+        {
+            return _entityTag;
+        }
+
         InputStream getContent()
         {
             return new ByteArrayInputStream( _content );
         }
 
+        void sendRespond( HttpServletRequest request, HttpServletResponse response )
+                throws IOException
+        {
+            if ( _gzipVariant != null )
+            {
+                response.setHeader( HEADER_VARY, HEADER_ACCEPT_ENCODING );
+                if ( request != null && acceptsEncoding( request.getHeader( HEADER_ACCEPT_ENCODING ), GZIP_ENCODING ) )
+                {
+                    response.setHeader( CONTENT_ENCODING, GZIP_ENCODING );
+                    _gzipVariant.sendRespond( request, response );
+                    return;
+                }
+            }
+            super.sendRespond( request, response );
+        }
+
         public String toString()
         {
             return super.toString() + "[ " + getArgString() + "]";
@@ -413,16 +647,24 @@ abstract public class DownloadResponse
     {
         URL _url;
 
+        private long _contentLength = -2;
+
         ResourceFileDownloadResponse( URL url, String mimeType, String versionId, long lastModified )
         {
             super( mimeType, versionId, lastModified, url.toString() );
             _url = url;
         }
 
-        int getContentLength()
+        long getContentLength()
                 throws IOException
         {
-            return _url.openConnection().getContentLength();
+            if ( _contentLength == -2 )
+            {
+                URLConnection connection = _url.openConnection();
+                _contentLength = connection.getContentLengthLong();
+                connection.getInputStream().close();
+            }
+            return _contentLength;
         }
 
         InputStream getContent()
@@ -448,16 +690,47 @@ abstract public class DownloadResponse
             _file = file;
         }
 
-        int getContentLength()
+        long getContentLength()
                 throws IOException
         {
-            return (int) _file.length();
+            return _file.length();
         }
 
         InputStream getContent()
                 throws IOException
         {
-            return new BufferedInputStream( new FileInputStream( _file ) );
+            return new FileInputStream( _file );
+        }
+
+        /**
+         * Lets the container send the file if it supports sendfile, otherwise the file
+         * channel transfers the bytes without copying them through the heap where possible.
+         */
+        void sendContent( HttpServletRequest request, HttpServletResponse response, long start, long count )
+                throws IOException
+        {
+            long end = count < 0 ? _file.length() : start + count;
+            if ( request != null && Boolean.TRUE.equals( request.getAttribute( SENDFILE_SUPPORT_ATTR ) ) )
+            {
+                request.setAttribute( SENDFILE_FILENAME_ATTR, _file.getCanonicalPath() );
+                request.setAttribute( SENDFILE_START_ATTR, start );
+                request.setAttribute( SENDFILE_END_ATTR, end );
+                return;
+            }
+            try ( FileChannel channel = FileChannel.open( _file.toPath(), StandardOpenOption.READ ) )
+            {
+                WritableByteChannel out = Channels.newChannel( response.getOutputStream() );
+                long position = start;
+                while ( position < end )
+                {
+                    long transferred = channel.transferTo( position, end - position, out );
+                    if ( transferred <= 0 )
+                    {
+                        throw new EOFException( "File " + _file + " was truncated while sending it" );
+                    }
+                    position += transferred;
+                }
+            }
         }
 
         public String toString()
@@ -465,7 +738,158 @@ abstract public class DownloadResponse
             return super.toString() + "[ " + getArgString() + "]";
         }
     }
-}
 
+    /**
+     * Parses the value of a {@code Range} header. Only a single byte range is
+     * supported, multiple ranges are answered with the complete entity as
+     * permitted by RFC 7233.
+     *
+     * @param range value of the Range header
+     * @param length length of the entity
+     * @return the first and last byte position (inclusive), {@code null} if the
+     * complete entity should be sent or {@link #UNSATISFIABLE_RANGE}
+     */
+    static long[] parseRange( String range, long length )
+    {
+        String value = range.trim();
+        if ( !value.startsWith( BYTES_UNIT + "=" ) )
+        {
+            return null;
+        }
+        value = value.substring( BYTES_UNIT.length() + 1 ).trim();
+        if ( value.indexOf( ',' ) != -1 )
+        {
+            return null;
+        }
+        int dash = value.indexOf( '-' );
+        if ( dash == -1 )
+        {
+            return null;
+        }
+        try
+        {
+            String first = value.substring( 0, dash ).trim();
+            String last = value.substring( dash + 1 ).trim();
+            long start;
+            long end;
+            if ( first.isEmpty() )
+            {
+                // suffix range: the last n bytes
+                long suffix = Long.parseLong( last );
+                if ( suffix <= 0 )
+                {
+                    return UNSATISFIABLE_RANGE;
+                }
+                start = Math.max( 0, length - suffix );
+                end = length - 1;
+            }
+            else
+            {
+                start = Long.parseLong( first );
+                end = length - 1;
+                if ( !last.isEmpty() )
+                {
+                    long lastPosition = Long.parseLong( last );
+                    if ( lastPosition < start )
+                    {
+                        // syntactically invalid, ignore the header
+                        return null;
+                    }
+                    end = Math.min( lastPosition, end );
+                }
+            }
+            if ( start < 0 )
+            {
+                return null;
+            }
+            if ( start >= length )
+            {
+                return UNSATISFIABLE_RANGE;
+            }
+            return new long[]{ start, end };
+        }
+        catch ( NumberFormatException e )
+        {
+            return null;
+        }
+    }
 
+    /**
+     * Checks if an Accept-Encoding header allows the given content encoding.
+     *
+     * @param header   value of the Accept-Encoding header, may be {@code null}
+     * @param encoding the content encoding, e.g. {@code gzip}
+     * @return true if the encoding is listed with a non zero quality or covered by {@code *}
+     */
+    static boolean acceptsEncoding( String header, String encoding )
+    {
+        if ( header == null )
+        {
+            return false;
+        }
+        boolean accepted = false;
+        for ( String element : header.split( "," ) )
+        {
+            String[] parts = element.split( ";" );
+            String coding = parts[0].trim();
+            boolean allowed = true;
+            for ( int i = 1; i < parts.length; i++ )
+            {
+                String param = parts[i].trim();
+                if ( param.startsWith( "q=" ) )
+                {
+                    try
+                    {
+                        allowed = Double.parseDouble( param.substring( 2 ).trim() ) > 0;
+                    }
+                    catch ( NumberFormatException nfe )
+                    {
+                        allowed = false;
+                    }
+                }
+            }
+            if ( coding.equalsIgnoreCase( encoding ) )
+            {
+                // An explicit entry wins over the wildcard
+                return allowed;
+            }
+            if ( coding.equals( "*" ) )
+            {
+                accepted = allowed;
+            }
+        }
+        return accepted;
+    }
 
+    /**
+     * @param header value of an {@code If-None-Match} header, may be {@code null}
+     * @param etag the current entity tag
+     * @return true if one of the listed tags matches the current entity tag
+     * (weak comparison as required for If-None-Match)
+     */
+    static boolean matchesEntityTag( String header, String etag )
+    {
+        if ( header == null )
+        {
+            return false;
+        }
+        String opaqueTag = etag.startsWith( "W/" ) ? etag.substring( 2 ) : etag;
+        for ( String candidate : header.split( "," ) )
+        {
+            String tag = candidate.trim();
+            if ( tag.equals( "*" ) )
+            {
+                return true;
+            }
+            if ( tag.startsWith( "W/" ) )
+            {
+                tag = tag.substring( 2 );
+            }
+            if ( tag.equals( opaqueTag ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -47,12 +47,40 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /*
 * A class that generates and caches information about JarDiff files
 *
+* JarDiffs are generated on a bounded pool of worker threads. Concurrent
+* requests for the same JarDiff share a single generation, requests for
+* different JarDiffs do not block each other. Generated JarDiffs are kept
+* in a store on disk so they survive restarts of the servlet. A JarDiff in
+* the store is returned on the request thread, without involving a worker.
+* The store is limited in size, the least recently used JarDiffs are removed
+* beyond it.
 */
 public class JarDiffHandler
 {
@@ -62,10 +90,31 @@ public class JarDiffHandler
     // Default JARDiff mime type
     private static final String JARDIFF_MIMETYPE = "application/x-java-archive-diff";
 
+    // Default time a request waits for a JarDiff before the complete jar is returned
+    static final long DEFAULT_WAIT_MILLIS = 10 * 1000;
+
+    // Maximum number of JarDiffs waiting for a worker
+    private static final int MAX_QUEUED = 100;
+
+    private static final String STORE_SUFFIX = ".jardiff";
+
+    // Marker stored if the JarDiff is not worth sending, e.g. bigger than the jar
+    private static final String NO_JARDIFF_SUFFIX = ".none";
+
+    // Suffix of the JarDiffs in generation
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Default maximum size of the store
+    static final long DEFAULT_MAX_STORE_BYTES = 256L * 1024 * 1024;
+
+    // Age after which a JarDiff in generation was left behind by an interrupted generation
+    private static final long TEMP_FILE_AGE_MILLIS = 60 * 60 * 1000;
+
     /**
-     * List of all generated JARDiffs
+     * JARDiffs in generation. A completed generation is removed, later requests look the JarDiff up
+     * in the store, which notices replaced jars and deleted files.
      */
-    private HashMap _jarDiffEntries = null;
+    private final ConcurrentMap<JarDiffKey, Future<JarDiffEntry>> _jarDiffEntries = new ConcurrentHashMap<>();
 
     /**
      * Reference to ServletContext and logger object
@@ -76,9 +125,19 @@ public class JarDiffHandler
 
     private String _jarDiffMimeType = null;
 
+    private final ThreadPoolExecutor _executor;
+
+    private final long _waitMillis;
+
+    private final File _storeDir;
+
+    private final long _maxStoreBytes;
+
+    // Time each file of the store was last used by this servlet, by file name
+    private final ConcurrentMap<String, Long> _lastUsed = new ConcurrentHashMap<>();
+
     /* Contains information about a particular JARDiff entry */
     private static class JarDiffKey
-            implements Comparable
     {
         private String _name;        // Name of file
 
@@ -120,45 +179,51 @@ public class JarDiffHandler
             return _minimal;
         }
 
-        // Collection framework interface methods
-
-        public int compareTo( Object o )
+        public boolean equals( Object o )
         {
-            // All non JarDiff entries are less
             if ( !( o instanceof JarDiffKey ) )
             {
-                return -1;
+                return false;
             }
             JarDiffKey other = (JarDiffKey) o;
+            return _name.equals( other.getName() ) && _fromVersionId.equals( other.getFromVersionId() ) &&
+                    _toVersionId.equals( other.getToVersionId() ) && _minimal == other.isMinimal();
+        }
 
-            int n = _name.compareTo( other.getName() );
-            if ( n != 0 )
-            {
-                return n;
-            }
+        public int hashCode()
+        {
+            return ( ( _name.hashCode() * 31 + _fromVersionId.hashCode() ) * 31 + _toVersionId.hashCode() ) * 2 +
+                    ( _minimal ? 1 : 0 );
+        }
 
-            n = _fromVersionId.compareTo( other.getFromVersionId() );
-            if ( n != 0 )
+        /**
+         * @return a file name unique for this key
+         */
+        String getStoreName()
+        {
+            try
             {
-                return n;
+                MessageDigest digest = MessageDigest.getInstance( "SHA-256" );
+                byte[] hash = digest.digest(
+                        ( _name + "\n" + _fromVersionId + "\n" + _toVersionId + "\n" + _minimal ).getBytes(
+                                StandardCharsets.UTF_8 ) );
+                StringBuilder sb = new StringBuilder();
+                for ( byte b : hash )
+                {
+                    sb.append( String.format( "%02x", b ) );
+                }
+                return sb.toString();
             }
-
-            if ( _minimal != other.isMinimal() )
+            catch ( NoSuchAlgorithmException e )
             {
-                return -1;
+                // every Java implementation supports SHA-256
+                throw new IllegalStateException( e );
             }
-
-            return _toVersionId.compareTo( other.getToVersionId() );
-        }
-
-        public boolean equals( Object o )
-        {
-            return compareTo( o ) == 0;
         }
 
-        public int hashCode()
+        public String toString()
         {
-            return _name.hashCode() + _fromVersionId.hashCode() + _toVersionId.hashCode();
+            return _name + " " + _fromVersionId + "->" + _toVersionId + ( _minimal ? " (minimal)" : "" );
         }
     }
 
@@ -185,15 +250,66 @@ public class JarDiffHandler
      */
     public JarDiffHandler( ServletContext servletContext, Logger log )
     {
-        _jarDiffEntries = new HashMap();
+        this( servletContext, log, 0, DEFAULT_WAIT_MILLIS, null, DEFAULT_MAX_STORE_BYTES );
+    }
+
+    /**
+     * Initialize JarDiff handler
+     *
+     * @param servletContext the context of the servlet
+     * @param log            the logger
+     * @param threads        number of threads generating JarDiffs, 0 for the default
+     * @param waitMillis     time a request waits for a JarDiff in generation before the complete
+     *                       jar is returned instead, the generation continues in the background
+     * @param storeDir       directory the JarDiffs are stored in, {@code null} for the default
+     * @param maxStoreBytes  size of the store beyond which the least recently used JarDiffs are removed
+     */
+    public JarDiffHandler( ServletContext servletContext, Logger log, int threads, long waitMillis, File storeDir,
+                           long maxStoreBytes )
+    {
         _servletContext = servletContext;
         _log = log;
+        _waitMillis = waitMillis;
+        _maxStoreBytes = maxStoreBytes;
 
         _jarDiffMimeType = _servletContext.getMimeType( "xyz.jardiff" );
         if ( _jarDiffMimeType == null )
         {
             _jarDiffMimeType = JARDIFF_MIMETYPE;
         }
+
+        if ( storeDir == null )
+        {
+            File tempDir = (File) _servletContext.getAttribute( "javax.servlet.context.tempdir" );
+            if ( tempDir == null )
+            {
+                tempDir = new File( System.getProperty( "java.io.tmpdir" ) );
+            }
+            storeDir = new File( tempDir, "jardiff" );
+        }
+        _storeDir = storeDir;
+        if ( !_storeDir.isDirectory() && !_storeDir.mkdirs() )
+        {
+            _log.addDebug( "Can not create JarDiff store " + _storeDir );
+        }
+
+        if ( threads <= 0 )
+        {
+            threads = Math.max( 1, Runtime.getRuntime().availableProcessors() / 2 );
+        }
+        _executor = new ThreadPoolExecutor( threads, threads, 60, TimeUnit.SECONDS,
+                                            new LinkedBlockingQueue<Runnable>( MAX_QUEUED ), new WorkerThreadFactory() );
+        _executor.allowCoreThreadTimeOut( true );
+        // the store may have been left too big, or with leftovers of generations, by the last run
+        _executor.execute( this::pruneStore );
+    }
+
+    /**
+     * Stops the generation of JarDiffs. JarDiffs in generation are completed.
+     */
+    public void destroy()
+    {
+        _executor.shutdown();
     }
 
     /**
@@ -204,8 +320,7 @@ public class JarDiffHandler
      * @param res     TODO
      * @return TODO
      */
-    public synchronized DownloadResponse getJarDiffEntry( ResourceCatalog catalog, DownloadRequest dreq,
-                                                          JnlpResource res )
+    public DownloadResponse getJarDiffEntry( ResourceCatalog catalog, DownloadRequest dreq, JnlpResource res )
     {
         if ( dreq.getCurrentVersionId() == null )
         {
@@ -220,28 +335,82 @@ public class JarDiffHandler
         JarDiffKey key =
                 new JarDiffKey( res.getName(), dreq.getCurrentVersionId(), res.getReturnVersionId(), !doJarDiffWorkAround );
 
-        JarDiffEntry entry = (JarDiffEntry) _jarDiffEntries.get( key );
+        Future<JarDiffEntry> future = _jarDiffEntries.get( key );
         // If entry is not found, then the querty has not been made.
-        if ( entry == null )
+        if ( future == null )
         {
-            if ( _log.isInformationalLevel() )
+            // Lookup up file for request version, the request must not be used by the worker
+            JnlpResource fromRes;
+            try
             {
-                _log.addInformational( "servlet.log.info.jardiff.gen", res.getName(), dreq.getCurrentVersionId(),
-                                       res.getReturnVersionId() );
+                fromRes = catalog.lookupResource( dreq.getFromDownloadRequest() );
             }
-            File f = generateJarDiff( catalog, dreq, res, doJarDiffWorkAround );
-            if ( f == null )
+            catch ( ErrorResponseException e )
             {
-                _log.addWarning( "servlet.log.warning.jardiff.failed", res.getName(), dreq.getCurrentVersionId(),
-                                 res.getReturnVersionId() );
+                _log.addDebug( "Failed to genereate jardiff", e );
+                return null;
+            }
+
+            JarDiffEntry stored = lookupStore( key, fromRes, res );
+            if ( stored != null )
+            {
+                return toResponse( stored, res );
+            }
+
+            FutureTask<JarDiffEntry> task = new FutureTask<JarDiffEntry>( () -> createJarDiffEntry( key, fromRes, res ) )
+            {
+                @Override
+                protected void done()
+                {
+                    _jarDiffEntries.remove( key, this );
+                }
+            };
+            future = _jarDiffEntries.putIfAbsent( key, task );
+            if ( future == null )
+            {
+                future = task;
+                try
+                {
+                    _executor.execute( task );
+                }
+                catch ( RejectedExecutionException ree )
+                {
+                    // Too many JarDiffs in generation, send the jar and try again with the next request
+                    _log.addDebug( "JarDiff generation rejected for " + key );
+                    _jarDiffEntries.remove( key, task );
+                    return null;
+                }
             }
-            // Store entry in table
-            entry = new JarDiffEntry( f );
-            _jarDiffEntries.put( key, entry );
         }
 
+        JarDiffEntry entry;
+        try
+        {
+            entry = future.get( _waitMillis, TimeUnit.MILLISECONDS );
+        }
+        catch ( TimeoutException te )
+        {
+            _log.addDebug( "JarDiff for " + key + " not ready, returning complete jar" );
+            return null;
+        }
+        catch ( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch ( ExecutionException ee )
+        {
+            _log.addDebug( "Failed to genereate jardiff", ee.getCause() );
+            return null;
+        }
+
+        return toResponse( entry, res );
+    }
+
+    private DownloadResponse toResponse( JarDiffEntry entry, JnlpResource res )
+    {
         // Check for no JarDiff to return
-        if ( entry.getJarDiffFile() == null )
+        if ( entry.getJarDiffFile() == null || !entry.getJarDiffFile().isFile() )
         {
             return null;
         }
@@ -253,6 +422,132 @@ public class JarDiffHandler
         }
     }
 
+    /**
+     * @return the JarDiff in the store, or {@code null} if it is not stored or one of the jars was
+     * replaced since
+     */
+    private JarDiffEntry lookupStore( JarDiffKey key, JnlpResource fromRes, JnlpResource res )
+    {
+        String storeName = key.getStoreName();
+        File storedFile = new File( _storeDir, storeName + STORE_SUFFIX );
+        File noJarDiffFile = new File( _storeDir, storeName + NO_JARDIFF_SUFFIX );
+        long sourcesModified = Math.max( fromRes.getLastModified(), res.getLastModified() );
+
+        // Stored results are valid as long as none of the jars was replaced
+        if ( storedFile.isFile() && storedFile.lastModified() >= sourcesModified )
+        {
+            _log.addDebug( "JarDiff for " + key + " found in store: " + storedFile );
+            _lastUsed.put( storedFile.getName(), System.currentTimeMillis() );
+            return new JarDiffEntry( storedFile );
+        }
+        if ( noJarDiffFile.isFile() && noJarDiffFile.lastModified() >= sourcesModified )
+        {
+            _lastUsed.put( noJarDiffFile.getName(), System.currentTimeMillis() );
+            return new JarDiffEntry( null );
+        }
+        return null;
+    }
+
+    /**
+     * Looks up the JarDiff in the store and generates it if necessary. Runs on a worker thread.
+     */
+    private JarDiffEntry createJarDiffEntry( JarDiffKey key, JnlpResource fromRes, JnlpResource res )
+            throws IOException
+    {
+        // Another generation may have stored it meanwhile
+        JarDiffEntry stored = lookupStore( key, fromRes, res );
+        if ( stored != null )
+        {
+            return stored;
+        }
+        String storeName = key.getStoreName();
+        File storedFile = new File( _storeDir, storeName + STORE_SUFFIX );
+        File noJarDiffFile = new File( _storeDir, storeName + NO_JARDIFF_SUFFIX );
+
+        if ( _log.isInformationalLevel() )
+        {
+            _log.addInformational( "servlet.log.info.jardiff.gen", key.getName(), key.getFromVersionId(),
+                                   key.getToVersionId() );
+        }
+        File f;
+        try
+        {
+            f = generateJarDiff( fromRes, res, !key.isMinimal() );
+        }
+        catch ( IOException ioe )
+        {
+            // not remembered, the next request tries again
+            _log.addWarning( "servlet.log.warning.jardiff.failed", key.getName(), key.getFromVersionId(),
+                             key.getToVersionId() );
+            throw ioe;
+        }
+        if ( f == null )
+        {
+            Files.deleteIfExists( storedFile.toPath() );
+            if ( !noJarDiffFile.createNewFile() )
+            {
+                noJarDiffFile.setLastModified( System.currentTimeMillis() );
+            }
+            return new JarDiffEntry( null );
+        }
+
+        // Publish atomically, readers never see a partially written JarDiff
+        Files.move( f.toPath(), storedFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE );
+        Files.deleteIfExists( noJarDiffFile.toPath() );
+        pruneStore();
+        return new JarDiffEntry( storedFile );
+    }
+
+    /**
+     * Removes the least recently used JarDiffs while the store is bigger than its maximum size,
+     * and the leftovers of interrupted generations.
+     */
+    private synchronized void pruneStore()
+    {
+        File[] files = _storeDir.listFiles();
+        if ( files == null )
+        {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<File> stored = new ArrayList<>();
+        Map<File, Long> lastUsed = new HashMap<>();
+        long size = 0;
+        for ( File file : files )
+        {
+            String name = file.getName();
+            if ( name.endsWith( STORE_SUFFIX ) || name.endsWith( NO_JARDIFF_SUFFIX ) )
+            {
+                stored.add( file );
+                lastUsed.put( file, Math.max( file.lastModified(), _lastUsed.getOrDefault( name, 0L ) ) );
+                size += file.length();
+            }
+            else if ( name.endsWith( TEMP_SUFFIX ) && file.lastModified() < now - TEMP_FILE_AGE_MILLIS )
+            {
+                file.delete();
+            }
+        }
+        if ( size <= _maxStoreBytes )
+        {
+            return;
+        }
+        stored.sort( Comparator.comparing( lastUsed::get ) );
+        for ( File file : stored )
+        {
+            if ( size <= _maxStoreBytes )
+            {
+                break;
+            }
+            long length = file.length();
+            if ( file.delete() )
+            {
+                _log.addDebug( "Removed JarDiff " + file + " from the store" );
+                _lastUsed.remove( file.getName() );
+                size -= length;
+            }
+        }
+    }
 
     public static boolean isJavawsVersion( DownloadRequest dreq, String version )
     {
@@ -400,22 +695,23 @@ public class JarDiffHandler
     }
 
 
-    private File generateJarDiff( ResourceCatalog catalog, DownloadRequest dreq, JnlpResource res,
-                                  boolean doJarDiffWorkAround )
+    /**
+     * @return the generated JarDiff or {@code null} if it is not smaller than the jar
+     */
+    private File generateJarDiff( JnlpResource fromRes, JnlpResource res, boolean doJarDiffWorkAround )
+            throws IOException
     {
         boolean del_old = false;
         boolean del_new = false;
 
-        // Lookup up file for request version
-        DownloadRequest fromDreq = dreq.getFromDownloadRequest();
+        /* Get file locations */
+        String newFilePath = _servletContext.getRealPath( res.getPath() );
+        String oldFilePath = _servletContext.getRealPath( fromRes.getPath() );
+
+        File outputFile = null;
+        boolean keep = false;
         try
         {
-            JnlpResource fromRes = catalog.lookupResource( fromDreq );
-
-            /* Get file locations */
-            String newFilePath = _servletContext.getRealPath( res.getPath() );
-            String oldFilePath = _servletContext.getRealPath( fromRes.getPath() );
-
             // fix for 4720897
             if ( newFilePath == null )
             {
@@ -437,75 +733,76 @@ public class JarDiffHandler
 
             if ( newFilePath == null || oldFilePath == null )
             {
-                return null;
+                throw new IOException( "Can not access " + res.getPath() + " or " + fromRes.getPath() );
             }
 
-            // Create temp. file to store JarDiff file in
-            File tempDir = (File) _servletContext.getAttribute( "javax.servlet.context.tempdir" );
-
-            // fix for 4653036: JarDiffHandler() should use javax.servlet.context.tempdir to store the jardiff
-            File outputFile = File.createTempFile( "jnlp", ".jardiff", tempDir );
+            // Create temp. file in the store to store JarDiff file in
+            outputFile = File.createTempFile( "jnlp", TEMP_SUFFIX, _storeDir );
 
             _log.addDebug(
                     "Generating Jardiff between " + oldFilePath + " and " + newFilePath + " Store in " + outputFile );
 
             // Generate JarDiff
-            OutputStream os = new FileOutputStream( outputFile );
-
-            JarDiff.createPatch( oldFilePath, newFilePath, os, !doJarDiffWorkAround );
-            os.close();
+            try ( OutputStream os = new BufferedOutputStream( new FileOutputStream( outputFile ) ) )
+            {
+                JarDiff.createPatch( oldFilePath, newFilePath, os, !doJarDiffWorkAround );
+            }
 
-            try
+            // Check that Jardiff is smaller, or return null
+            if ( outputFile.length() >= ( new File( newFilePath ).length() ) )
             {
+                _log.addDebug( "JarDiff discarded - since it is bigger" );
+                return null;
+            }
 
-                // Check that Jardiff is smaller, or return null
-                if ( outputFile.length() >= ( new File( newFilePath ).length() ) )
+            // Check that Jardiff is smaller than the packed version of
+            // the new file, if the file exists at all
+            File newFilePacked = new File( newFilePath + ".pack.gz" );
+            if ( newFilePacked.exists() )
+            {
+                _log.addDebug( "generated jardiff size: " + outputFile.length() );
+                _log.addDebug( "packed requesting file size: " + newFilePacked.length() );
+                if ( outputFile.length() >= newFilePacked.length() )
                 {
-                    _log.addDebug( "JarDiff discarded - since it is bigger" );
+                    _log.addDebug( "JarDiff discarded - packed version of requesting file is smaller" );
                     return null;
                 }
+            }
 
-                // Check that Jardiff is smaller than the packed version of
-                // the new file, if the file exists at all
-                File newFilePacked = new File( newFilePath + ".pack.gz" );
-                if ( newFilePacked.exists() )
-                {
-                    _log.addDebug( "generated jardiff size: " + outputFile.length() );
-                    _log.addDebug( "packed requesting file size: " + newFilePacked.length() );
-                    if ( outputFile.length() >= newFilePacked.length() )
-                    {
-                        _log.addDebug( "JarDiff discarded - packed version of requesting file is smaller" );
-                        return null;
-                    }
-                }
-
-                _log.addDebug( "JarDiff generation succeeded" );
-                return outputFile;
-
+            _log.addDebug( "JarDiff generation succeeded" );
+            keep = true;
+            return outputFile;
+        }
+        finally
+        {
+            if ( outputFile != null && !keep )
+            {
+                outputFile.delete();
             }
-            finally
+
+            // delete the temporarily downloaded file
+            if ( del_new )
             {
-                // delete the temporarily downloaded file
-                if ( del_new )
-                {
-                    new File( newFilePath ).delete();
-                }
+                new File( newFilePath ).delete();
+            }
 
-                if ( del_old )
-                {
-                    new File( oldFilePath ).delete();
-                }
+            if ( del_old )
+            {
+                new File( oldFilePath ).delete();
             }
         }
-        catch ( IOException ioe )
-        {
-            _log.addDebug( "Failed to genereate jardiff", ioe );
-            return null;
-        }
-        catch ( ErrorResponseException ere )
+    }
+
+    private static class WorkerThreadFactory
+            implements ThreadFactory
+    {
+        private final AtomicInteger _count = new AtomicInteger();
+
+        public Thread newThread( Runnable r )
         {
-            _log.addDebug( "Failed to genereate jardiff", ere );
-            return null;
+            Thread thread = new Thread( r, "jardiff-worker-" + _count.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
         }
     }
 }
@@ -41,6 +41,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
 import java.io.IOException;
 import java.util.ResourceBundle;
 
@@ -58,6 +59,23 @@ import java.util.ResourceBundle;
  * <li><code>current-version-id</code>,</li>
  * <li><code>known-platforms</code></li>
  * </ul>
+ * <p>
+ * JarDiff generation can be tuned with the init parameters
+ * <code>jardiff-threads</code> (number of generating threads),
+ * <code>jardiff-wait</code> (milliseconds a request waits for a JarDiff
+ * before the complete jar is returned) and <code>jardiff-store</code>
+ * (directory keeping the generated JarDiffs across restarts).
+ * <p>
+ * Directories of the Web Archive are watched for changes. Where that is not
+ * possible, they are checked every <code>catalog-refresh</code> milliseconds.
+ * Watching can be turned off by setting <code>catalog-watch</code> to
+ * <code>false</code>.
+ * <p>
+ * Pre-compressed variants of jar files (<code>.pack.gz</code>,
+ * <code>.br</code>, <code>.zst</code> and <code>.gz</code>) are returned
+ * to clients accepting their content encoding. With the init parameter
+ * <code>precompress</code> set to <code>true</code>, missing gzip variants
+ * are created in the background on startup, see {@link Precompressor}.
  *
  * @version 1.8 01/23/03
  */
@@ -75,6 +93,20 @@ public class JnlpDownloadServlet
 
     private static final String PARAM_JNLP_FILE_HANDLER_HOOK = "jnlp-file-handler-hook";
 
+    private static final String PARAM_JARDIFF_THREADS = "jardiff-threads";
+
+    private static final String PARAM_JARDIFF_WAIT = "jardiff-wait";
+
+    private static final String PARAM_JARDIFF_STORE = "jardiff-store";
+
+    private static final String PARAM_JARDIFF_STORE_MAX_MB = "jardiff-store-max-mb";
+
+    private static final String PARAM_CATALOG_REFRESH = "catalog-refresh";
+
+    private static final String PARAM_CATALOG_WATCH = "catalog-watch";
+
+    private static final String PARAM_PRECOMPRESS = "precompress";
+
     // Servlet configuration
     private Logger _log = null;
 
@@ -102,8 +134,82 @@ public class JnlpDownloadServlet
 
         JnlpFileHandlerHook hook = createHook( config.getInitParameter(PARAM_JNLP_FILE_HANDLER_HOOK) );
 	_jnlpFileHandler = new JnlpFileHandler( config.getServletContext(), hook, _log );
-        _jarDiffHandler = new JarDiffHandler( config.getServletContext(), _log );
-        _resourceCatalog = new ResourceCatalog( config.getServletContext(), _log );
+        String jarDiffStore = config.getInitParameter( PARAM_JARDIFF_STORE );
+        _jarDiffHandler = new JarDiffHandler( config.getServletContext(), _log,
+                                              getIntParameter( config, PARAM_JARDIFF_THREADS, 0 ),
+                                              getIntParameter( config, PARAM_JARDIFF_WAIT,
+                                                               (int) JarDiffHandler.DEFAULT_WAIT_MILLIS ),
+                                              jarDiffStore != null ? new File( jarDiffStore ) : null,
+                                              getIntParameter( config, PARAM_JARDIFF_STORE_MAX_MB,
+                                                               (int) ( JarDiffHandler.DEFAULT_MAX_STORE_BYTES / ( 1024 * 1024 ) ) )
+                                                      * 1024L * 1024 );
+        _resourceCatalog = new ResourceCatalog( config.getServletContext(), _log,
+                                                getIntParameter( config, PARAM_CATALOG_REFRESH,
+                                                                 (int) ResourceCatalog.DEFAULT_REFRESH_MILLIS ),
+                                                !"false".equalsIgnoreCase( config.getInitParameter( PARAM_CATALOG_WATCH ) ) );
+        if ( "true".equalsIgnoreCase( config.getInitParameter( PARAM_PRECOMPRESS ) ) )
+        {
+            startPrecompression( config.getServletContext().getRealPath( "/" ) );
+        }
+    }
+
+    public void destroy()
+    {
+        if ( _jarDiffHandler != null )
+        {
+            _jarDiffHandler.destroy();
+        }
+        if ( _resourceCatalog != null )
+        {
+            _resourceCatalog.destroy();
+        }
+        super.destroy();
+    }
+
+    /**
+     * Creates the missing gzip variants of the jar files in the background
+     */
+    private void startPrecompression( final String root )
+    {
+        if ( root == null )
+        {
+            // Not an exploded Web Archive
+            return;
+        }
+        Thread thread = new Thread( new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    int created = new Precompressor( JnlpResource.getJarExtension() ).compress( new File( root ) );
+                    _log.addInformational( "servlet.log.info.precompress", Integer.toString( created ), root );
+                }
+                catch ( IOException | RuntimeException e )
+                {
+                    _log.addWarning( "servlet.log.warning.precompress", root, e );
+                }
+            }
+        }, "jnlp-precompress" );
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+    private int getIntParameter( ServletConfig config, String name, int defaultValue )
+    {
+        String value = config.getInitParameter( name );
+        if ( value != null )
+        {
+            try
+            {
+                return Integer.parseInt( value.trim() );
+            }
+            catch ( NumberFormatException nfe )
+            {
+                _log.addDebug( "Invalid value for " + name + ": " + value );
+            }
+        }
+        return defaultValue;
     }
 
     /**
@@ -217,7 +323,7 @@ public class JnlpDownloadServlet
                 dres = constructResponse( jnlpres, dreq );
             }
 
-            dres.sendRespond( response );
+            dres.sendRespond( request, response );
 
         }
         catch ( ErrorResponseException ere )
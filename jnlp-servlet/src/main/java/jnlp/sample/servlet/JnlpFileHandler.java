@@ -43,7 +43,6 @@ import org.w3c.dom.NodeList;
 
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpUtils;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.Transformer;
@@ -52,16 +51,20 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.StringWriter;
-import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
 
 /* The JNLP file handler implements a class that keeps
  * track of JNLP files and their specializations
@@ -70,13 +73,24 @@ public class JnlpFileHandler
 {
     private static final String JNLP_MIME_TYPE = "application/x-java-jnlp-file";
 
+    // Macros in the order their values are passed to JnlpTemplate.specialize
+    private static final String[] MACROS = { "$$name", "$$hostname", "$$codebase", "$$context", "$$site" };
+
+    // Upper bound for the cached responses, the host name is part of the key and chosen by the client
+    private static final int MAX_CACHED_RESPONSES = 1000;
+
+    private static final ThreadLocal<ByteArrayOutputStream> specializationBuffer =
+            ThreadLocal.withInitial( () -> new ByteArrayOutputStream( 8 * 1024 ) );
+
     private ServletContext _servletContext;
 
     private JnlpFileHandlerHook _hook;
 
     private Logger _log = null;
 
-    private HashMap _jnlpFiles = null;
+    private final ConcurrentMap<String, JnlpTemplate> _templates = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, JnlpFileEntry> _jnlpFiles = new ConcurrentHashMap<>();
 
     /**
      * Initialize JnlpFileHandler for the specific ServletContext
@@ -89,16 +103,15 @@ public class JnlpFileHandler
         _servletContext = servletContext;
         _hook = hook;
         _log = log;
-        _jnlpFiles = new HashMap();
     }
 
     private static class JnlpFileEntry
     {
         // Response
-        DownloadResponse _response;
+        private final DownloadResponse _response;
 
         // Keeps track of cache is out of date
-        private long _lastModified;
+        private final long _lastModified;
 
         // Constructor
         JnlpFileEntry( DownloadResponse response, long lastmodfied )
@@ -118,82 +131,140 @@ public class JnlpFileHandler
         }
     }
 
-    /* Main method to lookup an entry */
-    public synchronized DownloadResponse getJnlpFile( JnlpResource jnlpres, DownloadRequest dreq )
-            throws IOException
+    /**
+     * A JNLP file split up into UTF-8 encoded literal text and the macros between
+     * them, so it can be specialized for a request in a single pass.
+     */
+    private static class JnlpTemplate
     {
-        String path = jnlpres.getPath();
-        URL resource = jnlpres.getResource();
-        long lastModified = jnlpres.getLastModified();
+        private final long _lastModified;
 
-        _log.addDebug( "lastModified: " + lastModified + " " + new Date( lastModified ) );
-        if ( lastModified == 0 )
+        private final long _timeStamp;
+
+        // _literals[i] is followed by the macro _macros[i], the last literal has no macro
+        private final byte[][] _literals;
+
+        private final int[] _macros;
+
+        JnlpTemplate( String template, long lastModified, long timeStamp )
         {
-            _log.addWarning( "servlet.log.warning.nolastmodified", path );
+            _lastModified = lastModified;
+            _timeStamp = timeStamp;
+            List<byte[]> literals = new ArrayList<>();
+            List<Integer> macros = new ArrayList<>();
+            int start = 0;
+            int idx = template.indexOf( "$$" );
+            while ( idx != -1 )
+            {
+                int macro = findMacro( template, idx );
+                if ( macro == -1 )
+                {
+                    idx = template.indexOf( "$$", idx + 1 );
+                    continue;
+                }
+                literals.add( template.substring( start, idx ).getBytes( StandardCharsets.UTF_8 ) );
+                macros.add( macro );
+                start = idx + MACROS[macro].length();
+                idx = template.indexOf( "$$", start );
+            }
+            literals.add( template.substring( start ).getBytes( StandardCharsets.UTF_8 ) );
+            _literals = literals.toArray( new byte[0][] );
+            _macros = new int[macros.size()];
+            for ( int i = 0; i < _macros.length; i++ )
+            {
+                _macros[i] = macros.get( i );
+            }
         }
 
-        // fix for 4474854:  use the request URL as key to look up jnlp file
-        // in hash map
-        String reqUrl = HttpUtils.getRequestURL( dreq.getHttpRequest() ).toString();
-
-        // Check if entry already exist in HashMap
-        JnlpFileEntry jnlpFile = (JnlpFileEntry) _jnlpFiles.get( reqUrl );
+        private static int findMacro( String template, int idx )
+        {
+            for ( int i = 0; i < MACROS.length; i++ )
+            {
+                if ( template.startsWith( MACROS[i], idx ) )
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
 
-        if ( jnlpFile != null && jnlpFile.getLastModified() == lastModified )
+        long getLastModified()
         {
-            // Entry found in cache, so return it
-            return jnlpFile.getResponse();
+            return _lastModified;
         }
 
-        // Read information from WAR file
-        long timeStamp = lastModified;
-        String mimeType = _servletContext.getMimeType( path );
-        if ( mimeType == null )
+        long getTimeStamp()
         {
-            mimeType = JNLP_MIME_TYPE;
+            return _timeStamp;
         }
 
-        StringBuilder jnlpFileTemplate = new StringBuilder();
-        URLConnection conn = resource.openConnection();
-        BufferedReader br = new BufferedReader( new InputStreamReader( conn.getInputStream(), "UTF-8" ) );
-        String line = br.readLine();
-        if ( line != null && line.startsWith( "TS:" ) )
+        /**
+         * @param values the values of the macros, in the order of {@link #MACROS}
+         * @return the UTF-8 encoded JNLP file
+         */
+        byte[] specialize( String[] values )
         {
-            timeStamp = parseTimeStamp( line.substring( 3 ) );
-            _log.addDebug( "Timestamp: " + timeStamp + " " + new Date( timeStamp ) );
-            if ( timeStamp == 0 )
+            byte[][] encoded = new byte[values.length][];
+            for ( int i = 0; i < values.length; i++ )
             {
-                _log.addWarning( "servlet.log.warning.notimestamp", path );
-                timeStamp = lastModified;
+                encoded[i] = values[i].getBytes( StandardCharsets.UTF_8 );
             }
-            line = br.readLine();
+            ByteArrayOutputStream out = specializationBuffer.get();
+            out.reset();
+            for ( int i = 0; i < _macros.length; i++ )
+            {
+                out.write( _literals[i], 0, _literals[i].length );
+                byte[] value = encoded[_macros[i]];
+                out.write( value, 0, value.length );
+            }
+            byte[] last = _literals[_literals.length - 1];
+            out.write( last, 0, last.length );
+            return out.toByteArray();
         }
-        while ( line != null )
+    }
+
+    /* Main method to lookup an entry */
+    public DownloadResponse getJnlpFile( JnlpResource jnlpres, DownloadRequest dreq )
+            throws IOException
+    {
+        HttpServletRequest request = dreq.getHttpRequest();
+        String path = jnlpres.getPath();
+        long lastModified = jnlpres.getLastModified();
+
+        _log.addDebug( "lastModified: " + lastModified + " " + new Date( lastModified ) );
+        if ( lastModified == 0 )
         {
-            jnlpFileTemplate.append( line );
-            line = br.readLine();
+            _log.addWarning( "servlet.log.warning.nolastmodified", path );
         }
 
-        String jnlpFileContent = specializeJnlpTemplate( dreq.getHttpRequest(), path, jnlpFileTemplate.toString() );
+        // The content only depends on the resource and the parts of the request used by the macros
+        String key = getCacheKey( path, request, null );
+
+        // Check if entry already exist in cache
+        JnlpFileEntry jnlpFile = _jnlpFiles.get( key );
+        if ( jnlpFile != null && jnlpFile.getLastModified() == lastModified )
+        {
+            // Entry found in cache, so return it
+            return jnlpFile.getResponse();
+        }
 
-        // Convert to bytes as a UTF-8 encoding
-        byte[] byteContent = jnlpFileContent.getBytes( "UTF-8" );
+        JnlpTemplate template = getTemplate( jnlpres );
+        byte[] byteContent = template.specialize( getMacroValues( request, path ) );
 
         // Create entry
-        DownloadResponse resp =
-                DownloadResponse.getFileDownloadResponse( byteContent, mimeType, timeStamp, jnlpres.getReturnVersionId() );
-        jnlpFile = new JnlpFileEntry( resp, lastModified );
-        _jnlpFiles.put( reqUrl, jnlpFile );
+        DownloadResponse resp = createResponse( byteContent, getMimeType( path ), template.getTimeStamp(),
+                                                jnlpres.getReturnVersionId() );
+        cacheResponse( key, new JnlpFileEntry( resp, lastModified ) );
 
         return resp;
     }
 
     /* Main method to lookup an entry (NEW for JavaWebStart 1.5+) */
-    public synchronized DownloadResponse getJnlpFileEx( JnlpResource jnlpres, DownloadRequest dreq )
+    public DownloadResponse getJnlpFileEx( JnlpResource jnlpres, DownloadRequest dreq )
             throws IOException
     {
+        HttpServletRequest request = dreq.getHttpRequest();
         String path = jnlpres.getPath();
-        URL resource = jnlpres.getResource();
         long lastModified = jnlpres.getLastModified();
 
         _log.addDebug( "lastModified: " + lastModified + " " + new Date( lastModified ) );
@@ -202,54 +273,20 @@ public class JnlpFileHandler
             _log.addWarning( "servlet.log.warning.nolastmodified", path );
         }
 
-        // fix for 4474854:  use the request URL as key to look up jnlp file
-        // in hash map
-        String reqUrl = HttpUtils.getRequestURL( dreq.getHttpRequest() ).toString();
-        // SQE: To support query string, we changed the hash key from Request URL to (Request URL + query string)
-        if ( dreq.getQuery() != null )
-        {
-            reqUrl += dreq.getQuery();
-        }
-
-        // Check if entry already exist in HashMap
-        JnlpFileEntry jnlpFile = (JnlpFileEntry) _jnlpFiles.get( reqUrl );
+        // SQE: To support query string, the query string is part of the key
+        String key = getCacheKey( path, request, dreq.getQuery() );
 
+        // Check if entry already exist in cache
+        JnlpFileEntry jnlpFile = _jnlpFiles.get( key );
         if ( jnlpFile != null && jnlpFile.getLastModified() == lastModified )
         {
             // Entry found in cache, so return it
             return jnlpFile.getResponse();
         }
 
-        // Read information from WAR file
-        long timeStamp = lastModified;
-        String mimeType = _servletContext.getMimeType( path );
-        if ( mimeType == null )
-        {
-            mimeType = JNLP_MIME_TYPE;
-        }
-
-        StringBuilder jnlpFileTemplate = new StringBuilder();
-        URLConnection conn = resource.openConnection();
-        BufferedReader br = new BufferedReader( new InputStreamReader( conn.getInputStream(), "UTF-8" ) );
-        String line = br.readLine();
-        if ( line != null && line.startsWith( "TS:" ) )
-        {
-            timeStamp = parseTimeStamp( line.substring( 3 ) );
-            _log.addDebug( "Timestamp: " + timeStamp + " " + new Date( timeStamp ) );
-            if ( timeStamp == 0 )
-            {
-                _log.addWarning( "servlet.log.warning.notimestamp", path );
-                timeStamp = lastModified;
-            }
-            line = br.readLine();
-        }
-        while ( line != null )
-        {
-            jnlpFileTemplate.append( line );
-            line = br.readLine();
-        }
-
-        String jnlpFileContent = specializeJnlpTemplate( dreq.getHttpRequest(), path, jnlpFileTemplate.toString() );
+        JnlpTemplate template = getTemplate( jnlpres );
+        long timeStamp = template.getTimeStamp();
+        byte[] byteContent = template.specialize( getMacroValues( request, path ) );
 
         /* SQE: We need to add query string back to href in jnlp file. We also need to handle JRE requirement for
        * the test. We reconstruct the xml DOM object, modify the value, then regenerate the jnlpFileContent.
@@ -262,8 +299,7 @@ public class JnlpFileHandler
         // approach to always check href value caused some test case not run.
         if ( query != null )
         {
-            byte[] cb = jnlpFileContent.getBytes( "UTF-8" );
-            ByteArrayInputStream bis = new ByteArrayInputStream( cb );
+            ByteArrayInputStream bis = new ByteArrayInputStream( byteContent );
             try
             {
                 DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
@@ -302,7 +338,8 @@ public class JnlpFileHandler
                     StringWriter sw = new StringWriter();
                     StreamResult result = new StreamResult( sw );
                     transformer.transform( source, result );
-                    jnlpFileContent = sw.toString();
+                    String jnlpFileContent = sw.toString();
+                    byteContent = jnlpFileContent.getBytes( StandardCharsets.UTF_8 );
                     _log.addDebug( "Converted jnlpFileContent: " + jnlpFileContent );
                     // Since we modified the file on the fly, we always update the timestamp value with current time
                     if ( modified )
@@ -318,42 +355,126 @@ public class JnlpFileHandler
             }
         }
 
-        // Convert to bytes as a UTF-8 encoding
-        byte[] byteContent = jnlpFileContent.getBytes( "UTF-8" );
-
         // Create entry
         DownloadResponse resp =
-                DownloadResponse.getFileDownloadResponse( byteContent, mimeType, timeStamp, jnlpres.getReturnVersionId() );
-        jnlpFile = new JnlpFileEntry( resp, lastModified );
-        _jnlpFiles.put( reqUrl, jnlpFile );
+                createResponse( byteContent, getMimeType( path ), timeStamp, jnlpres.getReturnVersionId() );
+        cacheResponse( key, new JnlpFileEntry( resp, lastModified ) );
 
         return resp;
     }
 
+    private String getMimeType( String path )
+    {
+        String mimeType = _servletContext.getMimeType( path );
+        return mimeType != null ? mimeType : JNLP_MIME_TYPE;
+    }
+
+    private String getCacheKey( String path, HttpServletRequest request, String query )
+    {
+        return path + '|' + request.getScheme() + '|' + request.getServerName() + '|' + request.getServerPort() +
+                '|' + request.getContextPath() + ( query != null ? "?" + query : "" );
+    }
+
+    private void cacheResponse( String key, JnlpFileEntry entry )
+    {
+        if ( _jnlpFiles.size() >= MAX_CACHED_RESPONSES && !_jnlpFiles.containsKey( key ) )
+        {
+            _jnlpFiles.clear();
+        }
+        _jnlpFiles.put( key, entry );
+    }
+
+    /**
+     * Creates the response with its entity tag and, if it is smaller, a gzip compressed variant.
+     */
+    private DownloadResponse createResponse( byte[] content, String mimeType, long timeStamp, String versionId )
+            throws IOException
+    {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream( content.length / 2 + 64 );
+        try ( GZIPOutputStream gzip = new GZIPOutputStream( compressed ) )
+        {
+            gzip.write( content );
+        }
+        byte[] gzipContent = compressed.size() < content.length ? compressed.toByteArray() : null;
+        return DownloadResponse.getFileDownloadResponse( content, gzipContent, mimeType, timeStamp, versionId );
+    }
+
     /**
-     * This method performs the following substituations
+     * Returns the tokenized template of the resource. It is read again if the resource changed.
+     */
+    private JnlpTemplate getTemplate( JnlpResource jnlpres )
+            throws IOException
+    {
+        String path = jnlpres.getPath();
+        long lastModified = jnlpres.getLastModified();
+        JnlpTemplate template = _templates.get( path );
+        if ( template == null || template.getLastModified() != lastModified )
+        {
+            template = readTemplate( jnlpres );
+            _templates.put( path, template );
+        }
+        return template;
+    }
+
+    private JnlpTemplate readTemplate( JnlpResource jnlpres )
+            throws IOException
+    {
+        // Read information from WAR file
+        String path = jnlpres.getPath();
+        long lastModified = jnlpres.getLastModified();
+        long timeStamp = lastModified;
+
+        StringBuilder jnlpFileTemplate = new StringBuilder();
+        URLConnection conn = jnlpres.getResource().openConnection();
+        try ( BufferedReader br = new BufferedReader( new InputStreamReader( conn.getInputStream(), "UTF-8" ) ) )
+        {
+            String line = br.readLine();
+            if ( line != null && line.startsWith( "TS:" ) )
+            {
+                timeStamp = parseTimeStamp( line.substring( 3 ) );
+                _log.addDebug( "Timestamp: " + timeStamp + " " + new Date( timeStamp ) );
+                if ( timeStamp == 0 )
+                {
+                    _log.addWarning( "servlet.log.warning.notimestamp", path );
+                    timeStamp = lastModified;
+                }
+                line = br.readLine();
+            }
+            while ( line != null )
+            {
+                jnlpFileTemplate.append( line );
+                line = br.readLine();
+            }
+        }
+        return new JnlpTemplate( jnlpFileTemplate.toString(), lastModified, timeStamp );
+    }
+
+    /**
+     * This method computes the values of the following macros, in the order of {@link #MACROS}
      * $$name
+     * $$hostname
      * $$codebase
      * $$context
+     * $$site
      *
      * @param request      TODO
      * @param respath      TODO
-     * @param jnlpTemplate TODO
      */
-    private String specializeJnlpTemplate( HttpServletRequest request, String respath, String jnlpTemplate )
+    private String[] getMacroValues( HttpServletRequest request, String respath )
     {
         String urlprefix = getUrlPrefix( request );
         int idx = respath.lastIndexOf( '/' ); //
         String name = respath.substring( idx + 1 );    // Exclude /
         String codebase = respath.substring( 0, idx + 1 ); // Include /
-        jnlpTemplate = substitute( jnlpTemplate, "$$name", name );
-        // fix for 5039951: Add $$hostname macro
-        jnlpTemplate = substitute( jnlpTemplate, "$$hostname", request.getServerName() );
-        jnlpTemplate = substitute( jnlpTemplate, "$$codebase", urlprefix + request.getContextPath() + codebase );
-        jnlpTemplate = substitute( jnlpTemplate, "$$context", urlprefix + request.getContextPath() );
-        // fix for 6256326: add $$site macro to sample jnlp servlet
-        jnlpTemplate = substitute( jnlpTemplate, "$$site", urlprefix );
-        return jnlpTemplate;
+        return new String[]{
+                name,
+                // fix for 5039951: Add $$hostname macro
+                request.getServerName(),
+                urlprefix + request.getContextPath() + codebase,
+                urlprefix + request.getContextPath(),
+                // fix for 6256326: add $$site macro to sample jnlp servlet
+                urlprefix
+        };
     }
 
     // This code is heavily inspired by the stuff in HttpUtils.getRequestURL
@@ -373,22 +494,6 @@ public class JnlpFileHandler
         return url.toString();
     }
 
-    private String substitute( String target, String key, String value )
-    {
-        int start = 0;
-        do
-        {
-            int idx = target.indexOf( key, start );
-            if ( idx == -1 )
-            {
-                return target;
-            }
-            target = target.substring( 0, idx ) + value + target.substring( idx + key.length() );
-            start = idx + value.length();
-        }
-        while ( true );
-    }
-
     /**
      * Parses a ISO 8601 Timestamp. The format of the timestamp is:
      * <p>
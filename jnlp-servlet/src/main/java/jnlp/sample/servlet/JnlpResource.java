@@ -68,6 +68,13 @@ public class JnlpResource
 
     private static final String JAR_EXTENSION = ".jar";
 
+    // Content encodings of pre-compressed variants and the suffix of their files
+    private static final String[][] COMPRESSED_VARIANTS = {
+            { DownloadResponse.PACK200_GZIP_ENCODING, ".pack.gz" },
+            { DownloadResponse.BROTLI_ENCODING, ".br" },
+            { DownloadResponse.ZSTD_ENCODING, ".zst" },
+            { DownloadResponse.GZIP_ENCODING, ".gz" } };
+
     private static String _jnlpExtension = JNLP_EXTENSION;
 
     private static String _jarExtension = JAR_EXTENSION;
@@ -92,6 +99,11 @@ public class JnlpResource
         }
     }
 
+    static String getJarExtension()
+    {
+        return _jarExtension;
+    }
+
     /* Pattern matching arguments */
     private String _name;      // Name of resource with path (this is the same as path for non-version based)
 
@@ -151,47 +163,34 @@ public class JnlpResource
             {
 
                 boolean found = false;
-                // pack200 compression
-                if ( encoding != null && _mimeType != null &&
-                        ( _mimeType.compareTo( JAR_MIME_TYPE ) == 0 || _mimeType.compareTo( JAR_MIME_TYPE_NEW ) == 0 ) &&
-                        encoding.toLowerCase().contains( DownloadResponse.PACK200_GZIP_ENCODING ) )
+                // Pre-compressed variant, in the order of preference of the server
+                if ( encoding != null )
                 {
-                    search_path = orig_path + ".pack.gz";
-                    _resource = context.getResource( search_path );
-                    // Get last modified time
-                    if ( _resource != null )
+                    long originalLastModified = getLastModified( context, _resource, orig_path );
+                    for ( String[] variant : COMPRESSED_VARIANTS )
                     {
-                        _lastModified = getLastModified( context, _resource, search_path );
-                        if ( _lastModified != 0 )
-                        {
-                            _path = search_path;
-                            found = true;
-                        }
-                        else
+                        if ( variant[0].equals( DownloadResponse.PACK200_GZIP_ENCODING ) && !isJarMimeType() )
                         {
-                            _resource = null;
+                            continue;
                         }
-                    }
-                }
-
-                // gzip compression
-                if ( !found && encoding != null &&
-                        encoding.toLowerCase().contains( DownloadResponse.GZIP_ENCODING ) )
-                {
-                    search_path = orig_path + ".gz";
-                    _resource = context.getResource( search_path );
-                    // Get last modified time
-                    if ( _resource != null )
-                    {
-                        _lastModified = getLastModified( context, _resource, search_path );
-                        if ( _lastModified != 0 )
+                        if ( !DownloadResponse.acceptsEncoding( encoding, variant[0] ) )
                         {
-                            _path = search_path;
-                            found = true;
+                            continue;
                         }
-                        else
+                        search_path = orig_path + variant[1];
+                        URL resource = context.getResource( search_path );
+                        if ( resource != null )
                         {
-                            _resource = null;
+                            long lastModified = getLastModified( context, resource, search_path );
+                            // A variant older than the original is outdated
+                            if ( lastModified != 0 && lastModified >= originalLastModified )
+                            {
+                                _resource = resource;
+                                _lastModified = lastModified;
+                                _path = search_path;
+                                found = true;
+                                break;
+                            }
                         }
                     }
                 }
@@ -323,6 +322,12 @@ public class JnlpResource
         return _returnVersionId;
     }
 
+    private boolean isJarMimeType()
+    {
+        return _mimeType != null &&
+                ( _mimeType.compareTo( JAR_MIME_TYPE ) == 0 || _mimeType.compareTo( JAR_MIME_TYPE_NEW ) == 0 );
+    }
+
     private String getMimeType( ServletContext context, String path )
     {
         String mimeType = context.getMimeType( path );
@@ -170,6 +170,11 @@ public class Logger
         logL10N( INFORMATIONAL, key, arg, (Throwable) null );
     }
 
+    public void addInformational( String key, String arg1, String arg2 )
+    {
+        logL10N( INFORMATIONAL, key, arg1, arg2 );
+    }
+
     public void addInformational( String key, String arg1, String arg2, String arg3 )
     {
         logL10N( INFORMATIONAL, key, arg1, arg2, arg3 );
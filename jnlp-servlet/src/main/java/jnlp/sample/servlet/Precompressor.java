@@ -0,0 +1,132 @@
+package jnlp.sample.servlet;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Creates the gzip compressed variants (<code>app.jar.gz</code> next to
+ * <code>app.jar</code>) which the servlet returns to clients accepting the
+ * gzip content encoding.
+ * <p>
+ * Run it as part of the build or deployment:
+ * <pre>
+ * java -cp jnlp-servlet.jar jnlp.sample.servlet.Precompressor &lt;directory&gt;...
+ * </pre>
+ * or let the servlet run it on startup with the init parameter
+ * <code>precompress</code>. Brotli (<code>.br</code>) and zstd
+ * (<code>.zst</code>) variants can be created with the respective command
+ * line tools and are served the same way.
+ * <p>
+ * Variants are only kept if they are noticeably smaller than the original.
+ * Variants older than their original are never served and are recreated.
+ */
+public class Precompressor
+{
+    // Minimal saving in percent for a variant to be kept
+    private static final int MIN_SAVING_PERCENT = 5;
+
+    private final String _extension;
+
+    /**
+     * @param extension extension of the files to compress, e.g. <code>.jar</code>
+     */
+    public Precompressor( String extension )
+    {
+        _extension = extension;
+    }
+
+    public static void main( String[] args )
+            throws IOException
+    {
+        if ( args.length == 0 )
+        {
+            System.err.println( "Usage: java " + Precompressor.class.getName() + " <directory>..." );
+            System.exit( 1 );
+        }
+        Precompressor precompressor = new Precompressor( ".jar" );
+        for ( String dir : args )
+        {
+            int created = precompressor.compress( new File( dir ) );
+            System.out.println( "Created " + created + " pre-compressed variants in " + dir );
+        }
+    }
+
+    /**
+     * Creates missing and outdated variants for all matching files in the directory and its sub directories.
+     *
+     * @param dir the directory
+     * @return number of created variants
+     * @throws IOException if the directory can not be read
+     */
+    public int compress( File dir )
+            throws IOException
+    {
+        List<Path> files;
+        try ( Stream<Path> stream = Files.walk( dir.toPath() ) )
+        {
+            files = stream.filter( Files::isRegularFile )
+                    .filter( p -> p.getFileName().toString().endsWith( _extension ) )
+                    .collect( Collectors.toList() );
+        }
+        int created = 0;
+        for ( Path file : files )
+        {
+            if ( compressFile( file.toFile() ) )
+            {
+                created++;
+            }
+        }
+        return created;
+    }
+
+    /**
+     * @return true if a new variant was written
+     */
+    boolean compressFile( File file )
+            throws IOException
+    {
+        File variant = new File( file.getPath() + ".gz" );
+        if ( variant.exists() && variant.lastModified() >= file.lastModified() )
+        {
+            return false;
+        }
+        File tmp = File.createTempFile( file.getName(), ".tmp", file.getParentFile() );
+        try
+        {
+            try ( InputStream in = new FileInputStream( file );
+                  OutputStream out = new GZIPOutputStream( new FileOutputStream( tmp ), 64 * 1024 ) )
+            {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ( ( read = in.read( buffer ) ) != -1 )
+                {
+                    out.write( buffer, 0, read );
+                }
+            }
+            if ( tmp.length() * 100 > file.length() * ( 100 - MIN_SAVING_PERCENT ) )
+            {
+                // Not worth it, also drop an outdated variant
+                Files.deleteIfExists( variant.toPath() );
+                return false;
+            }
+            Files.move( tmp.toPath(), variant.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE );
+            return true;
+        }
+        finally
+        {
+            Files.deleteIfExists( tmp.toPath() );
+        }
+    }
+}
@@ -47,18 +47,83 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog of the version-based resources in the Web Archive.
+ * <p>
+ * The resources of a directory (from <code>version.xml</code> and from the
+ * <code>name__Vversion.ext</code> file naming convention) are scanned once
+ * and kept in an index mapping each resource name to its versions, sorted
+ * with the highest version first. Lookups are lock free and never touch the
+ * file system:
+ * <ul>
+ * <li>Directories that are backed by the file system are watched and their
+ * entries are dropped as soon as a file is added, changed or removed.</li>
+ * <li>All other entries are re-validated at most once per refresh interval by
+ * comparing the modification times of the directory and its
+ * <code>version.xml</code>.</li>
+ * <li>Failed lookups are remembered until the directory changes (or for one
+ * refresh interval if the directory cannot be watched), so clients probing
+ * for non-existent versions do not cause directory scans.</li>
+ * </ul>
+ */
 public class ResourceCatalog
 {
     public static final String VERSION_XML_FILENAME = "version.xml";
 
+    static final long DEFAULT_REFRESH_MILLIS = 5000;
+
+    // Upper bound for the remembered misses of a single directory
+    private static final int MAX_MISSES = 1024;
+
     private Logger _log = null;
 
     private ServletContext _servletContext = null;
 
-    private HashMap _entries;
+    private final ConcurrentMap<String, PathEntries> _entries = new ConcurrentHashMap<>();
+
+    private final long _refreshMillis;
+
+    private final DirectoryWatcher _watcher;
+
+    /**
+     * A resource together with its parsed version-id
+     */
+    static private class VersionedResource
+    {
+        private final JnlpResource _resource;
+
+        private final VersionID _versionId;
+
+        VersionedResource( JnlpResource resource )
+        {
+            _resource = resource;
+            _versionId = new VersionID( resource.getVersionId() );
+        }
+    }
+
+    /**
+     * A failed lookup and the error code it resulted in
+     */
+    static private class Miss
+    {
+        private final int _status;
+
+        private final long _expires;
+
+        Miss( int status, long expires )
+        {
+            _status = status;
+            _expires = expires;
+        }
+    }
 
     /**
      * Class to contain the information we know
@@ -66,58 +131,112 @@ public class ResourceCatalog
      */
     static private class PathEntries
     {
-        /* Version-based entries at this particular path */
-        private List _versionXmlList;
+        /* Version-based entries at this particular path, by name and sorted by descending version */
+        private final Map<String, VersionedResource[]> _versionXmlIndex;
 
-        private List _directoryList;
+        /* null if the directory is not backed by the file system and has to be probed per request */
+        private final Map<String, VersionedResource[]> _directoryIndex;
 
-        private List _platformList;
+        private final Map<String, VersionedResource[]> _platformIndex;
 
-        /* Last time this entry was updated */
-        private long _lastModified; // Last modified time of entry;
+        /* Modification times this entry was created from */
+        private final long _versionXmlLastModified;
 
-        public PathEntries( List versionXmlList, List directoryList, List platformList, long lastModified )
-        {
-            _versionXmlList = versionXmlList;
-            _directoryList = directoryList;
-            _platformList = platformList;
-            _lastModified = lastModified;
-        }
+        private final long _directoryLastModified;
+
+        /* true if the entry is dropped by the directory watcher on changes */
+        private final boolean _watched;
 
+        /* Time after which the entry has to be validated again */
+        private final AtomicLong _validUntil;
 
-        public void setDirectoryList( List dirList )
+        private final ConcurrentMap<String, Miss> _misses = new ConcurrentHashMap<>();
+
+        PathEntries( List versionXmlList, List directoryList, List platformList, long versionXmlLastModified,
+                     long directoryLastModified, boolean watched, long validUntil )
         {
-            _directoryList = dirList;
+            _versionXmlIndex = createIndex( versionXmlList );
+            _directoryIndex = directoryList != null ? createIndex( directoryList ) : null;
+            _platformIndex = createIndex( platformList );
+            _versionXmlLastModified = versionXmlLastModified;
+            _directoryLastModified = directoryLastModified;
+            _watched = watched;
+            _validUntil = new AtomicLong( validUntil );
         }
 
-        public List getVersionXmlList()
+        /**
+         * @return true if the calling thread is the one that has to validate this entry
+         */
+        boolean needsValidation( long now, long refreshMillis )
         {
-            return _versionXmlList;
+            long validUntil = _validUntil.get();
+            return !_watched && now >= validUntil && _validUntil.compareAndSet( validUntil, now + refreshMillis );
         }
 
-        public List getDirectoryList()
+        Miss getMiss( String key, long now )
         {
-            return _directoryList;
+            Miss miss = _misses.get( key );
+            return miss != null && ( _watched || now < miss._expires ) ? miss : null;
         }
 
-        public List getPlatformList()
+        void addMiss( String key, Miss miss )
         {
-            return _platformList;
+            if ( _misses.size() >= MAX_MISSES )
+            {
+                _misses.clear();
+            }
+            _misses.put( key, miss );
         }
 
-        public long getLastModified()
+        private static Map<String, VersionedResource[]> createIndex( List resources )
         {
-            return _lastModified;
+            Map<String, List<VersionedResource>> byName = new HashMap<>();
+            for ( Object resource : resources )
+            {
+                JnlpResource res = (JnlpResource) resource;
+                byName.computeIfAbsent( res.getName(), name -> new ArrayList<>() ).add( new VersionedResource( res ) );
+            }
+            Map<String, VersionedResource[]> index = new HashMap<>();
+            for ( Map.Entry<String, List<VersionedResource>> entry : byName.entrySet() )
+            {
+                VersionedResource[] versions = entry.getValue().toArray( new VersionedResource[0] );
+                // Stable sort, so the first entry of equal versions still wins
+                Arrays.sort( versions, ResourceCatalog::compareDescending );
+                index.put( entry.getKey(), versions );
+            }
+            return index;
         }
     }
 
     public ResourceCatalog( ServletContext servletContext, Logger log )
     {
-        _entries = new HashMap();
+        this( servletContext, log, DEFAULT_REFRESH_MILLIS, true );
+    }
+
+    /**
+     * @param servletContext context of the Web Archive
+     * @param log            logger
+     * @param refreshMillis  interval in which unwatched directories are checked for changes
+     * @param watch          true if directories backed by the file system should be watched for changes
+     */
+    public ResourceCatalog( ServletContext servletContext, Logger log, long refreshMillis, boolean watch )
+    {
         _servletContext = servletContext;
         _log = log;
+        _refreshMillis = refreshMillis;
+        _watcher = watch ? DirectoryWatcher.start( this ) : null;
     }
 
+    /**
+     * Stops watching the directories.
+     */
+    public void destroy()
+    {
+        if ( _watcher != null )
+        {
+            _watcher.close();
+        }
+    }
 
     public JnlpResource lookupResource( DownloadRequest dreq )
             throws ErrorResponseException
@@ -137,61 +256,221 @@ public class ResourceCatalog
             dir = path.substring( 0, idx + 1 ); // Include '/'
         }
 
-        // Lookup up already parsed entries, and san directory for entries if neccesary
-        PathEntries pentries = (PathEntries) _entries.get( dir );
-        JnlpResource xmlVersionResPath = new JnlpResource( _servletContext, dir + VERSION_XML_FILENAME );
-        if ( pentries == null ||
-                ( xmlVersionResPath.exists() && xmlVersionResPath.getLastModified() > pentries.getLastModified() ) )
+        long now = System.currentTimeMillis();
+        PathEntries pentries = getPathEntries( dir, dreq, now );
+
+        // Known misses are answered without searching
+        String missKey = getMissKey( name, dreq );
+        Miss miss = pentries.getMiss( missKey, now );
+        if ( miss != null )
         {
-            _log.addInformational( "servlet.log.scandir", dir );
-            List dirList = scanDirectory( dir, dreq );
-            // Scan XML file
-            List versionList = new ArrayList();
-            List platformList = new ArrayList();
-            parseVersionXML( versionList, platformList, dir, xmlVersionResPath );
-            pentries = new PathEntries( versionList, dirList, platformList, xmlVersionResPath.getLastModified() );
-            _entries.put( dir, pentries );
+            throw new ErrorResponseException( DownloadResponse.getJnlpErrorResponse( miss._status ) );
         }
 
         // Search for a match
         JnlpResource[] result = new JnlpResource[1];
+        int sts;
 
         if ( dreq.isPlatformRequest() )
         {
-            int sts = findMatch( pentries.getPlatformList(), name, dreq, result );
-            if ( sts != DownloadResponse.STS_00_OK )
-            {
-                throw new ErrorResponseException( DownloadResponse.getJnlpErrorResponse( sts ) );
-            }
+            sts = findMatch( pentries._platformIndex, name, dreq, result );
         }
         else
         {
             // First lookup in versions.xml file
-            int sts1 = findMatch( pentries.getVersionXmlList(), name, dreq, result );
-            if ( sts1 != DownloadResponse.STS_00_OK )
+            sts = findMatch( pentries._versionXmlIndex, name, dreq, result );
+            if ( sts != DownloadResponse.STS_00_OK )
             {
                 // Then lookup in directory
-                int sts2 = findMatch( pentries.getDirectoryList(), name, dreq, result );
-                if ( sts2 != DownloadResponse.STS_00_OK )
+                int sts2;
+                if ( pentries._directoryIndex != null )
                 {
-
-                    // fix for 4450104
-                    // try rescan and see if it helps
-                    pentries.setDirectoryList( scanDirectory( dir, dreq ) );
-                    sts2 = findMatch( pentries.getDirectoryList(), name, dreq, result );
-                    // try again after rescanning directory
-                    if ( sts2 != DownloadResponse.STS_00_OK )
-                    {
-                        // Throw the most specific error code
-                        throw new ErrorResponseException(
-                                DownloadResponse.getJnlpErrorResponse( Math.max( sts1, sts2 ) ) );
-                    }
+                    sts2 = findMatch( pentries._directoryIndex, name, dreq, result );
                 }
+                else
+                {
+                    // fix for 4474021 - nothing to scan, so probe for the file itself
+                    sts2 = findMatch( scanDirectory( dir, dreq ), name, dreq, result );
+                }
+                // Keep the most specific error code
+                sts = sts2 == DownloadResponse.STS_00_OK ? sts2 : Math.max( sts, sts2 );
             }
         }
+
+        if ( sts != DownloadResponse.STS_00_OK )
+        {
+            pentries.addMiss( missKey, new Miss( sts, now + _refreshMillis ) );
+            throw new ErrorResponseException( DownloadResponse.getJnlpErrorResponse( sts ) );
+        }
         return result[0];
     }
 
+    /**
+     * Returns the up to date entries of the given directory, scanning it if necessary. Concurrent
+     * requests for the same directory wait for a single scan.
+     */
+    private PathEntries getPathEntries( final String dir, final DownloadRequest dreq, long now )
+    {
+        PathEntries pentries = _entries.get( dir );
+        if ( pentries == null )
+        {
+            return _entries.computeIfAbsent( dir, key -> scanPathEntries( dir, dreq ) );
+        }
+        if ( pentries.needsValidation( now, _refreshMillis ) && !isUpToDate( dir, pentries ) )
+        {
+            final PathEntries stale = pentries;
+            return _entries.compute( dir, ( key, current ) -> current != null && current != stale
+                    ? current
+                    : scanPathEntries( dir, dreq ) );
+        }
+        return pentries;
+    }
+
+    private boolean isUpToDate( String dir, PathEntries pentries )
+    {
+        JnlpResource xmlVersionResPath = new JnlpResource( _servletContext, dir + VERSION_XML_FILENAME );
+        return xmlVersionResPath.getLastModified() == pentries._versionXmlLastModified &&
+                getDirectoryLastModified( dir ) == pentries._directoryLastModified;
+    }
+
+    private long getDirectoryLastModified( String dir )
+    {
+        String realPath = _servletContext.getRealPath( dir );
+        return realPath != null ? new File( realPath ).lastModified() : 0;
+    }
+
+    private PathEntries scanPathEntries( String dir, DownloadRequest dreq )
+    {
+        _log.addInformational( "servlet.log.scandir", dir );
+        long now = System.currentTimeMillis();
+        String realPath = _servletContext.getRealPath( dir );
+
+        // Register before scanning, so changes made during the scan are not missed
+        boolean watched = realPath != null && _watcher != null && _watcher.register( dir, new File( realPath ) );
+        List dirList = realPath != null ? scanDirectory( dir, dreq ) : null;
+
+        // Scan XML file
+        JnlpResource xmlVersionResPath = new JnlpResource( _servletContext, dir + VERSION_XML_FILENAME );
+        List versionList = new ArrayList();
+        List platformList = new ArrayList();
+        parseVersionXML( versionList, platformList, dir, xmlVersionResPath );
+        return new PathEntries( versionList, dirList, platformList, xmlVersionResPath.getLastModified(),
+                                getDirectoryLastModified( dir ), watched, now + _refreshMillis );
+    }
+
+    /**
+     * Called by the directory watcher if the content of a directory changed.
+     */
+    void invalidate( String dir )
+    {
+        if ( dir == null )
+        {
+            _entries.clear();
+        }
+        else if ( _entries.remove( dir ) != null && _log.isDebugLevel() )
+        {
+            _log.addDebug( "Directory changed: " + dir );
+        }
+    }
+
+    private static String getMissKey( String name, DownloadRequest dreq )
+    {
+        return name + '|' + dreq.getVersion() + '|' + dreq.isPlatformRequest() + '|' +
+                Arrays.toString( dreq.getOS() ) + '|' + Arrays.toString( dreq.getArch() ) + '|' +
+                Arrays.toString( dreq.getLocale() );
+    }
+
+    private static int compareDescending( VersionedResource a, VersionedResource b )
+    {
+        if ( b._versionId.isGreaterThan( a._versionId ) )
+        {
+            return 1;
+        }
+        return a._versionId.isGreaterThan( b._versionId ) ? -1 : 0;
+    }
+
+    /**
+     * Same as {@link #findMatch(List, String, DownloadRequest, JnlpResource[])}, but on an index. The
+     * versions are visited from the highest to the lowest, so the first match is the best one. Requests
+     * for a single exact version binary search the versions of the resource.
+     */
+    private int findMatch( Map<String, VersionedResource[]> index, String name, DownloadRequest dreq,
+                           JnlpResource[] result )
+    {
+        VersionedResource[] versions = index.get( name );
+        if ( versions == null )
+        {
+            return DownloadResponse.ERR_10_NO_RESOURCE;
+        }
+        int error = DownloadResponse.ERR_10_NO_RESOURCE;
+        int from = 0;
+        int to = versions.length;
+
+        VersionID exact = getExactVersion( dreq.getVersion() );
+        if ( exact != null )
+        {
+            from = firstNotGreater( versions, exact );
+            to = from;
+            while ( to < versions.length && exact.match( versions[to]._versionId ) )
+            {
+                to++;
+            }
+            if ( from > 0 || to < versions.length )
+            {
+                // All skipped entries are of a different version
+                error = DownloadResponse.ERR_11_NO_VERSION;
+            }
+        }
+
+        VersionString vs = new VersionString( dreq.getVersion() );
+        for ( int i = from; i < to; i++ )
+        {
+            int sts = matchEntry( name, vs, dreq, versions[i]._resource, versions[i]._versionId );
+            if ( sts == DownloadResponse.STS_00_OK )
+            {
+                result[0] = versions[i]._resource;
+                return sts;
+            }
+            error = Math.max( error, sts );
+        }
+        return error;
+    }
+
+    /**
+     * @return the version-id if the version string denotes exactly one version, otherwise null
+     */
+    private static VersionID getExactVersion( String version )
+    {
+        if ( version == null || version.trim().isEmpty() || version.trim().indexOf( ' ' ) != -1 )
+        {
+            return null;
+        }
+        VersionID vid = new VersionID( version.trim() );
+        return vid.isSimpleVersion() ? vid : null;
+    }
+
+    /**
+     * @return the index of the first version not greater than the given one
+     */
+    private static int firstNotGreater( VersionedResource[] versions, VersionID vid )
+    {
+        int low = 0;
+        int high = versions.length;
+        while ( low < high )
+        {
+            int mid = ( low + high ) >>> 1;
+            if ( versions[mid]._versionId.isGreaterThan( vid ) )
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
     /**
      * This method finds the best match, or return the best error code. The
      * result parameter must be an array with room for one element.
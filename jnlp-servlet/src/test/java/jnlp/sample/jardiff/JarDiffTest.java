@@ -1,6 +1,7 @@
 package jnlp.sample.jardiff;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
@@ -8,14 +9,20 @@ import org.junit.jupiter.params.provider.CsvSource;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -47,6 +54,34 @@ public class JarDiffTest {
         Assertions.assertEquals(originalHashes, createdHashes);
     }
 
+    @Test
+    public void testConcurrentPatchCreation(@TempDir Path folder) throws Exception {
+        //given
+        final ExecutorService executor = Executors.newFixedThreadPool(7);
+        final List<Future<Path>> results = new ArrayList<>();
+
+        //when
+        for (int i = 1; i <= 7; i++) {
+            final URL oldJar = JarDiffTest.class.getResource("version-" + i + ".jar");
+            final URL newJar = JarDiffTest.class.getResource("version-" + (i + 1) + ".jar");
+            final Path diff = folder.resolve("diff-" + i + ".jardiff");
+            results.add(executor.submit(() -> {
+                try (final FileOutputStream os = new FileOutputStream(diff.toFile())) {
+                    JarDiff.createPatch(oldJar.getFile(), newJar.getFile(), os, true);
+                }
+                return merge(oldJar, diff.toUri().toURL(), Files.createTempDirectory(folder, "merged"));
+            }));
+        }
+        executor.shutdown();
+
+        //than
+        for (int i = 1; i <= 7; i++) {
+            final Path createdJar = results.get(i - 1).get();
+            final URL expectedJar = JarDiffTest.class.getResource("version-" + (i + 1) + ".jar");
+            Assertions.assertEquals(getMd5Hashes(expectedJar.getFile()), getMd5Hashes(createdJar.toFile().getAbsolutePath()));
+        }
+    }
+
     private Path merge(final URL jar1Url, final URL diffUrl, final Path outputDir) throws IOException {
         final Path createdJar = Paths.get(outputDir.toFile().getAbsolutePath(), "created.jar");
         try(final FileOutputStream os = new FileOutputStream(createdJar.toFile())) {
@@ -0,0 +1,236 @@
+package jnlp.sample.servlet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+public class DownloadResponseTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+
+    @ParameterizedTest
+    @CsvSource({
+            "'bytes=0-9', 0, 9",
+            "'bytes=10-', 10, 35",
+            "'bytes=-6', 30, 35",
+            "'bytes=-100', 0, 35",
+            "'bytes=30-1000', 30, 35",
+            "' bytes=5 - 7 ', 5, 7"})
+    public void parseSatisfiableRange(final String header, final long start, final long end) {
+        final long[] range = DownloadResponse.parseRange(header, CONTENT.length);
+        Assertions.assertArrayEquals(new long[]{start, end}, range);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"'bytes=36-'", "'bytes=100-200'", "'bytes=-0'"})
+    public void parseUnsatisfiableRange(final String header) {
+        Assertions.assertSame(DownloadResponse.UNSATISFIABLE_RANGE, DownloadResponse.parseRange(header, CONTENT.length));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"'bytes=0-1,5-6'", "'items=0-1'", "'bytes=7-3'", "'bytes=a-b'", "'bytes=5'"})
+    public void ignoreUnsupportedOrInvalidRange(final String header) {
+        Assertions.assertNull(DownloadResponse.parseRange(header, CONTENT.length));
+    }
+
+    @Test
+    public void matchEntityTags() {
+        Assertions.assertTrue(DownloadResponse.matchesEntityTag("\"a\", \"b\"", "\"b\""));
+        Assertions.assertTrue(DownloadResponse.matchesEntityTag("W/\"b\"", "\"b\""));
+        Assertions.assertTrue(DownloadResponse.matchesEntityTag("*", "\"b\""));
+        Assertions.assertFalse(DownloadResponse.matchesEntityTag("\"a\"", "\"b\""));
+        Assertions.assertFalse(DownloadResponse.matchesEntityTag(null, "\"b\""));
+    }
+
+    @Test
+    public void sendRangeOfDiskFile(@TempDir Path folder) throws Exception {
+        final DownloadResponse download = diskFileResponse(folder);
+        final FakeResponse full = send(download, new HashMap<>());
+        final String etag = full.headers.get("ETag");
+
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("Range", "bytes=10-");
+        headers.put("If-Range", etag);
+        final FakeResponse partial = send(download, headers);
+
+        Assertions.assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, partial.status);
+        Assertions.assertEquals("bytes 10-35/36", partial.headers.get("Content-Range"));
+        Assertions.assertEquals(26L, partial.contentLength);
+        Assertions.assertEquals("abcdefghijklmnopqrstuvwxyz", partial.body.toString("US-ASCII"));
+    }
+
+    @Test
+    public void sendCompleteFileIfEntityChanged(@TempDir Path folder) throws Exception {
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("Range", "bytes=10-");
+        headers.put("If-Range", "\"outdated\"");
+        final FakeResponse response = send(diskFileResponse(folder), headers);
+
+        Assertions.assertEquals(HttpServletResponse.SC_OK, response.status);
+        Assertions.assertNull(response.headers.get("Content-Range"));
+        Assertions.assertArrayEquals(CONTENT, response.body.toByteArray());
+    }
+
+    @Test
+    public void notModifiedIfEntityTagMatches(@TempDir Path folder) throws Exception {
+        final DownloadResponse download = diskFileResponse(folder);
+        final String etag = send(download, new HashMap<>()).headers.get("ETag");
+
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("If-None-Match", etag);
+        final FakeResponse response = send(download, headers);
+
+        Assertions.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.status);
+        Assertions.assertEquals(0, response.body.size());
+    }
+
+    @Test
+    public void generatedContentHasContentBasedEntityTag() throws Exception {
+        final String etag1 = send(DownloadResponse.getFileDownloadResponse(CONTENT, "text/plain", 1000L, null), new HashMap<>()).headers.get("ETag");
+        final String etag2 = send(DownloadResponse.getFileDownloadResponse(CONTENT.clone(), "text/plain", 2000L, null), new HashMap<>()).headers.get("ETag");
+        final String etag3 = send(DownloadResponse.getFileDownloadResponse(new byte[]{1}, "text/plain", 1000L, null), new HashMap<>()).headers.get("ETag");
+
+        Assertions.assertEquals(etag1, etag2);
+        Assertions.assertNotEquals(etag1, etag3);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "'gzip', true",
+            "'deflate, gzip;q=0.5', true",
+            "'GZIP', true",
+            "'*', true",
+            "'gzip;q=0, *', false",
+            "'*;q=0', false",
+            "'deflate', false",
+            "'', false"})
+    public void acceptEncoding(final String header, final boolean accepted) {
+        Assertions.assertEquals(accepted, DownloadResponse.acceptsEncoding(header, "gzip"));
+    }
+
+    @Test
+    public void sendGzipVariantIfAccepted() throws Exception {
+        final byte[] gzip = new byte[]{31, -117, 8};
+        final DownloadResponse download = DownloadResponse.getFileDownloadResponse(CONTENT, gzip, "text/plain", 1000L, null);
+
+        final FakeResponse identity = send(download, new HashMap<>());
+        Assertions.assertArrayEquals(CONTENT, identity.body.toByteArray());
+        Assertions.assertNull(identity.headers.get(DownloadResponse.CONTENT_ENCODING));
+        Assertions.assertEquals("Accept-Encoding", identity.headers.get("Vary"));
+
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("Accept-Encoding", "gzip, deflate");
+        final FakeResponse compressed = send(download, headers);
+        Assertions.assertArrayEquals(gzip, compressed.body.toByteArray());
+        Assertions.assertEquals("gzip", compressed.headers.get(DownloadResponse.CONTENT_ENCODING));
+        Assertions.assertEquals("Accept-Encoding", compressed.headers.get("Vary"));
+        Assertions.assertNotEquals(identity.headers.get("ETag"), compressed.headers.get("ETag"));
+    }
+
+    @Test
+    public void useContainerSendfileIfSupported(@TempDir Path folder) throws Exception {
+        final Map<String, Object> attributes = new HashMap<>();
+        attributes.put("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("Range", "bytes=-6");
+        final FakeResponse response = send(diskFileResponse(folder), headers, attributes);
+
+        Assertions.assertEquals(0, response.body.size());
+        Assertions.assertEquals(30L, attributes.get("org.apache.tomcat.sendfile.start"));
+        Assertions.assertEquals(36L, attributes.get("org.apache.tomcat.sendfile.end"));
+    }
+
+    private static DownloadResponse diskFileResponse(final Path folder) throws Exception {
+        final File file = folder.resolve("app.jar").toFile();
+        Files.write(file.toPath(), CONTENT);
+        return DownloadResponse.getFileDownloadResponse(file, "application/java-archive", file.lastModified(), "1.0");
+    }
+
+    private static FakeResponse send(final DownloadResponse download, final Map<String, String> headers) throws Exception {
+        return send(download, headers, new HashMap<>());
+    }
+
+    private static FakeResponse send(final DownloadResponse download, final Map<String, String> headers, final Map<String, Object> attributes) throws Exception {
+        final HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+                DownloadResponseTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getHeader":
+                            return headers.get(args[0]);
+                        case "getAttribute":
+                            return attributes.get(args[0]);
+                        case "setAttribute":
+                            return attributes.put((String) args[0], args[1]);
+                        case "getDateHeader":
+                            throw new IllegalArgumentException();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        final FakeResponse result = new FakeResponse();
+        final HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+                DownloadResponseTest.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setHeader":
+                            return result.headers.put((String) args[0], (String) args[1]);
+                        case "setStatus":
+                        case "sendError":
+                            result.status = (Integer) args[0];
+                            return null;
+                        case "setContentLengthLong":
+                            result.contentLength = (Long) args[0];
+                            return null;
+                        case "getOutputStream":
+                            return result.outputStream();
+                        default:
+                            return null;
+                    }
+                });
+        download.sendRespond(request, response);
+        return result;
+    }
+
+    private static class FakeResponse {
+        private final Map<String, String> headers = new HashMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private int status = HttpServletResponse.SC_OK;
+        private long contentLength = -1;
+
+        private ServletOutputStream outputStream() {
+            return new ServletOutputStream() {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(final WriteListener writeListener) {
+                }
+
+                @Override
+                public void write(final int b) {
+                    body.write(b);
+                }
+
+                @Override
+                public void write(final byte[] b, final int off, final int len) {
+                    body.write(b, off, len);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package jnlp.sample.servlet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+public class JnlpFileHandlerTest {
+
+    private static final String TEMPLATE = "<jnlp codebase=\"$$codebase\" href=\"$$name\">\n"
+            + "<information><title>$$hostname $$context $$site $$unknown $</title>\n"
+            + "<description>Application for the enterprise, served by the JNLP download servlet</description>\n"
+            + "<description kind=\"short\">Application for the enterprise, served by the JNLP download servlet</description>\n"
+            + "</information></jnlp>";
+
+    @TempDir
+    Path folder;
+
+    private File jnlp;
+    private ServletContext context;
+    private JnlpFileHandler handler;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        jnlp = Files.createDirectories(folder.resolve("apps")).resolve("app.jnlp").toFile();
+        Files.write(jnlp.toPath(), TEMPLATE.getBytes(StandardCharsets.UTF_8));
+        context = (ServletContext) Proxy.newProxyInstance(
+                JnlpFileHandlerTest.class.getClassLoader(), new Class<?>[]{ServletContext.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getRealPath":
+                            return folder.resolve(((String) args[0]).substring(1)).toString();
+                        case "getResource":
+                            final File file = folder.resolve(((String) args[0]).substring(1)).toFile();
+                            return file.exists() ? file.toURI().toURL() : null;
+                        default:
+                            return null;
+                    }
+                });
+        final ServletConfig config = (ServletConfig) Proxy.newProxyInstance(
+                JnlpFileHandlerTest.class.getClassLoader(), new Class<?>[]{ServletConfig.class}, (proxy, method, args) ->
+                        "getServletContext".equals(method.getName()) ? context : null);
+        handler = new JnlpFileHandler(context, JnlpFileHandlerHook.IDENTITY, new Logger(config, JnlpDownloadServlet.getResourceBundle()));
+    }
+
+    @Test
+    public void macrosAreSubstituted() throws Exception {
+        final String content = send(handler.getJnlpFile(resource(), request("https", "apps.example.com", 443, null)), null);
+        Assertions.assertEquals("<jnlp codebase=\"https://apps.example.com/ctx/apps/\" href=\"app.jnlp\">"
+                + "<information><title>apps.example.com https://apps.example.com/ctx https://apps.example.com $$unknown $</title>"
+                + "<description>Application for the enterprise, served by the JNLP download servlet</description>"
+                + "<description kind=\"short\">Application for the enterprise, served by the JNLP download servlet</description>"
+                + "</information></jnlp>", content);
+    }
+
+    @Test
+    public void responsesAreCachedPerHost() throws Exception {
+        final DownloadResponse first = handler.getJnlpFile(resource(), request("http", "host1", 8080, null));
+        Assertions.assertSame(first, handler.getJnlpFile(resource(), request("http", "host1", 8080, null)));
+
+        final DownloadResponse other = handler.getJnlpFile(resource(), request("http", "host2", 8080, null));
+        Assertions.assertNotSame(first, other);
+        Assertions.assertTrue(send(other, null).contains("http://host2:8080/ctx/apps/"));
+    }
+
+    @Test
+    public void changedTemplateIsReadAgain() throws Exception {
+        final DownloadResponse first = handler.getJnlpFile(resource(), request("http", "host", 80, null));
+        Files.write(jnlp.toPath(), "<jnlp href=\"$$name\"/>".getBytes(StandardCharsets.UTF_8));
+        jnlp.setLastModified(jnlp.lastModified() + 10_000);
+
+        final DownloadResponse second = handler.getJnlpFile(resource(), request("http", "host", 80, null));
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals("<jnlp href=\"app.jnlp\"/>", send(second, null));
+    }
+
+    @Test
+    public void queryIsAddedToHref() throws Exception {
+        final String content = send(handler.getJnlpFileEx(resource(), request("http", "host", 80, "user=1")), null);
+        Assertions.assertTrue(content.contains("href=\"app.jnlp?user=1\""));
+        final String plain = send(handler.getJnlpFileEx(resource(), request("http", "host", 80, null)), null);
+        Assertions.assertTrue(plain.contains("href=\"app.jnlp\""));
+    }
+
+    @Test
+    public void gzipVariantIsServedIfAccepted() throws Exception {
+        final DownloadResponse response = handler.getJnlpFile(resource(), request("http", "host", 80, null));
+        Assertions.assertEquals(send(response, null), send(response, "gzip"));
+    }
+
+    private JnlpResource resource() {
+        return new JnlpResource(context, "/apps/app.jnlp");
+    }
+
+    private static DownloadRequest request(final String scheme, final String host, final int port, final String query) {
+        final Map<String, String> parameters = new HashMap<>();
+        if (query != null) {
+            final String[] pair = query.split("=");
+            parameters.put(pair[0], pair[1]);
+        }
+        final HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+                JnlpFileHandlerTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getRequestURI":
+                            return "/ctx/apps/app.jnlp";
+                        case "getContextPath":
+                            return "/ctx";
+                        case "getScheme":
+                            return scheme;
+                        case "getServerName":
+                            return host;
+                        case "getServerPort":
+                            return port;
+                        case "getQueryString":
+                            return query;
+                        case "getParameter":
+                            return parameters.get(args[0]);
+                        default:
+                            return null;
+                    }
+                });
+        return new DownloadRequest(request);
+    }
+
+    /**
+     * @return the decoded body sent for a request with the given Accept-Encoding header
+     */
+    private static String send(final DownloadResponse download, final String acceptEncoding) throws Exception {
+        final HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+                JnlpFileHandlerTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) ->
+                        "Accept-Encoding".equals(args != null && args.length > 0 ? args[0] : null) ? acceptEncoding : null);
+        final Map<String, String> headers = new HashMap<>();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+                JnlpFileHandlerTest.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setHeader":
+                            return headers.put((String) args[0], (String) args[1]);
+                        case "getOutputStream":
+                            return new ServletOutputStream() {
+                                @Override
+                                public boolean isReady() {
+                                    return true;
+                                }
+
+                                @Override
+                                public void setWriteListener(final WriteListener writeListener) {
+                                }
+
+                                @Override
+                                public void write(final int b) {
+                                    body.write(b);
+                                }
+                            };
+                        default:
+                            return null;
+                    }
+                });
+        download.sendRespond(request, response);
+        byte[] content = body.toByteArray();
+        if ("gzip".equals(headers.get(DownloadResponse.CONTENT_ENCODING))) {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+                final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    decoded.write(buffer, 0, read);
+                }
+                content = decoded.toByteArray();
+            }
+        } else if (acceptEncoding != null) {
+            Assertions.fail("gzip variant expected");
+        }
+        return new String(content, StandardCharsets.UTF_8);
+    }
+}
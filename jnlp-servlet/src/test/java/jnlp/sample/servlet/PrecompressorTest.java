@@ -0,0 +1,77 @@
+package jnlp.sample.servlet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.servlet.ServletContext;
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class PrecompressorTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void compressibleJarsGetVariant() throws Exception {
+        final File jar = write("lib/app.jar", new byte[64 * 1024]);
+        final File random = write("lib/random.jar", randomBytes());
+        write("lib/readme.txt", new byte[64 * 1024]);
+
+        Assertions.assertEquals(1, new Precompressor(".jar").compress(folder.toFile()));
+        Assertions.assertTrue(new File(jar.getPath() + ".gz").exists());
+        Assertions.assertFalse(new File(random.getPath() + ".gz").exists());
+        Assertions.assertFalse(folder.resolve("lib/readme.txt.gz").toFile().exists());
+
+        // up to date variants are kept
+        Assertions.assertEquals(0, new Precompressor(".jar").compress(folder.toFile()));
+    }
+
+    @Test
+    public void acceptedVariantIsSelected() throws Exception {
+        final File jar = write("app.jar", new byte[64 * 1024]);
+        final File br = write("app.jar.br", new byte[10]);
+        new Precompressor(".jar").compress(folder.toFile());
+        final ServletContext context = context();
+
+        Assertions.assertEquals("/app.jar.br", new JnlpResource(context, "app.jar", null, null, null, null, "/app.jar", null, "gzip, br").getPath());
+        Assertions.assertEquals("/app.jar.gz", new JnlpResource(context, "app.jar", null, null, null, null, "/app.jar", null, "gzip, br;q=0").getPath());
+        Assertions.assertEquals("/app.jar", new JnlpResource(context, "app.jar", null, null, null, null, "/app.jar", null, "pack200-gzip").getPath());
+        Assertions.assertEquals("/app.jar", new JnlpResource(context, "app.jar", null, null, null, null, "/app.jar", null, null).getPath());
+
+        // an outdated variant is not served
+        br.setLastModified(jar.lastModified() - 10_000);
+        Assertions.assertEquals("/app.jar.gz", new JnlpResource(context, "app.jar", null, null, null, null, "/app.jar", null, "br, gzip").getPath());
+    }
+
+    private File write(final String path, final byte[] content) throws Exception {
+        final Path file = folder.resolve(path);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, content).toFile();
+    }
+
+    private static byte[] randomBytes() {
+        final byte[] bytes = new byte[64 * 1024];
+        new Random(4711).nextBytes(bytes);
+        return bytes;
+    }
+
+    private ServletContext context() {
+        return (ServletContext) Proxy.newProxyInstance(
+                PrecompressorTest.class.getClassLoader(), new Class<?>[]{ServletContext.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getRealPath":
+                            return folder.resolve(((String) args[0]).substring(1)).toString();
+                        case "getResource":
+                            final File file = folder.resolve(((String) args[0]).substring(1)).toFile();
+                            return file.exists() ? file.toURI().toURL() : null;
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,134 @@
+package jnlp.sample.servlet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ResourceCatalogTest {
+
+    @TempDir
+    Path folder;
+
+    private ResourceCatalog catalog;
+
+    @AfterEach
+    public void destroyCatalog() {
+        if (catalog != null) {
+            catalog.destroy();
+        }
+    }
+
+    @Test
+    public void highestMatchingVersionIsReturned() throws Exception {
+        createFiles("app__V1.0.jar", "app__V1.2.jar", "app__V2.0.jar", "other__V3.0.jar");
+        catalog = createCatalog(ResourceCatalog.DEFAULT_REFRESH_MILLIS, false);
+
+        Assertions.assertEquals("/lib/app__V2.0.jar", lookup("/lib/app.jar", "1.0+").getPath());
+        Assertions.assertEquals("/lib/app__V1.2.jar", lookup("/lib/app.jar", "1*").getPath());
+        Assertions.assertEquals("/lib/app__V1.2.jar", lookup("/lib/app.jar", "1.2").getPath());
+        Assertions.assertEquals("/lib/app__V1.0.jar", lookup("/lib/app.jar", "1.0").getPath());
+        Assertions.assertEquals("/lib/app__V1.0.jar", lookup("/lib/app.jar", "1.1 1.0").getPath());
+        Assertions.assertThrows(ErrorResponseException.class, () -> lookup("/lib/app.jar", "1.1"));
+        Assertions.assertThrows(ErrorResponseException.class, () -> lookup("/lib/missing.jar", "1.0"));
+    }
+
+    @Test
+    public void missesAreRememberedUntilTheDirectoryIsValidated() throws Exception {
+        createFiles("app__V1.0.jar");
+        catalog = createCatalog(60_000, false);
+
+        Assertions.assertThrows(ErrorResponseException.class, () -> lookup("/lib/app.jar", "2.0"));
+        createFiles("app__V2.0.jar");
+        Assertions.assertThrows(ErrorResponseException.class, () -> lookup("/lib/app.jar", "2.0"));
+    }
+
+    @Test
+    public void changedDirectoryIsRescannedAfterRefreshInterval() throws Exception {
+        createFiles("app__V1.0.jar");
+        catalog = createCatalog(0, false);
+
+        Assertions.assertThrows(ErrorResponseException.class, () -> lookup("/lib/app.jar", "2.0"));
+        createFiles("app__V2.0.jar");
+        final File lib = folder.resolve("lib").toFile();
+        lib.setLastModified(lib.lastModified() + 10_000);
+        Assertions.assertEquals("/lib/app__V2.0.jar", lookup("/lib/app.jar", "2.0").getPath());
+    }
+
+    @Test
+    public void watchedDirectoryIsRescannedOnChange() throws Exception {
+        createFiles("app__V1.0.jar");
+        catalog = createCatalog(60_000, true);
+
+        Assertions.assertThrows(ErrorResponseException.class, () -> lookup("/lib/app.jar", "2.0"));
+        createFiles("app__V2.0.jar");
+
+        final long deadline = System.currentTimeMillis() + 30_000;
+        while (true) {
+            try {
+                Assertions.assertEquals("/lib/app__V2.0.jar", lookup("/lib/app.jar", "2.0").getPath());
+                return;
+            } catch (ErrorResponseException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    private void createFiles(final String... names) throws Exception {
+        final Path lib = Files.createDirectories(folder.resolve("lib"));
+        for (String name : names) {
+            Files.write(lib.resolve(name), name.getBytes());
+        }
+    }
+
+    private ResourceCatalog createCatalog(final long refreshMillis, final boolean watch) {
+        final ServletContext context = (ServletContext) Proxy.newProxyInstance(
+                ResourceCatalogTest.class.getClassLoader(), new Class<?>[]{ServletContext.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getRealPath":
+                            return folder.resolve(((String) args[0]).substring(1)).toString();
+                        case "getResource":
+                            final File file = folder.resolve(((String) args[0]).substring(1)).toFile();
+                            return file.exists() ? file.toURI().toURL() : null;
+                        default:
+                            return null;
+                    }
+                });
+        final ServletConfig config = (ServletConfig) Proxy.newProxyInstance(
+                ResourceCatalogTest.class.getClassLoader(), new Class<?>[]{ServletConfig.class}, (proxy, method, args) ->
+                        "getServletContext".equals(method.getName()) ? context : null);
+        return new ResourceCatalog(context, new Logger(config, JnlpDownloadServlet.getResourceBundle()), refreshMillis, watch);
+    }
+
+    private JnlpResource lookup(final String path, final String version) throws ErrorResponseException {
+        final Map<String, String> parameters = new HashMap<>();
+        parameters.put("version-id", version);
+        final HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+                ResourceCatalogTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getRequestURI":
+                            return path;
+                        case "getContextPath":
+                            return "";
+                        case "getParameter":
+                            return parameters.get(args[0]);
+                        default:
+                            return null;
+                    }
+                });
+        return catalog.lookupResource(new DownloadRequest(request));
+    }
+}
@@ -45,12 +45,11 @@ import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 
+import java.io.CharArrayReader;
+import java.io.CharArrayWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
-import java.io.StringReader;
-import java.io.StringWriter;
-import java.io.Writer;
 
 import static net.adoptopenjdk.icedteaweb.xmlparser.ParserType.MALFORMED;
 
@@ -89,15 +88,27 @@ public class MalformedXMLParser extends XMLParser {
             reader.setFeature(Parser.ignorableWhitespaceFeature, true);
             reader.setFeature(Parser.ignoreBogonsFeature, false);
 
-            final Writer writer = new StringWriter();
+            final OutputBuffer writer = new OutputBuffer();
             final XMLWriter xmlWriter = new XMLWriter(writer);
             reader.setContentHandler(xmlWriter);
             final InputSource s = new InputSource(original);
             reader.parse(s);
-            return new StringReader(writer.toString());
+            return writer.toReader();
         } catch (final SAXException | IOException e1) {
             throw new ParseException("Invalid XML document syntax.", e1);
         }
     }
 
+    /**
+     * Holds the well-formed XML written by TagSoup, which is then read without copying it into a String.
+     */
+    private static class OutputBuffer extends CharArrayWriter {
+        private OutputBuffer() {
+            super(8192);
+        }
+
+        private Reader toReader() {
+            return new CharArrayReader(buf, 0, count);
+        }
+    }
 }
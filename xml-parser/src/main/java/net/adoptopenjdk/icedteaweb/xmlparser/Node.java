@@ -64,6 +64,10 @@ public class Node {
         this.xml = Objects.requireNonNull(xml);
     }
 
+    XMLElement getXml() {
+        return xml;
+    }
+
     public Node getFirstChild() {
         if (children == null) {
             getChildNodes();
@@ -0,0 +1,107 @@
+package net.adoptopenjdk.icedteaweb.xmlparser;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact binary form of a parsed XML tree. Reading it back is much cheaper than parsing the XML again,
+ * so it can be stored next to a file which is parsed over and over.
+ * <p>
+ * The format is: a magic number, then per element its name, content, attributes and children.
+ * Strings are written as length prefixed UTF-8.
+ */
+public final class NodeCodec {
+
+    private static final int MAGIC = 0x49544e01; // "ITN" and the format version
+
+    private static final int NULL_STRING = -1;
+
+    private NodeCodec() {
+    }
+
+    /**
+     * @param root the root of the tree to write
+     * @param out where to write the tree to
+     * @throws IOException if writing fails
+     */
+    public static void write(final Node root, final DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        writeElement(root.getXml(), out);
+    }
+
+    /**
+     * @param in where to read the tree from
+     * @return the root of the tree, equal to the one which was written
+     * @throws IOException if reading fails or the data was not written by {@link #write(Node, DataOutput)}
+     */
+    public static Node read(final DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a parsed XML tree or written by a different version");
+        }
+        final XMLElement root = new XMLElement();
+        readElement(root, in);
+        return new Node(root);
+    }
+
+    private static void writeElement(final XMLElement element, final DataOutput out) throws IOException {
+        writeString(element.getName(), out);
+        writeString(element.getContent(), out);
+
+        final List<?> names = Collections.list(element.enumerateAttributeNames());
+        out.writeInt(names.size());
+        for (final Object name : names) {
+            writeString((String) name, out);
+            writeString((String) element.getAttribute((String) name), out);
+        }
+
+        final List<XMLElement> children = Collections.list(element.enumerateChildren());
+        out.writeInt(children.size());
+        for (final XMLElement child : children) {
+            writeElement(child, out);
+        }
+    }
+
+    private static void readElement(final XMLElement element, final DataInput in) throws IOException {
+        element.setName(readString(in));
+        element.setContent(readString(in));
+
+        final int attributeCount = in.readInt();
+        for (int i = 0; i < attributeCount; i++) {
+            element.setAttribute(readString(in), readString(in));
+        }
+
+        final int childCount = in.readInt();
+        for (int i = 0; i < childCount; i++) {
+            final XMLElement child = element.createAnotherElement();
+            readElement(child, in);
+            element.addChild(child);
+        }
+    }
+
+    private static void writeString(final String value, final DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInput in) throws IOException {
+        final int length = in.readInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Corrupt parsed XML tree");
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -32,11 +32,13 @@ package net.adoptopenjdk.icedteaweb.xmlparser;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Vector;
 
 /**
  * XMLElement is a representation of an XML object. The object is able to parse
@@ -125,7 +127,7 @@ public class XMLElement {
      *         or a subclass of {@code XMLElement}.</li>
      * </ul></dd></dl>
      */
-    private final Vector<XMLElement> children;
+    private final List<XMLElement> children;
 
     /**
      * The name of the element.
@@ -268,7 +270,7 @@ public class XMLElement {
         this.name = null;
         this.contents = "";
         this.attributes = new HashMap<>();
-        this.children = new Vector<>();
+        this.children = new ArrayList<>();
         this.entities = Objects.requireNonNull(entities);
 
         if (fillBasicConversionTable) {
@@ -299,8 +301,8 @@ public class XMLElement {
      * </ul></dd></dl>
      *
      */
-    private void addChild(final XMLElement child) {
-        this.children.addElement(child);
+    void addChild(final XMLElement child) {
+        this.children.add(child);
     }
 
     /**
@@ -324,8 +326,8 @@ public class XMLElement {
      *         =&gt; value</li>
      * </ul></dd></dl>
      */
-    private void setAttribute(final String name,
-                              final Object value) {
+    void setAttribute(final String name,
+                      final Object value) {
         if (this.ignoreCase) {
             this.attributes.put(name.toUpperCase(), value.toString());
         } else {
@@ -342,7 +344,7 @@ public class XMLElement {
      */
     @SuppressWarnings("unchecked")
     public Enumeration enumerateAttributeNames() {
-        return new Vector(this.attributes.keySet()).elements();
+        return Collections.enumeration(this.attributes.keySet());
     }
 
     /**
@@ -353,7 +355,7 @@ public class XMLElement {
      * </ul></dd></dl>
      */
     public Enumeration<XMLElement> enumerateChildren() {
-        return this.children.elements();
+        return Collections.enumeration(this.children);
     }
 
     /**
@@ -447,7 +449,7 @@ public class XMLElement {
      * </p>
      * @return next element in tree based on global settings
      */
-    private XMLElement createAnotherElement() {
+    XMLElement createAnotherElement() {
         return new XMLElement(this.entities,
                               this.ignoreWhitespace,
                               false,
@@ -460,7 +462,7 @@ public class XMLElement {
      * @param content
      *     The new content string.
      */
-    private void setContent(final String content) {
+    void setContent(final String content) {
         this.contents = content;
     }
 
@@ -475,7 +477,7 @@ public class XMLElement {
      *     <li>{@code name} is a valid XML identifier</li>
      * </ul></dd></dl>
      */
-    private void setName(final String name) {
+    void setName(final String name) {
         this.name = name;
     }
 
@@ -498,7 +500,7 @@ public class XMLElement {
      * </ul></dd></dl>
      * @throws java.io.IOException if something goes wrong
      */
-    private void scanIdentifier(final StringBuffer result)
+    private void scanIdentifier(final StringBuilder result)
             throws IOException {
         Objects.requireNonNull(result);
         for (;;) {
@@ -573,7 +575,7 @@ public class XMLElement {
      * </ul></dd></dl>
      * @throws java.io.IOException if something goes wrong
      */
-    private char scanWhitespace(final StringBuffer result)
+    private char scanWhitespace(final StringBuilder result)
             throws IOException {
         Objects.requireNonNull(result);
         while (true) {
@@ -603,7 +605,7 @@ public class XMLElement {
      * @param string where to append the result
      * @throws java.io.IOException if something goes wrong
      */
-    private void scanString(final StringBuffer string)
+    private void scanString(final StringBuilder string)
             throws IOException {
         final char delimiter = this.readChar();
         if ((delimiter != '\'') && (delimiter != '"')) {
@@ -635,7 +637,7 @@ public class XMLElement {
      * @param data where to append data
      * @throws java.io.IOException if something goes wrong
      */
-    private void scanPCData(final StringBuffer data)
+    private void scanPCData(final StringBuilder data)
             throws IOException {
         for (;;) {
             char ch = this.readChar();
@@ -667,7 +669,7 @@ public class XMLElement {
      * @return whether the CDATA were ok
      * @throws java.io.IOException if something goes wrong
      */
-    private boolean checkCDATA(final StringBuffer buf)
+    private boolean checkCDATA(final StringBuilder buf)
             throws IOException {
         char ch = this.readChar();
         if (ch != '[') {
@@ -872,7 +874,7 @@ public class XMLElement {
      */
     private void scanElement(final XMLElement elt)
             throws IOException {
-        final StringBuffer buf = new StringBuffer();
+        final StringBuilder buf = new StringBuilder();
         this.scanIdentifier(buf);
         final String lname = buf.toString();
         elt.setName(lname);
@@ -983,7 +985,7 @@ public class XMLElement {
      * </ul></dd></dl>
      * @throws java.io.IOException if something goes wrong
      */
-    private void resolveEntity(final StringBuffer buf)
+    private void resolveEntity(final StringBuilder buf)
             throws IOException {
         char ch = '\0';
         final StringBuilder keyBuf = new StringBuilder();
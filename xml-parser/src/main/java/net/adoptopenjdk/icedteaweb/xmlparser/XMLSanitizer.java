@@ -16,86 +16,132 @@
 
 package net.adoptopenjdk.icedteaweb.xmlparser;
 
+import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
-import java.io.StringWriter;
-import java.io.Writer;
 
-class XMLSanitizer {
+/**
+ * Reader which removes the comments from an xml file while it is read, leaving only relevant xml code.
+ * The input is read in blocks, so the parser reading single characters does not hit the (synchronized)
+ * decoding reader for every character and no copy of the document is created.
+ */
+class XMLSanitizer extends Reader {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader in;
+    private final char[] input = new char[BUFFER_SIZE];
+    private int inputPosition;
+    private int inputLimit;
+
+    private final char[] buffer = new char[4];
+    private int charInBuffer;
+    private boolean inComment;
+    private boolean endOfInput;
+    private int drained;
+
+    private XMLSanitizer(final Reader in) {
+        this.in = in;
+    }
 
     /**
-     * Reads an xml file and removes the comments, leaving only relevant
-     * xml code.
+     * Wraps a reader of an xml file such that the comments are skipped.
      *
      * @param in  The reader of the containing the xml.
      * @return  A new reader for the sanitized xml
      */
     static Reader sanitizeXml(final Reader in) {
-        final StringWriter out = new StringWriter();
-        sanitizeInput(in, out);
-        return new StringReader(out.toString());
+        return new XMLSanitizer(in);
     }
 
-    private static void sanitizeInput(final Reader in, final Writer out) {
-        try {
-            final char[] buffer = new char[4];
-            int charInBuffer = 0;
-            boolean inComment = false;
-
-            while (true) {
-                // fill the buffer
-                for (; charInBuffer < 4; charInBuffer++) {
-                    final int ch = in.read();
-                    if (ch == -1) {
-                        // end of input stream
-                        // write buffered content and flush
-                        if (!inComment) {
-                            for (int i = 0; i < charInBuffer; i++) {
-                                out.write(buffer[i]);
-                            }
-                        }
-                        out.flush();
-                        return;
-                    }
-                    buffer[charInBuffer] = (char) ch;
+    @Override
+    public int read() throws IOException {
+        while (true) {
+            if (endOfInput) {
+                // write buffered content unless the input ended inside a comment
+                return drained < charInBuffer ? buffer[drained++] : -1;
+            }
+            if (!fillBuffer()) {
+                endOfInput = true;
+                if (inComment) {
+                    charInBuffer = 0;
                 }
+                continue;
+            }
 
-                // at this point the buffer is always full
-                if (inComment) {
-                    if (buffer[0] == '-' && buffer[1] == '-' && buffer[2] == '>') {
-                        // end of comment
-                        // prepare buffer for refilling
-                        buffer[0] = buffer[3];
-                        charInBuffer = 1;
-                        inComment = false;
-                    } else {
-                        // shift buffer content one to the left
-                        // and drop buffer[0]
-                        buffer[0] = buffer[1];
-                        buffer[1] = buffer[2];
-                        buffer[2] = buffer[3];
-                        charInBuffer--;
-                    }
+            // at this point the buffer is always full
+            if (inComment) {
+                if (buffer[0] == '-' && buffer[1] == '-' && buffer[2] == '>') {
+                    // end of comment
+                    // prepare buffer for refilling
+                    buffer[0] = buffer[3];
+                    charInBuffer = 1;
+                    inComment = false;
+                } else {
+                    // drop buffer[0]
+                    shift();
+                }
+            } else {
+                if (buffer[0] == '<' && buffer[1] == '!' && buffer[2] == '-' && buffer[3] == '-') {
+                    // start of comment
+                    // prepare buffer for refilling
+                    charInBuffer = 0;
+                    inComment = true;
                 } else {
-                    if (buffer[0] == '<' && buffer[1] == '!' && buffer[2] == '-' && buffer[3] == '-') {
-                        // start of comment
-                        // prepare buffer for refilling
-                        charInBuffer = 0;
-                        inComment = true;
-                    } else {
-                        // shift buffer content one to the left
-                        // and write out buffer[0]
-                        out.write(buffer[0]);
-                        out.flush();
-                        buffer[0] = buffer[1];
-                        buffer[1] = buffer[2];
-                        buffer[2] = buffer[3];
-                        charInBuffer--;
-                    }
+                    // hand out buffer[0]
+                    final char ch = buffer[0];
+                    shift();
+                    return ch;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int count = 0;
+        while (count < len) {
+            final int ch = read();
+            if (ch == -1) {
+                return count == 0 ? -1 : count;
+            }
+            cbuf[off + count++] = (char) ch;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * @return false if the end of the input was reached before the buffer is full
+     */
+    private boolean fillBuffer() throws IOException {
+        for (; charInBuffer < 4; charInBuffer++) {
+            if (inputPosition == inputLimit) {
+                final int read = in.read(input, 0, input.length);
+                if (read == -1) {
+                    return false;
                 }
+                inputPosition = 0;
+                inputLimit = read;
             }
-        } catch (final Exception e) {
-            throw new RuntimeException("Error in XML", e);
+            buffer[charInBuffer] = input[inputPosition++];
         }
+        return true;
+    }
+
+    /**
+     * Shifts the buffer content one to the left.
+     */
+    private void shift() {
+        buffer[0] = buffer[1];
+        buffer[1] = buffer[2];
+        buffer[2] = buffer[3];
+        charInBuffer--;
     }
 }
@@ -0,0 +1,66 @@
+package net.adoptopenjdk.icedteaweb.xmlparser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static net.adoptopenjdk.icedteaweb.xmlparser.XMLSanitizer.sanitizeXml;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class XMLSanitizerTest {
+
+    @Test
+    public void commentsAreRemoved() throws IOException {
+        assertThat(sanitize("<a><!-- comment --><b/></a>"), is("<a><b/></a>"));
+        assertThat(sanitize("<!---->x<!-- a -- b -->y"), is("xy"));
+        assertThat(sanitize("<a x=\"<!-- c -->1\"/>"), is("<a x=\"1\"/>"));
+    }
+
+    @Test
+    public void inputWithoutCommentsIsUnchanged() throws IOException {
+        assertThat(sanitize(""), is(""));
+        assertThat(sanitize("<a"), is("<a"));
+        assertThat(sanitize("<a><!- b -></a>"), is("<a><!- b -></a>"));
+    }
+
+    @Test
+    public void unterminatedCommentIsDropped() throws IOException {
+        assertThat(sanitize("<a/><!-- open"), is("<a/>"));
+        assertThat(sanitize("<a/><!--"), is("<a/>"));
+    }
+
+    @Test
+    public void commentsAcrossReadBlocksAreRemoved() throws IOException {
+        final char[] filler = new char[8190];
+        Arrays.fill(filler, 'x');
+        final String text = new String(filler);
+
+        assertThat(sanitize(text + "<!-- comment -->" + text + "<!-- comment -->"), is(text + text));
+    }
+
+    @Test
+    public void blockReadsReturnSameContent() throws IOException {
+        final Reader reader = sanitizeXml(new StringReader("<a><!-- c --><b/></a>"));
+        final char[] buffer = new char[5];
+        final StringBuilder result = new StringBuilder();
+        int read;
+        while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+            result.append(buffer, 0, read);
+        }
+        assertThat(result.toString(), is("<a><b/></a>"));
+    }
+
+    private static String sanitize(final String xml) throws IOException {
+        final Reader reader = sanitizeXml(new StringReader(xml));
+        final StringBuilder result = new StringBuilder();
+        int ch;
+        while ((ch = reader.read()) != -1) {
+            result.append((char) ch);
+        }
+        return result.toString();
+    }
+}